@@ -0,0 +1,94 @@
+package org.sredi.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * BLMOVE source destination LEFT|RIGHT LEFT|RIGHT timeout, the blocking form of LMOVE.
+ * A served move is replicated as the equivalent LMOVE.
+ */
+public class BLMoveCommand extends Command {
+
+    private String source;
+    private String destination;
+    private boolean fromLeft;
+    private boolean toLeft;
+    private long timeoutMillis;
+    private boolean servedImmediately;
+
+    public BLMoveCommand() {
+        super(Type.BLMOVE);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":string", // source
+                ":string", // destination
+                ":string", // LEFT | RIGHT
+                ":string", // LEFT | RIGHT
+                ":string"  // timeout
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.source = optionsMap.get("1").getValueAsString();
+        this.destination = optionsMap.get("2").getValueAsString();
+        this.fromLeft = LMoveCommand.readDirection(optionsMap.get("3"));
+        this.toLeft = LMoveCommand.readDirection(optionsMap.get("4"));
+        this.timeoutMillis = readTimeoutMillis(optionsMap.get("5"));
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            byte[] moved = service.lmove(source, destination, fromLeft, toLeft);
+            if (moved != null) {
+                servedImmediately = true;
+                return new RespBulkString(moved).asResponse();
+            }
+            boolean blocked = service.block(List.of(source), getLockKeys(), timeoutMillis, RespConstants.NULL, key -> {
+                byte[] value = service.lmove(source, destination, fromLeft, toLeft);
+                if (value == null) {
+                    return null;
+                }
+                service.replicate(asLMove());
+                return new RespBulkString(value).asResponse();
+            });
+            return blocked ? null : RespConstants.NULL;
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    private LMoveCommand asLMove() {
+        return new LMoveCommand(source, destination, fromLeft, toLeft);
+    }
+
+    @Override
+    public boolean isReplicatedCommand() {
+        return servedImmediately;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return asLMove().asCommand();
+    }
+
+    @Override
+    public String getKey() { return source; }
+
+    @Override
+    public List<String> getLockKeys() { return List.of(source, destination); }
+
+    @Override
+    public String toString() {
+        return "BLMoveCommand [source=" + source + ", destination=" + destination
+                + ", timeoutMillis=" + timeoutMillis + "]";
+    }
+}
@@ -0,0 +1,98 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * BRPOP key [key ...] timeout. Pops from the first non-empty key right away; otherwise the
+ * client is parked in the BlockingManager and served by a later push without holding a thread.
+ * The pop is replicated as a plain RPOP of the key it was served from.
+ */
+public class BRPopCommand extends Command {
+
+    private List<String> keys;
+    private long timeoutMillis;
+    private String servedKey; // set when served immediately, so the pop is replicated with this command
+
+    public BRPopCommand() {
+        super(Type.BRPOP);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":var"     // keys followed by timeout
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        RespValue[] rest = ((RespArrayValue) optionsMap.get("1")).getValues();
+        if (rest.length < 2) {
+            throw new IllegalArgumentException("BRPOP: wrong number of arguments");
+        }
+        this.keys = new ArrayList<>(rest.length - 1);
+        for (int i = 0; i < rest.length - 1; i++) {
+            keys.add(rest[i].getValueAsString());
+        }
+        this.timeoutMillis = readTimeoutMillis(rest[rest.length - 1]);
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            for (String key : keys) {
+                byte[] value = service.rpop(key);
+                if (value != null) {
+                    servedKey = key;
+                    return reply(key, value);
+                }
+            }
+            boolean blocked = service.block(keys, timeoutMillis, RespConstants.NULL_ARRAY, key -> {
+                byte[] value = service.rpop(key);
+                if (value == null) {
+                    return null;
+                }
+                service.replicate(new RPopCommand(key));
+                return reply(key, value);
+            });
+            return blocked ? null : RespConstants.NULL_ARRAY;
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    private static byte[] reply(String key, byte[] value) {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(key.getBytes()),
+                new RespBulkString(value)
+        }).asResponse();
+    }
+
+    @Override
+    public boolean isReplicatedCommand() {
+        return servedKey != null;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RPopCommand(servedKey).asCommand();
+    }
+
+    @Override
+    public String getKey() { return keys.get(0); }
+
+    @Override
+    public List<String> getLockKeys() { return keys; }
+
+    @Override
+    public String toString() {
+        return "BRPopCommand [keys=" + keys + ", timeoutMillis=" + timeoutMillis + "]";
+    }
+}
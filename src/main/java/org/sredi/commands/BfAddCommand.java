@@ -8,8 +8,8 @@ import org.sredi.resp.RespBulkString;
 import org.sredi.resp.RespInteger;
 import org.sredi.resp.RespSimpleErrorValue;
 import org.sredi.resp.RespValue;
-import org.sredi.storage.BloomFilter;
 import org.sredi.storage.Orchestrator;
+import org.sredi.storage.ScalableBloomFilter;
 
 public class BfAddCommand extends Command {
 
@@ -40,7 +40,7 @@ public class BfAddCommand extends Command {
     @Override
     public byte[] execute(Orchestrator service) {
         try {
-            BloomFilter bf = service.bfGetOrCreate(key, DEFAULT_CAPACITY, DEFAULT_ERROR_RATE);
+            ScalableBloomFilter bf = service.bfGetOrCreate(key, DEFAULT_CAPACITY, DEFAULT_ERROR_RATE);
             boolean added = bf.add(item.getBytes(StandardCharsets.UTF_8));
             return new RespInteger(added ? 1 : 0).asResponse();
         } catch (IllegalStateException e) {
@@ -48,6 +48,11 @@ public class BfAddCommand extends Command {
         }
     }
 
+    @Override
+    public boolean isExclusiveKeyLock() {
+        return false;
+    }
+
     @Override
     public byte[] asCommand() {
         return new RespArrayValue(new RespValue[] {
@@ -6,8 +6,8 @@ import java.util.Map;
 import org.sredi.resp.RespInteger;
 import org.sredi.resp.RespSimpleErrorValue;
 import org.sredi.resp.RespValue;
-import org.sredi.storage.BloomFilter;
 import org.sredi.storage.Orchestrator;
+import org.sredi.storage.ScalableBloomFilter;
 
 public class BfExistsCommand extends Command {
 
@@ -35,7 +35,7 @@ public class BfExistsCommand extends Command {
     @Override
     public byte[] execute(Orchestrator service) {
         try {
-            BloomFilter bf = service.bfGet(key);
+            ScalableBloomFilter bf = service.bfGet(key);
             if (bf == null) {
                 return new RespInteger(0).asResponse();
             }
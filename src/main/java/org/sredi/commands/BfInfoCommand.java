@@ -0,0 +1,97 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.ScalableBloomFilter;
+
+/**
+ * BF.INFO key [CAPACITY | SIZE | FILTERS | ITEMS | EXPANSION]. Without a field the reply is the
+ * name/value list of all of them; with one it is just that value. Expansion is nil for
+ * non-scaling filters.
+ */
+public class BfInfoCommand extends Command {
+
+    private static final String WIRE_NAME = "BF.INFO";
+    private static final List<String> FIELDS = List.of("CAPACITY", "SIZE", "FILTERS", "ITEMS", "EXPANSION");
+
+    private String key;
+    private String field;
+
+    public BfInfoCommand() {
+        super(Type.BF_INFO);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                "[capacity size filters items expansion]"
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        for (String name : FIELDS) {
+            if (optionsMap.containsKey(name.toLowerCase())) {
+                this.field = name;
+            }
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            ScalableBloomFilter bf = service.bfGet(key);
+            if (bf == null) {
+                return new RespSimpleErrorValue("ERR not found").asResponse();
+            }
+            if (field != null) {
+                return RespValue.array(fieldValue(bf, field)).asResponse();
+            }
+            List<RespValue> values = new ArrayList<>();
+            values.add(bulk("Capacity"));
+            values.add(fieldValue(bf, "CAPACITY"));
+            values.add(bulk("Size"));
+            values.add(fieldValue(bf, "SIZE"));
+            values.add(bulk("Number of filters"));
+            values.add(fieldValue(bf, "FILTERS"));
+            values.add(bulk("Number of items inserted"));
+            values.add(fieldValue(bf, "ITEMS"));
+            values.add(bulk("Expansion rate"));
+            values.add(fieldValue(bf, "EXPANSION"));
+            return RespValue.array(values).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    private static RespValue fieldValue(ScalableBloomFilter bf, String field) {
+        return switch (field) {
+            case "CAPACITY" -> new RespInteger(bf.getCapacity());
+            case "SIZE" -> new RespInteger(bf.getSizeInBytes());
+            case "FILTERS" -> new RespInteger(bf.getFilters().size());
+            case "ITEMS" -> new RespInteger(bf.getItemCount());
+            default -> bf.isNonScaling() ? RespConstants.NULL_VALUE : new RespInteger(bf.getExpansion());
+        };
+    }
+
+    private static RespBulkString bulk(String value) {
+        return new RespBulkString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "BfInfoCommand [key=" + key + ", field=" + field + "]";
+    }
+}
@@ -0,0 +1,139 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.ScalableBloomFilter;
+
+/**
+ * BF.INSERT key [CAPACITY capacity] [ERROR error] [EXPANSION expansion | NONSCALING] [NOCREATE]
+ * ITEMS item [item ...]. Like BF.MADD, but the options size the filter if the key is created
+ * here; with NOCREATE a missing key is an error instead.
+ */
+public class BfInsertCommand extends Command {
+
+    private static final String WIRE_NAME = "BF.INSERT";
+
+    private String key;
+    private long capacity = BfAddCommand.DEFAULT_CAPACITY;
+    private double errorRate = BfAddCommand.DEFAULT_ERROR_RATE;
+    private int expansion = ScalableBloomFilter.DEFAULT_EXPANSION;
+    private boolean nonScaling;
+    private boolean noCreate;
+    private List<byte[]> items;
+
+    public BfInsertCommand() {
+        super(Type.BF_INSERT);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                "[capacity:int]",
+                "[error:string]",
+                "[expansion:int nonscaling]",
+                "[nocreate]",
+                "<items:var>"
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.noCreate = optionsMap.containsKey("nocreate");
+        if (noCreate && (optionsMap.containsKey("capacity") || optionsMap.containsKey("error"))) {
+            throw new IllegalArgumentException(
+                    WIRE_NAME + ": NOCREATE cannot be used together with CAPACITY or ERROR");
+        }
+        if (optionsMap.containsKey("capacity")) {
+            this.capacity = optionsMap.get("capacity").getValueAsLong();
+        }
+        if (optionsMap.containsKey("error")) {
+            String errorRateStr = optionsMap.get("error").getValueAsString();
+            try {
+                this.errorRate = Double.parseDouble(errorRateStr);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(WIRE_NAME + ": Invalid error rate: " + errorRateStr);
+            }
+        }
+        this.nonScaling = optionsMap.containsKey("nonscaling");
+        if (optionsMap.containsKey("expansion")) {
+            long requested = optionsMap.get("expansion").getValueAsLong();
+            if (requested < 1 || requested > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        WIRE_NAME + ": Expansion should be greater or equal to 1");
+            }
+            this.expansion = (int) requested;
+        }
+        this.items = BfMaddCommand.readItems(((RespArrayValue) optionsMap.get("items")).getValues());
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException(WIRE_NAME + ": wrong number of arguments");
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            ScalableBloomFilter bf = noCreate
+                    ? service.bfGet(key)
+                    : service.bfGetOrCreate(key, capacity, errorRate, expansion, nonScaling);
+            if (bf == null) {
+                return new RespSimpleErrorValue("ERR not found").asResponse();
+            }
+            return BfMaddCommand.addReply(bf, items);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public boolean isExclusiveKeyLock() {
+        return false;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(items.size() + 12);
+        values.add(bulk(WIRE_NAME));
+        values.add(bulk(key));
+        if (noCreate) {
+            values.add(bulk("NOCREATE"));
+        } else {
+            values.add(bulk("CAPACITY"));
+            values.add(bulk(String.valueOf(capacity)));
+            values.add(bulk("ERROR"));
+            values.add(bulk(String.valueOf(errorRate)));
+        }
+        if (nonScaling) {
+            values.add(bulk("NONSCALING"));
+        } else {
+            values.add(bulk("EXPANSION"));
+            values.add(bulk(String.valueOf(expansion)));
+        }
+        values.add(bulk("ITEMS"));
+        for (byte[] item : items) {
+            values.add(new RespBulkString(item));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    private static RespBulkString bulk(String value) {
+        return new RespBulkString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "BfInsertCommand [key=" + key + ", capacity=" + capacity + ", errorRate=" + errorRate
+                + ", expansion=" + expansion + ", nonScaling=" + nonScaling + ", noCreate=" + noCreate
+                + ", items=" + items.size() + "]";
+    }
+}
@@ -0,0 +1,98 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.ScalableBloomFilter;
+
+/**
+ * BF.MADD key item [item ...]. The filter is looked up once and all items are hashed before any
+ * is inserted; the reply has one integer per item. Replicates as a single command.
+ */
+public class BfMaddCommand extends Command {
+
+    static final String FILTER_FULL = "ERR non scaling filter is full";
+
+    private static final String WIRE_NAME = "BF.MADD";
+
+    private String key;
+    private List<byte[]> items;
+
+    public BfMaddCommand() {
+        super(Type.BF_MADD);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // items
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.items = readItems(((RespArrayValue) optionsMap.get("2")).getValues());
+    }
+
+    static List<byte[]> readItems(RespValue[] values) {
+        List<byte[]> items = new ArrayList<>(values.length);
+        for (RespValue v : values) {
+            items.add(v.asBulkString().getValue());
+        }
+        return items;
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            ScalableBloomFilter bf = service.bfGetOrCreate(key, BfAddCommand.DEFAULT_CAPACITY,
+                    BfAddCommand.DEFAULT_ERROR_RATE);
+            return addReply(bf, items);
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    // One integer per item; items past the point where a non-scaling filter filled up get an error
+    static byte[] addReply(ScalableBloomFilter bf, List<byte[]> items) {
+        boolean[] added = new boolean[items.size()];
+        int processed = bf.addAll(items, added);
+        RespValue[] reply = new RespValue[items.size()];
+        for (int i = 0; i < reply.length; i++) {
+            reply[i] = i < processed ? new RespInteger(added[i] ? 1 : 0) : new RespSimpleErrorValue(FILTER_FULL);
+        }
+        return RespValue.array(reply).asResponse();
+    }
+
+    @Override
+    public boolean isExclusiveKeyLock() {
+        return false;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(items.size() + 2);
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(key.getBytes(StandardCharsets.UTF_8)));
+        for (byte[] item : items) {
+            values.add(new RespBulkString(item));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "BfMaddCommand [key=" + key + ", items=" + items.size() + "]";
+    }
+}
@@ -0,0 +1,61 @@
+package org.sredi.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.ScalableBloomFilter;
+
+/**
+ * BF.MEXISTS key item [item ...]. One integer per item; all zeros if the key does not exist.
+ */
+public class BfMexistsCommand extends Command {
+
+    private static final String WIRE_NAME = "BF.MEXISTS";
+
+    private String key;
+    private List<byte[]> items;
+
+    public BfMexistsCommand() {
+        super(Type.BF_MEXISTS);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // items
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.items = BfMaddCommand.readItems(((RespArrayValue) optionsMap.get("2")).getValues());
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            ScalableBloomFilter bf = service.bfGet(key);
+            boolean[] present = bf == null ? new boolean[items.size()] : bf.mightContainAll(items);
+            RespValue[] reply = new RespValue[present.length];
+            for (int i = 0; i < reply.length; i++) {
+                reply[i] = new RespInteger(present[i] ? 1 : 0);
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "BfMexistsCommand [key=" + key + ", items=" + items.size() + "]";
+    }
+}
@@ -1,6 +1,8 @@
 package org.sredi.commands;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.sredi.resp.RespArrayValue;
@@ -9,7 +11,14 @@ import org.sredi.resp.RespConstants;
 import org.sredi.resp.RespSimpleErrorValue;
 import org.sredi.resp.RespValue;
 import org.sredi.storage.Orchestrator;
+import org.sredi.storage.ScalableBloomFilter;
 
+/**
+ * BF.RESERVE key error_rate capacity [EXPANSION expansion | NONSCALING] [BLOCKED]. A full filter
+ * grows by a layer EXPANSION times larger (default 2) unless NONSCALING is given, in which case
+ * adds fail once capacity is reached (see ScalableBloomFilter). BLOCKED keeps each item's bits in
+ * one 512-bit block, trading some accuracy for one memory access per lookup (see BloomFilter).
+ */
 public class BfReserveCommand extends Command {
 
     private static final String WIRE_NAME = "BF.RESERVE";
@@ -17,6 +26,9 @@ public class BfReserveCommand extends Command {
     private String key;
     private double errorRate;
     private long capacity;
+    private int expansion;
+    private boolean nonScaling;
+    private boolean blocked;
 
     public BfReserveCommand() {
         super(Type.BF_RESERVE);
@@ -28,7 +40,9 @@ public class BfReserveCommand extends Command {
                 ":string", // command name
                 ":string", // key
                 ":string", // error_rate (parsed as double)
-                ":int"     // capacity
+                ":int",    // capacity
+                "[expansion:int nonscaling]",
+                "[blocked]"
         });
         Map<String, RespValue> optionsMap = argReader.readArgs(args);
         this.key = optionsMap.get("1").getValueAsString();
@@ -40,12 +54,23 @@ public class BfReserveCommand extends Command {
                     WIRE_NAME + ": Invalid error rate at index 2: " + errorRateStr);
         }
         this.capacity = optionsMap.get("3").getValueAsLong();
+        this.nonScaling = optionsMap.containsKey("nonscaling");
+        this.expansion = ScalableBloomFilter.DEFAULT_EXPANSION;
+        if (optionsMap.containsKey("expansion")) {
+            long requested = optionsMap.get("expansion").getValueAsLong();
+            if (requested < 1 || requested > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        WIRE_NAME + ": Expansion should be greater or equal to 1");
+            }
+            this.expansion = (int) requested;
+        }
+        this.blocked = optionsMap.containsKey("blocked");
     }
 
     @Override
     public byte[] execute(Orchestrator service) {
         try {
-            service.bfReserve(key, capacity, errorRate);
+            service.bfReserve(key, capacity, errorRate, expansion, nonScaling, blocked);
             return RespConstants.OK;
         } catch (IllegalStateException | IllegalArgumentException e) {
             return new RespSimpleErrorValue(e.getMessage()).asResponse();
@@ -54,12 +79,21 @@ public class BfReserveCommand extends Command {
 
     @Override
     public byte[] asCommand() {
-        return new RespArrayValue(new RespValue[] {
+        List<RespValue> values = new ArrayList<>(List.of(
                 new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)),
                 new RespBulkString(key.getBytes(StandardCharsets.UTF_8)),
                 new RespBulkString(String.valueOf(errorRate).getBytes(StandardCharsets.UTF_8)),
-                new RespBulkString(String.valueOf(capacity).getBytes(StandardCharsets.UTF_8))
-        }).asResponse();
+                new RespBulkString(String.valueOf(capacity).getBytes(StandardCharsets.UTF_8))));
+        if (nonScaling) {
+            values.add(new RespBulkString("NONSCALING".getBytes(StandardCharsets.UTF_8)));
+        } else {
+            values.add(new RespBulkString("EXPANSION".getBytes(StandardCharsets.UTF_8)));
+            values.add(new RespBulkString(String.valueOf(expansion).getBytes(StandardCharsets.UTF_8)));
+        }
+        if (blocked) {
+            values.add(new RespBulkString("BLOCKED".getBytes(StandardCharsets.UTF_8)));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
     }
 
     @Override
@@ -67,6 +101,7 @@ public class BfReserveCommand extends Command {
 
     @Override
     public String toString() {
-        return "BfReserveCommand [key=" + key + ", errorRate=" + errorRate + ", capacity=" + capacity + "]";
+        return "BfReserveCommand [key=" + key + ", errorRate=" + errorRate + ", capacity=" + capacity
+                + ", expansion=" + expansion + ", nonScaling=" + nonScaling + ", blocked=" + blocked + "]";
     }
 }
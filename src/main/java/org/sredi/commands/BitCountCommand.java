@@ -0,0 +1,111 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Bitmap;
+import org.sredi.storage.Orchestrator;
+
+// BITCOUNT key [start end [BYTE | BIT]]
+public class BitCountCommand extends Command {
+
+    private static final String WIRE_NAME = "BITCOUNT";
+
+    private String key;
+    private long start = 0;
+    private long end = -1;
+    private boolean bitUnits;
+
+    public BitCountCommand() {
+        super(Type.BITCOUNT);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        // the range is optional, and :var needs at least one
+        ArgReader argReader = new ArgReader(WIRE_NAME, args.length <= 2
+                ? new String[] {
+                        ":string", // command name
+                        ":string"  // key
+                }
+                : new String[] {
+                        ":string", // command name
+                        ":string", // key
+                        ":var"     // start end [BYTE | BIT]
+                });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        if (!optionsMap.containsKey("2")) {
+            return;
+        }
+        RespValue[] range = ((RespArrayValue) optionsMap.get("2")).getValues();
+        if (range.length < 2 || range.length > 3) {
+            throw new IllegalArgumentException(WIRE_NAME + ": syntax error");
+        }
+        this.start = readLong(range[0]);
+        this.end = readLong(range[1]);
+        if (range.length == 3) {
+            this.bitUnits = readUnits(range[2]);
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            Bitmap bitmap = service.bitmapGet(key);
+            if (bitmap == null) {
+                return new RespInteger(0).asResponse();
+            }
+            long[] bits = bitRange(start, end, bitUnits, bitmap.length());
+            return new RespInteger(bits == null ? 0 : bitmap.bitCount(bits[0], bits[1])).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    /**
+     * Resolves a BYTE or BIT range, where negative indexes count back from the end, into inclusive
+     * bit offsets within a string of length bytes; null if the range is empty.
+     */
+    static long[] bitRange(long start, long end, boolean bitUnits, long length) {
+        long total = bitUnits ? length * 8 : length;
+        if (start < 0) start = Math.max(0, start + total);
+        if (end < 0) end = Math.max(0, end + total);
+        if (end >= total) end = total - 1;
+        if (start > end) {
+            return null;
+        }
+        return bitUnits ? new long[] { start, end } : new long[] { start * 8, end * 8 + 7 };
+    }
+
+    static long readLong(RespValue arg) {
+        Long value = arg.getValueAsLong();
+        if (value == null) {
+            throw new IllegalArgumentException("ERR value is not an integer or out of range");
+        }
+        return value;
+    }
+
+    static boolean readUnits(RespValue arg) {
+        String units = arg.getValueAsString();
+        if ("BIT".equalsIgnoreCase(units)) {
+            return true;
+        }
+        if ("BYTE".equalsIgnoreCase(units)) {
+            return false;
+        }
+        throw new IllegalArgumentException("ERR syntax error");
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "BitCountCommand [key=" + key + ", start=" + start + ", end=" + end
+                + ", units=" + (bitUnits ? "BIT" : "BYTE") + "]";
+    }
+}
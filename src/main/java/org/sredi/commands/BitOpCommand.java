@@ -0,0 +1,96 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Bitmap;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * BITOP AND | OR | XOR | NOT destkey key [key ...]. Replies with the length of the result, which
+ * is as long as the longest source; an empty result deletes destkey.
+ */
+public class BitOpCommand extends Command {
+
+    private static final String WIRE_NAME = "BITOP";
+
+    private Bitmap.Op op;
+    private String destination;
+    private List<String> sources;
+
+    public BitOpCommand() {
+        super(Type.BITOP);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // operation
+                ":string", // destination
+                ":var"     // sources
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        try {
+            this.op = Bitmap.Op.valueOf(optionsMap.get("1").getValueAsString().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(WIRE_NAME + ": syntax error");
+        }
+        this.destination = optionsMap.get("2").getValueAsString();
+        RespValue[] values = ((RespArrayValue) optionsMap.get("3")).getValues();
+        if (op == Bitmap.Op.NOT && values.length != 1) {
+            throw new IllegalArgumentException("ERR BITOP NOT must be called with a single source key.");
+        }
+        this.sources = new ArrayList<>(values.length);
+        for (RespValue value : values) {
+            sources.add(value.getValueAsString());
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            Bitmap[] bitmaps = new Bitmap[sources.size()];
+            for (int i = 0; i < bitmaps.length; i++) {
+                bitmaps[i] = service.bitmapGet(sources.get(i));
+            }
+            Bitmap result = Bitmap.bitop(op, bitmaps);
+            service.bitmapStore(destination, result);
+            return new RespInteger(result.length()).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(sources.size() + 3);
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(op.name().getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(destination.getBytes(StandardCharsets.UTF_8)));
+        for (String source : sources) {
+            values.add(new RespBulkString(source.getBytes(StandardCharsets.UTF_8)));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return destination; }
+
+    @Override
+    public List<String> getLockKeys() {
+        return Command.lockKeys(destination, sources);
+    }
+
+    @Override
+    public String toString() {
+        return "BitOpCommand [op=" + op + ", destination=" + destination + ", sources=" + sources + "]";
+    }
+}
@@ -0,0 +1,98 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Bitmap;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * BITPOS key bit [start [end [BYTE | BIT]]]. As in Redis, looking for a 0 without an end treats
+ * the string as padded with zeros, so a string of all ones replies with the offset just past it.
+ */
+public class BitPosCommand extends Command {
+
+    private static final String WIRE_NAME = "BITPOS";
+
+    private String key;
+    private int bit;
+    private long start = 0;
+    private long end = -1;
+    private boolean endGiven;
+    private boolean bitUnits;
+
+    public BitPosCommand() {
+        super(Type.BITPOS);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        // the range is optional, and :var needs at least one
+        ArgReader argReader = new ArgReader(WIRE_NAME, args.length <= 3
+                ? new String[] {
+                        ":string", // command name
+                        ":string", // key
+                        ":int"     // bit
+                }
+                : new String[] {
+                        ":string", // command name
+                        ":string", // key
+                        ":int",    // bit
+                        ":var"     // start [end [BYTE | BIT]]
+                });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        long value = optionsMap.get("2").getValueAsLong();
+        if (value != 0 && value != 1) {
+            throw new IllegalArgumentException("ERR The bit argument must be 1 or 0.");
+        }
+        this.bit = (int) value;
+        if (!optionsMap.containsKey("3")) {
+            return;
+        }
+        RespValue[] range = ((RespArrayValue) optionsMap.get("3")).getValues();
+        if (range.length > 3) {
+            throw new IllegalArgumentException(WIRE_NAME + ": syntax error");
+        }
+        this.start = BitCountCommand.readLong(range[0]);
+        if (range.length >= 2) {
+            this.end = BitCountCommand.readLong(range[1]);
+            this.endGiven = true;
+        }
+        if (range.length == 3) {
+            this.bitUnits = BitCountCommand.readUnits(range[2]);
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            Bitmap bitmap = service.bitmapGet(key);
+            if (bitmap == null) {
+                return new RespInteger(bit == 1 ? -1 : 0).asResponse();
+            }
+            long[] bits = BitCountCommand.bitRange(start, end, bitUnits, bitmap.length());
+            if (bits == null) {
+                return new RespInteger(-1).asResponse();
+            }
+            long pos = bitmap.bitPos(bit, bits[0], bits[1]);
+            if (pos == -1 && bit == 0 && !endGiven) {
+                pos = bits[1] + 1;
+            }
+            return new RespInteger(pos).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "BitPosCommand [key=" + key + ", bit=" + bit + ", start=" + start + ", end=" + end + "]";
+    }
+}
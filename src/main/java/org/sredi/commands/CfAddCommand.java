@@ -0,0 +1,66 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.CuckooFilter;
+import org.sredi.storage.Orchestrator;
+
+public class CfAddCommand extends Command {
+
+    static final long DEFAULT_CAPACITY = 1024L;
+
+    private static final String WIRE_NAME = "CF.ADD";
+
+    private String key;
+    private byte[] item;
+
+    public CfAddCommand() {
+        super(Type.CF_ADD);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string"  // item
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.item = optionsMap.get("2").asBulkString().getValue();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            CuckooFilter cf = service.cfGetOrCreate(key, DEFAULT_CAPACITY);
+            cf.add(item);
+            return new RespInteger(1).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(key.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(item)
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "CfAddCommand [key=" + key + ", item=" + new String(item, StandardCharsets.UTF_8) + "]";
+    }
+}
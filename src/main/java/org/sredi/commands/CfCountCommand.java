@@ -0,0 +1,56 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.CuckooFilter;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * CF.COUNT key item. Copies of the item's fingerprint; items sharing a fingerprint and bucket
+ * pair are counted together, so this is an upper bound.
+ */
+public class CfCountCommand extends Command {
+
+    private static final String WIRE_NAME = "CF.COUNT";
+
+    private String key;
+    private byte[] item;
+
+    public CfCountCommand() {
+        super(Type.CF_COUNT);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string"  // item
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.item = optionsMap.get("2").asBulkString().getValue();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            CuckooFilter cf = service.cfGet(key);
+            return new RespInteger(cf == null ? 0 : cf.count(item)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "CfCountCommand [key=" + key + ", item=" + new String(item, StandardCharsets.UTF_8) + "]";
+    }
+}
@@ -0,0 +1,53 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.CuckooFilter;
+import org.sredi.storage.Orchestrator;
+
+public class CfExistsCommand extends Command {
+
+    private static final String WIRE_NAME = "CF.EXISTS";
+
+    private String key;
+    private byte[] item;
+
+    public CfExistsCommand() {
+        super(Type.CF_EXISTS);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string"  // item
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.item = optionsMap.get("2").asBulkString().getValue();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            CuckooFilter cf = service.cfGet(key);
+            boolean present = cf != null && cf.mightContain(item);
+            return new RespInteger(present ? 1 : 0).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "CfExistsCommand [key=" + key + ", item=" + new String(item, StandardCharsets.UTF_8) + "]";
+    }
+}
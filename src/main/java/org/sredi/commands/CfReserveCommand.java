@@ -0,0 +1,98 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.CuckooFilter;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * CF.RESERVE key capacity [MAXITERATIONS n] [EXPANSION n]. MAXITERATIONS bounds the evictions
+ * tried before a full filter expands; EXPANSION 0 makes adds to a full filter fail instead.
+ */
+public class CfReserveCommand extends Command {
+
+    private static final String WIRE_NAME = "CF.RESERVE";
+
+    private String key;
+    private long capacity;
+    private int maxIterations;
+    private int expansion;
+
+    public CfReserveCommand() {
+        super(Type.CF_RESERVE);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":int",    // capacity
+                "[maxiterations:int]",
+                "[expansion:int]"
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.capacity = optionsMap.get("2").getValueAsLong();
+        this.maxIterations = CuckooFilter.DEFAULT_MAX_ITERATIONS;
+        if (optionsMap.containsKey("maxiterations")) {
+            long requested = optionsMap.get("maxiterations").getValueAsLong();
+            if (requested < 1 || requested > 65535) {
+                throw new IllegalArgumentException(WIRE_NAME + ": MAXITERATIONS must be in [1, 65535]");
+            }
+            this.maxIterations = (int) requested;
+        }
+        this.expansion = CuckooFilter.DEFAULT_EXPANSION;
+        if (optionsMap.containsKey("expansion")) {
+            long requested = optionsMap.get("expansion").getValueAsLong();
+            if (requested < 0 || requested > 32768) {
+                throw new IllegalArgumentException(WIRE_NAME + ": EXPANSION must be in [0, 32768]");
+            }
+            this.expansion = (int) requested;
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            service.cfReserve(key, capacity, maxIterations, expansion);
+            return RespConstants.OK;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(List.of(
+                bulk(WIRE_NAME),
+                bulk(key),
+                bulk(String.valueOf(capacity)),
+                bulk("MAXITERATIONS"),
+                bulk(String.valueOf(maxIterations)),
+                bulk("EXPANSION"),
+                bulk(String.valueOf(expansion))));
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    private static RespBulkString bulk(String value) {
+        return new RespBulkString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "CfReserveCommand [key=" + key + ", capacity=" + capacity + ", maxIterations="
+                + maxIterations + ", expansion=" + expansion + "]";
+    }
+}
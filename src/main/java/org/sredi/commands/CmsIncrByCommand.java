@@ -0,0 +1,99 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.CountMinSketch;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * CMS.INCRBY key item increment [item increment ...]. Replies with each item's estimated count
+ * after its increment.
+ */
+public class CmsIncrByCommand extends Command {
+
+    private static final String WIRE_NAME = "CMS.INCRBY";
+
+    private String key;
+    private List<byte[]> items;
+    private long[] increments;
+
+    public CmsIncrByCommand() {
+        super(Type.CMS_INCRBY);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // item increment pairs
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        RespValue[] pairs = ((RespArrayValue) optionsMap.get("2")).getValues();
+        if (pairs.length % 2 != 0) {
+            throw new IllegalArgumentException(WIRE_NAME + ": wrong number of arguments");
+        }
+        this.items = new ArrayList<>(pairs.length / 2);
+        this.increments = new long[pairs.length / 2];
+        for (int i = 0; i < pairs.length; i += 2) {
+            items.add(pairs[i].asBulkString().getValue());
+            long increment;
+            try {
+                increment = Long.parseLong(pairs[i + 1].getValueAsString());
+            } catch (NumberFormatException e) {
+                increment = -1;
+            }
+            if (increment < 0) {
+                throw new IllegalArgumentException(
+                        WIRE_NAME + ": Invalid increment at index " + (i + 3) + ": " + pairs[i + 1]);
+            }
+            increments[i / 2] = increment;
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            CountMinSketch sketch = service.cmsGet(key);
+            if (sketch == null) {
+                return new RespSimpleErrorValue("ERR CMS: key does not exist").asResponse();
+            }
+            RespValue[] reply = new RespValue[items.size()];
+            for (int i = 0; i < reply.length; i++) {
+                reply[i] = new RespInteger(sketch.incrBy(items.get(i), increments[i]));
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(2 * items.size() + 2);
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(key.getBytes(StandardCharsets.UTF_8)));
+        for (int i = 0; i < items.size(); i++) {
+            values.add(new RespBulkString(items.get(i)));
+            values.add(new RespBulkString(String.valueOf(increments[i]).getBytes(StandardCharsets.UTF_8)));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "CmsIncrByCommand [key=" + key + ", items=" + items.size() + "]";
+    }
+}
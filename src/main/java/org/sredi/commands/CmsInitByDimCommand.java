@@ -0,0 +1,67 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.CountMinSketch;
+import org.sredi.storage.Orchestrator;
+
+public class CmsInitByDimCommand extends Command {
+
+    private static final String WIRE_NAME = "CMS.INITBYDIM";
+
+    private String key;
+    private long width;
+    private long depth;
+
+    public CmsInitByDimCommand() {
+        super(Type.CMS_INITBYDIM);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":int",    // width
+                ":int"     // depth
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.width = optionsMap.get("2").getValueAsLong();
+        this.depth = optionsMap.get("3").getValueAsLong();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            service.cmsInit(key, new CountMinSketch(width, depth));
+            return RespConstants.OK;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(key.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(String.valueOf(width).getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(String.valueOf(depth).getBytes(StandardCharsets.UTF_8))
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "CmsInitByDimCommand [key=" + key + ", width=" + width + ", depth=" + depth + "]";
+    }
+}
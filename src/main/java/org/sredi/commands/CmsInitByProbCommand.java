@@ -0,0 +1,86 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.CountMinSketch;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * CMS.INITBYPROB key error probability. Replicates as CMS.INITBYDIM with the derived dimensions,
+ * so followers do not redo the floating point sizing.
+ */
+public class CmsInitByProbCommand extends Command {
+
+    private static final String WIRE_NAME = "CMS.INITBYPROB";
+
+    private String key;
+    private double error;
+    private double probability;
+    private CountMinSketch created;
+
+    public CmsInitByProbCommand() {
+        super(Type.CMS_INITBYPROB);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string", // error (parsed as double)
+                ":string"  // probability (parsed as double)
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.error = parseDouble(optionsMap.get("2").getValueAsString(), 2);
+        this.probability = parseDouble(optionsMap.get("3").getValueAsString(), 3);
+    }
+
+    private static double parseDouble(String value, int index) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    WIRE_NAME + ": Invalid number at index " + index + ": " + value);
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            CountMinSketch sketch = CountMinSketch.forErrorRate(error, probability);
+            service.cmsInit(key, sketch);
+            created = sketch;
+            return RespConstants.OK;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    // A failed init replicates as given, to fail the same way on followers
+    @Override
+    public byte[] asCommand() {
+        String[] values = created != null
+                ? new String[] { "CMS.INITBYDIM", key, String.valueOf(created.getWidth()), String.valueOf(created.getDepth()) }
+                : new String[] { WIRE_NAME, key, String.valueOf(error), String.valueOf(probability) };
+        RespValue[] command = new RespValue[values.length];
+        for (int i = 0; i < values.length; i++) {
+            command[i] = new RespBulkString(values[i].getBytes(StandardCharsets.UTF_8));
+        }
+        return new RespArrayValue(command).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "CmsInitByProbCommand [key=" + key + ", error=" + error + ", probability=" + probability + "]";
+    }
+}
@@ -0,0 +1,126 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.CountMinSketch;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * CMS.MERGE destination numKeys source [source ...] [WEIGHTS weight [weight ...]]. The
+ * destination must already exist with the sources' dimensions and is overwritten with their
+ * weighted sum; it may be one of the sources.
+ */
+public class CmsMergeCommand extends Command {
+
+    private static final String WIRE_NAME = "CMS.MERGE";
+
+    private String destination;
+    private List<String> sources;
+    private long[] weights;
+
+    public CmsMergeCommand() {
+        super(Type.CMS_MERGE);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // destination
+                ":int",    // numKeys
+                ":var"     // sources, then optional WEIGHTS
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.destination = optionsMap.get("1").getValueAsString();
+        long numKeys = optionsMap.get("2").getValueAsLong();
+        RespValue[] rest = ((RespArrayValue) optionsMap.get("3")).getValues();
+        if (numKeys < 1 || numKeys > rest.length) {
+            throw new IllegalArgumentException(WIRE_NAME + ": invalid numKeys " + numKeys);
+        }
+        int n = (int) numKeys;
+        this.sources = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            sources.add(rest[i].getValueAsString());
+        }
+        this.weights = new long[n];
+        Arrays.fill(weights, 1L);
+        if (rest.length == n) {
+            return;
+        }
+        if (!"WEIGHTS".equalsIgnoreCase(rest[n].getValueAsString()) || rest.length != 2 * n + 1) {
+            throw new IllegalArgumentException(WIRE_NAME + ": syntax error");
+        }
+        for (int i = 0; i < n; i++) {
+            try {
+                weights[i] = Long.parseLong(rest[n + 1 + i].getValueAsString());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(
+                        WIRE_NAME + ": Invalid weight: " + rest[n + 1 + i].getValueAsString());
+            }
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            CountMinSketch target = service.cmsGet(destination);
+            if (target == null) {
+                return new RespSimpleErrorValue("ERR CMS: key does not exist").asResponse();
+            }
+            CountMinSketch[] sketches = new CountMinSketch[sources.size()];
+            for (int i = 0; i < sketches.length; i++) {
+                sketches[i] = service.cmsGet(sources.get(i));
+                if (sketches[i] == null) {
+                    return new RespSimpleErrorValue("ERR CMS: key does not exist").asResponse();
+                }
+            }
+            target.merge(sketches, weights);
+            return RespConstants.OK;
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(2 * sources.size() + 4);
+        values.add(bulk(WIRE_NAME));
+        values.add(bulk(destination));
+        values.add(bulk(String.valueOf(sources.size())));
+        for (String source : sources) {
+            values.add(bulk(source));
+        }
+        values.add(bulk("WEIGHTS"));
+        for (long weight : weights) {
+            values.add(bulk(String.valueOf(weight)));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    private static RespBulkString bulk(String value) {
+        return new RespBulkString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String getKey() { return destination; }
+
+    @Override
+    public List<String> getLockKeys() {
+        return Command.lockKeys(destination, sources);
+    }
+
+    @Override
+    public String toString() {
+        return "CmsMergeCommand [destination=" + destination + ", sources=" + sources
+                + ", weights=" + Arrays.toString(weights) + "]";
+    }
+}
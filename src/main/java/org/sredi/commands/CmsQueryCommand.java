@@ -0,0 +1,60 @@
+package org.sredi.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.CountMinSketch;
+import org.sredi.storage.Orchestrator;
+
+public class CmsQueryCommand extends Command {
+
+    private static final String WIRE_NAME = "CMS.QUERY";
+
+    private String key;
+    private List<byte[]> items;
+
+    public CmsQueryCommand() {
+        super(Type.CMS_QUERY);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // items
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.items = BfMaddCommand.readItems(((RespArrayValue) optionsMap.get("2")).getValues());
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            CountMinSketch sketch = service.cmsGet(key);
+            if (sketch == null) {
+                return new RespSimpleErrorValue("ERR CMS: key does not exist").asResponse();
+            }
+            RespValue[] reply = new RespValue[items.size()];
+            for (int i = 0; i < reply.length; i++) {
+                reply[i] = new RespInteger(sketch.query(items.get(i)));
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "CmsQueryCommand [key=" + key + ", items=" + items.size() + "]";
+    }
+}
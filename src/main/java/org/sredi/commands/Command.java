@@ -1,5 +1,8 @@
 package org.sredi.commands;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -14,9 +17,17 @@ import org.sredi.resp.RespValue;
 public abstract class Command {
 
     public enum Type {
-        AUTH, CONFIG, DEL, ECHO, GET, INCR, INFO, KEYS, LPUSH, RPUSH, LPOP, RPOP, LRANGE, MULTI, EXEC, DISCARD, PING, PSYNC, PUBLISH, REPLCONF, SET, SUBSCRIBE, TYPE, UNSUBSCRIBE, WAIT, XADD, XRANGE,
-        XREAD,
-        BF_ADD, BF_EXISTS, BF_RESERVE,
+        AUTH, CONFIG, DEL, ECHO, GET, INCR, INCRBY, INCRBYFLOAT, DECR, DECRBY, INFO, KEYS, SCAN, LPUSH, RPUSH, LPOP, RPOP, LRANGE, LLEN, LINDEX, LSET, LTRIM, LINSERT, LMOVE, BLPOP, BRPOP, BLMOVE, MULTI, EXEC, DISCARD, PING, PSYNC, PUBLISH, REPLCONF, SET, SUBSCRIBE, TYPE, UNSUBSCRIBE, WAIT, XADD, XRANGE, XREVRANGE,
+        XREAD, XGROUP, XREADGROUP, XACK, XPENDING, XCLAIM, XAUTOCLAIM, XTRIM,
+        BF_ADD, BF_EXISTS, BF_RESERVE, BF_INFO, BF_MADD, BF_MEXISTS, BF_INSERT,
+        CF_RESERVE, CF_ADD, CF_EXISTS, CF_DEL, CF_COUNT,
+        CMS_INITBYDIM, CMS_INITBYPROB, CMS_INCRBY, CMS_QUERY, CMS_MERGE,
+        TOPK_RESERVE, TOPK_ADD, TOPK_QUERY, TOPK_LIST,
+        PFADD, PFCOUNT, PFMERGE,
+        SETBIT, GETBIT, BITCOUNT, BITPOS, BITOP,
+        HSET, HGET, HMGET, HDEL, HLEN, HEXISTS, HINCRBY, HGETALL, HSCAN,
+        SADD, SREM, SISMEMBER, SMISMEMBER, SCARD, SMEMBERS, SSCAN, SINTER, SINTERCARD, SUNION, SDIFF,
+        ZADD, ZRANGE, ZRANGESTORE, ZRANK, ZREM, ZPOPMIN,
         EOF, // close a client connection
         TERMINATE; // close all connections and kill the server
 
@@ -29,8 +40,13 @@ public abstract class Command {
         }
 
         private static final Set<Type> WRITE_COMMANDS = Set.of(
-                SET, DEL, INCR, LPUSH, RPUSH, LPOP, RPOP, XADD,
-                BF_ADD, BF_RESERVE
+                SET, DEL, INCR, INCRBY, INCRBYFLOAT, DECR, DECRBY, LPUSH, RPUSH, LPOP, RPOP, LSET, LTRIM, LINSERT, LMOVE, BLPOP, BRPOP, BLMOVE, XADD,
+                XGROUP, XREADGROUP, XACK, XCLAIM, XAUTOCLAIM, XTRIM,
+                BF_ADD, BF_RESERVE, BF_MADD, BF_INSERT,
+                CF_RESERVE, CF_ADD, CF_DEL,
+                CMS_INITBYDIM, CMS_INITBYPROB, CMS_INCRBY, CMS_MERGE, TOPK_RESERVE, TOPK_ADD,
+                PFADD, PFMERGE, SETBIT, BITOP, HSET, HDEL, HINCRBY, SADD, SREM,
+                ZADD, ZRANGESTORE, ZREM, ZPOPMIN
         );
 
         public boolean isWrite() {
@@ -46,7 +62,11 @@ public abstract class Command {
 
     public boolean isReplicatedCommand() {
         return switch (type) {
-            case SET, DEL, INCR, LPUSH, RPUSH, BF_ADD, BF_RESERVE -> true;
+            case SET, DEL, INCR, INCRBY, INCRBYFLOAT, DECR, DECRBY, LPUSH, RPUSH, LPOP, RPOP, LSET, LTRIM, LINSERT, LMOVE, BF_ADD, BF_RESERVE, BF_MADD, BF_INSERT,
+                    CF_RESERVE, CF_ADD, CF_DEL,
+                    CMS_INITBYDIM, CMS_INITBYPROB, CMS_INCRBY, CMS_MERGE, TOPK_RESERVE, TOPK_ADD,
+                    PFADD, PFMERGE, SETBIT, BITOP, HSET, HDEL, HINCRBY, SADD, SREM,
+                    ZADD, ZRANGESTORE, ZREM, ZPOPMIN -> true;
             default -> false;
         };
     }
@@ -55,6 +75,23 @@ public abstract class Command {
         return false;
     }
 
+    // Whether the connection's reply is written by writeReply instead of taken from execute
+    public boolean isStreamingReply() {
+        return false;
+    }
+
+    // Writes the reply straight to the connection's output buffer; execute must still return the
+    // whole reply for callers that need it as bytes, such as EXEC
+    public void writeReply(Orchestrator service, OutputStream out) throws IOException {
+        out.write(execute(service));
+    }
+
+    // Whether --parallel execution takes the write stripe for this command's key. Writes that
+    // are atomic in the store by themselves (counter increments) can share the stripe.
+    public boolean isExclusiveKeyLock() {
+        return type.isWrite();
+    }
+
     protected void setArgs(RespValue[] args) {
         // ignore by default
     }
@@ -83,6 +120,22 @@ public abstract class Command {
         }
     }
 
+    // Reads a blocking timeout given in (possibly fractional) seconds; 0 means wait forever
+    protected long readTimeoutMillis(RespValue arg) {
+        double seconds;
+        try {
+            seconds = Double.parseDouble(arg.getValueAsString());
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException(
+                    String.format("%s: timeout is not a float or out of range: %s", type.name(), arg));
+        }
+        if (seconds < 0 || Double.isNaN(seconds) || Double.isInfinite(seconds)) {
+            throw new IllegalArgumentException(
+                    String.format("%s: timeout is negative or out of range: %s", type.name(), arg));
+        }
+        return (long) Math.ceil(seconds * 1000);
+    }
+
     public void validateArgForStateTransition(RespValue[] args, int i, int state, int nextState,
             Map<Integer, List<Integer>> transitions) {
         if (nextState == -1 || !transitions.get(state).contains(nextState)) {
@@ -97,6 +150,21 @@ public abstract class Command {
         return null;
     }
 
+    // Keys whose stripes --parallel execution locks for this command; commands reading or
+    // writing several keys return all of them, blocking commands included, since a parked client
+    // is served holding the same stripes
+    public List<String> getLockKeys() {
+        String key = getKey();
+        return key == null ? List.of() : List.of(key);
+    }
+
+    static List<String> lockKeys(String destination, List<String> sources) {
+        List<String> keys = new ArrayList<>(sources.size() + 1);
+        keys.add(destination);
+        keys.addAll(sources);
+        return keys;
+    }
+
     public abstract byte[] execute(Orchestrator service);
 
     public abstract String toString();
@@ -33,13 +33,27 @@ public class CommandConstructor {
         case GET -> new GetCommand();
         case DEL -> new DelCommand();
         case INCR -> new IncrCommand();
+        case INCRBY -> new IncrByCommand();
+        case INCRBYFLOAT -> new IncrByFloatCommand();
+        case DECR -> new DecrCommand();
+        case DECRBY -> new DecrByCommand();
         case INFO -> new InfoCommand();
         case KEYS -> new KeysCommand();
+        case SCAN -> new ScanCommand();
         case LPUSH -> new LPushCommand();
         case RPUSH -> new RPushCommand();
         case LPOP -> new LPopCommand();
         case RPOP -> new RPopCommand();
         case LRANGE -> new LRangeCommand();
+        case LLEN -> new LLenCommand();
+        case LINDEX -> new LIndexCommand();
+        case LSET -> new LSetCommand();
+        case LTRIM -> new LTrimCommand();
+        case LINSERT -> new LInsertCommand();
+        case LMOVE -> new LMoveCommand();
+        case BLPOP -> new BLPopCommand();
+        case BRPOP -> new BRPopCommand();
+        case BLMOVE -> new BLMoveCommand();
         case MULTI -> new MultiCommand();
         case EXEC -> new ExecCommand();
         case DISCARD -> new DiscardCommand();
@@ -54,10 +68,70 @@ public class CommandConstructor {
         case WAIT -> new WaitCommand();
         case XADD -> new XaddCommand();
         case XRANGE -> new XrangeCommand();
+        case XREVRANGE -> new XrevrangeCommand();
         case XREAD -> new XreadCommand();
+        case XGROUP -> new XgroupCommand();
+        case XREADGROUP -> new XreadgroupCommand();
+        case XACK -> new XackCommand();
+        case XPENDING -> new XpendingCommand();
+        case XCLAIM -> new XclaimCommand();
+        case XAUTOCLAIM -> new XautoclaimCommand();
+        case XTRIM -> new XtrimCommand();
         case BF_ADD -> new BfAddCommand();
         case BF_EXISTS -> new BfExistsCommand();
         case BF_RESERVE -> new BfReserveCommand();
+        case BF_INFO -> new BfInfoCommand();
+        case BF_MADD -> new BfMaddCommand();
+        case BF_MEXISTS -> new BfMexistsCommand();
+        case BF_INSERT -> new BfInsertCommand();
+        case CF_RESERVE -> new CfReserveCommand();
+        case CF_ADD -> new CfAddCommand();
+        case CF_EXISTS -> new CfExistsCommand();
+        case CF_DEL -> new CfDelCommand();
+        case CF_COUNT -> new CfCountCommand();
+        case CMS_INITBYDIM -> new CmsInitByDimCommand();
+        case CMS_INITBYPROB -> new CmsInitByProbCommand();
+        case CMS_INCRBY -> new CmsIncrByCommand();
+        case CMS_QUERY -> new CmsQueryCommand();
+        case CMS_MERGE -> new CmsMergeCommand();
+        case TOPK_RESERVE -> new TopkReserveCommand();
+        case TOPK_ADD -> new TopkAddCommand();
+        case TOPK_QUERY -> new TopkQueryCommand();
+        case TOPK_LIST -> new TopkListCommand();
+        case PFADD -> new PfaddCommand();
+        case PFCOUNT -> new PfcountCommand();
+        case PFMERGE -> new PfmergeCommand();
+        case SETBIT -> new SetBitCommand();
+        case GETBIT -> new GetBitCommand();
+        case BITCOUNT -> new BitCountCommand();
+        case BITPOS -> new BitPosCommand();
+        case BITOP -> new BitOpCommand();
+        case HSET -> new HSetCommand();
+        case HGET -> new HGetCommand();
+        case HMGET -> new HMGetCommand();
+        case HDEL -> new HDelCommand();
+        case HLEN -> new HLenCommand();
+        case HEXISTS -> new HExistsCommand();
+        case HINCRBY -> new HIncrByCommand();
+        case HGETALL -> new HGetAllCommand();
+        case HSCAN -> new HScanCommand();
+        case SADD -> new SAddCommand();
+        case SREM -> new SRemCommand();
+        case SISMEMBER -> new SIsMemberCommand();
+        case SMISMEMBER -> new SMIsMemberCommand();
+        case SCARD -> new SCardCommand();
+        case SMEMBERS -> new SMembersCommand();
+        case SSCAN -> new SScanCommand();
+        case SINTER -> new SInterCommand();
+        case SINTERCARD -> new SInterCardCommand();
+        case SUNION -> new SUnionCommand();
+        case SDIFF -> new SDiffCommand();
+        case ZADD -> new ZAddCommand();
+        case ZRANGE -> new ZRangeCommand();
+        case ZRANGESTORE -> new ZRangeStoreCommand();
+        case ZRANK -> new ZRankCommand();
+        case ZREM -> new ZRemCommand();
+        case ZPOPMIN -> new ZPopMinCommand();
         // special non-standard commands
         case EOF -> new EofCommand();
         case TERMINATE -> new TerminateCommand();
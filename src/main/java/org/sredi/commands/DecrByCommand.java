@@ -0,0 +1,66 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+public class DecrByCommand extends Command {
+
+    private String key;
+    private long decrement;
+
+    public DecrByCommand() {
+        super(Type.DECRBY);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":string", // key
+                ":int"     // decrement
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.decrement = optionsMap.get("2").getValueAsLong();
+        if (decrement == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("DECRBY: decrement would overflow");
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            return new RespInteger(service.incrBy(key, -decrement)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public boolean isExclusiveKeyLock() {
+        return false;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(getType().name().getBytes()),
+                new RespBulkString(key.getBytes()),
+                new RespBulkString(Long.toString(decrement).getBytes())
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "DecrByCommand [key=" + key + ", decrement=" + decrement + "]";
+    }
+}
@@ -0,0 +1,63 @@
+package org.sredi.commands;
+
+import lombok.Getter;
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+import java.util.Map;
+
+@Getter
+public class DecrCommand extends Command{
+
+    private RespBulkString key;
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] { ":string", // command name
+                ":string" // key
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").asBulkString();
+    }
+    public DecrCommand() {
+        super(Type.DECR);
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            return new RespInteger(service.incrBy(key.getValueAsString(), -1)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public boolean isExclusiveKeyLock() {
+        return false;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(getType().name().getBytes()),
+                key
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() {
+        return key.getValueAsString();
+    }
+
+    @Override
+    public String toString() {
+        return "DecrCommand{" +
+                "key=" + key +
+                '}';
+    }
+}
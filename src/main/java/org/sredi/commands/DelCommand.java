@@ -54,6 +54,15 @@ public class DelCommand extends Command{
         return keys.length > 0 ? keys[0].getValueAsString() : null;
     }
 
+    @Override
+    public List<String> getLockKeys() {
+        List<String> lockKeys = new ArrayList<>(keys.length);
+        for (RespValue key : keys) {
+            lockKeys.add(key.getValueAsString());
+        }
+        return lockKeys;
+    }
+
     @Override
     public String toString() {
         return "";
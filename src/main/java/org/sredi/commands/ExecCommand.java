@@ -29,6 +29,12 @@ public class ExecCommand extends Command {
         }
     }
 
+    // The queued commands may write, and their keys are locked for EXEC as a whole
+    @Override
+    public boolean isExclusiveKeyLock() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "ExecCommand";
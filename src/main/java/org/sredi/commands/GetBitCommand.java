@@ -0,0 +1,54 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Bitmap;
+import org.sredi.storage.Orchestrator;
+
+public class GetBitCommand extends Command {
+
+    private static final String WIRE_NAME = "GETBIT";
+
+    private String key;
+    private long offset;
+
+    public GetBitCommand() {
+        super(Type.GETBIT);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":int"     // offset
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.offset = optionsMap.get("2").getValueAsLong();
+        if (offset < 0 || offset >= Bitmap.MAX_BITS) {
+            throw new IllegalArgumentException(WIRE_NAME + ": bit offset is not an integer or out of range");
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            Bitmap bitmap = service.bitmapGet(key);
+            return new RespInteger(bitmap == null ? 0 : bitmap.getBit(offset)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "GetBitCommand [key=" + key + ", offset=" + offset + "]";
+    }
+}
@@ -40,10 +40,18 @@ public class GetCommand extends Command {
     public byte[] execute(Orchestrator service) {
         if (service.containsKey(key.getValueAsString())) {
             DataEntry storedData = service.get(key.getValueAsString());
+            if (storedData == null) {
+                return RespConstants.NULL; // evicted or expired since the check
+            }
             if (service.isExpired(storedData)) {
                 service.delete(key.getValueAsString());
                 return RespConstants.NULL;
             }
+            if (storedData.getOffHeapValue() != null) {
+                byte[] response = storedData.getOffHeapValue().asBulkStringResponse();
+                // null if eviction or TTL cleanup released the value after it was looked up
+                return response != null ? response : execute(service);
+            }
             return new RespBulkString(storedData.getValue()).asResponse();
         }
         return RespConstants.NULL;
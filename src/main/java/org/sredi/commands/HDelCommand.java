@@ -0,0 +1,65 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+public class HDelCommand extends Command {
+
+    private static final String WIRE_NAME = "HDEL";
+
+    private String key;
+    private List<byte[]> fields;
+
+    public HDelCommand() {
+        super(Type.HDEL);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // fields
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.fields = BfMaddCommand.readItems(((RespArrayValue) optionsMap.get("2")).getValues());
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            return new RespInteger(service.hdel(key, fields)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(fields.size() + 2);
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(key.getBytes(StandardCharsets.UTF_8)));
+        for (byte[] field : fields) {
+            values.add(new RespBulkString(field));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "HDelCommand [key=" + key + ", fields=" + fields.size() + "]";
+    }
+}
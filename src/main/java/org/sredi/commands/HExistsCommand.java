@@ -0,0 +1,52 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.HashValue;
+import org.sredi.storage.Orchestrator;
+
+public class HExistsCommand extends Command {
+
+    private static final String WIRE_NAME = "HEXISTS";
+
+    private String key;
+    private byte[] field;
+
+    public HExistsCommand() {
+        super(Type.HEXISTS);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string"  // field
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.field = optionsMap.get("2").asBulkString().getValue();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            HashValue hash = service.hashGet(key);
+            return new RespInteger(hash != null && hash.containsField(field) ? 1 : 0).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "HExistsCommand [key=" + key + ", field=" + new String(field, StandardCharsets.UTF_8) + "]";
+    }
+}
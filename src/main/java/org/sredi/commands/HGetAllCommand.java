@@ -0,0 +1,58 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.HashValue;
+import org.sredi.storage.Orchestrator;
+
+public class HGetAllCommand extends Command {
+
+    private static final String WIRE_NAME = "HGETALL";
+
+    private String key;
+
+    public HGetAllCommand() {
+        super(Type.HGETALL);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string"  // key
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            HashValue hash = service.hashGet(key);
+            if (hash == null) {
+                return RespValue.array(new RespValue[0]).asResponse();
+            }
+            List<RespValue> reply = new ArrayList<>(2 * hash.size());
+            hash.forEach((field, value) -> {
+                reply.add(new RespBulkString(field));
+                reply.add(new RespBulkString(value));
+            });
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "HGetAllCommand [key=" + key + "]";
+    }
+}
@@ -0,0 +1,54 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.HashValue;
+import org.sredi.storage.Orchestrator;
+
+public class HGetCommand extends Command {
+
+    private static final String WIRE_NAME = "HGET";
+
+    private String key;
+    private byte[] field;
+
+    public HGetCommand() {
+        super(Type.HGET);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string"  // field
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.field = optionsMap.get("2").asBulkString().getValue();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            HashValue hash = service.hashGet(key);
+            byte[] value = hash == null ? null : hash.get(field);
+            return value == null ? RespConstants.NULL : new RespBulkString(value).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "HGetCommand [key=" + key + ", field=" + new String(field, StandardCharsets.UTF_8) + "]";
+    }
+}
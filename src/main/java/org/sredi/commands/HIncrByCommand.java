@@ -0,0 +1,66 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+public class HIncrByCommand extends Command {
+
+    private static final String WIRE_NAME = "HINCRBY";
+
+    private String key;
+    private byte[] field;
+    private long increment;
+
+    public HIncrByCommand() {
+        super(Type.HINCRBY);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string", // field
+                ":int"     // increment
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.field = optionsMap.get("2").asBulkString().getValue();
+        this.increment = optionsMap.get("3").getValueAsLong();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            return new RespInteger(service.hashGetOrCreate(key).incrBy(field, increment)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(key.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(field),
+                new RespBulkString(String.valueOf(increment).getBytes(StandardCharsets.UTF_8))
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "HIncrByCommand [key=" + key + ", field=" + new String(field, StandardCharsets.UTF_8)
+                + ", increment=" + increment + "]";
+    }
+}
@@ -0,0 +1,48 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.HashValue;
+import org.sredi.storage.Orchestrator;
+
+public class HLenCommand extends Command {
+
+    private static final String WIRE_NAME = "HLEN";
+
+    private String key;
+
+    public HLenCommand() {
+        super(Type.HLEN);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string"  // key
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            HashValue hash = service.hashGet(key);
+            return new RespInteger(hash == null ? 0 : hash.size()).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "HLenCommand [key=" + key + "]";
+    }
+}
@@ -0,0 +1,59 @@
+package org.sredi.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.HashValue;
+import org.sredi.storage.Orchestrator;
+
+public class HMGetCommand extends Command {
+
+    private static final String WIRE_NAME = "HMGET";
+
+    private String key;
+    private List<byte[]> fields;
+
+    public HMGetCommand() {
+        super(Type.HMGET);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // fields
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.fields = BfMaddCommand.readItems(((RespArrayValue) optionsMap.get("2")).getValues());
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            HashValue hash = service.hashGet(key);
+            RespValue[] reply = new RespValue[fields.size()];
+            for (int i = 0; i < reply.length; i++) {
+                byte[] value = hash == null ? null : hash.get(fields.get(i));
+                reply[i] = value == null ? RespConstants.NULL_VALUE : new RespBulkString(value);
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "HMGetCommand [key=" + key + ", fields=" + fields.size() + "]";
+    }
+}
@@ -0,0 +1,111 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.GlobPattern;
+import org.sredi.storage.HashValue;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * HSCAN key cursor [MATCH pattern] [COUNT count] [NOVALUES]. Small hashes come back whole with
+ * cursor 0; larger ones are walked a few buckets per call with a cursor that survives rehashing.
+ * COUNT is a hint for how many fields to visit, and MATCH filters after visiting, so a call may
+ * return fewer fields than COUNT, or none, before the cursor returns to 0.
+ */
+public class HScanCommand extends Command {
+
+    static final int DEFAULT_COUNT = 10;
+
+    private static final String WIRE_NAME = "HSCAN";
+
+    private String key;
+    private long cursor;
+    private GlobPattern pattern;
+    private int count = DEFAULT_COUNT;
+    private boolean noValues;
+
+    public HScanCommand() {
+        super(Type.HSCAN);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string", // cursor
+                "[match:string]",
+                "[count:int]",
+                "[novalues]"
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.cursor = readCursor(optionsMap.get("2"));
+        if (optionsMap.containsKey("match")) {
+            this.pattern = GlobPattern.compile(optionsMap.get("match").asBulkString().getValue());
+        }
+        if (optionsMap.containsKey("count")) {
+            this.count = readCount(optionsMap.get("count"));
+        }
+        this.noValues = optionsMap.containsKey("novalues");
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            HashValue hash = service.hashGet(key);
+            if (hash == null) {
+                return scanReply(0, List.of());
+            }
+            List<RespValue> items = new ArrayList<>();
+            long next = hash.scan(cursor, count, (field, value) -> {
+                if (pattern == null || pattern.matches(field)) {
+                    items.add(new RespBulkString(field));
+                    if (!noValues) {
+                        items.add(new RespBulkString(value));
+                    }
+                }
+            });
+            return scanReply(next, items);
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    // Cursors are unsigned 64-bit integers, as in Redis
+    static long readCursor(RespValue arg) {
+        try {
+            return Long.parseUnsignedLong(arg.getValueAsString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ERR invalid cursor");
+        }
+    }
+
+    static int readCount(RespValue arg) {
+        long count = arg.getValueAsLong();
+        if (count < 1) {
+            throw new IllegalArgumentException("ERR syntax error");
+        }
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    static byte[] scanReply(long cursor, List<RespValue> items) {
+        return RespValue.array(
+                new RespBulkString(Long.toUnsignedString(cursor).getBytes(StandardCharsets.US_ASCII)),
+                RespValue.array(items)).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "HScanCommand [key=" + key + ", cursor=" + Long.toUnsignedString(cursor) + ", count=" + count + "]";
+    }
+}
@@ -0,0 +1,77 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.HashValue;
+import org.sredi.storage.Orchestrator;
+
+// HSET key field value [field value ...]; replies with the number of fields added
+public class HSetCommand extends Command {
+
+    private static final String WIRE_NAME = "HSET";
+
+    private String key;
+    private List<byte[]> fieldsAndValues;
+
+    public HSetCommand() {
+        super(Type.HSET);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // field value pairs
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.fieldsAndValues = BfMaddCommand.readItems(((RespArrayValue) optionsMap.get("2")).getValues());
+        if (fieldsAndValues.size() % 2 != 0) {
+            throw new IllegalArgumentException(WIRE_NAME + ": wrong number of arguments");
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            HashValue hash = service.hashGetOrCreate(key);
+            long added = 0;
+            for (int i = 0; i < fieldsAndValues.size(); i += 2) {
+                if (hash.put(fieldsAndValues.get(i), fieldsAndValues.get(i + 1))) {
+                    added++;
+                }
+            }
+            return new RespInteger(added).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(fieldsAndValues.size() + 2);
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(key.getBytes(StandardCharsets.UTF_8)));
+        for (byte[] item : fieldsAndValues) {
+            values.add(new RespBulkString(item));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "HSetCommand [key=" + key + ", fields=" + fieldsAndValues.size() / 2 + "]";
+    }
+}
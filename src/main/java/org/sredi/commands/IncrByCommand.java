@@ -0,0 +1,63 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+public class IncrByCommand extends Command {
+
+    private String key;
+    private long increment;
+
+    public IncrByCommand() {
+        super(Type.INCRBY);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":string", // key
+                ":int"     // increment
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.increment = optionsMap.get("2").getValueAsLong();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            return new RespInteger(service.incrBy(key, increment)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public boolean isExclusiveKeyLock() {
+        return false;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(getType().name().getBytes()),
+                new RespBulkString(key.getBytes()),
+                new RespBulkString(Long.toString(increment).getBytes())
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "IncrByCommand [key=" + key + ", increment=" + increment + "]";
+    }
+}
@@ -0,0 +1,67 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+public class IncrByFloatCommand extends Command {
+
+    private String key;
+    private String increment;
+    private double incrementValue;
+
+    public IncrByFloatCommand() {
+        super(Type.INCRBYFLOAT);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string"  // increment
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.increment = optionsMap.get("2").getValueAsString();
+        try {
+            this.incrementValue = Double.parseDouble(increment);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("INCRBYFLOAT: value is not a valid float: " + increment);
+        }
+        if (Double.isNaN(incrementValue) || Double.isInfinite(incrementValue)) {
+            throw new IllegalArgumentException("INCRBYFLOAT: value is not a valid float: " + increment);
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            return new RespBulkString(service.incrByFloat(key, incrementValue).getBytes()).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    // Replicas apply the same increment; the result is formatted identically on every node
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(getType().name().getBytes()),
+                new RespBulkString(key.getBytes()),
+                new RespBulkString(increment.getBytes())
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "IncrByFloatCommand [key=" + key + ", increment=" + increment + "]";
+    }
+}
@@ -4,13 +4,10 @@ import lombok.Getter;
 import org.sredi.resp.RespArrayValue;
 import org.sredi.resp.RespBulkString;
 import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
 import org.sredi.resp.RespValue;
 import org.sredi.storage.Orchestrator;
-import org.sredi.storage.DataEntry;
-import org.sredi.storage.DataEntryType;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.Map;
 
 @Getter
@@ -32,36 +29,17 @@ public class IncrCommand extends Command{
 
     @Override
     public byte[] execute(Orchestrator service) {
-        String keyString = key.getValueAsString();
-        long now = service.getCurrentTime();
-        
-        if(service.containsKey(keyString)) {
-            DataEntry data = service.get(keyString);
-            if(data.getType() == DataEntryType.STRING) {
-                RespBulkString value = new RespBulkString(data.getValue());
-                Long currentValue = value.getValueAsLong();
-                
-                if(currentValue == null) {
-                    // If value cannot be parsed as a number, set it to 0
-                    DataEntry newData = new DataEntry("0".getBytes(), now, data.getTtlMillis());
-                    service.set(keyString, newData);
-                    return new RespInteger(0).asResponse();
-                } else {
-                    // Increment the value by 1
-                    long newValue = currentValue + 1;
-                    DataEntry newData = new DataEntry(String.valueOf(newValue).getBytes(), now, data.getTtlMillis());
-                    service.set(keyString, newData);
-                    return new RespInteger(newValue).asResponse();
-                }
-            }
-        } else {
-            // Key doesn't exist, create it with value 0
-            DataEntry newData = new DataEntry("0".getBytes(), now, null);
-            service.set(keyString, newData);
-            return new RespInteger(0).asResponse();
+        try {
+            return new RespInteger(service.incr(key.getValueAsString())).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
         }
-        
-        return new RespInteger(0).asResponse();
+    }
+
+    // Increments are atomic in the store, so concurrent INCRs on a hot key only share the stripe
+    @Override
+    public boolean isExclusiveKeyLock() {
+        return false;
     }
 
     @Override
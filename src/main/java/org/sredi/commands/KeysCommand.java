@@ -1,10 +1,14 @@
 package org.sredi.commands;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
+import org.sredi.storage.GlobPattern;
 import org.sredi.storage.Orchestrator;
-import org.sredi.resp.RespArrayValue;
 import org.sredi.resp.RespBulkString;
 import org.sredi.resp.RespValue;
 
@@ -54,8 +58,33 @@ public class KeysCommand extends Command {
 
     @Override
     public byte[] execute(Orchestrator service) {
-        List<RespBulkString> keys = service.getKeys().stream().map(String::getBytes).map(RespBulkString::new).toList();
-        return new RespArrayValue(keys.toArray(new RespValue[0])).asResponse();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeReply(service, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public boolean isStreamingReply() {
+        return true;
+    }
+
+    /**
+     * Writes the unexpired keys matching the glob pattern straight to the connection. The pattern
+     * is matched while walking the keyspace and only the hits are collected, to know the reply
+     * length up front; each is encoded as it is written, so the whole reply never exists in
+     * memory at once.
+     */
+    @Override
+    public void writeReply(Orchestrator service, OutputStream out) throws IOException {
+        List<String> keys = service.getKeys(GlobPattern.compile(paramString));
+        out.write(("*" + keys.size() + "\r\n").getBytes());
+        for (String key : keys) {
+            out.write(new RespBulkString(key.getBytes()).asResponse());
+        }
     }
 
     /**
@@ -0,0 +1,50 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+public class LIndexCommand extends Command {
+
+    private String key;
+    private long index;
+
+    public LIndexCommand() {
+        super(Type.LINDEX);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":string", // key
+                ":int"     // index
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.index = optionsMap.get("2").getValueAsLong();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            byte[] value = service.lindex(key, index);
+            if (value == null) return RespConstants.NULL;
+            return new RespBulkString(value).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "LIndexCommand [key=" + key + ", index=" + index + "]";
+    }
+}
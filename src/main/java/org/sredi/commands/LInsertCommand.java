@@ -0,0 +1,70 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+public class LInsertCommand extends Command {
+
+    private String key;
+    private boolean before;
+    private byte[] pivot;
+    private byte[] value;
+
+    public LInsertCommand() {
+        super(Type.LINSERT);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string", // BEFORE | AFTER
+                ":string", // pivot
+                ":string"  // element
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        String where = optionsMap.get("2").getValueAsString().toLowerCase();
+        if (!where.equals("before") && !where.equals("after")) {
+            throw new IllegalArgumentException("LINSERT: expected BEFORE or AFTER, got " + where);
+        }
+        this.before = where.equals("before");
+        this.pivot = optionsMap.get("3").asBulkString().getValue();
+        this.value = optionsMap.get("4").asBulkString().getValue();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            return new RespInteger(service.linsert(key, before, pivot, value)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(getType().name().getBytes()),
+                new RespBulkString(key.getBytes()),
+                new RespBulkString((before ? "BEFORE" : "AFTER").getBytes()),
+                new RespBulkString(pivot),
+                new RespBulkString(value)
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "LInsertCommand [key=" + key + ", before=" + before + "]";
+    }
+}
@@ -0,0 +1,92 @@
+package org.sredi.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+public class LMoveCommand extends Command {
+
+    private String source;
+    private String destination;
+    private boolean fromLeft;
+    private boolean toLeft;
+
+    public LMoveCommand() {
+        super(Type.LMOVE);
+    }
+
+    public LMoveCommand(String source, String destination, boolean fromLeft, boolean toLeft) {
+        super(Type.LMOVE);
+        this.source = source;
+        this.destination = destination;
+        this.fromLeft = fromLeft;
+        this.toLeft = toLeft;
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":string", // source
+                ":string", // destination
+                ":string", // LEFT | RIGHT
+                ":string"  // LEFT | RIGHT
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.source = optionsMap.get("1").getValueAsString();
+        this.destination = optionsMap.get("2").getValueAsString();
+        this.fromLeft = readDirection(optionsMap.get("3"));
+        this.toLeft = readDirection(optionsMap.get("4"));
+    }
+
+    // Parses LEFT/RIGHT, returning true for LEFT
+    static boolean readDirection(RespValue arg) {
+        String direction = arg.getValueAsString().toLowerCase();
+        if (!direction.equals("left") && !direction.equals("right")) {
+            throw new IllegalArgumentException("Expected LEFT or RIGHT, got " + direction);
+        }
+        return direction.equals("left");
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            byte[] moved = service.lmove(source, destination, fromLeft, toLeft);
+            if (moved == null) return RespConstants.NULL;
+            return new RespBulkString(moved).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(Type.LMOVE.name().getBytes()),
+                new RespBulkString(source.getBytes()),
+                new RespBulkString(destination.getBytes()),
+                new RespBulkString((fromLeft ? "LEFT" : "RIGHT").getBytes()),
+                new RespBulkString((toLeft ? "LEFT" : "RIGHT").getBytes())
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return source; }
+
+    @Override
+    public List<String> getLockKeys() {
+        return List.of(source, destination);
+    }
+
+    @Override
+    public String toString() {
+        return "LMoveCommand [source=" + source + ", destination=" + destination
+                + ", fromLeft=" + fromLeft + ", toLeft=" + toLeft + "]";
+    }
+}
@@ -1,35 +1,81 @@
 package org.sredi.commands;
 
+import java.util.List;
 import java.util.Map;
 
+import org.sredi.resp.RespArrayValue;
 import org.sredi.resp.RespBulkString;
 import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
 import org.sredi.resp.RespValue;
 import org.sredi.storage.Orchestrator;
 
 public class LPopCommand extends Command {
 
     private String key;
+    private Long count; // null for the single-element form
 
     public LPopCommand() {
         super(Type.LPOP);
     }
 
+    public LPopCommand(String key) {
+        super(Type.LPOP);
+        this.key = key;
+    }
+
     @Override
     public void setArgs(RespValue[] args) {
-        ArgReader argReader = new ArgReader(type.name(), new String[] {
-                ":string", // command name
-                ":string"  // key
-        });
+        boolean hasCount = args.length > 2;
+        ArgReader argReader = new ArgReader(type.name(), hasCount
+                ? new String[] {
+                        ":string", // command name
+                        ":string", // key
+                        ":int"     // count
+                }
+                : new String[] {
+                        ":string", // command name
+                        ":string"  // key
+                });
         Map<String, RespValue> optionsMap = argReader.readArgs(args);
         this.key = optionsMap.get("1").getValueAsString();
+        if (hasCount) {
+            this.count = optionsMap.get("2").getValueAsLong();
+            if (count < 0) {
+                throw new IllegalArgumentException("LPOP: count must be a non-negative integer");
+            }
+        }
     }
 
     @Override
     public byte[] execute(Orchestrator service) {
-        String value = service.lpop(key);
-        if (value == null) return RespConstants.NULL;
-        return new RespBulkString(value.getBytes()).asResponse();
+        try {
+            if (count == null) {
+                byte[] value = service.lpop(key);
+                if (value == null) return RespConstants.NULL;
+                return new RespBulkString(value).asResponse();
+            }
+            List<byte[]> values = service.lpop(key, count);
+            if (values == null) return RespConstants.NULL_ARRAY;
+            return new RespArrayValue(values.stream()
+                    .map(RespBulkString::new)
+                    .toArray(RespValue[]::new)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        RespValue[] cmdValues = count == null
+                ? new RespValue[] {
+                        new RespBulkString(getType().name().getBytes()),
+                        new RespBulkString(key.getBytes()) }
+                : new RespValue[] {
+                        new RespBulkString(getType().name().getBytes()),
+                        new RespBulkString(key.getBytes()),
+                        new RespBulkString(count.toString().getBytes()) };
+        return new RespArrayValue(cmdValues).asResponse();
     }
 
     @Override
@@ -37,7 +83,6 @@ public class LPopCommand extends Command {
 
     @Override
     public String toString() {
-        return "LPopCommand [key=" + key + "]";
+        return "LPopCommand [key=" + key + ", count=" + count + "]";
     }
 }
-
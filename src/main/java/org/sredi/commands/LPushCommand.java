@@ -7,13 +7,14 @@ import java.util.Map;
 import org.sredi.resp.RespArrayValue;
 import org.sredi.resp.RespBulkString;
 import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
 import org.sredi.resp.RespValue;
 import org.sredi.storage.Orchestrator;
 
 public class LPushCommand extends Command {
 
     private String key;
-    private List<String> values;
+    private List<byte[]> values;
 
     public LPushCommand() {
         super(Type.LPUSH);
@@ -31,7 +32,7 @@ public class LPushCommand extends Command {
         RespValue[] varValues = ((RespArrayValue) optionsMap.get("2")).getValues();
         this.values = new ArrayList<>(varValues.length);
         for (RespValue v : varValues) {
-            this.values.add(v.getValueAsString());
+            this.values.add(v.asBulkString().getValue());
         }
         if (this.values.isEmpty()) {
             throw new IllegalArgumentException("LPUSH: wrong number of arguments");
@@ -40,11 +41,11 @@ public class LPushCommand extends Command {
 
     @Override
     public byte[] execute(Orchestrator service) {
-        long size = 0;
-        for (String v : values) {
-            size = service.lpush(key, v);
+        try {
+            return new RespInteger(service.lpush(key, values)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
         }
-        return new RespInteger(size).asResponse();
     }
 
     @Override
@@ -52,8 +53,8 @@ public class LPushCommand extends Command {
         List<RespValue> cmdValues = new ArrayList<>(values.size() + 2);
         cmdValues.add(new RespBulkString(getType().name().getBytes()));
         cmdValues.add(new RespBulkString(key.getBytes()));
-        for (String v : values) {
-            cmdValues.add(new RespBulkString(v.getBytes()));
+        for (byte[] v : values) {
+            cmdValues.add(new RespBulkString(v));
         }
         return new RespArrayValue(cmdValues.toArray(new RespValue[0])).asResponse();
     }
@@ -63,6 +64,6 @@ public class LPushCommand extends Command {
 
     @Override
     public String toString() {
-        return "LPushCommand [key=" + key + ", values=" + values + "]";
+        return "LPushCommand [key=" + key + ", values=" + values.size() + "]";
     }
 }
@@ -5,14 +5,15 @@ import java.util.Map;
 
 import org.sredi.resp.RespArrayValue;
 import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
 import org.sredi.resp.RespValue;
 import org.sredi.storage.Orchestrator;
 
 public class LRangeCommand extends Command {
 
     private String key;
-    private int start;
-    private int stop;
+    private long start;
+    private long stop;
 
     public LRangeCommand() {
         super(Type.LRANGE);
@@ -28,17 +29,21 @@ public class LRangeCommand extends Command {
         });
         Map<String, RespValue> optionsMap = argReader.readArgs(args);
         this.key = optionsMap.get("1").getValueAsString();
-        this.start = optionsMap.get("2").getValueAsLong().intValue();
-        this.stop = optionsMap.get("3").getValueAsLong().intValue();
+        this.start = optionsMap.get("2").getValueAsLong();
+        this.stop = optionsMap.get("3").getValueAsLong();
     }
 
     @Override
     public byte[] execute(Orchestrator service) {
-        List<String> values = service.lrange(key, start, stop);
-        RespValue[] respValues = values.stream()
-                .map(v -> new RespBulkString(v.getBytes()))
-                .toArray(RespValue[]::new);
-        return new RespArrayValue(respValues).asResponse();
+        try {
+            List<byte[]> values = service.lrange(key, start, stop);
+            RespValue[] respValues = values.stream()
+                    .map(RespBulkString::new)
+                    .toArray(RespValue[]::new);
+            return new RespArrayValue(respValues).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
     }
 
     @Override
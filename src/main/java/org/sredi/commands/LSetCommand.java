@@ -0,0 +1,63 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+public class LSetCommand extends Command {
+
+    private String key;
+    private long index;
+    private byte[] value;
+
+    public LSetCommand() {
+        super(Type.LSET);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":string", // key
+                ":int",    // index
+                ":string"  // element
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.index = optionsMap.get("2").getValueAsLong();
+        this.value = optionsMap.get("3").asBulkString().getValue();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            service.lset(key, index, value);
+            return RespConstants.OK;
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(getType().name().getBytes()),
+                new RespBulkString(key.getBytes()),
+                new RespBulkString(Long.toString(index).getBytes()),
+                new RespBulkString(value)
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "LSetCommand [key=" + key + ", index=" + index + "]";
+    }
+}
@@ -0,0 +1,63 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+
+public class LTrimCommand extends Command {
+
+    private String key;
+    private long start;
+    private long stop;
+
+    public LTrimCommand() {
+        super(Type.LTRIM);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":string", // key
+                ":int",    // start
+                ":int"     // stop
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.start = optionsMap.get("2").getValueAsLong();
+        this.stop = optionsMap.get("3").getValueAsLong();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            service.ltrim(key, start, stop);
+            return RespConstants.OK;
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(getType().name().getBytes()),
+                new RespBulkString(key.getBytes()),
+                new RespBulkString(Long.toString(start).getBytes()),
+                new RespBulkString(Long.toString(stop).getBytes())
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "LTrimCommand [key=" + key + ", start=" + start + ", stop=" + stop + "]";
+    }
+}
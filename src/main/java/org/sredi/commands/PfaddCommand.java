@@ -0,0 +1,83 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.HyperLogLog;
+import org.sredi.storage.Orchestrator;
+
+// PFADD key [element ...]; replies 1 if the key was created or the estimate may have changed
+public class PfaddCommand extends Command {
+
+    private static final String WIRE_NAME = "PFADD";
+
+    private String key;
+    private List<byte[]> items;
+
+    public PfaddCommand() {
+        super(Type.PFADD);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        // elements are optional, and :var needs at least one
+        ArgReader argReader = new ArgReader(WIRE_NAME, args.length <= 2
+                ? new String[] {
+                        ":string", // command name
+                        ":string"  // key
+                }
+                : new String[] {
+                        ":string", // command name
+                        ":string", // key
+                        ":var"     // elements
+                });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.items = optionsMap.containsKey("2")
+                ? BfMaddCommand.readItems(((RespArrayValue) optionsMap.get("2")).getValues())
+                : List.of();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            HyperLogLog hll = service.pfGet(key);
+            boolean changed = hll == null;
+            if (hll == null) {
+                hll = service.pfGetOrCreate(key);
+            }
+            for (byte[] item : items) {
+                changed |= hll.add(item);
+            }
+            return new RespInteger(changed ? 1 : 0).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(items.size() + 2);
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(key.getBytes(StandardCharsets.UTF_8)));
+        for (byte[] item : items) {
+            values.add(new RespBulkString(item));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "PfaddCommand [key=" + key + ", items=" + items.size() + "]";
+    }
+}
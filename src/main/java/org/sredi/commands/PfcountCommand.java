@@ -0,0 +1,74 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.HyperLogLog;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * PFCOUNT key [key ...]. One key replies with its cached estimate; several keys are estimated as
+ * their union, merged into scratch registers without changing any of them.
+ */
+public class PfcountCommand extends Command {
+
+    private static final String WIRE_NAME = "PFCOUNT";
+
+    private List<String> keys;
+
+    public PfcountCommand() {
+        super(Type.PFCOUNT);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":var"     // keys
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        RespValue[] values = ((RespArrayValue) optionsMap.get("1")).getValues();
+        this.keys = new ArrayList<>(values.length);
+        for (RespValue value : values) {
+            keys.add(value.getValueAsString());
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            if (keys.size() == 1) {
+                HyperLogLog hll = service.pfGet(keys.get(0));
+                return new RespInteger(hll == null ? 0 : hll.count()).asResponse();
+            }
+            byte[] registers = new byte[HyperLogLog.REGISTERS];
+            for (String key : keys) {
+                HyperLogLog hll = service.pfGet(key);
+                if (hll != null) {
+                    hll.maxInto(registers);
+                }
+            }
+            return new RespInteger(HyperLogLog.countRegisters(registers)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return keys.get(0); }
+
+    @Override
+    public List<String> getLockKeys() {
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return "PfcountCommand [keys=" + keys + "]";
+    }
+}
@@ -0,0 +1,102 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.HyperLogLog;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * PFMERGE destkey [sourcekey ...]. The destination, if it exists, is merged along with the
+ * sources, and is left with dense registers as in Redis.
+ */
+public class PfmergeCommand extends Command {
+
+    private static final String WIRE_NAME = "PFMERGE";
+
+    private String destination;
+    private List<String> sources;
+
+    public PfmergeCommand() {
+        super(Type.PFMERGE);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        // sources are optional, and :var needs at least one
+        ArgReader argReader = new ArgReader(WIRE_NAME, args.length <= 2
+                ? new String[] {
+                        ":string", // command name
+                        ":string"  // destination
+                }
+                : new String[] {
+                        ":string", // command name
+                        ":string", // destination
+                        ":var"     // sources
+                });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.destination = optionsMap.get("1").getValueAsString();
+        this.sources = new ArrayList<>();
+        if (optionsMap.containsKey("2")) {
+            for (RespValue value : ((RespArrayValue) optionsMap.get("2")).getValues()) {
+                sources.add(value.getValueAsString());
+            }
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            // every key is read before the destination is created, so WRONGTYPE leaves no trace
+            byte[] registers = new byte[HyperLogLog.REGISTERS];
+            HyperLogLog target = service.pfGet(destination);
+            if (target != null) {
+                target.maxInto(registers);
+            }
+            for (String source : sources) {
+                HyperLogLog hll = service.pfGet(source);
+                if (hll != null) {
+                    hll.maxInto(registers);
+                }
+            }
+            if (target == null) {
+                target = service.pfGetOrCreate(destination);
+            }
+            target.setRegisters(registers);
+            return RespConstants.OK;
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(sources.size() + 2);
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(destination.getBytes(StandardCharsets.UTF_8)));
+        for (String source : sources) {
+            values.add(new RespBulkString(source.getBytes(StandardCharsets.UTF_8)));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return destination; }
+
+    @Override
+    public List<String> getLockKeys() {
+        return Command.lockKeys(destination, sources);
+    }
+
+    @Override
+    public String toString() {
+        return "PfmergeCommand [destination=" + destination + ", sources=" + sources + "]";
+    }
+}
@@ -0,0 +1,74 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SetValue;
+
+// SADD key member [member ...]; replies with the number of members added
+public class SAddCommand extends Command {
+
+    private static final String WIRE_NAME = "SADD";
+
+    private String key;
+    private List<byte[]> members;
+
+    public SAddCommand() {
+        super(Type.SADD);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // members
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.members = BfMaddCommand.readItems(((RespArrayValue) optionsMap.get("2")).getValues());
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            SetValue set = service.setValueGetOrCreate(key);
+            long added = 0;
+            for (byte[] member : members) {
+                if (set.add(member)) {
+                    added++;
+                }
+            }
+            return new RespInteger(added).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(members.size() + 2);
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(key.getBytes(StandardCharsets.UTF_8)));
+        for (byte[] member : members) {
+            values.add(new RespBulkString(member));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "SAddCommand [key=" + key + ", members=" + members.size() + "]";
+    }
+}
@@ -0,0 +1,48 @@
+package org.sredi.commands;
+
+import java.util.Map;
+
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SetValue;
+
+public class SCardCommand extends Command {
+
+    private static final String WIRE_NAME = "SCARD";
+
+    private String key;
+
+    public SCardCommand() {
+        super(Type.SCARD);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string"  // key
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            SetValue set = service.setValueGet(key);
+            return new RespInteger(set == null ? 0 : set.size()).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "SCardCommand [key=" + key + "]";
+    }
+}
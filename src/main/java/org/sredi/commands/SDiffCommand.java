@@ -0,0 +1,68 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SetValue;
+
+// SDIFF key [key ...]; members of the first set that are in none of the others
+public class SDiffCommand extends Command {
+
+    private static final String WIRE_NAME = "SDIFF";
+
+    private List<String> keys;
+
+    public SDiffCommand() {
+        super(Type.SDIFF);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":var"     // keys
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.keys = SInterCommand.readKeys(((RespArrayValue) optionsMap.get("1")).getValues(), 0, -1);
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            List<SetValue> sets = SInterCommand.readSets(service, keys);
+            List<RespValue> reply = new ArrayList<>();
+            SetValue first = sets.get(0);
+            if (first != null) {
+                List<SetValue> others = sets.subList(1, sets.size());
+                first.forEach(member -> {
+                    for (SetValue other : others) {
+                        if (other != null && other.contains(member)) {
+                            return;
+                        }
+                    }
+                    reply.add(new RespBulkString(member));
+                });
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return keys.get(0); }
+
+    @Override
+    public List<String> getLockKeys() { return keys; }
+
+    @Override
+    public String toString() {
+        return "SDiffCommand [keys=" + keys + "]";
+    }
+}
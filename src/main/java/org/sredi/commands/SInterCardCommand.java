@@ -0,0 +1,82 @@
+package org.sredi.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SetValue;
+
+// SINTERCARD numkeys key [key ...] [LIMIT limit]; stops counting once limit members were found
+public class SInterCardCommand extends Command {
+
+    private static final String WIRE_NAME = "SINTERCARD";
+
+    private List<String> keys;
+    private int limit;
+
+    public SInterCardCommand() {
+        super(Type.SINTERCARD);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":int",    // numkeys
+                ":var"     // keys, then optional LIMIT
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        long numKeys = optionsMap.get("1").getValueAsLong();
+        RespValue[] rest = ((RespArrayValue) optionsMap.get("2")).getValues();
+        if (numKeys < 1) {
+            throw new IllegalArgumentException("ERR numkeys should be greater than 0");
+        }
+        if (numKeys > rest.length) {
+            throw new IllegalArgumentException("ERR Number of keys can't be greater than number of args");
+        }
+        int n = (int) numKeys;
+        this.keys = SInterCommand.readKeys(rest, 0, n);
+        if (rest.length == n) {
+            return;
+        }
+        if (rest.length != n + 2 || !"LIMIT".equalsIgnoreCase(rest[n].getValueAsString())) {
+            throw new IllegalArgumentException("ERR syntax error");
+        }
+        long value;
+        try {
+            value = Long.parseLong(rest[n + 1].getValueAsString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ERR value is not an integer or out of range");
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("ERR LIMIT can't be negative");
+        }
+        this.limit = (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            List<SetValue> sets = SInterCommand.readSets(service, keys);
+            long count = sets.contains(null) ? 0 : SetValue.intersect(sets, limit, null);
+            return new RespInteger(count).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return keys.get(0); }
+
+    @Override
+    public List<String> getLockKeys() { return keys; }
+
+    @Override
+    public String toString() {
+        return "SInterCardCommand [keys=" + keys + ", limit=" + limit + "]";
+    }
+}
@@ -0,0 +1,78 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SetValue;
+
+// SINTER key [key ...]; walks the smallest set and probes the others, see SetValue.intersect
+public class SInterCommand extends Command {
+
+    private static final String WIRE_NAME = "SINTER";
+
+    private List<String> keys;
+
+    public SInterCommand() {
+        super(Type.SINTER);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":var"     // keys
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.keys = readKeys(((RespArrayValue) optionsMap.get("1")).getValues(), 0, -1);
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            List<SetValue> sets = readSets(service, keys);
+            List<RespValue> reply = new ArrayList<>();
+            if (!sets.contains(null)) {
+                SetValue.intersect(sets, 0, member -> reply.add(new RespBulkString(member)));
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    // count keys from values[from], or all remaining values when count is negative
+    static List<String> readKeys(RespValue[] values, int from, int count) {
+        int to = count < 0 ? values.length : from + count;
+        List<String> keys = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            keys.add(values[i].getValueAsString());
+        }
+        return keys;
+    }
+
+    // The sets at keys, null for missing keys; every key is type-checked before any is used
+    static List<SetValue> readSets(Orchestrator service, List<String> keys) {
+        List<SetValue> sets = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            sets.add(service.setValueGet(key));
+        }
+        return sets;
+    }
+
+    @Override
+    public String getKey() { return keys.get(0); }
+
+    @Override
+    public List<String> getLockKeys() { return keys; }
+
+    @Override
+    public String toString() {
+        return "SInterCommand [keys=" + keys + "]";
+    }
+}
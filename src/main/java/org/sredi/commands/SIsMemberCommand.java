@@ -0,0 +1,52 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SetValue;
+
+public class SIsMemberCommand extends Command {
+
+    private static final String WIRE_NAME = "SISMEMBER";
+
+    private String key;
+    private byte[] member;
+
+    public SIsMemberCommand() {
+        super(Type.SISMEMBER);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string"  // member
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.member = optionsMap.get("2").asBulkString().getValue();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            SetValue set = service.setValueGet(key);
+            return new RespInteger(set != null && set.contains(member) ? 1 : 0).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "SIsMemberCommand [key=" + key + ", member=" + new String(member, StandardCharsets.UTF_8) + "]";
+    }
+}
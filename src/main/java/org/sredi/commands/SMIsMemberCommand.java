@@ -0,0 +1,57 @@
+package org.sredi.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SetValue;
+
+public class SMIsMemberCommand extends Command {
+
+    private static final String WIRE_NAME = "SMISMEMBER";
+
+    private String key;
+    private List<byte[]> members;
+
+    public SMIsMemberCommand() {
+        super(Type.SMISMEMBER);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // members
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.members = BfMaddCommand.readItems(((RespArrayValue) optionsMap.get("2")).getValues());
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            SetValue set = service.setValueGet(key);
+            RespValue[] reply = new RespValue[members.size()];
+            for (int i = 0; i < reply.length; i++) {
+                reply[i] = new RespInteger(set != null && set.contains(members.get(i)) ? 1 : 0);
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "SMIsMemberCommand [key=" + key + ", members=" + members.size() + "]";
+    }
+}
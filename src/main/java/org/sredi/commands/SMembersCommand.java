@@ -0,0 +1,55 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SetValue;
+
+public class SMembersCommand extends Command {
+
+    private static final String WIRE_NAME = "SMEMBERS";
+
+    private String key;
+
+    public SMembersCommand() {
+        super(Type.SMEMBERS);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string"  // key
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            SetValue set = service.setValueGet(key);
+            if (set == null) {
+                return RespValue.array(new RespValue[0]).asResponse();
+            }
+            List<RespValue> reply = new ArrayList<>(set.size());
+            set.forEach(member -> reply.add(new RespBulkString(member)));
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "SMembersCommand [key=" + key + "]";
+    }
+}
@@ -0,0 +1,75 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.GlobPattern;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SetValue;
+
+// SSCAN key cursor [MATCH pattern] [COUNT count]; same cursor contract as HSCAN, with intsets
+// returned whole
+public class SScanCommand extends Command {
+
+    private static final String WIRE_NAME = "SSCAN";
+
+    private String key;
+    private long cursor;
+    private GlobPattern pattern;
+    private int count = HScanCommand.DEFAULT_COUNT;
+
+    public SScanCommand() {
+        super(Type.SSCAN);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string", // cursor
+                "[match:string]",
+                "[count:int]"
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.cursor = HScanCommand.readCursor(optionsMap.get("2"));
+        if (optionsMap.containsKey("match")) {
+            this.pattern = GlobPattern.compile(optionsMap.get("match").asBulkString().getValue());
+        }
+        if (optionsMap.containsKey("count")) {
+            this.count = HScanCommand.readCount(optionsMap.get("count"));
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            SetValue set = service.setValueGet(key);
+            if (set == null) {
+                return HScanCommand.scanReply(0, List.of());
+            }
+            List<RespValue> items = new ArrayList<>();
+            long next = set.scan(cursor, count, member -> {
+                if (pattern == null || pattern.matches(member)) {
+                    items.add(new RespBulkString(member));
+                }
+            });
+            return HScanCommand.scanReply(next, items);
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "SScanCommand [key=" + key + ", cursor=" + Long.toUnsignedString(cursor) + ", count=" + count + "]";
+    }
+}
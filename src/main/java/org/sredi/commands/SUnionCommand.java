@@ -0,0 +1,63 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SetValue;
+
+// SUNION key [key ...]; integer-only unions stay intsets while merging and come back sorted
+public class SUnionCommand extends Command {
+
+    private static final String WIRE_NAME = "SUNION";
+
+    private List<String> keys;
+
+    public SUnionCommand() {
+        super(Type.SUNION);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":var"     // keys
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.keys = SInterCommand.readKeys(((RespArrayValue) optionsMap.get("1")).getValues(), 0, -1);
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            List<SetValue> sets = SInterCommand.readSets(service, keys);
+            SetValue union = new SetValue();
+            for (SetValue set : sets) {
+                if (set != null) {
+                    set.forEach(union::add);
+                }
+            }
+            List<RespValue> reply = new ArrayList<>(union.size());
+            union.forEach(member -> reply.add(new RespBulkString(member)));
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return keys.get(0); }
+
+    @Override
+    public List<String> getLockKeys() { return keys; }
+
+    @Override
+    public String toString() {
+        return "SUnionCommand [keys=" + keys + "]";
+    }
+}
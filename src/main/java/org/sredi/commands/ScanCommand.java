@@ -0,0 +1,77 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.DataEntryType;
+import org.sredi.storage.GlobPattern;
+import org.sredi.storage.Orchestrator;
+
+/**
+ * SCAN cursor [MATCH pattern] [COUNT count] [TYPE type]. Walks the keyspace a few keys per call
+ * in hash order with a cursor that survives any number of keys being added or removed; every
+ * key present for the whole scan is returned at least once. As with HSCAN, COUNT is roughly how
+ * many keys to visit and MATCH and TYPE filter after visiting, so a call may return fewer keys, or none,
+ * before the cursor returns to 0.
+ */
+public class ScanCommand extends Command {
+
+    private static final String WIRE_NAME = "SCAN";
+
+    private long cursor;
+    private GlobPattern pattern;
+    private int count = HScanCommand.DEFAULT_COUNT;
+    private DataEntryType entryType;
+
+    public ScanCommand() {
+        super(Type.SCAN);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // cursor
+                "[match:string]",
+                "[count:int]",
+                "[type:string]"
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.cursor = HScanCommand.readCursor(optionsMap.get("1"));
+        if (optionsMap.containsKey("match")) {
+            this.pattern = GlobPattern.compile(optionsMap.get("match").asBulkString().getValue());
+        }
+        if (optionsMap.containsKey("count")) {
+            this.count = HScanCommand.readCount(optionsMap.get("count"));
+        }
+        if (optionsMap.containsKey("type")) {
+            String typeName = optionsMap.get("type").getValueAsString();
+            try {
+                this.entryType = DataEntryType.valueOf(typeName.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("ERR unknown type name '" + typeName + "'");
+            }
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        List<RespValue> keys = new ArrayList<>();
+        long next = service.scan(cursor, count, (key, entry) -> {
+            if ((entryType == null || entry.getType() == entryType)
+                    && (pattern == null || pattern.matches(key))) {
+                keys.add(new RespBulkString(key.getBytes()));
+            }
+        });
+        return HScanCommand.scanReply(next, keys);
+    }
+
+    @Override
+    public String toString() {
+        return "ScanCommand [cursor=" + Long.toUnsignedString(cursor) + ", count=" + count
+                + ", type=" + entryType + "]";
+    }
+}
@@ -0,0 +1,75 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Bitmap;
+import org.sredi.storage.Orchestrator;
+
+// SETBIT key offset value; replies with the bit's previous value
+public class SetBitCommand extends Command {
+
+    private static final String WIRE_NAME = "SETBIT";
+
+    private String key;
+    private long offset;
+    private int value;
+
+    public SetBitCommand() {
+        super(Type.SETBIT);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":int",    // offset
+                ":int"     // value
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.offset = optionsMap.get("2").getValueAsLong();
+        long bit = optionsMap.get("3").getValueAsLong();
+        if (offset < 0 || offset >= Bitmap.MAX_BITS) {
+            throw new IllegalArgumentException(WIRE_NAME + ": bit offset is not an integer or out of range");
+        }
+        if (bit != 0 && bit != 1) {
+            throw new IllegalArgumentException(WIRE_NAME + ": bit is not an integer or out of range");
+        }
+        this.value = (int) bit;
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            Bitmap bitmap = service.bitmapGetOrCreate(key);
+            return new RespInteger(bitmap.setBit(offset, value)).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(key.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(String.valueOf(offset).getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(String.valueOf(value).getBytes(StandardCharsets.UTF_8))
+        }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "SetBitCommand [key=" + key + ", offset=" + offset + ", value=" + value + "]";
+    }
+}
@@ -150,14 +150,17 @@ public class SetCommand extends Command {
 
         Long ttl = getTtl(now);
         DataEntry prevData = null;
+        byte[] prevValue = null;
         if ((doGet || doKeepTtl) && service.containsKey(keyString)) {
             prevData = service.get(keyString);
             ttl = doKeepTtl ? prevData.getTtlMillis() : ttl;
+            // read before set(): an off-heap previous value is released once it is replaced
+            prevValue = doGet ? prevData.getValue() : null;
         }
         DataEntry storedData = new DataEntry(value.getValue(), now, ttl);
         service.set(keyString, storedData);
         return (doGet && prevData != null)
-                ? new RespBulkString(prevData.getValue()).asResponse()
+                ? new RespBulkString(prevValue).asResponse()
                 : RespConstants.OK;
     }
 
@@ -0,0 +1,88 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.TopK;
+
+/**
+ * TOPK.ADD key item [item ...]. Replies with the item each add pushed out of the top k, or nil.
+ */
+public class TopkAddCommand extends Command {
+
+    private static final String WIRE_NAME = "TOPK.ADD";
+
+    private String key;
+    private List<String> items;
+
+    public TopkAddCommand() {
+        super(Type.TOPK_ADD);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // items
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.items = readItems(((RespArrayValue) optionsMap.get("2")).getValues());
+    }
+
+    static List<String> readItems(RespValue[] values) {
+        List<String> items = new ArrayList<>(values.length);
+        for (RespValue v : values) {
+            items.add(v.getValueAsString());
+        }
+        return items;
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            TopK topK = service.topkGet(key);
+            if (topK == null) {
+                return new RespSimpleErrorValue("ERR TOPK: key does not exist").asResponse();
+            }
+            RespValue[] reply = new RespValue[items.size()];
+            for (int i = 0; i < reply.length; i++) {
+                String expelled = topK.add(items.get(i), 1);
+                reply[i] = expelled == null
+                        ? RespConstants.NULL_VALUE
+                        : new RespBulkString(expelled.getBytes(StandardCharsets.UTF_8));
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(items.size() + 2);
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(key.getBytes(StandardCharsets.UTF_8)));
+        for (String item : items) {
+            values.add(new RespBulkString(item.getBytes(StandardCharsets.UTF_8)));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "TopkAddCommand [key=" + key + ", items=" + items.size() + "]";
+    }
+}
@@ -0,0 +1,69 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.TopK;
+
+/**
+ * TOPK.LIST key [WITHCOUNT]. The top k items, largest count first, each followed by its count
+ * with WITHCOUNT.
+ */
+public class TopkListCommand extends Command {
+
+    private static final String WIRE_NAME = "TOPK.LIST";
+
+    private String key;
+    private boolean withCount;
+
+    public TopkListCommand() {
+        super(Type.TOPK_LIST);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                "[withcount]"
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.withCount = optionsMap.containsKey("withcount");
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            TopK topK = service.topkGet(key);
+            if (topK == null) {
+                return new RespSimpleErrorValue("ERR TOPK: key does not exist").asResponse();
+            }
+            List<RespValue> reply = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : topK.list()) {
+                reply.add(new RespBulkString(entry.getKey().getBytes(StandardCharsets.UTF_8)));
+                if (withCount) {
+                    reply.add(new RespInteger(entry.getValue()));
+                }
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "TopkListCommand [key=" + key + ", withCount=" + withCount + "]";
+    }
+}
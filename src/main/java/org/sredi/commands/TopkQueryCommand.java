@@ -0,0 +1,60 @@
+package org.sredi.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.TopK;
+
+public class TopkQueryCommand extends Command {
+
+    private static final String WIRE_NAME = "TOPK.QUERY";
+
+    private String key;
+    private List<String> items;
+
+    public TopkQueryCommand() {
+        super(Type.TOPK_QUERY);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // items
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.items = TopkAddCommand.readItems(((RespArrayValue) optionsMap.get("2")).getValues());
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            TopK topK = service.topkGet(key);
+            if (topK == null) {
+                return new RespSimpleErrorValue("ERR TOPK: key does not exist").asResponse();
+            }
+            RespValue[] reply = new RespValue[items.size()];
+            for (int i = 0; i < reply.length; i++) {
+                reply[i] = new RespInteger(topK.contains(items.get(i)) ? 1 : 0);
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "TopkQueryCommand [key=" + key + ", items=" + items.size() + "]";
+    }
+}
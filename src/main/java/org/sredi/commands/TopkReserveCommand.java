@@ -0,0 +1,84 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.TopK;
+
+/**
+ * TOPK.RESERVE key topk [width depth decay]. The sketch dimensions default to 8 x 7 with decay
+ * 0.9 and are given together or not at all.
+ */
+public class TopkReserveCommand extends Command {
+
+    private static final String WIRE_NAME = "TOPK.RESERVE";
+
+    private String key;
+    private long k;
+    private long width = TopK.DEFAULT_WIDTH;
+    private long depth = TopK.DEFAULT_DEPTH;
+    private double decay = TopK.DEFAULT_DECAY;
+
+    public TopkReserveCommand() {
+        super(Type.TOPK_RESERVE);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        if (args.length != 3 && args.length != 6) {
+            throw new IllegalArgumentException(WIRE_NAME + ": wrong number of arguments");
+        }
+        ArgReader argReader = new ArgReader(WIRE_NAME, args.length == 3
+                ? new String[] { ":string", ":string", ":int" }
+                : new String[] { ":string", ":string", ":int", ":int", ":int", ":string" });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.k = optionsMap.get("2").getValueAsLong();
+        if (args.length == 6) {
+            this.width = optionsMap.get("3").getValueAsLong();
+            this.depth = optionsMap.get("4").getValueAsLong();
+            String decayStr = optionsMap.get("5").getValueAsString();
+            try {
+                this.decay = Double.parseDouble(decayStr);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(WIRE_NAME + ": Invalid decay at index 5: " + decayStr);
+            }
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            service.topkReserve(key, new TopK(k, width, depth, decay));
+            return RespConstants.OK;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        String[] values = { WIRE_NAME, key, String.valueOf(k), String.valueOf(width),
+                String.valueOf(depth), String.valueOf(decay) };
+        RespValue[] command = new RespValue[values.length];
+        for (int i = 0; i < values.length; i++) {
+            command[i] = new RespBulkString(values[i].getBytes(StandardCharsets.UTF_8));
+        }
+        return new RespArrayValue(command).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "TopkReserveCommand [key=" + key + ", k=" + k + ", width=" + width + ", depth=" + depth
+                + ", decay=" + decay + "]";
+    }
+}
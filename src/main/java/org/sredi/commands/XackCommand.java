@@ -0,0 +1,94 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.streams.IllegalStreamItemIdException;
+import org.sredi.streams.StreamId;
+
+public class XackCommand extends Command {
+
+    private static ArgReader ARG_READER = new ArgReader(Type.XACK.name(), new String[] {
+            ":string", // command name
+            ":string", // key
+            ":string", // group
+            ":var" // ids
+    });
+
+    private String key;
+    private String group;
+    private List<String> ids;
+    private boolean succeeded;
+
+    public XackCommand() {
+        super(Type.XACK);
+    }
+
+    public XackCommand(String key, String group, List<StreamId> ids) {
+        super(Type.XACK);
+        this.key = key;
+        this.group = group;
+        this.ids = ids.stream().map(StreamId::getId).toList();
+        this.succeeded = true;
+    }
+
+    @Override
+    protected void setArgs(RespValue[] args) {
+        Map<String, RespValue> optionsMap = ARG_READER.readArgs(args);
+        key = optionsMap.get("1").getValueAsString();
+        group = optionsMap.get("2").getValueAsString();
+        ids = new ArrayList<>();
+        for (RespValue id : ((RespArrayValue) optionsMap.get("3")).getValues()) {
+            ids.add(id.getValueAsString());
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            List<StreamId> streamIds = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                streamIds.add(StreamId.parse(id));
+            }
+            long acked = service.xack(key, group, streamIds);
+            succeeded = acked > 0;
+            return new RespInteger(acked).asResponse();
+        } catch (IllegalStreamItemIdException | IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public boolean isReplicatedCommand() {
+        return succeeded;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(ids.size() + 3);
+        values.add(new RespBulkString(getType().name().getBytes()));
+        values.add(new RespBulkString(key.getBytes()));
+        values.add(new RespBulkString(group.getBytes()));
+        for (String id : ids) {
+            values.add(new RespBulkString(id.getBytes()));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "XackCommand [key=" + key + ", group=" + group + ", ids=" + ids + "]";
+    }
+}
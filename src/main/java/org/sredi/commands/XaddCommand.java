@@ -1,8 +1,9 @@
 package org.sredi.commands;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 
 import org.sredi.storage.Orchestrator;
@@ -12,19 +13,16 @@ import org.sredi.resp.RespSimpleErrorValue;
 import org.sredi.resp.RespValue;
 import org.sredi.streams.IllegalStreamItemIdException;
 import org.sredi.streams.StreamId;
+import org.sredi.streams.TrimOptions;
 
 public class XaddCommand extends Command {
 
-    private static ArgReader ARG_READER = new ArgReader(Type.XADD.name(), new String[] {
-            ":string", // command name
-            ":string", // key
-            ":string", // itemId
-            ":var" // itemMap
-    });
-
     private String key;
     private String itemId;
     RespValue[] itemMap = null;
+    private TrimOptions trim; // null without MAXLEN/MINID
+    private TrimOptions replicatedTrim; // the exact trim followers apply
+    private StreamId addedId; // the ID actually used, which is what followers must apply
 
     public XaddCommand() {
         super(Type.XADD);
@@ -40,51 +38,77 @@ public class XaddCommand extends Command {
     @Override
     public byte[] execute(Orchestrator service) {
         try {
-            StreamId streamId = service.xadd(key, itemId, itemMap);
+            StreamId streamId = service.xadd(key, itemId, itemMap, trim);
+            addedId = streamId;
+            if (trim != null) {
+                replicatedTrim = service.xexactTrim(key, trim);
+            }
             return new RespBulkString(streamId.getId().getBytes()).asResponse();
-        } catch (IllegalStreamItemIdException e) {
+        } catch (IllegalStreamItemIdException | IllegalStateException e) {
             return new RespSimpleErrorValue(e.getMessage()).asResponse();
         }
     }
 
+    @Override
+    public boolean isReplicatedCommand() {
+        return addedId != null;
+    }
+
     @Override
     public byte[] asCommand() {
-        return new RespArrayValue(
-                new RespValue[] { new RespBulkString(getType().name().getBytes()) }).asResponse();
+        List<RespValue> values = new ArrayList<>();
+        values.add(new RespBulkString(getType().name().getBytes()));
+        values.add(new RespBulkString(key.getBytes()));
+        TrimOptions appliedTrim = replicatedTrim != null ? replicatedTrim : trim;
+        if (appliedTrim != null) {
+            XtrimCommand.addTrimArgs(values, appliedTrim);
+        }
+        values.add(new RespBulkString((addedId != null ? addedId.getId() : itemId).getBytes()));
+        values.addAll(Arrays.asList(itemMap));
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
     }
 
     @Override
     protected void setArgs(RespValue[] args) {
-        Map<String, RespValue> optionsMap = ARG_READER.readArgs(args);
-        key = optionsMap.get("1").getValueAsString();
-        itemId = optionsMap.get("2").getValueAsString();
-
-        if (!optionsMap.containsKey("3")) {
+        validateNumArgs(args, n -> n >= 3);
+        for (int i = 1; i < args.length; i++) {
+            validateArgIsString(args, i);
+        }
+        key = args[1].getValueAsString();
+        int i = 2;
+        if (XtrimCommand.isTrimStrategy(args[i])) {
+            XtrimCommand.TrimClause clause = XtrimCommand.readTrimClause(type.name(), args, i);
+            trim = clause.options();
+            i = clause.end();
+        }
+        if (i >= args.length) {
+            throw new IllegalArgumentException(String.format("%s: missing item id", type.name()));
+        }
+        itemId = args[i].getValueAsString();
+        itemMap = Arrays.copyOfRange(args, i + 1, args.length);
+        if (itemMap.length == 0) {
             throw new IllegalArgumentException(String
                     .format("%s: missing map values", type.name()));
-        } else {
-            RespArrayValue itemMapArg = (RespArrayValue) optionsMap.get("3");
-            itemMap = itemMapArg.getValues();
+        }
 
-            Set<RespValue> itemKeys = new HashSet<>();
-            if ((itemMap.length) % 2 == 1) {
+        Set<RespValue> itemKeys = new HashSet<>();
+        if ((itemMap.length) % 2 == 1) {
+            throw new IllegalArgumentException(
+                    String.format("%s: Invalid number of item key value pairs", type.name()));
+        }
+        for (int j = 0; j < itemMap.length; j += 2) {
+            if (itemKeys.contains(itemMap[j])) {
                 throw new IllegalArgumentException(
-                        String.format("%s: Invalid number of item key value pairs", type.name()));
-            }
-            for (int i = 0; i < itemMap.length; i += 2) {
-                if (itemKeys.contains(itemMap[i])) {
-                    throw new IllegalArgumentException(
-                            String.format("%s: Duplicate item key: %s", type.name(), itemMap[i]));
-                }
-                itemKeys.add(itemMap[i]);
+                        String.format("%s: Duplicate item key: %s", type.name(), itemMap[j]));
             }
+            itemKeys.add(itemMap[j]);
         }
     }
 
     @Override
     public String toString() {
         return "XaddCommand [key=" + key + ", itemId=" + itemId + ", itemMap="
-                + Arrays.toString(itemMap) + "]";
+                + Arrays.toString(itemMap) + ", trim=" + trim + "]";
     }
 
     public String getKey() {
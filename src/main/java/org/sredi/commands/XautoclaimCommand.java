@@ -0,0 +1,114 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.streams.ClaimResult;
+import org.sredi.streams.IllegalStreamItemIdException;
+import org.sredi.streams.StreamData;
+import org.sredi.streams.StreamId;
+
+/**
+ * XAUTOCLAIM key group consumer min-idle-time start [COUNT n] [JUSTID]. Replies with the cursor to
+ * continue from (0-0 when the scan reached the end), the claimed entries and the pending IDs that
+ * were dropped because their entries no longer exist. Replicated like XCLAIM.
+ */
+public class XautoclaimCommand extends Command {
+
+    private static final int DEFAULT_COUNT = 100;
+
+    private static ArgReader ARG_READER = new ArgReader(Type.XAUTOCLAIM.name(), new String[] {
+            ":string", // command name
+            ":string", // key
+            ":string", // group
+            ":string", // consumer
+            ":int", // min-idle-time
+            ":string", // start
+            "[count:int]",
+            "[justid]"
+    });
+
+    private String key;
+    private String group;
+    private String consumer;
+    private long minIdleMillis;
+    private String start;
+    private int count = DEFAULT_COUNT;
+    private boolean justId;
+
+    public XautoclaimCommand() {
+        super(Type.XAUTOCLAIM);
+    }
+
+    @Override
+    protected void setArgs(RespValue[] args) {
+        Map<String, RespValue> optionsMap = ARG_READER.readArgs(args);
+        key = optionsMap.get("1").getValueAsString();
+        group = optionsMap.get("2").getValueAsString();
+        consumer = optionsMap.get("3").getValueAsString();
+        minIdleMillis = Math.max(0, optionsMap.get("4").getValueAsLong());
+        start = optionsMap.get("5").getValueAsString();
+        if (optionsMap.containsKey("count")) {
+            long requested = optionsMap.get("count").getValueAsLong();
+            if (requested <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("%s: COUNT must be > 0", type.name()));
+            }
+            count = (int) Math.min(requested, Integer.MAX_VALUE / 10);
+        }
+        justId = optionsMap.containsKey("justid");
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            ClaimResult result = service.xautoclaim(key, group, consumer, minIdleMillis,
+                    StreamData.parseRangeParam(start, true), count, justId);
+            XclaimCommand.replicateClaims(service, key, group, result, null);
+            RespValue[] deleted = result.deleted().stream()
+                    .map(id -> new RespBulkString(id.getId().getBytes()))
+                    .toArray(RespValue[]::new);
+            return RespValue.array(
+                    new RespBulkString(result.nextStart().getId().getBytes()),
+                    XclaimCommand.claimedReply(result, justId),
+                    new RespArrayValue(deleted)).asResponse();
+        } catch (IllegalStreamItemIdException | IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>();
+        values.add(new RespBulkString(getType().name().getBytes()));
+        values.add(new RespBulkString(key.getBytes()));
+        values.add(new RespBulkString(group.getBytes()));
+        values.add(new RespBulkString(consumer.getBytes()));
+        values.add(new RespBulkString(String.valueOf(minIdleMillis).getBytes()));
+        values.add(new RespBulkString(start.getBytes()));
+        values.add(new RespBulkString("COUNT".getBytes()));
+        values.add(new RespBulkString(String.valueOf(count).getBytes()));
+        if (justId) {
+            values.add(new RespBulkString("JUSTID".getBytes()));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "XautoclaimCommand [key=" + key + ", group=" + group + ", consumer=" + consumer
+                + ", minIdleMillis=" + minIdleMillis + ", start=" + start + ", count=" + count
+                + ", justId=" + justId + "]";
+    }
+}
@@ -0,0 +1,204 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.streams.ClaimOptions;
+import org.sredi.streams.ClaimResult;
+import org.sredi.streams.IllegalStreamItemIdException;
+import org.sredi.streams.PendingEntryList.PendingEntry;
+import org.sredi.streams.StreamId;
+import org.sredi.streams.StreamValue;
+
+/**
+ * XCLAIM key group consumer min-idle-time id [id ...] [IDLE ms] [TIME ms] [RETRYCOUNT n] [FORCE]
+ * [JUSTID] [LASTID id].
+ * <p>
+ * Whether an entry is idle long enough depends on the local clock, so a claim is not replicated
+ * as given. Each claimed entry is sent to followers as an XCLAIM with min-idle-time 0 and the
+ * exact delivery time and count the leader recorded.
+ */
+public class XclaimCommand extends Command {
+
+    private String key;
+    private String group;
+    private String consumer;
+    private long minIdleMillis;
+    private List<String> ids;
+    private Long idleMillis;
+    private Long timeMillis;
+    private Integer retryCount;
+    private boolean force;
+    private boolean justId;
+    private String lastId;
+    private boolean replicatedForm; // built by replicateClaims; client XCLAIMs are never sent as given
+
+    public XclaimCommand() {
+        super(Type.XCLAIM);
+    }
+
+    // The replicated form of one claimed entry
+    XclaimCommand(String key, String group, PendingEntry entry, String lastId) {
+        super(Type.XCLAIM);
+        this.key = key;
+        this.group = group;
+        this.consumer = entry.owner().getName();
+        this.ids = List.of(entry.id().getId());
+        this.timeMillis = entry.deliveryTime();
+        this.retryCount = entry.deliveryCount();
+        this.force = true;
+        this.justId = true;
+        this.lastId = lastId;
+        this.replicatedForm = true;
+    }
+
+    @Override
+    protected void setArgs(RespValue[] args) {
+        validateNumArgs(args, n -> n >= 6);
+        for (int i = 1; i < args.length; i++) {
+            validateArgIsString(args, i);
+        }
+        key = args[1].getValueAsString();
+        group = args[2].getValueAsString();
+        consumer = args[3].getValueAsString();
+        validateArgIsInteger(args, 4);
+        minIdleMillis = Math.max(0, args[4].getValueAsLong());
+        ids = new ArrayList<>();
+        int i = 5;
+        for (; i < args.length && !isOption(args[i].getValueAsString()); i++) {
+            ids.add(args[i].getValueAsString());
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException(String.format("%s: missing ids", type.name()));
+        }
+        while (i < args.length) {
+            String option = args[i].getValueAsString().toLowerCase();
+            switch (option) {
+                case "force" -> force = true;
+                case "justid" -> justId = true;
+                case "idle", "time", "retrycount", "lastid" -> {
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException(
+                                String.format("%s: Missing value for arg '%s'", type.name(), option));
+                    }
+                    String value = args[++i].getValueAsString();
+                    switch (option) {
+                        case "idle" -> idleMillis = readLong(args, i);
+                        case "time" -> timeMillis = readLong(args, i);
+                        case "retrycount" -> retryCount = (int) Math.min(readLong(args, i), Integer.MAX_VALUE);
+                        default -> lastId = value;
+                    }
+                }
+                default -> throw new IllegalArgumentException(String
+                        .format("%s: unrecognized arg at index %d, %s", type.name(), i, args[i]));
+            }
+            i++;
+        }
+    }
+
+    private static boolean isOption(String arg) {
+        return switch (arg.toLowerCase()) {
+            case "idle", "time", "retrycount", "force", "justid", "lastid" -> true;
+            default -> false;
+        };
+    }
+
+    private long readLong(RespValue[] args, int index) {
+        validateArgIsInteger(args, index);
+        return args[index].getValueAsLong();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            List<StreamId> streamIds = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                streamIds.add(StreamId.parse(id));
+            }
+            ClaimOptions options = new ClaimOptions(idleMillis, timeMillis, retryCount, force, justId,
+                    lastId != null ? StreamId.parse(lastId) : null);
+            ClaimResult result = service.xclaim(key, group, consumer, minIdleMillis, streamIds, options);
+            replicateClaims(service, key, group, result, lastId);
+            return claimedReply(result, justId).asResponse();
+        } catch (IllegalStreamItemIdException | IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    static RespArrayValue claimedReply(ClaimResult result, boolean justId) {
+        List<StreamValue> claimed = result.claimed();
+        RespValue[] values = new RespValue[claimed.size()];
+        for (int i = 0; i < values.length; i++) {
+            StreamValue value = claimed.get(i);
+            values[i] = justId ? new RespBulkString(value.itemId().getId().getBytes()) : value.asRespArrayValue();
+        }
+        return new RespArrayValue(values);
+    }
+
+    // Sends followers the exact outcome of a claim: one forced XCLAIM per claimed entry, and an
+    // XACK for pending IDs dropped because their entries were deleted
+    static void replicateClaims(Orchestrator service, String key, String group, ClaimResult result,
+            String lastId) {
+        for (PendingEntry entry : result.pendingEntries()) {
+            service.replicate(new XclaimCommand(key, group, entry, lastId));
+        }
+        if (!result.deleted().isEmpty()) {
+            service.replicate(new XackCommand(key, group, result.deleted()));
+        }
+        if (lastId != null && result.pendingEntries().isEmpty()) {
+            String groupLastId = service.getGroup(key, group).getLastDeliveredId().getId();
+            service.replicate(XgroupCommand.setId(key, group, groupLastId));
+        }
+    }
+
+    @Override
+    public boolean isReplicatedCommand() {
+        return replicatedForm;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>();
+        values.add(new RespBulkString(getType().name().getBytes()));
+        values.add(new RespBulkString(key.getBytes()));
+        values.add(new RespBulkString(group.getBytes()));
+        values.add(new RespBulkString(consumer.getBytes()));
+        values.add(new RespBulkString(String.valueOf(minIdleMillis).getBytes()));
+        ids.forEach(id -> values.add(new RespBulkString(id.getBytes())));
+        addOption(values, "IDLE", idleMillis);
+        addOption(values, "TIME", timeMillis);
+        addOption(values, "RETRYCOUNT", retryCount);
+        if (force) {
+            values.add(new RespBulkString("FORCE".getBytes()));
+        }
+        if (justId) {
+            values.add(new RespBulkString("JUSTID".getBytes()));
+        }
+        addOption(values, "LASTID", lastId);
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    private static void addOption(List<RespValue> values, String name, Object value) {
+        if (value != null) {
+            values.add(new RespBulkString(name.getBytes()));
+            values.add(new RespBulkString(String.valueOf(value).getBytes()));
+        }
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "XclaimCommand [key=" + key + ", group=" + group + ", consumer=" + consumer
+                + ", minIdleMillis=" + minIdleMillis + ", ids=" + ids + ", force=" + force
+                + ", justId=" + justId + "]";
+    }
+}
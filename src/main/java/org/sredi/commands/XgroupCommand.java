@@ -0,0 +1,131 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.streams.IllegalStreamItemIdException;
+
+/**
+ * XGROUP CREATE key group id|$ [MKSTREAM], DESTROY key group, CREATECONSUMER key group consumer,
+ * DELCONSUMER key group consumer and SETID key group id|$.
+ */
+public class XgroupCommand extends Command {
+
+    enum Action {
+        CREATE, DESTROY, CREATECONSUMER, DELCONSUMER, SETID
+    }
+
+    private Action action;
+    private String key;
+    private String group;
+    private String consumer;
+    private String id;
+    private boolean mkStream;
+    private boolean succeeded;
+
+    public XgroupCommand() {
+        super(Type.XGROUP);
+    }
+
+    static XgroupCommand setId(String key, String group, String id) {
+        XgroupCommand command = new XgroupCommand();
+        command.action = Action.SETID;
+        command.key = key;
+        command.group = group;
+        command.id = id;
+        command.succeeded = true;
+        return command;
+    }
+
+    @Override
+    protected void setArgs(RespValue[] args) {
+        validateNumArgs(args, n -> n >= 2);
+        try {
+            action = Action.valueOf(args[1].getValueAsString().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException(
+                    String.format("%s: unknown subcommand %s", type.name(), args[1]));
+        }
+        String[] spec = switch (action) {
+            case CREATE -> new String[] { ":string", ":string", ":string", ":string", ":string", "[mkstream]" };
+            case DESTROY -> new String[] { ":string", ":string", ":string", ":string" };
+            case CREATECONSUMER, DELCONSUMER, SETID -> new String[] { ":string", ":string", ":string", ":string", ":string" };
+        };
+        Map<String, RespValue> optionsMap = new ArgReader(type.name(), spec).readArgs(args);
+        key = optionsMap.get("2").getValueAsString();
+        group = optionsMap.get("3").getValueAsString();
+        switch (action) {
+            case CREATE, SETID -> id = optionsMap.get("4").getValueAsString();
+            case CREATECONSUMER, DELCONSUMER -> consumer = optionsMap.get("4").getValueAsString();
+            default -> { }
+        }
+        mkStream = optionsMap.containsKey("mkstream");
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            byte[] reply = switch (action) {
+                case CREATE -> {
+                    service.xgroupCreate(key, group, id, mkStream);
+                    yield RespConstants.OK;
+                }
+                case DESTROY -> new RespInteger(service.xgroupDestroy(key, group) ? 1 : 0).asResponse();
+                case CREATECONSUMER ->
+                        new RespInteger(service.xgroupCreateConsumer(key, group, consumer) ? 1 : 0).asResponse();
+                case DELCONSUMER -> new RespInteger(service.xgroupDelConsumer(key, group, consumer)).asResponse();
+                case SETID -> {
+                    service.xgroupSetId(key, group, id);
+                    yield RespConstants.OK;
+                }
+            };
+            succeeded = true;
+            return reply;
+        } catch (IllegalStreamItemIdException | IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public boolean isReplicatedCommand() {
+        return succeeded;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>();
+        values.add(new RespBulkString(getType().name().getBytes()));
+        values.add(new RespBulkString(action.name().getBytes()));
+        values.add(new RespBulkString(key.getBytes()));
+        values.add(new RespBulkString(group.getBytes()));
+        if (id != null) {
+            values.add(new RespBulkString(id.getBytes()));
+        }
+        if (consumer != null) {
+            values.add(new RespBulkString(consumer.getBytes()));
+        }
+        if (mkStream) {
+            values.add(new RespBulkString("MKSTREAM".getBytes()));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "XgroupCommand [action=" + action + ", key=" + key + ", group=" + group
+                + ", consumer=" + consumer + ", id=" + id + ", mkStream=" + mkStream + "]";
+    }
+}
@@ -0,0 +1,162 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.streams.Consumer;
+import org.sredi.streams.ConsumerGroup;
+import org.sredi.streams.IllegalStreamItemIdException;
+import org.sredi.streams.PendingEntryList;
+import org.sredi.streams.PendingEntryList.PendingEntry;
+import org.sredi.streams.StreamData;
+import org.sredi.streams.StreamId;
+
+/**
+ * XPENDING key group, the summary form, or XPENDING key group [IDLE ms] start end count [consumer].
+ */
+public class XpendingCommand extends Command {
+
+    private String key;
+    private String group;
+    private boolean extended;
+    private Long minIdleMillis;
+    private String start;
+    private String end;
+    private int count;
+    private String consumer;
+
+    public XpendingCommand() {
+        super(Type.XPENDING);
+    }
+
+    @Override
+    protected void setArgs(RespValue[] args) {
+        validateNumArgs(args, n -> n == 3 || (n >= 6 && n <= 9));
+        for (int i = 1; i < args.length; i++) {
+            validateArgIsString(args, i);
+        }
+        key = args[1].getValueAsString();
+        group = args[2].getValueAsString();
+        if (args.length == 3) {
+            return;
+        }
+        extended = true;
+        int i = 3;
+        if ("idle".equalsIgnoreCase(args[i].getValueAsString())) {
+            validateArgIsInteger(args, i + 1);
+            minIdleMillis = args[i + 1].getValueAsLong();
+            i += 2;
+        }
+        // start end count [consumer]
+        int remaining = args.length - i;
+        if (remaining < 3 || remaining > 4) {
+            throw new IllegalArgumentException(
+                    String.format("%s: Invalid number of arguments: %d", type.name(), args.length));
+        }
+        start = args[i].getValueAsString();
+        end = args[i + 1].getValueAsString();
+        validateArgIsInteger(args, i + 2);
+        count = (int) Math.max(0, Math.min(args[i + 2].getValueAsLong(), Integer.MAX_VALUE));
+        if (remaining == 4) {
+            consumer = args[i + 3].getValueAsString();
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            ConsumerGroup consumerGroup = service.getGroup(key, group);
+            if (!extended) {
+                return summary(consumerGroup);
+            }
+            PendingEntryList pending = consumerGroup.getPending();
+            if (consumer != null) {
+                Consumer groupConsumer = consumerGroup.getConsumer(consumer);
+                if (groupConsumer == null) {
+                    return RespValue.array(new RespValue[0]).asResponse();
+                }
+                pending = groupConsumer.getPending();
+            }
+            long now = service.getCurrentTime();
+            List<PendingEntry> entries = pending.range(StreamData.parseRangeParam(start, true),
+                    StreamData.parseRangeParam(end, false), count,
+                    entry -> minIdleMillis == null || now - entry.deliveryTime() >= minIdleMillis);
+            List<RespValue> result = new ArrayList<>(entries.size());
+            for (PendingEntry entry : entries) {
+                result.add(RespValue.array(
+                        new RespBulkString(entry.id().getId().getBytes()),
+                        new RespBulkString(entry.owner().getName().getBytes()),
+                        new RespInteger(now - entry.deliveryTime()),
+                        new RespInteger(entry.deliveryCount())));
+            }
+            return RespValue.array(result).asResponse();
+        } catch (IllegalStreamItemIdException | IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    // [count, smallest id, largest id, [[consumer, count], ...]]
+    private byte[] summary(ConsumerGroup consumerGroup) {
+        PendingEntryList pending = consumerGroup.getPending();
+        if (pending.isEmpty()) {
+            return RespValue.array(new RespInteger(0), RespConstants.NULL_VALUE,
+                    RespConstants.NULL_VALUE, RespConstants.NULL_VALUE).asResponse();
+        }
+        List<RespValue> consumers = new ArrayList<>();
+        for (Consumer groupConsumer : consumerGroup.getAllConsumers()) {
+            if (!groupConsumer.getPending().isEmpty()) {
+                consumers.add(RespValue.array(
+                        new RespBulkString(groupConsumer.getName().getBytes()),
+                        new RespBulkString(String.valueOf(groupConsumer.getPending().size()).getBytes())));
+            }
+        }
+        return RespValue.array(
+                new RespInteger(pending.size()),
+                bulkId(pending.first()),
+                bulkId(pending.last()),
+                RespValue.array(consumers)).asResponse();
+    }
+
+    private static RespBulkString bulkId(StreamId id) {
+        return new RespBulkString(id.getId().getBytes());
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>();
+        values.add(new RespBulkString(getType().name().getBytes()));
+        values.add(new RespBulkString(key.getBytes()));
+        values.add(new RespBulkString(group.getBytes()));
+        if (extended) {
+            if (minIdleMillis != null) {
+                values.add(new RespBulkString("IDLE".getBytes()));
+                values.add(new RespBulkString(String.valueOf(minIdleMillis).getBytes()));
+            }
+            values.add(new RespBulkString(start.getBytes()));
+            values.add(new RespBulkString(end.getBytes()));
+            values.add(new RespBulkString(String.valueOf(count).getBytes()));
+            if (consumer != null) {
+                values.add(new RespBulkString(consumer.getBytes()));
+            }
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "XpendingCommand [key=" + key + ", group=" + group + ", start=" + start + ", end=" + end
+                + ", count=" + count + ", consumer=" + consumer + ", minIdleMillis=" + minIdleMillis + "]";
+    }
+}
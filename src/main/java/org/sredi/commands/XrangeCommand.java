@@ -1,6 +1,9 @@
 package org.sredi.commands;
 
-import java.util.List;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Map;
 
 import org.sredi.storage.Orchestrator;
@@ -8,25 +11,29 @@ import org.sredi.resp.RespBulkString;
 import org.sredi.resp.RespSimpleErrorValue;
 import org.sredi.resp.RespValue;
 import org.sredi.streams.IllegalStreamItemIdException;
-import org.sredi.streams.StreamValue;
+import org.sredi.streams.StreamData;
+import org.sredi.streams.StreamId;
 
+/**
+ * XRANGE key start end [COUNT count]. The reply is streamed: its length is counted from the
+ * stream's block sizes first, then entries are encoded into the connection's output buffer one
+ * block at a time, so a reply over a whole stream needs no more memory than a short one.
+ */
 public class XrangeCommand extends Command {
 
-    private static ArgReader ARG_READER = new ArgReader(Type.XREAD.name(), new String[] {
-            ":string", // command name
-            ":string", // key
-            ":string", // start id
-            ":string" // end id
-    });
-
     private String key;
     private String start;
     private String end;
+    private long count = -1; // -1 means the whole range
 
     public XrangeCommand() {
         super(Type.XRANGE);
     }
 
+    protected XrangeCommand(Type type) {
+        super(type);
+    }
+
     public XrangeCommand(String key, String start, String end) {
         super(Type.XRANGE);
         this.key = key;
@@ -34,15 +41,57 @@ public class XrangeCommand extends Command {
         this.end = end;
     }
 
+    protected boolean isReverse() {
+        return false;
+    }
+
     @Override
     public byte[] execute(Orchestrator service) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
-            List<StreamValue> result = service.xrange(key, start, end);
-            RespValue[] resultArray = result.stream().map(StreamValue::asRespArrayValue)
-                    .toArray(RespValue[]::new);
-            return RespValue.array(resultArray).asResponse();
-        } catch (IllegalStreamItemIdException e) {
-            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+            writeReply(service, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public boolean isStreamingReply() {
+        return true;
+    }
+
+    @Override
+    public void writeReply(Orchestrator service, OutputStream out) throws IOException {
+        StreamId startId;
+        StreamId endId;
+        StreamData stream;
+        try {
+            startId = StreamData.parseRangeParam(start, true);
+            endId = StreamData.parseRangeParam(end, false);
+            stream = service.getStream(key);
+        } catch (IllegalStreamItemIdException | IllegalStateException e) {
+            out.write(new RespSimpleErrorValue(e.getMessage()).asResponse());
+            return;
+        }
+        long total = stream == null || count == 0 ? 0 : stream.countRange(startId, endId);
+        long replyLength = count < 0 ? total : Math.min(count, total);
+        out.write(("*" + replyLength + "\r\n").getBytes());
+        if (replyLength == 0) {
+            return;
+        }
+        long[] remaining = { replyLength };
+        try {
+            stream.visitRange(startId, endId, isReverse(), value -> {
+                try {
+                    out.write(value.asRespArrayValue().asResponse());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return --remaining[0] > 0;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
 
@@ -51,21 +100,32 @@ public class XrangeCommand extends Command {
         return RespValue.array(
                 new RespBulkString(getType().name().getBytes()),
                 new RespBulkString(key.getBytes()),
-                new RespBulkString(start.getBytes()),
-                new RespBulkString(end.getBytes())).asResponse();
+                new RespBulkString((isReverse() ? end : start).getBytes()),
+                new RespBulkString((isReverse() ? start : end).getBytes())).asResponse();
     }
 
     @Override
     protected void setArgs(RespValue[] args) {
-        Map<String, RespValue> optionsMap = ARG_READER.readArgs(args);
+        ArgReader argReader = new ArgReader(type.name(), new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string", // start id (end id for XREVRANGE)
+                ":string", // end id (start id for XREVRANGE)
+                "[count:int]"
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
         key = optionsMap.get("1").getValueAsString();
-        start = optionsMap.get("2").getValueAsString();
-        end = optionsMap.get("3").getValueAsString();
+        start = optionsMap.get(isReverse() ? "3" : "2").getValueAsString();
+        end = optionsMap.get(isReverse() ? "2" : "3").getValueAsString();
+        if (optionsMap.containsKey("count")) {
+            count = Math.max(0, optionsMap.get("count").getValueAsLong());
+        }
     }
 
     @Override
     public String toString() {
-        return "XrangeCommand [key=" + key + ", start=" + start + ", end=" + end + "]";
+        return getClass().getSimpleName() + " [key=" + key + ", start=" + start + ", end=" + end
+                + ", count=" + count + "]";
     }
 
     public String getKey() {
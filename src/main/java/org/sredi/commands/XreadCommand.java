@@ -7,20 +7,32 @@ import java.util.Map;
 import org.sredi.storage.Orchestrator;
 import org.sredi.resp.RespArrayValue;
 import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
 import org.sredi.resp.RespSimpleErrorValue;
 import org.sredi.resp.RespValue;
 import org.sredi.streams.IllegalStreamItemIdException;
+import org.sredi.streams.StreamData;
 import org.sredi.streams.StreamValue;
 
+/**
+ * XREAD [COUNT n] [BLOCK ms] STREAMS key [key ...] id [id ...]. With BLOCK, a read that finds
+ * nothing parks the client in the BlockingManager as a reader of every key; the next XADD to any
+ * of them re-runs the read for all such readers. "$" is resolved to the stream's last ID when the
+ * command runs, so a blocked reader only sees entries added after it blocked.
+ */
 public class XreadCommand extends Command {
 
     private static ArgReader ARG_READER = new ArgReader(Type.XREAD.name(), new String[] {
             ":string", // command name
+            "[count:int]",
+            "[block:int]",
             "<streams:var>" // streams key required with variable args after it
     });
 
     private List<String> keys;
     private List<String> startValues;
+    private int count = StreamData.DEFAULT_READ_COUNT;
+    private Long blockMillis; // null when not blocking
 
     public XreadCommand() {
         super(Type.XREAD);
@@ -37,24 +49,54 @@ public class XreadCommand extends Command {
     @Override
     public byte[] execute(Orchestrator service) {
         try {
-            List<List<StreamValue>> result = service.xread(keys, startValues);
-            List<List<RespValue>> resultResp = new ArrayList<>();
-            for (int i = 0; i < keys.size(); i++) {
-                List<StreamValue> values = result.get(i);
-                List<RespValue> respValuesForKey = new ArrayList<>();
-                respValuesForKey.add(RespValue.simpleString(keys.get(i)));
-                respValuesForKey.add(RespValue.array(values.stream()
-                        .map(StreamValue::asRespArrayValue).toArray(RespArrayValue[]::new)));
-                resultResp.add(respValuesForKey);
+            List<String> resolvedStartValues = resolveLastIds(service);
+            byte[] reply = read(service, resolvedStartValues);
+            if (reply != null || blockMillis == null) {
+                return reply != null ? reply : RespConstants.NULL_ARRAY;
             }
-            return RespValue.array(
-                    resultResp.stream().map(RespValue::array).toArray(RespValue[]::new))
-                    .asResponse();
+            boolean blocked = service.blockReader(keys, blockMillis, RespConstants.NULL_ARRAY, key -> {
+                try {
+                    return read(service, resolvedStartValues);
+                } catch (IllegalStreamItemIdException e) {
+                    return new RespSimpleErrorValue(e.getMessage()).asResponse();
+                }
+            });
+            return blocked ? null : RespConstants.NULL_ARRAY;
         } catch (IllegalStreamItemIdException e) {
             return new RespSimpleErrorValue(e.getMessage()).asResponse();
         }
     }
 
+    private List<String> resolveLastIds(Orchestrator service) {
+        List<String> resolved = new ArrayList<>(startValues.size());
+        for (int i = 0; i < keys.size(); i++) {
+            String start = startValues.get(i);
+            resolved.add("$".equals(start) ? service.xlastId(keys.get(i)).getId() : start);
+        }
+        return resolved;
+    }
+
+    // Returns the reply for the streams that have entries after their start ID, or null if none do
+    private byte[] read(Orchestrator service, List<String> resolvedStartValues)
+            throws IllegalStreamItemIdException {
+        List<List<StreamValue>> result = service.xread(keys, resolvedStartValues, count);
+        List<RespValue> resultResp = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            List<StreamValue> values = result.get(i);
+            if (values.isEmpty()) {
+                continue;
+            }
+            resultResp.add(RespValue.array(
+                    RespValue.simpleString(keys.get(i)),
+                    RespValue.array(values.stream()
+                            .map(StreamValue::asRespArrayValue).toArray(RespArrayValue[]::new))));
+        }
+        if (resultResp.isEmpty()) {
+            return null;
+        }
+        return RespValue.array(resultResp).asResponse();
+    }
+
     @Override
     public byte[] asCommand() {
         return new RespArrayValue(
@@ -67,6 +109,17 @@ public class XreadCommand extends Command {
     @Override
     protected void setArgs(RespValue[] args) {
         Map<String, RespValue> optionsMap = ARG_READER.readArgs(args);
+        if (optionsMap.containsKey("count")) {
+            long requested = optionsMap.get("count").getValueAsLong();
+            count = requested <= 0 ? Integer.MAX_VALUE : (int) Math.min(requested, Integer.MAX_VALUE);
+        }
+        if (optionsMap.containsKey("block")) {
+            blockMillis = optionsMap.get("block").getValueAsLong();
+            if (blockMillis < 0) {
+                throw new IllegalArgumentException(
+                        String.format("%s: timeout is negative", type.name()));
+            }
+        }
 
         RespArrayValue streams = (RespArrayValue) optionsMap.get("streams");
         RespValue[] valuesArray = streams.getValues();
@@ -86,9 +139,15 @@ public class XreadCommand extends Command {
         return keys.isEmpty() ? null : keys.get(0);
     }
 
+    @Override
+    public List<String> getLockKeys() {
+        return keys;
+    }
+
     @Override
     public String toString() {
-        return "XreadCommand [keys=" + keys + ", startValues=" + startValues + "]";
+        return "XreadCommand [keys=" + keys + ", startValues=" + startValues + ", count=" + count
+                + ", blockMillis=" + blockMillis + "]";
     }
 
     public List<String> getKeys() {
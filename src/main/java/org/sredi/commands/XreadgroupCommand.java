@@ -0,0 +1,170 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.streams.IllegalStreamItemIdException;
+import org.sredi.streams.StreamData;
+import org.sredi.streams.StreamValue;
+
+/**
+ * XREADGROUP GROUP group consumer [COUNT n] [BLOCK ms] [NOACK] STREAMS key [key ...] id [id ...].
+ * Only reads of new entries (">") block. A read is replicated as itself without BLOCK: followers
+ * hold the same entries and group state, so it delivers the same entries there. A blocked read is
+ * replicated when it is served.
+ */
+public class XreadgroupCommand extends Command {
+
+    private static ArgReader ARG_READER = new ArgReader(Type.XREADGROUP.name(), new String[] {
+            ":string", // command name
+            ":string", // GROUP
+            ":string", // group
+            ":string", // consumer
+            "[count:int]",
+            "[block:int]",
+            "[noack]",
+            "<streams:var>"
+    });
+
+    private String group;
+    private String consumer;
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> startValues = new ArrayList<>();
+    private int count = StreamData.DEFAULT_READ_COUNT;
+    private Long blockMillis; // null when not blocking
+    private boolean noAck;
+    private boolean replicated;
+
+    public XreadgroupCommand() {
+        super(Type.XREADGROUP);
+    }
+
+    @Override
+    protected void setArgs(RespValue[] args) {
+        Map<String, RespValue> optionsMap = ARG_READER.readArgs(args);
+        if (!"group".equalsIgnoreCase(optionsMap.get("1").getValueAsString())) {
+            throw new IllegalArgumentException(
+                    String.format("%s: expected GROUP group consumer", type.name()));
+        }
+        group = optionsMap.get("2").getValueAsString();
+        consumer = optionsMap.get("3").getValueAsString();
+        if (optionsMap.containsKey("count")) {
+            long requested = optionsMap.get("count").getValueAsLong();
+            count = requested <= 0 ? Integer.MAX_VALUE : (int) Math.min(requested, Integer.MAX_VALUE);
+        }
+        if (optionsMap.containsKey("block")) {
+            blockMillis = optionsMap.get("block").getValueAsLong();
+            if (blockMillis < 0) {
+                throw new IllegalArgumentException(
+                        String.format("%s: timeout is negative", type.name()));
+            }
+        }
+        noAck = optionsMap.containsKey("noack");
+
+        RespValue[] streams = ((RespArrayValue) optionsMap.get("streams")).getValues();
+        if (streams.length == 0 || streams.length % 2 == 1) {
+            throw new IllegalArgumentException(
+                    String.format("%s: Invalid number of streams pairs", type.name()));
+        }
+        int n = streams.length / 2;
+        for (int i = 0; i < n; i++) {
+            keys.add(streams[i].getValueAsString());
+            startValues.add(streams[n + i].getValueAsString());
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            byte[] reply = read(service);
+            boolean newEntriesOnly = startValues.stream().allMatch(">"::equals);
+            if (reply == null && blockMillis != null && newEntriesOnly) {
+                boolean blocked = service.blockReader(keys, blockMillis, RespConstants.NULL_ARRAY, key -> {
+                    try {
+                        byte[] served = read(service);
+                        if (served != null) {
+                            replicated = true;
+                            service.replicate(this);
+                        }
+                        return served;
+                    } catch (IllegalStreamItemIdException e) {
+                        return new RespSimpleErrorValue(e.getMessage()).asResponse();
+                    }
+                });
+                if (blocked) {
+                    return null;
+                }
+            }
+            replicated = true;
+            return reply != null ? reply : RespConstants.NULL_ARRAY;
+        } catch (IllegalStreamItemIdException | IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    // Streams read for new entries are left out of the reply when empty; null if nothing to reply
+    private byte[] read(Orchestrator service) throws IllegalStreamItemIdException {
+        List<List<StreamValue>> result = service.xreadgroup(group, consumer, keys, startValues, count, noAck);
+        List<RespValue> resultResp = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            List<StreamValue> values = result.get(i);
+            if (values.isEmpty() && ">".equals(startValues.get(i))) {
+                continue;
+            }
+            resultResp.add(RespValue.array(
+                    RespValue.simpleString(keys.get(i)),
+                    RespValue.array(values.stream()
+                            .map(StreamValue::asRespArrayValue).toArray(RespArrayValue[]::new))));
+        }
+        return resultResp.isEmpty() ? null : RespValue.array(resultResp).asResponse();
+    }
+
+    @Override
+    public boolean isReplicatedCommand() {
+        return replicated;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>();
+        values.add(new RespBulkString(getType().name().getBytes()));
+        values.add(new RespBulkString("GROUP".getBytes()));
+        values.add(new RespBulkString(group.getBytes()));
+        values.add(new RespBulkString(consumer.getBytes()));
+        if (count != Integer.MAX_VALUE) {
+            values.add(new RespBulkString("COUNT".getBytes()));
+            values.add(new RespBulkString(String.valueOf(count).getBytes()));
+        }
+        if (noAck) {
+            values.add(new RespBulkString("NOACK".getBytes()));
+        }
+        values.add(new RespBulkString("STREAMS".getBytes()));
+        keys.forEach(key -> values.add(new RespBulkString(key.getBytes())));
+        startValues.forEach(id -> values.add(new RespBulkString(id.getBytes())));
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() {
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    @Override
+    public List<String> getLockKeys() {
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return "XreadgroupCommand [group=" + group + ", consumer=" + consumer + ", keys=" + keys
+                + ", startValues=" + startValues + ", count=" + count + ", blockMillis=" + blockMillis
+                + ", noAck=" + noAck + "]";
+    }
+}
@@ -0,0 +1,17 @@
+package org.sredi.commands;
+
+/**
+ * XREVRANGE key end start [COUNT count]: XRANGE newest first. Blocks are walked backwards and
+ * each one is decoded forwards and replayed in reverse.
+ */
+public class XrevrangeCommand extends XrangeCommand {
+
+    public XrevrangeCommand() {
+        super(Type.XREVRANGE);
+    }
+
+    @Override
+    protected boolean isReverse() {
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+package org.sredi.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.streams.IllegalStreamItemIdException;
+import org.sredi.streams.StreamId;
+import org.sredi.streams.TrimOptions;
+
+/**
+ * XTRIM key MAXLEN|MINID [=|~] threshold [LIMIT count]. An approximate trim depends on how the
+ * stream is split into blocks, so it is replicated as the exact trim that gives the same result.
+ */
+public class XtrimCommand extends Command {
+
+    record TrimClause(TrimOptions options, int end) {
+    }
+
+    private String key;
+    private TrimOptions trim;
+    private TrimOptions replicatedTrim; // set once executed
+
+    public XtrimCommand() {
+        super(Type.XTRIM);
+    }
+
+    @Override
+    protected void setArgs(RespValue[] args) {
+        validateNumArgs(args, n -> n >= 4);
+        for (int i = 1; i < args.length; i++) {
+            validateArgIsString(args, i);
+        }
+        key = args[1].getValueAsString();
+        if (!isTrimStrategy(args[2])) {
+            throw new IllegalArgumentException(
+                    String.format("%s: expected MAXLEN or MINID, got %s", type.name(), args[2]));
+        }
+        TrimClause clause = readTrimClause(type.name(), args, 2);
+        if (clause.end() != args.length) {
+            throw new IllegalArgumentException(String.format("%s: unrecognized arg at index %d, %s",
+                    type.name(), clause.end(), args[clause.end()]));
+        }
+        trim = clause.options();
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            long removed = service.xtrim(key, trim);
+            replicatedTrim = service.xexactTrim(key, trim);
+            return new RespInteger(removed).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    static boolean isTrimStrategy(RespValue arg) {
+        String value = arg.getValueAsString();
+        return "maxlen".equalsIgnoreCase(value) || "minid".equalsIgnoreCase(value);
+    }
+
+    // Reads MAXLEN|MINID [=|~] threshold [LIMIT count] starting at args[i]
+    static TrimClause readTrimClause(String command, RespValue[] args, int i) {
+        boolean byMinId = "minid".equalsIgnoreCase(args[i++].getValueAsString());
+        boolean approximate = false;
+        if (i < args.length && ("~".equals(args[i].getValueAsString()) || "=".equals(args[i].getValueAsString()))) {
+            approximate = "~".equals(args[i++].getValueAsString());
+        }
+        if (i >= args.length) {
+            throw new IllegalArgumentException(String.format("%s: missing trim threshold", command));
+        }
+        String threshold = args[i++].getValueAsString();
+        long limit = approximate ? TrimOptions.DEFAULT_APPROXIMATE_LIMIT : Long.MAX_VALUE;
+        if (i < args.length && "limit".equalsIgnoreCase(args[i].getValueAsString())) {
+            if (!approximate) {
+                throw new IllegalArgumentException(String.format(
+                        "%s: syntax error, LIMIT cannot be used without the special ~ option", command));
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(String.format("%s: missing LIMIT count", command));
+            }
+            limit = readNonNegative(command, args[i + 1].getValueAsString());
+            if (limit == 0) {
+                limit = Long.MAX_VALUE;
+            }
+            i += 2;
+        }
+        TrimOptions options;
+        if (byMinId) {
+            try {
+                options = TrimOptions.minId(StreamId.parse(threshold), approximate, limit);
+            } catch (IllegalStreamItemIdException e) {
+                throw new IllegalArgumentException(String.format("%s: %s", command, e.getMessage()));
+            }
+        } else {
+            options = TrimOptions.maxLen(readNonNegative(command, threshold), approximate, limit);
+        }
+        return new TrimClause(options, i);
+    }
+
+    private static long readNonNegative(String command, String value) {
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the error below
+        }
+        throw new IllegalArgumentException(
+                String.format("%s: value must be a non-negative integer: %s", command, value));
+    }
+
+    static void addTrimArgs(List<RespValue> values, TrimOptions trim) {
+        values.add(new RespBulkString((trim.byMinId() ? "MINID" : "MAXLEN").getBytes()));
+        values.add(new RespBulkString((trim.approximate() ? "~" : "=").getBytes()));
+        String threshold = trim.byMinId() ? trim.minId().getId() : String.valueOf(trim.maxLen());
+        values.add(new RespBulkString(threshold.getBytes()));
+        if (trim.approximate() && trim.limit() != Long.MAX_VALUE) {
+            values.add(new RespBulkString("LIMIT".getBytes()));
+            values.add(new RespBulkString(String.valueOf(trim.limit()).getBytes()));
+        }
+    }
+
+    @Override
+    public boolean isReplicatedCommand() {
+        return replicatedTrim != null;
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>();
+        values.add(new RespBulkString(getType().name().getBytes()));
+        values.add(new RespBulkString(key.getBytes()));
+        addTrimArgs(values, replicatedTrim != null ? replicatedTrim : trim);
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "XtrimCommand [key=" + key + ", trim=" + trim + "]";
+    }
+}
@@ -0,0 +1,180 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SortedSetValue;
+
+/**
+ * ZADD key [NX|XX] [GT|LT] [CH] [INCR] score member [score member ...]. Replies with the number
+ * of members added (or added and changed with CH); with INCR, the new score of the one member, or
+ * nil if NX, XX, GT or LT stopped the update.
+ */
+public class ZAddCommand extends Command {
+
+    private static final String WIRE_NAME = "ZADD";
+
+    private String key;
+    private boolean nx;
+    private boolean xx;
+    private boolean gt;
+    private boolean lt;
+    private boolean ch;
+    private boolean incr;
+    private double[] scores;
+    private List<byte[]> members;
+
+    public ZAddCommand() {
+        super(Type.ZADD);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // options, then score member pairs
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        RespValue[] rest = ((RespArrayValue) optionsMap.get("2")).getValues();
+        int i = 0;
+        for (; i < rest.length && isOption(rest[i]); i++) {
+            switch (rest[i].getValueAsString().toUpperCase()) {
+                case "NX" -> nx = true;
+                case "XX" -> xx = true;
+                case "GT" -> gt = true;
+                case "LT" -> lt = true;
+                case "CH" -> ch = true;
+                default -> incr = true;
+            }
+        }
+        if (nx && xx) {
+            throw new IllegalArgumentException("ERR XX and NX options at the same time are not compatible");
+        }
+        if ((gt && lt) || (nx && (gt || lt))) {
+            throw new IllegalArgumentException("ERR GT, LT, and/or NX options at the same time are not compatible");
+        }
+        int pairs = rest.length - i;
+        if (pairs == 0 || pairs % 2 != 0) {
+            throw new IllegalArgumentException("ERR syntax error");
+        }
+        if (incr && pairs != 2) {
+            throw new IllegalArgumentException("ERR INCR option supports a single increment-element pair");
+        }
+        this.scores = new double[pairs / 2];
+        this.members = new ArrayList<>(pairs / 2);
+        for (int p = 0; p < scores.length; p++) {
+            scores[p] = parseScore(rest[i + 2 * p].getValueAsString());
+            members.add(rest[i + 2 * p + 1].asBulkString().getValue());
+        }
+    }
+
+    private static boolean isOption(RespValue arg) {
+        return switch (arg.getValueAsString().toUpperCase()) {
+            case "NX", "XX", "GT", "LT", "CH", "INCR" -> true;
+            default -> false;
+        };
+    }
+
+    // Scores are doubles, with "inf", "+inf" and "-inf" for the infinities
+    static double parseScore(String value) {
+        switch (value.toLowerCase()) {
+            case "inf", "+inf" -> {
+                return Double.POSITIVE_INFINITY;
+            }
+            case "-inf" -> {
+                return Double.NEGATIVE_INFINITY;
+            }
+            default -> {
+                // Double.parseDouble would also take "NaN", "Infinity" and suffixes like "1d"
+                for (int i = 0; i < value.length(); i++) {
+                    if ("0123456789+-.eE".indexOf(value.charAt(i)) < 0) {
+                        throw new IllegalArgumentException("ERR value is not a valid float");
+                    }
+                }
+                try {
+                    return Double.parseDouble(value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("ERR value is not a valid float");
+                }
+            }
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            SortedSetValue zset = xx ? service.zsetGet(key) : service.zsetGetOrCreate(key);
+            if (zset == null) {
+                return incr ? RespConstants.NULL_VALUE.asResponse() : new RespInteger(0).asResponse();
+            }
+            long added = 0;
+            long changed = 0;
+            Double incrScore = null;
+            for (int i = 0; i < scores.length; i++) {
+                byte[] member = members.get(i);
+                Double current = zset.score(member);
+                if (current == null ? xx : nx) {
+                    continue;
+                }
+                double score = incr && current != null ? current + scores[i] : scores[i];
+                if (Double.isNaN(score)) {
+                    return new RespSimpleErrorValue("ERR resulting score is not a number (NaN)").asResponse();
+                }
+                if (current != null && ((gt && score <= current) || (lt && score >= current))) {
+                    continue;
+                }
+                if (zset.put(member, score)) {
+                    added++;
+                } else if (current != score) {
+                    changed++;
+                }
+                incrScore = score;
+            }
+            if (incr) {
+                return incrScore == null ? RespConstants.NULL_VALUE.asResponse()
+                        : new RespBulkString(SortedSetValue.formatScore(incrScore)
+                                .getBytes(StandardCharsets.US_ASCII)).asResponse();
+            }
+            return new RespInteger(ch ? added + changed : added).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>(2 * members.size() + 8);
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(key.getBytes(StandardCharsets.UTF_8)));
+        for (String option : new String[] { nx ? "NX" : null, xx ? "XX" : null, gt ? "GT" : null,
+                lt ? "LT" : null, ch ? "CH" : null, incr ? "INCR" : null }) {
+            if (option != null) {
+                values.add(new RespBulkString(option.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+        for (int i = 0; i < scores.length; i++) {
+            values.add(new RespBulkString(SortedSetValue.formatScore(scores[i]).getBytes(StandardCharsets.US_ASCII)));
+            values.add(new RespBulkString(members.get(i)));
+        }
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "ZAddCommand [key=" + key + ", members=" + members.size() + ", incr=" + incr + "]";
+    }
+}
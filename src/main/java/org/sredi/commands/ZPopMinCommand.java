@@ -0,0 +1,78 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SortedSetValue;
+
+// ZPOPMIN key [count]; replies with member, score pairs from the lowest score up
+public class ZPopMinCommand extends Command {
+
+    private static final String WIRE_NAME = "ZPOPMIN";
+
+    private String key;
+    private long count = 1;
+
+    public ZPopMinCommand() {
+        super(Type.ZPOPMIN);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, args.length <= 2
+                ? new String[] {
+                        ":string", // command name
+                        ":string"  // key
+                }
+                : new String[] {
+                        ":string", // command name
+                        ":string", // key
+                        ":int"     // count
+                });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        if (optionsMap.containsKey("2")) {
+            this.count = optionsMap.get("2").getValueAsLong();
+            if (count < 0) {
+                throw new IllegalArgumentException("ERR value is out of range, must be positive");
+            }
+        }
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            List<RespValue> reply = new ArrayList<>();
+            service.zpopmin(key, count, (member, score) -> {
+                reply.add(new RespBulkString(member));
+                reply.add(new RespBulkString(SortedSetValue.formatScore(score).getBytes(StandardCharsets.US_ASCII)));
+            });
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        return new RespArrayValue(new RespValue[] {
+                new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(key.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(Long.toString(count).getBytes(StandardCharsets.UTF_8)) }).asResponse();
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "ZPopMinCommand [key=" + key + ", count=" + count + "]";
+    }
+}
@@ -0,0 +1,198 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SortedSetValue;
+
+/**
+ * ZRANGE key start stop [BYSCORE|BYLEX] [REV] [LIMIT offset count] [WITHSCORES]. Ranges are
+ * resolved to ranks first, so the cost is O(log n) plus the members returned, whatever the
+ * offset.
+ */
+public class ZRangeCommand extends Command {
+
+    private static final String WIRE_NAME = "ZRANGE";
+
+    private String key;
+    private Query query;
+
+    public ZRangeCommand() {
+        super(Type.ZRANGE);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":var"     // start, stop and options
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.query = Query.read(((RespArrayValue) optionsMap.get("2")).getValues(), true);
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            SortedSetValue zset = service.zsetGet(key);
+            List<RespValue> reply = new ArrayList<>();
+            if (zset != null) {
+                query.run(zset, (member, score) -> {
+                    reply.add(new RespBulkString(member));
+                    if (query.withScores()) {
+                        reply.add(new RespBulkString(
+                                SortedSetValue.formatScore(score).getBytes(StandardCharsets.US_ASCII)));
+                    }
+                });
+            }
+            return RespValue.array(reply).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    /**
+     * The range arguments shared by ZRANGE and ZRANGESTORE, kept as given for replication. With
+     * REV, start is the upper end of a score or lex range.
+     */
+    record Query(String start, String stop, Kind kind, boolean rev, long offset, long count,
+            boolean withScores, SortedSetValue.Range range) {
+
+        enum Kind { INDEX, BYSCORE, BYLEX }
+
+        static Query read(RespValue[] args, boolean allowWithScores) {
+            if (args.length < 2) {
+                throw new IllegalArgumentException("ERR wrong number of arguments");
+            }
+            String start = args[0].getValueAsString();
+            String stop = args[1].getValueAsString();
+            Kind kind = Kind.INDEX;
+            boolean rev = false;
+            boolean limit = false;
+            long offset = 0;
+            long count = -1;
+            boolean withScores = false;
+            for (int i = 2; i < args.length; i++) {
+                String option = args[i].getValueAsString().toUpperCase();
+                switch (option) {
+                    case "BYSCORE" -> kind = Kind.BYSCORE;
+                    case "BYLEX" -> kind = Kind.BYLEX;
+                    case "REV" -> rev = true;
+                    case "WITHSCORES" -> {
+                        if (!allowWithScores) {
+                            throw new IllegalArgumentException("ERR syntax error");
+                        }
+                        withScores = true;
+                    }
+                    case "LIMIT" -> {
+                        if (i + 2 >= args.length) {
+                            throw new IllegalArgumentException("ERR syntax error");
+                        }
+                        limit = true;
+                        offset = readLong(args[++i]);
+                        count = readLong(args[++i]);
+                    }
+                    default -> throw new IllegalArgumentException("ERR syntax error");
+                }
+            }
+            if (limit && kind == Kind.INDEX) {
+                throw new IllegalArgumentException(
+                        "ERR syntax error, LIMIT is only supported in combination with either BYSCORE or BYLEX");
+            }
+            if (withScores && kind == Kind.BYLEX) {
+                throw new IllegalArgumentException(
+                        "ERR syntax error, WITHSCORES not supported in combination with BYLEX");
+            }
+            String min = rev ? stop : start;
+            String max = rev ? start : stop;
+            SortedSetValue.Range range = switch (kind) {
+                case INDEX -> {
+                    readLong(args[0]);
+                    readLong(args[1]);
+                    yield null;
+                }
+                case BYSCORE -> scoreRange(min, max);
+                case BYLEX -> lexRange(min, max);
+            };
+            return new Query(start, stop, kind, rev, offset, count, withScores, range);
+        }
+
+        void run(SortedSetValue zset, SortedSetValue.EntryVisitor visitor) {
+            if (kind == Kind.INDEX) {
+                zset.rangeByIndex(Long.parseLong(start), Long.parseLong(stop), rev, visitor);
+            } else {
+                zset.rangeByRange(range, rev, offset, count, visitor);
+            }
+        }
+
+        // The arguments after the key, as ZRANGESTORE replicates them
+        void appendArgs(List<RespValue> values) {
+            List<String> args = new ArrayList<>(List.of(start, stop));
+            if (kind != Kind.INDEX) args.add(kind.name());
+            if (rev) args.add("REV");
+            if (count >= 0 || offset != 0) {
+                args.add("LIMIT");
+                args.add(Long.toString(offset));
+                args.add(Long.toString(count));
+            }
+            if (withScores) args.add("WITHSCORES");
+            for (String arg : args) {
+                values.add(new RespBulkString(arg.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        private static long readLong(RespValue arg) {
+            try {
+                return Long.parseLong(arg.getValueAsString());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("ERR value is not an integer or out of range");
+            }
+        }
+
+        // "(" before a score makes that end exclusive
+        private static SortedSetValue.ScoreRange scoreRange(String min, String max) {
+            try {
+                boolean minExclusive = min.startsWith("(");
+                boolean maxExclusive = max.startsWith("(");
+                return new SortedSetValue.ScoreRange(
+                        ZAddCommand.parseScore(minExclusive ? min.substring(1) : min), minExclusive,
+                        ZAddCommand.parseScore(maxExclusive ? max.substring(1) : max), maxExclusive);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("ERR min or max is not a float");
+            }
+        }
+
+        // "[" or "(" before a member for an inclusive or exclusive end, "-" and "+" for open ends
+        private static SortedSetValue.LexRange lexRange(String min, String max) {
+            byte[] minBytes = lexBound(min);
+            byte[] maxBytes = lexBound(max);
+            return new SortedSetValue.LexRange(minBytes, min.startsWith("("), maxBytes, max.startsWith("("));
+        }
+
+        private static byte[] lexBound(String bound) {
+            if (bound.equals("-")) return SortedSetValue.LexRange.MINUS;
+            if (bound.equals("+")) return SortedSetValue.LexRange.PLUS;
+            if (bound.startsWith("[") || bound.startsWith("(")) {
+                return bound.substring(1).getBytes(StandardCharsets.UTF_8);
+            }
+            throw new IllegalArgumentException("ERR min or max not valid string range item");
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "ZRangeCommand [key=" + key + ", query=" + query + "]";
+    }
+}
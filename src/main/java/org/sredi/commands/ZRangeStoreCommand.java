@@ -0,0 +1,79 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sredi.resp.RespArrayValue;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SortedSetValue;
+
+// ZRANGESTORE dst src min max [BYSCORE|BYLEX] [REV] [LIMIT offset count]; replies with the
+// number of members stored, and an empty range deletes dst
+public class ZRangeStoreCommand extends Command {
+
+    private static final String WIRE_NAME = "ZRANGESTORE";
+
+    private String destination;
+    private String source;
+    private ZRangeCommand.Query query;
+
+    public ZRangeStoreCommand() {
+        super(Type.ZRANGESTORE);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // destination
+                ":string", // source
+                ":var"     // min, max and options
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.destination = optionsMap.get("1").getValueAsString();
+        this.source = optionsMap.get("2").getValueAsString();
+        this.query = ZRangeCommand.Query.read(((RespArrayValue) optionsMap.get("3")).getValues(), false);
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            SortedSetValue zset = service.zsetGet(source);
+            SortedSetValue result = new SortedSetValue();
+            if (zset != null) {
+                query.run(zset, result::put);
+            }
+            service.zsetStore(destination, result);
+            return new RespInteger(result.size()).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public byte[] asCommand() {
+        List<RespValue> values = new ArrayList<>();
+        values.add(new RespBulkString(WIRE_NAME.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(destination.getBytes(StandardCharsets.UTF_8)));
+        values.add(new RespBulkString(source.getBytes(StandardCharsets.UTF_8)));
+        query.appendArgs(values);
+        return new RespArrayValue(values.toArray(new RespValue[0])).asResponse();
+    }
+
+    @Override
+    public String getKey() { return destination; }
+
+    @Override
+    public List<String> getLockKeys() { return List.of(destination, source); }
+
+    @Override
+    public String toString() {
+        return "ZRangeStoreCommand [destination=" + destination + ", source=" + source + ", query=" + query + "]";
+    }
+}
@@ -0,0 +1,68 @@
+package org.sredi.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
+import org.sredi.resp.RespInteger;
+import org.sredi.resp.RespSimpleErrorValue;
+import org.sredi.resp.RespValue;
+import org.sredi.storage.Orchestrator;
+import org.sredi.storage.SortedSetValue;
+
+// ZRANK key member [WITHSCORE]; the 0-based rank by ascending score, or nil
+public class ZRankCommand extends Command {
+
+    private static final String WIRE_NAME = "ZRANK";
+
+    private String key;
+    private byte[] member;
+    private boolean withScore;
+
+    public ZRankCommand() {
+        super(Type.ZRANK);
+    }
+
+    @Override
+    public void setArgs(RespValue[] args) {
+        ArgReader argReader = new ArgReader(WIRE_NAME, new String[] {
+                ":string", // command name
+                ":string", // key
+                ":string", // member
+                "[withscore]"
+        });
+        Map<String, RespValue> optionsMap = argReader.readArgs(args);
+        this.key = optionsMap.get("1").getValueAsString();
+        this.member = optionsMap.get("2").asBulkString().getValue();
+        this.withScore = optionsMap.containsKey("withscore");
+    }
+
+    @Override
+    public byte[] execute(Orchestrator service) {
+        try {
+            SortedSetValue zset = service.zsetGet(key);
+            long rank = zset == null ? -1 : zset.rank(member);
+            if (rank < 0) {
+                return RespConstants.NULL_VALUE.asResponse();
+            }
+            if (!withScore) {
+                return new RespInteger(rank).asResponse();
+            }
+            String score = SortedSetValue.formatScore(zset.score(member));
+            return RespValue.array(new RespValue[] {
+                    new RespInteger(rank),
+                    new RespBulkString(score.getBytes(StandardCharsets.US_ASCII)) }).asResponse();
+        } catch (IllegalStateException e) {
+            return new RespSimpleErrorValue(e.getMessage()).asResponse();
+        }
+    }
+
+    @Override
+    public String getKey() { return key; }
+
+    @Override
+    public String toString() {
+        return "ZRankCommand [key=" + key + ", member=" + new String(member, StandardCharsets.UTF_8) + "]";
+    }
+}
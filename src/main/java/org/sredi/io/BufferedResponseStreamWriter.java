@@ -5,6 +5,13 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 public class BufferedResponseStreamWriter {
+
+    // Writes a reply piece by piece; the buffer is flushed to the socket each time it fills
+    @FunctionalInterface
+    public interface ReplyBody {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
     private final BufferedOutputStream out;
 
     public BufferedResponseStreamWriter(OutputStream out) {
@@ -17,4 +24,9 @@ public class BufferedResponseStreamWriter {
         out.flush();
     }
 
+    public void writeFlush(ReplyBody body) throws IOException {
+        body.writeTo(out);
+        out.flush();
+    }
+
 }
@@ -39,6 +39,11 @@ public class ClientConnection {
     @Setter
     private RateLimiter rateLimiter;
 
+    // Set while the client waits in a blocking command; its queued commands are not polled meanwhile
+    @Getter
+    @Setter
+    private volatile boolean blocked;
+
     public ClientConnection(Socket clientSocket, RespValueParser valueParser) throws IOException {
         this.clientSocket = clientSocket;
         this.valueParser = valueParser;
@@ -125,6 +130,11 @@ public class ClientConnection {
         }
     }
 
+    // Sends a reply that is encoded while it is written, for replies too large to build in memory
+    public void sendStreamingResponse(BufferedResponseStreamWriter.ReplyBody body) throws IOException {
+        writer.writeFlush(body);
+    }
+
     @Override
     public String toString() {
         return clientSocket.toString();
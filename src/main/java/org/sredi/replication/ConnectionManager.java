@@ -151,6 +151,9 @@ public class ConnectionManager {
     // Finds the next available value across all connections and passes it to the handler
     public boolean getNextValue(BiConsumer<ClientConnection, RespValue> valueHandler) {
         for (ClientConnection conn : connections) {
+            if (conn.isBlocked()) {
+                continue;
+            }
             Queue<RespValue> queue = getOrCreateQueue(conn);
             if (!queue.isEmpty()) {
                 try {
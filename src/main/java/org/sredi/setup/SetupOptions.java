@@ -5,6 +5,7 @@ import org.apache.commons.cli.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sredi.constants.ReplicationConstants;
+import org.sredi.storage.HashValue;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -14,6 +15,9 @@ public class SetupOptions {
     private static final Logger log = LoggerFactory.getLogger(SetupOptions.class);
     private static final int MAX_PORT = 65535;
 
+    public static final String VALUE_STORAGE_HEAP = "heap";
+    public static final String VALUE_STORAGE_OFFHEAP = "offheap";
+
     private int port = ReplicationConstants.DEFAULT_PORT;
     private String role = ReplicationConstants.MASTER;
     private String replicaof;
@@ -29,6 +33,10 @@ public class SetupOptions {
     private int maxReplBacklog = 25;
     private String nodeId;
     private String cluster;
+    private String valueStorage = VALUE_STORAGE_HEAP;
+    private int streamHotBlocks = -1; // -1 keeps every stream block on the heap
+    private int hashMaxListpackEntries = HashValue.DEFAULT_MAX_LISTPACK_ENTRIES;
+    private int hashMaxListpackValue = HashValue.DEFAULT_MAX_LISTPACK_VALUE;
 
     public boolean parseArgs(String[] args) {
         Options options = new Options();
@@ -111,6 +119,30 @@ public class SetupOptions {
                 .desc("Comma-separated peer list: id1@host1:port1,id2@host2:port2,...")
                 .build());
 
+        options.addOption(Option.builder()
+                .longOpt("value-storage")
+                .hasArg(true)
+                .desc("Where string values are stored: heap or offheap")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("stream-hot-blocks")
+                .hasArg(true)
+                .desc("Sealed blocks each stream keeps on the heap before older ones move to segment files under --dir")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("hash-max-listpack-entries")
+                .hasArg(true)
+                .desc("Fields a hash keeps in its compact encoding before converting to a hash table")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("hash-max-listpack-value")
+                .hasArg(true)
+                .desc("Longest field or value, in bytes, a hash keeps in its compact encoding")
+                .build());
+
         CommandLineParser parser = new DefaultParser();
         try {
             CommandLine cmd = parser.parse(options, args);
@@ -190,6 +222,38 @@ public class SetupOptions {
                 log.info("Cluster specified: {}", cluster);
             }
 
+            if (cmd.hasOption("value-storage")) {
+                valueStorage = cmd.getOptionValue("value-storage");
+                if (!VALUE_STORAGE_HEAP.equals(valueStorage) && !VALUE_STORAGE_OFFHEAP.equals(valueStorage)) {
+                    throw new ParseException("Invalid value storage: " + valueStorage);
+                }
+                log.info("Value storage specified: {}", valueStorage);
+            }
+
+            if (cmd.hasOption("stream-hot-blocks")) {
+                streamHotBlocks = Integer.parseInt(cmd.getOptionValue("stream-hot-blocks"));
+                if (streamHotBlocks < 0) {
+                    throw new ParseException("Invalid stream hot blocks: " + streamHotBlocks);
+                }
+                log.info("Stream hot blocks specified: {}", streamHotBlocks);
+            }
+
+            if (cmd.hasOption("hash-max-listpack-entries")) {
+                hashMaxListpackEntries = Integer.parseInt(cmd.getOptionValue("hash-max-listpack-entries"));
+                if (hashMaxListpackEntries < 0) {
+                    throw new ParseException("Invalid hash max listpack entries: " + hashMaxListpackEntries);
+                }
+                log.info("Hash max listpack entries specified: {}", hashMaxListpackEntries);
+            }
+
+            if (cmd.hasOption("hash-max-listpack-value")) {
+                hashMaxListpackValue = Integer.parseInt(cmd.getOptionValue("hash-max-listpack-value"));
+                if (hashMaxListpackValue < 0) {
+                    throw new ParseException("Invalid hash max listpack value: " + hashMaxListpackValue);
+                }
+                log.info("Hash max listpack value specified: {}", hashMaxListpackValue);
+            }
+
             if (cluster != null && nodeId == null) {
                 throw new ParseException("--cluster requires --node-id");
             }
@@ -202,6 +266,10 @@ public class SetupOptions {
         return true;
     }
 
+    public boolean isOffHeapValueStorage() {
+        return VALUE_STORAGE_OFFHEAP.equals(valueStorage);
+    }
+
     private void validatePort(int port, String name) throws ParseException {
         if (port <= 0 || port > MAX_PORT) {
             throw new ParseException(name + " must be between 1 and " + MAX_PORT + ": " + port);
@@ -215,6 +283,8 @@ public class SetupOptions {
             case "replicaof" -> replicaof != null ? replicaof + " " + replicaofPort : null;
             case "dir" -> dir;
             case "dbfilename" -> dbfilename;
+            case "hash-max-listpack-entries" -> String.valueOf(hashMaxListpackEntries);
+            case "hash-max-listpack-value" -> String.valueOf(hashMaxListpackValue);
             default -> null;
         };
     }
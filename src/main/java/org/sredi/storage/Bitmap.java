@@ -0,0 +1,191 @@
+package org.sredi.storage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Mutable bit string behind SETBIT, BITCOUNT, BITPOS and BITOP. The string's bytes are packed
+ * big-endian into a growable long[], so bit offset n is bit 63 - (n % 64) of word n / 64 and the
+ * string's bit order matches word order: counting is Long.bitCount per word, searching is
+ * Long.numberOfLeadingZeros, and BITOP combines whole words. Bytes past the string's length are
+ * kept zero, which lets whole-word loops ignore the length.
+ * <p>
+ * Has no locking of its own: SETBIT and BITOP change it only while holding the key's write
+ * stripe, which keeps BITCOUNT and BITPOS readers out.
+ */
+public final class Bitmap {
+
+    public static final long MAX_BITS = 1L << 32; // Redis' 512 MB string limit
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    public enum Op { AND, OR, XOR, NOT }
+
+    private long[] words;
+    private long length; // in bytes
+
+    public Bitmap() {
+        this.words = new long[1];
+    }
+
+    public Bitmap(byte[] bytes) {
+        this.length = bytes.length;
+        this.words = new long[Math.max(1, wordsFor(bytes.length))];
+        int full = bytes.length >>> 3;
+        for (int w = 0; w < full; w++) {
+            words[w] = (long) LONGS.get(bytes, w << 3);
+        }
+        for (int i = full << 3; i < bytes.length; i++) {
+            words[full] |= (bytes[i] & 0xFFL) << (56 - ((i & 7) << 3));
+        }
+    }
+
+    private Bitmap(long[] words, long length) {
+        this.words = words;
+        this.length = length;
+    }
+
+    // Length of the string in bytes
+    public long length() {
+        return length;
+    }
+
+    public int getBit(long offset) {
+        int word = (int) (offset >>> 6);
+        if (offset >= length << 3) {
+            return 0;
+        }
+        return (words[word] & (Long.MIN_VALUE >>> offset)) != 0 ? 1 : 0;
+    }
+
+    /**
+     * Sets or clears the bit, growing the string with zero bytes to reach it.
+     *
+     * @return the previous value of the bit
+     */
+    public int setBit(long offset, int value) {
+        if (offset < 0 || offset >= MAX_BITS) {
+            throw new IllegalArgumentException("ERR bit offset is not an integer or out of range");
+        }
+        long byteIndex = offset >>> 3;
+        if (byteIndex >= length) {
+            int needed = wordsFor(byteIndex + 1);
+            if (needed > words.length) {
+                words = Arrays.copyOf(words, Math.max(needed, Math.min(words.length * 2, wordsFor(MAX_BITS >>> 3))));
+            }
+            length = byteIndex + 1;
+        }
+        int word = (int) (offset >>> 6);
+        long mask = Long.MIN_VALUE >>> offset; // shift distance is taken mod 64
+        int previous = (words[word] & mask) != 0 ? 1 : 0;
+        if (value != 0) {
+            words[word] |= mask;
+        } else {
+            words[word] &= ~mask;
+        }
+        return previous;
+    }
+
+    // Set bits among bit offsets start..end inclusive, both within the string
+    public long bitCount(long start, long end) {
+        if (start > end) {
+            return 0;
+        }
+        int first = (int) (start >>> 6);
+        int last = (int) (end >>> 6);
+        long firstMask = -1L >>> start;
+        long lastMask = -1L << (63 - (end & 63));
+        if (first == last) {
+            return Long.bitCount(words[first] & firstMask & lastMask);
+        }
+        long count = Long.bitCount(words[first] & firstMask);
+        for (int w = first + 1; w < last; w++) {
+            count += Long.bitCount(words[w]);
+        }
+        return count + Long.bitCount(words[last] & lastMask);
+    }
+
+    // First offset in start..end inclusive holding bit, or -1
+    public long bitPos(int bit, long start, long end) {
+        if (start > end) {
+            return -1;
+        }
+        long flip = bit != 0 ? 0 : -1L;
+        int first = (int) (start >>> 6);
+        int last = (int) (end >>> 6);
+        long lastMask = -1L << (63 - (end & 63));
+        for (int w = first; w <= last; w++) {
+            long candidates = words[w] ^ flip;
+            if (w == first) candidates &= -1L >>> start;
+            if (w == last) candidates &= lastMask;
+            if (candidates != 0) {
+                return ((long) w << 6) + Long.numberOfLeadingZeros(candidates);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * BITOP over sources of possibly different lengths; shorter ones read as zero-padded and
+     * null ones (missing keys) as empty. NOT takes exactly one source.
+     */
+    public static Bitmap bitop(Op op, Bitmap[] sources) {
+        long length = 0;
+        for (Bitmap source : sources) {
+            if (source != null) length = Math.max(length, source.length);
+        }
+        long[] result = new long[Math.max(1, wordsFor(length))];
+        int n = wordsFor(length);
+        if (op == Op.NOT) {
+            long[] src = sources[0] == null ? result : sources[0].words;
+            for (int w = 0; w < n; w++) {
+                result[w] = ~src[w];
+            }
+            if ((length & 7) != 0) {
+                result[n - 1] &= -1L << (64 - ((length & 7) << 3));
+            }
+            return new Bitmap(result, length);
+        }
+        boolean firstSource = true;
+        for (Bitmap source : sources) {
+            int m = source == null ? 0 : Math.min(n, wordsFor(source.length));
+            long[] src = source == null ? null : source.words;
+            if (firstSource) {
+                if (m > 0) System.arraycopy(src, 0, result, 0, m);
+                firstSource = false;
+                continue;
+            }
+            switch (op) {
+                case AND -> {
+                    for (int w = 0; w < m; w++) result[w] &= src[w];
+                    Arrays.fill(result, m, n, 0L);
+                }
+                case OR -> {
+                    for (int w = 0; w < m; w++) result[w] |= src[w];
+                }
+                case XOR -> {
+                    for (int w = 0; w < m; w++) result[w] ^= src[w];
+                }
+                default -> throw new IllegalStateException("Unexpected op: " + op);
+            }
+        }
+        return new Bitmap(result, length);
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[(int) length];
+        int full = bytes.length >>> 3;
+        for (int w = 0; w < full; w++) {
+            LONGS.set(bytes, w << 3, words[w]);
+        }
+        for (int i = full << 3; i < bytes.length; i++) {
+            bytes[i] = (byte) (words[full] >>> (56 - ((i & 7) << 3)));
+        }
+        return bytes;
+    }
+
+    private static int wordsFor(long bytes) {
+        return (int) ((bytes + 7) >>> 3);
+    }
+}
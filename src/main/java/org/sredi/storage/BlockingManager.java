@@ -0,0 +1,248 @@
+package org.sredi.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sredi.replication.ClientConnection;
+import org.sredi.resp.RespSimpleErrorValue;
+
+/**
+ * Parks clients of blocking commands (BLPOP, BRPOP, BLMOVE, XREAD BLOCK) without parking a thread
+ * per client. A blocked client is a waiter queued on each of its keys in arrival order, and its
+ * connection is not polled for further commands until it is served or times out. Commands that add
+ * elements mark keys ready; once such a command has completed, each ready key is offered to its
+ * waiters, longest-waiting first. Consuming waiters (pops) are served until the key runs dry;
+ * readers do not consume, so every reader of a ready key is offered it. Timeouts run on one shared
+ * scheduler thread.
+ * <p>
+ * Under --parallel, a waiter is served holding the stripes of every key its command declared
+ * (the popped key and, for BLMOVE, the destination), taken with {@link StripedLock#lockAll}
+ * before the manager's monitor. Ready keys must therefore be served after the command that
+ * made them ready has released its own stripes.
+ */
+public class BlockingManager {
+    private static final Logger log = LoggerFactory.getLogger(BlockingManager.class);
+
+    @FunctionalInterface
+    public interface Attempt {
+        // Tries to serve the waiter from key; returns the reply, or null if key has nothing for it
+        byte[] tryServe(String key);
+    }
+
+    private final ScheduledExecutorService timer;
+    private final StripedLock stripedLock; // null unless --parallel
+    private final Map<String, LinkedHashSet<Waiter>> waitersByKey = new HashMap<>();
+    private final Map<ClientConnection, Waiter> waitersByConnection = new HashMap<>();
+    // Keys that received elements from the command running on this thread
+    private final ThreadLocal<Set<String>> readyKeys = ThreadLocal.withInitial(LinkedHashSet::new);
+    private volatile int blockedCount;
+
+    public BlockingManager(ScheduledExecutorService timer) {
+        this(timer, null);
+    }
+
+    public BlockingManager(ScheduledExecutorService timer, StripedLock stripedLock) {
+        this.timer = timer;
+        this.stripedLock = stripedLock;
+    }
+
+    // Queues the connection on every key as a consumer; timeoutMillis <= 0 waits forever
+    public void block(ClientConnection conn, List<String> keys, long timeoutMillis,
+            byte[] timeoutReply, Attempt attempt) {
+        block(conn, keys, keys, timeoutMillis, timeoutReply, attempt);
+    }
+
+    // As above, with the keys whose stripes serving the waiter takes, when it writes more than keys
+    public void block(ClientConnection conn, List<String> keys, List<String> lockKeys,
+            long timeoutMillis, byte[] timeoutReply, Attempt attempt) {
+        register(conn, keys, lockKeys, timeoutMillis, timeoutReply, attempt, true);
+    }
+
+    // Queues the connection on every key as a reader that leaves the data for other waiters
+    public void blockReader(ClientConnection conn, List<String> keys, long timeoutMillis,
+            byte[] timeoutReply, Attempt attempt) {
+        register(conn, keys, keys, timeoutMillis, timeoutReply, attempt, false);
+    }
+
+    private synchronized void register(ClientConnection conn, List<String> keys, List<String> lockKeys,
+            long timeoutMillis, byte[] timeoutReply, Attempt attempt, boolean consuming) {
+        Waiter previous = waitersByConnection.get(conn);
+        if (previous != null) {
+            unregister(previous);
+        }
+        Waiter waiter = new Waiter(conn, keys, lockKeys, timeoutReply, attempt, consuming);
+        for (String key : keys) {
+            waitersByKey.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(waiter);
+        }
+        waitersByConnection.put(conn, waiter);
+        blockedCount++;
+        conn.setBlocked(true);
+        if (timeoutMillis > 0) {
+            waiter.timeout = timer.schedule(() -> expire(waiter), timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void signalKeyReady(String key) {
+        if (blockedCount > 0) {
+            readyKeys.get().add(key);
+        }
+    }
+
+    // Serves the keys made ready on this thread, including keys made ready while serving (BLMOVE).
+    // Under --parallel the calling thread must not hold any stripes.
+    public void serveReadyKeys() {
+        Set<String> ready = readyKeys.get();
+        while (!ready.isEmpty()) {
+            Iterator<String> iter = ready.iterator();
+            String key = iter.next();
+            iter.remove();
+            if (stripedLock == null) {
+                synchronized (this) {
+                    serveKey(key, null);
+                }
+                continue;
+            }
+            List<String> lockKeys = lockKeysOf(key);
+            if (lockKeys.isEmpty()) {
+                continue;
+            }
+            stripedLock.lockAll(lockKeys, true);
+            try {
+                synchronized (this) {
+                    serveKey(key, lockKeys);
+                }
+            } finally {
+                stripedLock.unlockAll(lockKeys, true);
+            }
+        }
+    }
+
+    // The key plus every key its current waiters lock, or nothing if no one waits on it
+    private synchronized List<String> lockKeysOf(String key) {
+        LinkedHashSet<Waiter> waiters = waitersByKey.get(key);
+        if (waiters == null) {
+            return List.of();
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(key);
+        for (Waiter waiter : waiters) {
+            keys.addAll(waiter.lockKeys);
+        }
+        return new ArrayList<>(keys);
+    }
+
+    public synchronized void removeConnection(ClientConnection conn) {
+        Waiter waiter = waitersByConnection.get(conn);
+        if (waiter != null) {
+            unregister(waiter);
+            conn.setBlocked(false);
+        }
+    }
+
+    public int getBlockedCount() {
+        return blockedCount;
+    }
+
+    // locked is null without --parallel, else the keys whose stripes this thread holds
+    private void serveKey(String key, List<String> locked) {
+        LinkedHashSet<Waiter> waiters = waitersByKey.get(key);
+        if (waiters == null) {
+            return;
+        }
+        // walk the queue in place: a consuming key stops at the first waiter it cannot serve, so
+        // a push that serves one waiter does not touch the rest
+        Iterator<Waiter> iter = waiters.iterator();
+        while (iter.hasNext()) {
+            Waiter waiter = iter.next();
+            if (locked != null && !locked.containsAll(waiter.lockKeys)) {
+                // queued after the stripes were chosen; retry the key with its keys locked too
+                readyKeys.get().add(key);
+                return;
+            }
+            byte[] reply;
+            try {
+                reply = waiter.attempt.tryServe(key);
+            } catch (IllegalStateException e) {
+                reply = new RespSimpleErrorValue(e.getMessage()).asResponse();
+            }
+            if (reply == null) {
+                if (waiter.consuming) {
+                    return;
+                }
+                continue;
+            }
+            iter.remove();
+            unregister(waiter);
+            send(waiter.conn, reply);
+        }
+    }
+
+    private synchronized void expire(Waiter waiter) {
+        if (waitersByConnection.get(waiter.conn) != waiter) {
+            return;
+        }
+        unregister(waiter);
+        send(waiter.conn, waiter.timeoutReply);
+    }
+
+    private void unregister(Waiter waiter) {
+        for (String key : waiter.keys) {
+            LinkedHashSet<Waiter> waiters = waitersByKey.get(key);
+            if (waiters != null) {
+                waiters.remove(waiter);
+                if (waiters.isEmpty()) {
+                    waitersByKey.remove(key);
+                }
+            }
+        }
+        if (waitersByConnection.remove(waiter.conn, waiter)) {
+            blockedCount--;
+        }
+        if (waiter.timeout != null) {
+            waiter.timeout.cancel(false);
+        }
+    }
+
+    // Writes the blocked command's reply, and only then lets the connection be polled again, so a
+    // pipelined command cannot reply ahead of it
+    private void send(ClientConnection conn, byte[] reply) {
+        try {
+            conn.sendResponse(reply);
+        } catch (IOException e) {
+            log.warn("Failed to reply to blocked client {}: {}", conn, e.getMessage());
+        } finally {
+            conn.setBlocked(false);
+        }
+    }
+
+    private static final class Waiter {
+        final ClientConnection conn;
+        final List<String> keys;
+        final List<String> lockKeys;
+        final byte[] timeoutReply;
+        final Attempt attempt;
+        final boolean consuming;
+        ScheduledFuture<?> timeout;
+
+        Waiter(ClientConnection conn, List<String> keys, List<String> lockKeys, byte[] timeoutReply,
+                Attempt attempt, boolean consuming) {
+            this.conn = conn;
+            this.keys = keys;
+            this.lockKeys = lockKeys;
+            this.timeoutReply = timeoutReply;
+            this.attempt = attempt;
+            this.consuming = consuming;
+        }
+    }
+}
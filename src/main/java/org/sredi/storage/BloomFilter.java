@@ -1,27 +1,62 @@
 package org.sredi.storage;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Probabilistic set membership data structure backed by a packed bit array.
- * Not thread-safe; callers must serialize concurrent writes (DataStore relies on
- * the striped write lock for BF.ADD / BF.RESERVE).
+ * The k bit positions are h1 + i * h2 (mod m) for a 128-bit item hash (h1, h2). New filters
+ * hash with Murmur3 into a per-thread scratch pair, so adds and lookups do not allocate; filters
+ * created with the original MD5 scheme keep it, since their bits were set from MD5 positions.
+ * <p>
+ * A blocked filter (BF.RESERVE ... BLOCKED) splits the bits into 512-bit blocks. h1 picks one
+ * block and all k bits of the item fall inside it, so a lookup in a filter far larger than the CPU
+ * caches costs one memory access instead of k. A block is 8 consecutive longs, which the JVM does
+ * not align to a cache line, so it can straddle two adjacent lines. The price is accuracy: items
+ * are not spread evenly over blocks, and crowded blocks answer "maybe" more often. Measured false
+ * positive rates are about 1.2 times the target at 1% and 2.3 times at 0.1%: the gap widens for
+ * lower targets because more bits per item crowd into the same 512.
+ * <p>
+ * Thread-safe without locks, so BF.ADD and BF.EXISTS on one hot key share the --parallel stripe.
+ * Bits only ever go from 0 to 1: an add reads each word first and sets missing bits with an atomic
+ * OR, so a filter whose bits are already set costs no more than a lookup. Two threads adding the
+ * same new item at once may both report it as added, which the item count then counts twice.
  */
 public final class BloomFilter {
 
-    private static final long MAX_CAPACITY = 1L << 30;
+    public enum HashVersion { MD5, MURMUR3 }
 
+    static final long MAX_CAPACITY = 1L << 30;
+    static final int BLOCK_BITS = 512;
+    private static final int BLOCK_WORDS = BLOCK_BITS / 64;
+    private static final long MURMUR3_SEED = 0;
+    private static final ThreadLocal<long[]> HASH = ThreadLocal.withInitial(() -> new long[2]);
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final HashVersion hashVersion;
     private final long[] bits;
     private final int totalBits;
     private final int totalHashFunctions;
+    private final int totalBlocks; // 0 for the classic layout
 
     private final long capacity;
     private final double falsePositiveErrorRate;
-    private long itemCount;
+    private final LongAdder itemCount = new LongAdder();
 
     public BloomFilter(long capacity, double falsePositiveErrorRate) {
+        this(capacity, falsePositiveErrorRate, HashVersion.MURMUR3);
+    }
+
+    public BloomFilter(long capacity, double falsePositiveErrorRate, HashVersion hashVersion) {
+        this(capacity, falsePositiveErrorRate, hashVersion, false);
+    }
+
+    public BloomFilter(long capacity, double falsePositiveErrorRate, HashVersion hashVersion,
+            boolean blocked) {
         if (capacity <= 0 || capacity > MAX_CAPACITY) {
             throw new IllegalArgumentException("Invalid capacity: " + capacity);
         }
@@ -29,60 +64,121 @@ public final class BloomFilter {
             throw new IllegalArgumentException(
                     "FalsePositiveErrorRate must be greater than 0 and less than 1.");
         }
+        this.hashVersion = hashVersion;
         this.capacity = capacity;
         this.falsePositiveErrorRate = falsePositiveErrorRate;
         this.totalBits = optimalM(capacity, falsePositiveErrorRate);
         this.totalHashFunctions = optimalK(totalBits, capacity);
-        this.bits = new long[(totalBits + 63) >>> 6];
+        if (blocked) {
+            this.totalBlocks = (int) ((totalBits + (long) BLOCK_BITS - 1) / BLOCK_BITS);
+            this.bits = new long[totalBlocks * BLOCK_WORDS];
+        } else {
+            this.totalBlocks = 0;
+            this.bits = new long[(totalBits + 63) >>> 6];
+        }
     }
 
     public boolean add(byte[] item) {
         if (item == null) throw new NullPointerException("item");
-        int[] indices = indicesFor(item);
+        long[] hash = hash(item);
+        return add(hash[0], hash[1]);
+    }
+
+    // Adds an item by its hash pair, for callers that hash once for several filters
+    boolean add(long h1, long h2) {
         boolean wasNew = false;
-        for (int idx : indices) {
-            if (!getBit(idx)) {
-                wasNew = true;
-                setBit(idx);
+        if (totalBlocks > 0) {
+            int base = blockBase(h1);
+            long step = blockStep(h1);
+            for (int i = 0; i < totalHashFunctions; i++) {
+                int position = blockPosition(h2, step, i);
+                wasNew |= setBit(base + (position >>> 6), 1L << position);
+            }
+        } else {
+            for (int i = 0; i < totalHashFunctions; i++) {
+                int index = index(h1, h2, i);
+                wasNew |= setBit(index >>> 6, 1L << index);
             }
         }
-        if (wasNew) itemCount++;
+        if (wasNew) itemCount.increment();
         return wasNew;
     }
 
+    // Returns whether this call set the bit; the atomic OR is skipped when it is already set
+    private boolean setBit(int word, long mask) {
+        if ((word(word) & mask) != 0L) {
+            return false;
+        }
+        return ((long) WORDS.getAndBitwiseOr(bits, word, mask) & mask) == 0L;
+    }
+
+    // Opaque reads: no tearing and no stale caching across calls, but no fences on x86 or ARM
+    private long word(int word) {
+        return (long) WORDS.getOpaque(bits, word);
+    }
+
     public boolean mightContain(byte[] item) {
         if (item == null) throw new NullPointerException("item");
-        int[] indices = indicesFor(item);
-        for (int idx : indices) {
-            if (!getBit(idx)) return false;
+        long[] hash = hash(item);
+        return mightContain(hash[0], hash[1]);
+    }
+
+    boolean mightContain(long h1, long h2) {
+        if (totalBlocks > 0) {
+            int base = blockBase(h1);
+            long step = blockStep(h1);
+            for (int i = 0; i < totalHashFunctions; i++) {
+                int position = blockPosition(h2, step, i);
+                if ((word(base + (position >>> 6)) & (1L << position)) == 0L) return false;
+            }
+            return true;
+        }
+        for (int i = 0; i < totalHashFunctions; i++) {
+            int index = index(h1, h2, i);
+            if ((word(index >>> 6) & (1L << index)) == 0L) return false;
         }
         return true;
     }
 
-    public long getItemCount() { return itemCount; }
+    public long getItemCount() { return itemCount.sum(); }
     public int getM() { return totalBits; }
     public int getK() { return totalHashFunctions; }
     public long getCapacity() { return capacity; }
     public double getErrorRate() { return falsePositiveErrorRate; }
+    public HashVersion getHashVersion() { return hashVersion; }
+    public boolean isBlocked() { return totalBlocks > 0; }
+    public long getSizeInBytes() { return (long) bits.length * Long.BYTES; }
 
-    private int[] indicesFor(byte[] item) {
-        byte[] digest = md5(item);
-        long h1 = ByteBuffer.wrap(digest, 0, 8).getLong();
-        long h2 = ByteBuffer.wrap(digest, 8, 8).getLong();
-        int[] indices = new int[totalHashFunctions];
-        for (int i = 0; i < totalHashFunctions; i++) {
-            long combined = h1 + (long) i * h2;
-            indices[i] = (int) Math.floorMod(combined, (long) totalBits);
+    // The item's (h1, h2) in this thread's scratch pair, valid until the thread hashes again
+    long[] hash(byte[] item) {
+        long[] hash = HASH.get();
+        if (hashVersion == HashVersion.MURMUR3) {
+            Murmur3.hash128(item, MURMUR3_SEED, hash);
+        } else {
+            byte[] digest = md5(item);
+            hash[0] = ByteBuffer.wrap(digest, 0, 8).getLong();
+            hash[1] = ByteBuffer.wrap(digest, 8, 8).getLong();
         }
-        return indices;
+        return hash;
+    }
+
+    private int index(long h1, long h2, int i) {
+        return (int) Math.floorMod(h1 + (long) i * h2, (long) totalBits);
+    }
+
+    // Index of the first word of the item's block
+    private int blockBase(long h1) {
+        return (int) Long.remainderUnsigned(h1, totalBlocks) * BLOCK_WORDS;
     }
 
-    private void setBit(int index) {
-        bits[index >>> 6] |= (1L << (index & 63));
+    private static long blockStep(long h1) {
+        return Long.rotateLeft(h1, 32) | 1L;
     }
 
-    private boolean getBit(int index) {
-        return (bits[index >>> 6] & (1L << (index & 63))) != 0L;
+    // Bit i within the block is the top 9 bits of h2 + i * step. Positions do not depend on each
+    // other or on memory, so the loop is free to unroll and vectorize
+    private static int blockPosition(long h2, long step, int i) {
+        return (int) ((h2 + i * step) >>> 55);
     }
 
     private static byte[] md5(byte[] item) {
@@ -0,0 +1,159 @@
+package org.sredi.storage;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * Chained hash table from byte[] keys to byte[] values (null for set members), for the large
+ * encodings of hashes and sets. Unlike java.util.HashMap it exposes its buckets, so HSCAN and SSCAN
+ * can walk it with Redis' reverse-binary cursor: the cursor's bits are incremented from the top,
+ * which visits a bucket before the buckets it splits into when the table grows and after the
+ * buckets merged into it when it shrinks. Every element present for a whole scan is returned at
+ * least once however often the table resizes in between; some may be returned twice.
+ * <p>
+ * Unsynchronized; it always sits inside a hash, set or sorted set value and is guarded by that
+ * key's stripe.
+ */
+final class BytesHashTable {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private Entry[] table = new Entry[MIN_CAPACITY];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(byte[] key) {
+        return find(key, hash(key)) != null;
+    }
+
+    byte[] get(byte[] key) {
+        Entry entry = find(key, hash(key));
+        return entry == null ? null : entry.value;
+    }
+
+    // Returns true if the key was added, false if an existing key's value was replaced
+    boolean put(byte[] key, byte[] value) {
+        int hash = hash(key);
+        Entry entry = find(key, hash);
+        if (entry != null) {
+            entry.value = value;
+            return false;
+        }
+        int bucket = hash & (table.length - 1);
+        table[bucket] = new Entry(key, hash, value, table[bucket]);
+        if (++size > table.length - (table.length >>> 2)) {
+            resize(table.length * 2);
+        }
+        return true;
+    }
+
+    boolean remove(byte[] key) {
+        int hash = hash(key);
+        int bucket = hash & (table.length - 1);
+        Entry previous = null;
+        for (Entry entry = table[bucket]; entry != null; previous = entry, entry = entry.next) {
+            if (entry.hash == hash && Arrays.equals(entry.key, key)) {
+                if (previous == null) {
+                    table[bucket] = entry.next;
+                } else {
+                    previous.next = entry.next;
+                }
+                size--;
+                if (table.length > MIN_CAPACITY && size < table.length >>> 3) {
+                    resize(table.length >>> 1);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void forEach(BiConsumer<byte[], byte[]> action) {
+        for (Entry head : table) {
+            for (Entry entry = head; entry != null; entry = entry.next) {
+                action.accept(entry.key, entry.value);
+            }
+        }
+    }
+
+    // Visits entries until the action returns false; returns false if it stopped early
+    boolean forEachWhile(BiPredicate<byte[], byte[]> action) {
+        for (Entry head : table) {
+            for (Entry entry = head; entry != null; entry = entry.next) {
+                if (!action.test(entry.key, entry.value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits whole buckets from cursor on until at least count elements were visited or the
+     * table was covered.
+     *
+     * @return the cursor to continue from, 0 once the scan is complete
+     */
+    long scan(long cursor, int count, BiConsumer<byte[], byte[]> action) {
+        long mask = table.length - 1;
+        int visited = 0;
+        do {
+            for (Entry entry = table[(int) (cursor & mask)]; entry != null; entry = entry.next) {
+                action.accept(entry.key, entry.value);
+                visited++;
+            }
+            cursor |= ~mask;
+            cursor = Long.reverse(cursor);
+            cursor++;
+            cursor = Long.reverse(cursor);
+        } while (cursor != 0 && visited < count);
+        return cursor;
+    }
+
+    private Entry find(byte[] key, int hash) {
+        for (Entry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+            if (entry.hash == hash && Arrays.equals(entry.key, key)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void resize(int capacity) {
+        Entry[] resized = new Entry[capacity];
+        for (Entry head : table) {
+            Entry entry = head;
+            while (entry != null) {
+                Entry next = entry.next;
+                int bucket = entry.hash & (capacity - 1);
+                entry.next = resized[bucket];
+                resized[bucket] = entry;
+                entry = next;
+            }
+        }
+        table = resized;
+    }
+
+    private static int hash(byte[] key) {
+        int h = Arrays.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Entry {
+        final byte[] key;
+        final int hash;
+        byte[] value;
+        Entry next;
+
+        Entry(byte[] key, int hash, byte[] value, Entry next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
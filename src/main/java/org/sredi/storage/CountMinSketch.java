@@ -0,0 +1,117 @@
+package org.sredi.storage;
+
+/**
+ * Count-Min sketch: depth rows of width counters in one row-major long[]. An item increments one
+ * counter per row and its estimate is the smallest of those counters, which never undercounts and
+ * overcounts by at most error * total count with probability 1 - probability when sized by
+ * {@link #forErrorRate}. Row positions come from one Murmur3 hash pair (h1 + row * h2), so an item
+ * is hashed once however deep the sketch is.
+ * <p>
+ * Counters are plain longs: CMS.INCRBY and CMS.MERGE hold the key's write stripe, so updates never
+ * race.
+ */
+public final class CountMinSketch {
+
+    static final long MAX_COUNTERS = 1L << 28;
+    private static final long MURMUR3_SEED = 0;
+    private static final ThreadLocal<long[]> HASH = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final int width;
+    private final int depth;
+    private final long[] counters;
+    private long count;
+
+    public CountMinSketch(long width, long depth) {
+        if (width < 1 || depth < 1 || width * depth > MAX_COUNTERS) {
+            throw new IllegalArgumentException("ERR CMS: invalid width or depth");
+        }
+        this.width = (int) width;
+        this.depth = (int) depth;
+        this.counters = new long[(int) (width * depth)];
+    }
+
+    // Dimensions as RedisBloom derives them from CMS.INITBYPROB error and probability
+    public static CountMinSketch forErrorRate(double error, double probability) {
+        if (error <= 0 || error >= 1 || probability <= 0 || probability >= 1) {
+            throw new IllegalArgumentException("ERR CMS: invalid error or probability");
+        }
+        long width = (long) Math.ceil(2 / error);
+        long depth = (long) Math.ceil(Math.log(probability) / Math.log(0.5));
+        return new CountMinSketch(width, depth);
+    }
+
+    /**
+     * Adds increment to the item's counters.
+     *
+     * @return the item's estimated count afterwards
+     * @throws IllegalStateException if the total count would overflow
+     */
+    public long incrBy(byte[] item, long increment) {
+        try {
+            count = Math.addExact(count, increment);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("ERR CMS: INCRBY overflow");
+        }
+        long[] hash = hash(item);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = index(hash, row);
+            counters[index] += increment; // bounded by count, which did not overflow
+            estimate = Math.min(estimate, counters[index]);
+        }
+        return estimate;
+    }
+
+    public long query(byte[] item) {
+        long[] hash = hash(item);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Replaces this sketch with the weighted sum of sources, which may include this sketch.
+     *
+     * @throws IllegalStateException if a source has other dimensions or the sum overflows
+     */
+    public void merge(CountMinSketch[] sources, long[] weights) {
+        for (CountMinSketch source : sources) {
+            if (source.width != width || source.depth != depth) {
+                throw new IllegalStateException("ERR CMS: width/depth is not equal");
+            }
+        }
+        long[] merged = new long[counters.length];
+        long mergedCount = 0;
+        try {
+            for (int s = 0; s < sources.length; s++) {
+                long[] source = sources[s].counters;
+                long weight = weights[s];
+                for (int i = 0; i < merged.length; i++) {
+                    merged[i] = Math.addExact(merged[i], Math.multiplyExact(source[i], weight));
+                }
+                mergedCount = Math.addExact(mergedCount, Math.multiplyExact(sources[s].count, weight));
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("ERR CMS: MERGE overflow");
+        }
+        System.arraycopy(merged, 0, counters, 0, merged.length);
+        count = mergedCount;
+    }
+
+    public int getWidth() { return width; }
+    public int getDepth() { return depth; }
+    public long getCount() { return count; }
+
+    private int index(long[] hash, int row) {
+        return row * width + (int) Math.unsignedMultiplyHigh(hash[0] + row * hash[1], width);
+    }
+
+    private static long[] hash(byte[] item) {
+        if (item == null) throw new NullPointerException("item");
+        long[] hash = HASH.get();
+        Murmur3.hash128(item, MURMUR3_SEED, hash);
+        return hash;
+    }
+}
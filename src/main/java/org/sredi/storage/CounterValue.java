@@ -0,0 +1,53 @@
+package org.sredi.storage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Integer value of a long-encoded string. INCR and friends run under a shared key stripe, so
+ * concurrent increments of one key meet here and are applied with a compare-and-set loop: each
+ * caller gets back the exact value its own increment produced, and overflow leaves the value
+ * unchanged.
+ */
+public final class CounterValue {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(CounterValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long value;
+
+    public CounterValue(long initialValue) {
+        this.value = initialValue;
+    }
+
+    /**
+     * Adds delta and returns the resulting value.
+     *
+     * @throws ArithmeticException if the result overflows a long
+     */
+    public long add(long delta) {
+        while (true) {
+            long current = value;
+            long next = Math.addExact(current, delta);
+            if (VALUE.compareAndSet(this, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    public long get() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
@@ -0,0 +1,280 @@
+package org.sredi.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Probabilistic set membership with deletion (Fan et al., "Cuckoo Filter: Practically Better Than
+ * Bloom"). An item is stored as a 16-bit fingerprint in one of two candidate buckets of four
+ * slots; each bucket is one long, so a lookup reads two words and compares all four slots of a
+ * bucket at once. The second bucket is derived from the first and the fingerprint alone (partial
+ * key cuckoo hashing), so a fingerprint can be moved to its other bucket to make room without
+ * knowing the item. Inserting into two full buckets evicts a random resident and re-homes it, up
+ * to maxIterations times; if that fails the moves are undone and the item goes into a new layer
+ * expansion times larger, or the add fails when expansion is 0.
+ * <p>
+ * With 16-bit fingerprints the false positive rate is at most 8 / 65536 (about 0.012%) per layer.
+ * Buckets are sized for 95% occupancy at the reserved capacity, about 16.8 bits per item; a Bloom
+ * filter needs 18.8 bits per item for the same rate, and fewer than the cuckoo filter only above
+ * a 0.03% target. Evictions draw from a generator seeded per filter, so replicas replaying the same
+ * commands end up with the same layout.
+ * <p>
+ * Evictions move fingerprints between buckets, so CF.ADD and CF.DEL hold the key's write stripe
+ * for the whole insert or delete.
+ */
+public final class CuckooFilter {
+
+    public static final int DEFAULT_MAX_ITERATIONS = 500;
+    public static final int DEFAULT_EXPANSION = 1;
+    static final int BUCKET_SIZE = 4;
+    static final double MAX_LOAD = 0.95;
+    static final long MAX_CAPACITY = 1L << 30;
+    private static final long MURMUR3_SEED = 0;
+    private static final long ALT_INDEX_MULTIPLIER = 0x5bd1e995L;
+    private static final long LANE_MASK = 0xFFFFL;
+    private static final long LOW_15_BITS = 0x7FFF7FFF7FFF7FFFL;
+    private static final long ONES = 0x0001000100010001L;
+    private static final ThreadLocal<long[]> HASH = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final List<Layer> layers = new ArrayList<>();
+    private final int maxIterations;
+    private final int expansion;
+    private long itemCount;
+    private long deleteCount;
+    private long random = 0x9E3779B97F4A7C15L;
+
+    public CuckooFilter(long capacity, int maxIterations, int expansion) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("maxIterations should be greater than 0");
+        }
+        if (expansion < 0) {
+            throw new IllegalArgumentException("expansion should be greater or equal to 0");
+        }
+        this.maxIterations = maxIterations;
+        this.expansion = expansion;
+        layers.add(new Layer(capacity));
+    }
+
+    /**
+     * Adds the item; adding it again stores another copy, which CF.COUNT counts and CF.DEL
+     * removes one at a time.
+     *
+     * @throws IllegalStateException if the filter cannot expand and has no room for the item
+     */
+    public void add(byte[] item) {
+        long[] hash = hash(item);
+        long h1 = hash[0];
+        int fingerprint = fingerprint(hash[1]);
+        Layer last = layers.get(layers.size() - 1);
+        if (!last.insert(last.index(h1), fingerprint)) {
+            if (expansion == 0) {
+                throw new IllegalStateException("ERR Filter is full");
+            }
+            long capacity = Math.min(last.capacity * expansion, MAX_CAPACITY);
+            last = new Layer(capacity);
+            layers.add(last);
+            last.insert(last.index(h1), fingerprint);
+        }
+        itemCount++;
+    }
+
+    public boolean mightContain(byte[] item) {
+        long[] hash = hash(item);
+        int fingerprint = fingerprint(hash[1]);
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            Layer layer = layers.get(i);
+            int i1 = layer.index(hash[0]);
+            if (layer.hasFingerprint(i1, fingerprint) || layer.hasFingerprint(layer.alt(i1, fingerprint), fingerprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Copies of the item's fingerprint in the filter; an upper bound on how often it was added
+    public long count(byte[] item) {
+        long[] hash = hash(item);
+        int fingerprint = fingerprint(hash[1]);
+        long count = 0;
+        for (Layer layer : layers) {
+            int i1 = layer.index(hash[0]);
+            int i2 = layer.alt(i1, fingerprint);
+            count += layer.countFingerprint(i1, fingerprint);
+            if (i2 != i1) {
+                count += layer.countFingerprint(i2, fingerprint);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes one copy of the item's fingerprint. Deleting an item that was never added can
+     * remove another item that shares its fingerprint and buckets.
+     *
+     * @return true if a copy was found and removed
+     */
+    public boolean delete(byte[] item) {
+        long[] hash = hash(item);
+        int fingerprint = fingerprint(hash[1]);
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            Layer layer = layers.get(i);
+            int i1 = layer.index(hash[0]);
+            if (layer.remove(i1, fingerprint) || layer.remove(layer.alt(i1, fingerprint), fingerprint)) {
+                itemCount--;
+                deleteCount++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getCapacity() {
+        long capacity = 0;
+        for (Layer layer : layers) {
+            capacity += layer.capacity;
+        }
+        return capacity;
+    }
+
+    public long getSizeInBytes() {
+        long size = 0;
+        for (Layer layer : layers) {
+            size += (long) layer.buckets.length * Long.BYTES;
+        }
+        return size;
+    }
+
+    public long getBucketCount() {
+        long buckets = 0;
+        for (Layer layer : layers) {
+            buckets += layer.buckets.length;
+        }
+        return buckets;
+    }
+
+    public int getFilterCount() { return layers.size(); }
+    public long getItemCount() { return itemCount; }
+    public long getDeleteCount() { return deleteCount; }
+    public int getMaxIterations() { return maxIterations; }
+    public int getExpansion() { return expansion; }
+
+    List<Layer> getLayers() { return Collections.unmodifiableList(layers); }
+
+    private static long[] hash(byte[] item) {
+        if (item == null) throw new NullPointerException("item");
+        long[] hash = HASH.get();
+        Murmur3.hash128(item, MURMUR3_SEED, hash);
+        return hash;
+    }
+
+    // 0 marks an empty slot, so fingerprints are never 0
+    private static int fingerprint(long h2) {
+        int fingerprint = (int) (h2 >>> 48);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    // xorshift64: eviction choices only need to be cheap and reproducible
+    private int nextRandom() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int) random;
+    }
+
+    // Marks each 16-bit lane of x that is zero with its top bit, without carries between lanes
+    private static long zeroLanes(long x) {
+        return ~(((x & LOW_15_BITS) + LOW_15_BITS) | x | LOW_15_BITS);
+    }
+
+    final class Layer {
+        final long[] buckets;
+        final long capacity;
+
+        Layer(long capacity) {
+            this.capacity = capacity;
+            long bucketCount = (long) Math.ceil(capacity / (BUCKET_SIZE * MAX_LOAD));
+            this.buckets = new long[(int) Math.max(1, bucketCount)];
+        }
+
+        // Maps h1 onto [0, buckets) with a multiply instead of a division
+        int index(long h1) {
+            return (int) Math.unsignedMultiplyHigh(h1, buckets.length);
+        }
+
+        // alt(alt(i, f), f) == i for any bucket count, so either bucket leads to the other
+        int alt(int bucket, int fingerprint) {
+            return Math.floorMod(fingerprint * ALT_INDEX_MULTIPLIER - bucket, buckets.length);
+        }
+
+        boolean hasFingerprint(int bucket, int fingerprint) {
+            return zeroLanes(buckets[bucket] ^ (fingerprint * ONES)) != 0L;
+        }
+
+        int countFingerprint(int bucket, int fingerprint) {
+            return Long.bitCount(zeroLanes(buckets[bucket] ^ (fingerprint * ONES)));
+        }
+
+        boolean tryPut(int bucket, int fingerprint) {
+            long empty = zeroLanes(buckets[bucket]);
+            if (empty == 0L) {
+                return false;
+            }
+            int shift = Long.numberOfTrailingZeros(empty) - 15;
+            buckets[bucket] |= (long) fingerprint << shift;
+            return true;
+        }
+
+        boolean remove(int bucket, int fingerprint) {
+            long matches = zeroLanes(buckets[bucket] ^ (fingerprint * ONES));
+            if (matches == 0L) {
+                return false;
+            }
+            int shift = Long.numberOfTrailingZeros(matches) - 15;
+            buckets[bucket] &= ~(LANE_MASK << shift);
+            return true;
+        }
+
+        private int lane(int bucket, int slot) {
+            return (int) ((buckets[bucket] >>> (slot * 16)) & LANE_MASK);
+        }
+
+        private void setLane(int bucket, int slot, int fingerprint) {
+            int shift = slot * 16;
+            buckets[bucket] = (buckets[bucket] & ~(LANE_MASK << shift)) | ((long) fingerprint << shift);
+        }
+
+        // Places the fingerprint, evicting residents along a random walk; undoes the walk on failure
+        boolean insert(int i1, int fingerprint) {
+            int i2 = alt(i1, fingerprint);
+            if (tryPut(i1, fingerprint) || tryPut(i2, fingerprint)) {
+                return true;
+            }
+            int[] pathBuckets = new int[maxIterations];
+            int[] pathSlots = new int[maxIterations];
+            int bucket = (nextRandom() & 1) == 0 ? i1 : i2;
+            int carried = fingerprint;
+            for (int n = 0; n < maxIterations; n++) {
+                int slot = nextRandom() & (BUCKET_SIZE - 1);
+                int victim = lane(bucket, slot);
+                setLane(bucket, slot, carried);
+                pathBuckets[n] = bucket;
+                pathSlots[n] = slot;
+                carried = victim;
+                bucket = alt(bucket, carried);
+                if (tryPut(bucket, carried)) {
+                    return true;
+                }
+            }
+            for (int n = maxIterations - 1; n >= 0; n--) {
+                int placed = lane(pathBuckets[n], pathSlots[n]);
+                setLane(pathBuckets[n], pathSlots[n], carried);
+                carried = placed;
+            }
+            return false;
+        }
+    }
+}
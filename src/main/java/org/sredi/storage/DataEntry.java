@@ -1,61 +1,159 @@
 package org.sredi.storage;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Objects;
 
 import lombok.Getter;
 import org.sredi.streams.StreamData;
 
-@Getter
+/**
+ * A key's value and expiry. The value is a single payload object whose class depends on the
+ * type: for strings a byte[], an {@link OffHeapValue}, a {@link CounterValue} (integer-encoded,
+ * updated in place by INCR and friends) or a {@link Bitmap} (written by SETBIT or BITOP). The
+ * typed getters return null when the payload is of another kind.
+ */
 public class DataEntry {
-    private final byte[] value;
-    private final StreamData streamValue;
-    private final LinkedList<String> listValue;
-    private final BloomFilter bloomValue;
+    private final Object payload;
+    @Getter
     private final DataEntryType type;
+    @Getter
     private final long storedAt;
+    @Getter
     private final Long ttlMillis;
 
-    public DataEntry(List<String> listValue , long storedAt, Long ttlMillis) {
-        this.listValue = new LinkedList<>(listValue);
+    private DataEntry(Object payload, DataEntryType type, long storedAt, Long ttlMillis) {
+        this.payload = payload;
+        this.type = type;
         this.storedAt = storedAt;
         this.ttlMillis = ttlMillis;
-        this.streamValue = null;
-        this.bloomValue = null;
-        this.type = DataEntryType.LIST;
-        this.value = null;
+    }
+
+    public DataEntry(QuickList listValue, long storedAt, Long ttlMillis) {
+        this(listValue, DataEntryType.LIST, storedAt, ttlMillis);
     }
 
     public DataEntry(StreamData streamValue, long storedAt, Long ttlMillis) {
-        this.value = null;
-        this.streamValue = streamValue;
-        this.type = DataEntryType.STREAM;
-        this.storedAt = storedAt;
-        this.ttlMillis = ttlMillis;
-        this.listValue = null;
-        this.bloomValue = null;
+        this(streamValue, DataEntryType.STREAM, storedAt, ttlMillis);
     }
 
     public DataEntry(byte[] value, long storedAt, Long ttlMillis) {
-        this.value = value;
-        streamValue = null;
-        this.type = DataEntryType.STRING;
-        this.storedAt = storedAt;
-        this.ttlMillis = ttlMillis;
-        this.listValue = null;
-        this.bloomValue = null;
+        this(value, DataEntryType.STRING, storedAt, ttlMillis);
     }
 
-    public DataEntry(BloomFilter bloomValue, long storedAt, Long ttlMillis) {
-        this.value = null;
-        this.streamValue = null;
-        this.listValue = null;
-        this.bloomValue = bloomValue;
-        this.type = DataEntryType.BLOOM;
-        this.storedAt = storedAt;
-        this.ttlMillis = ttlMillis;
+    public DataEntry(OffHeapValue offHeapValue, long storedAt, Long ttlMillis) {
+        this(offHeapValue, DataEntryType.STRING, storedAt, ttlMillis);
+    }
+
+    public DataEntry(long longValue, long storedAt, Long ttlMillis) {
+        this(new CounterValue(longValue), DataEntryType.STRING, storedAt, ttlMillis);
+    }
+
+    public DataEntry(Bitmap bitmapValue, long storedAt, Long ttlMillis) {
+        this(bitmapValue, DataEntryType.STRING, storedAt, ttlMillis);
+    }
+
+    public DataEntry(ScalableBloomFilter bloomValue, long storedAt, Long ttlMillis) {
+        this(bloomValue, DataEntryType.BLOOM, storedAt, ttlMillis);
+    }
+
+    public DataEntry(CuckooFilter cuckooValue, long storedAt, Long ttlMillis) {
+        this(cuckooValue, DataEntryType.CUCKOO, storedAt, ttlMillis);
+    }
+
+    public DataEntry(CountMinSketch cmsValue, long storedAt, Long ttlMillis) {
+        this(cmsValue, DataEntryType.CMS, storedAt, ttlMillis);
+    }
+
+    public DataEntry(TopK topKValue, long storedAt, Long ttlMillis) {
+        this(topKValue, DataEntryType.TOPK, storedAt, ttlMillis);
+    }
+
+    public DataEntry(HyperLogLog hllValue, long storedAt, Long ttlMillis) {
+        this(hllValue, DataEntryType.HYPERLOGLOG, storedAt, ttlMillis);
+    }
+
+    public DataEntry(HashValue hashValue, long storedAt, Long ttlMillis) {
+        this(hashValue, DataEntryType.HASH, storedAt, ttlMillis);
+    }
+
+    public DataEntry(SetValue setValue, long storedAt, Long ttlMillis) {
+        this(setValue, DataEntryType.SET, storedAt, ttlMillis);
+    }
+
+    public DataEntry(SortedSetValue zsetValue, long storedAt, Long ttlMillis) {
+        this(zsetValue, DataEntryType.ZSET, storedAt, ttlMillis);
+    }
+
+    public OffHeapValue getOffHeapValue() {
+        return payload instanceof OffHeapValue v ? v : null;
+    }
+
+    public CounterValue getLongValue() {
+        return payload instanceof CounterValue v ? v : null;
+    }
+
+    public Bitmap getBitmapValue() {
+        return payload instanceof Bitmap v ? v : null;
+    }
+
+    public StreamData getStreamValue() {
+        return payload instanceof StreamData v ? v : null;
+    }
+
+    public QuickList getListValue() {
+        return payload instanceof QuickList v ? v : null;
+    }
+
+    public ScalableBloomFilter getBloomValue() {
+        return payload instanceof ScalableBloomFilter v ? v : null;
+    }
+
+    public CuckooFilter getCuckooValue() {
+        return payload instanceof CuckooFilter v ? v : null;
+    }
+
+    public CountMinSketch getCmsValue() {
+        return payload instanceof CountMinSketch v ? v : null;
+    }
+
+    public TopK getTopKValue() {
+        return payload instanceof TopK v ? v : null;
+    }
+
+    public HyperLogLog getHllValue() {
+        return payload instanceof HyperLogLog v ? v : null;
+    }
+
+    public HashValue getHashValue() {
+        return payload instanceof HashValue v ? v : null;
+    }
+
+    public SetValue getSetValue() {
+        return payload instanceof SetValue v ? v : null;
+    }
+
+    public SortedSetValue getZsetValue() {
+        return payload instanceof SortedSetValue v ? v : null;
+    }
+
+    // String payload as a heap array; off-heap payloads are copied out of their slot (null once
+    // released) and integer- and bitmap-encoded payloads are formatted on demand
+    public byte[] getValue() {
+        if (payload instanceof byte[] value) {
+            return value;
+        }
+        if (payload instanceof CounterValue counter) {
+            return Long.toString(counter.get()).getBytes(StandardCharsets.US_ASCII);
+        }
+        if (payload instanceof Bitmap bitmap) {
+            return bitmap.toByteArray();
+        }
+        return payload instanceof OffHeapValue offHeap ? offHeap.toByteArray() : null;
+    }
+
+    public boolean isLongEncoded() {
+        return payload instanceof CounterValue;
     }
 
     public boolean isExpired(long currentTimeMillis) {
@@ -65,7 +163,7 @@ public class DataEntry {
     @Override
     public String toString() {
         return "DataEntry [value="
-                + (value != null ? new String(value) : streamValue)
+                + (type == DataEntryType.STRING ? new String(getValue()) : payload)
                 + ", type=" + type.getTypeResponse().getValueAsString()
                 + ", storedAt=" + storedAt
                 + ", ttlMillis=" + ttlMillis + "]";
@@ -75,7 +173,7 @@ public class DataEntry {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + Arrays.hashCode(value);
+        result = prime * result + Arrays.hashCode(getValue());
         result = prime * result + Objects.hash(storedAt, ttlMillis);
         return result;
     }
@@ -87,7 +185,7 @@ public class DataEntry {
         if (!(obj instanceof DataEntry))
             return false;
         DataEntry other = (DataEntry) obj;
-        return Arrays.equals(value, other.value) && storedAt == other.storedAt
+        return Arrays.equals(getValue(), other.getValue()) && storedAt == other.storedAt
                 && Objects.equals(ttlMillis, other.ttlMillis);
     }
 
@@ -3,7 +3,7 @@ package org.sredi.storage;
 import org.sredi.resp.RespSimpleStringValue;
 
 public enum DataEntryType {
-    STRING, STREAM, LIST, BLOOM;
+    STRING, STREAM, LIST, BLOOM, CUCKOO, CMS, TOPK, HYPERLOGLOG, HASH, SET, ZSET;
 
     public RespSimpleStringValue getTypeResponse() {
         return new RespSimpleStringValue(this.name().toLowerCase());
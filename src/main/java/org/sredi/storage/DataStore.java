@@ -4,29 +4,64 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sredi.resp.RespSimpleStringValue;
 import org.sredi.resp.RespValue;
+import org.sredi.streams.ClaimOptions;
+import org.sredi.streams.ClaimResult;
+import org.sredi.streams.Consumer;
+import org.sredi.streams.ConsumerGroup;
 import org.sredi.streams.IllegalStreamItemIdException;
 import org.sredi.streams.StreamData;
 import org.sredi.streams.StreamId;
+import org.sredi.streams.StreamSegmentStore;
 import org.sredi.streams.StreamValue;
+import org.sredi.streams.TrimOptions;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
  * In-memory key-value data store with LRU eviction and TTL expiration support.
+ * When an {@link OffHeapValueArena} is supplied, string payloads are moved off-heap on write
+ * and their slots are returned to the arena on overwrite, delete, expiry and eviction.
+ * Likewise, with a {@link StreamSegmentStore} streams spill their older blocks to segment files,
+ * which are deleted when the stream is.
  */
 public class DataStore {
     private static final Logger log = LoggerFactory.getLogger(DataStore.class);
 
-    private final Map<String, DataEntry> entries = new ConcurrentHashMap<>();
+    private final Keyspace entries = new Keyspace();
     private final LRU lru = new LRU();
     private final Clock clock;
     private final int maxKeys;
+    private final OffHeapValueArena offHeapArena; // null when values stay on the heap
+    private final StreamSegmentStore streamSegments; // null when streams stay on the heap
+    private final int hashMaxListpackEntries;
+    private final int hashMaxListpackValue;
 
     public DataStore(Clock clock, int maxKeys) {
+        this(clock, maxKeys, null);
+    }
+
+    public DataStore(Clock clock, int maxKeys, OffHeapValueArena offHeapArena) {
+        this(clock, maxKeys, offHeapArena, null);
+    }
+
+    public DataStore(Clock clock, int maxKeys, OffHeapValueArena offHeapArena,
+            StreamSegmentStore streamSegments) {
+        this(clock, maxKeys, offHeapArena, streamSegments, HashValue.DEFAULT_MAX_LISTPACK_ENTRIES,
+                HashValue.DEFAULT_MAX_LISTPACK_VALUE);
+    }
+
+    public DataStore(Clock clock, int maxKeys, OffHeapValueArena offHeapArena,
+            StreamSegmentStore streamSegments, int hashMaxListpackEntries, int hashMaxListpackValue) {
         this.clock = clock;
         this.maxKeys = maxKeys;
+        this.offHeapArena = offHeapArena;
+        this.streamSegments = streamSegments;
+        this.hashMaxListpackEntries = hashMaxListpackEntries;
+        this.hashMaxListpackValue = hashMaxListpackValue;
     }
 
     // Core operations
@@ -36,14 +71,20 @@ public class DataStore {
         return entries.get(key);
     }
 
+    // Stores the entry and returns the previous one; a previous off-heap payload is already released
     public DataEntry set(String key, DataEntry entry) {
         evictIfNeeded(key);
         lru.logKeyAccess(key);
-        return entries.put(key, entry);
+        DataEntry stored = moveOffHeap(entry);
+        DataEntry previous = entries.put(key, stored);
+        if (previous != stored) {
+            release(previous);
+        }
+        return previous;
     }
 
     public void delete(String key) {
-        entries.remove(key);
+        release(entries.remove(key));
         lru.remove(key);
     }
 
@@ -56,8 +97,29 @@ public class DataStore {
         return entry != null && !isExpired(entry);
     }
 
-    public Collection<String> getKeys() {
-        return entries.keySet();
+    // The unexpired keys matching the pattern, found in one walk over the keyspace
+    public List<String> getKeys(GlobPattern pattern) {
+        List<String> keys = new ArrayList<>();
+        entries.forEach((key, entry) -> {
+            if (pattern.matches(key) && !isExpired(entry)) {
+                keys.add(key);
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * One SCAN step over the keyspace, visiting unexpired keys with their entries; see
+     * {@link Keyspace#scan}. Visiting does not count as an access for LRU eviction.
+     *
+     * @return the cursor to continue from, 0 once the scan is complete
+     */
+    public long scan(long cursor, int count, BiConsumer<String, DataEntry> action) {
+        return entries.scan(cursor, count, (key, entry) -> {
+            if (!isExpired(entry)) {
+                action.accept(key, entry);
+            }
+        });
     }
 
     public RespSimpleStringValue getType(String key) {
@@ -75,105 +137,578 @@ public class DataStore {
         return clock.millis();
     }
 
-    // Stream operations
+    // Counter operations
+
+    private static final String OVERFLOW = "ERR increment or decrement would overflow";
+    private static final String NOT_FINITE = "ERR increment would produce NaN or Infinity";
+    private static final String NOT_AN_INTEGER = "ERR value is not an integer or out of range";
+    private static final String NOT_A_FLOAT = "ERR value is not a valid float";
+
+    /**
+     * Adds delta to the integer stored at key, a missing key counting as 0. The first increment
+     * converts an integer-valued string into a long-encoded entry with a single compute on the
+     * keyspace; later increments go straight to that entry's {@link CounterValue}, whose
+     * compare-and-set lets INCRs of a hot key share its stripe under --parallel. A value that is
+     * not an integer is an error and is left as it was.
+     */
+    public long incrBy(String key, long delta) {
+        return increment(key, delta, delta);
+    }
 
-    public StreamId xadd(String key, String itemId, RespValue[] itemMap)
-            throws IllegalStreamItemIdException {
+    // INCR keeps its original reply for a missing key: the counter is created at 0 and 0 is returned
+    public long incr(String key) {
+        return increment(key, 1, 0);
+    }
+
+    // Adds delta to an existing counter, or stores initial if the key is missing
+    private long increment(String key, long delta, long initial) {
+        DataEntry existing = entries.get(key);
+        if (existing != null && existing.isLongEncoded() && !isExpired(existing)) {
+            lru.logKeyAccess(key);
+            return addExact(existing.getLongValue(), delta);
+        }
         evictIfNeeded(key);
         lru.logKeyAccess(key);
-        DataEntry entry = getOrCreateStreamData(key);
-        return entry.getStreamValue().add(itemId, clock, itemMap);
+        long[] result = new long[1];
+        DataEntry[] replaced = new DataEntry[1];
+        entries.compute(key, (k, entry) -> {
+            if (entry != null && entry.isLongEncoded() && !isExpired(entry)) {
+                result[0] = addExact(entry.getLongValue(), delta);
+                return entry;
+            }
+            if (entry == null || isExpired(entry)) {
+                replaced[0] = entry;
+                result[0] = initial;
+                return new DataEntry(initial, clock.millis(), null);
+            }
+            checkStringType(entry);
+            Long current = parseLong(entry.getValue());
+            if (current == null) {
+                throw new IllegalStateException(NOT_AN_INTEGER);
+            }
+            result[0] = addExact(current, delta);
+            replaced[0] = entry;
+            return new DataEntry(result[0], entry.getStoredAt(), entry.getTtlMillis());
+        });
+        release(replaced[0]);
+        return result[0];
+    }
+
+    // Float counterpart of incrBy; the result is stored as a plain string, formatted like Redis
+    public String incrByFloat(String key, double delta) {
+        evictIfNeeded(key);
+        lru.logKeyAccess(key);
+        String[] result = new String[1];
+        DataEntry[] replaced = new DataEntry[1];
+        entries.compute(key, (k, entry) -> {
+            boolean missing = entry == null || isExpired(entry);
+            if (!missing) {
+                checkStringType(entry);
+            }
+            Double current = missing ? Double.valueOf(0)
+                    : entry.isLongEncoded() ? Double.valueOf(entry.getLongValue().get())
+                    : parseDouble(entry.getValue());
+            if (current == null) {
+                throw new IllegalStateException(NOT_A_FLOAT);
+            }
+            double next = current + delta;
+            if (Double.isNaN(next) || Double.isInfinite(next)) {
+                throw new IllegalStateException(NOT_FINITE);
+            }
+            replaced[0] = entry;
+            result[0] = BigDecimal.valueOf(next).stripTrailingZeros().toPlainString();
+            return moveOffHeap(new DataEntry(result[0].getBytes(StandardCharsets.US_ASCII),
+                    missing ? clock.millis() : entry.getStoredAt(), missing ? null : entry.getTtlMillis()));
+        });
+        release(replaced[0]);
+        return result[0];
     }
 
-    public List<StreamValue> xrange(String key, String start, String end)
+    // Stream operations
+
+    // Appends the entry, then trims the stream if trim is not null
+    public StreamId xadd(String key, String itemId, RespValue[] itemMap, TrimOptions trim)
             throws IllegalStreamItemIdException {
+        evictIfNeeded(key);
         lru.logKeyAccess(key);
-        DataEntry entry = getOrCreateStreamData(key);
-        return entry.getStreamValue().queryRange(start, end);
+        StreamData stream = getOrCreateStreamData(key).getStreamValue();
+        StreamId id = stream.add(itemId, clock, itemMap);
+        if (trim != null) {
+            stream.trim(trim);
+        }
+        return id;
+    }
+
+    // Returns the number of entries removed
+    public long xtrim(String key, TrimOptions trim) {
+        StreamData stream = getStreamOrNull(key);
+        return stream == null ? 0 : stream.trim(trim);
+    }
+
+    // The exact trim that reproduces the stream's current state, for replication
+    public TrimOptions xexactTrim(String key, TrimOptions applied) {
+        StreamData stream = getStreamOrNull(key);
+        return stream == null ? applied : stream.asExactTrim(applied);
+    }
+
+    // The stream for reads that walk it in place (XRANGE), or null if the key does not exist
+    public StreamData getStream(String key) {
+        return getStreamOrNull(key);
     }
 
-    public List<List<StreamValue>> xread(List<String> keys, List<String> startValues)
+    public List<List<StreamValue>> xread(List<String> keys, List<String> startValues, int count)
             throws IllegalStreamItemIdException {
         List<List<StreamValue>> results = new ArrayList<>();
         for (int i = 0; i < keys.size(); i++) {
             lru.logKeyAccess(keys.get(i));
             StreamData stream = getOrCreateStreamData(keys.get(i)).getStreamValue();
             StreamId startId = stream.getStreamIdForRead(startValues.get(i));
-            results.add(stream.readNextValues(StreamData.MAX_READ_COUNT, startId));
+            results.add(stream.readNextValues(count, startId));
         }
         return results;
     }
 
+    // Last ID in the stream, or 0-0 when the stream is empty or missing
+    public StreamId xlastId(String key) {
+        DataEntry entry = entries.get(key);
+        if (entry == null || entry.getType() != DataEntryType.STREAM) {
+            return StreamId.MIN_ID;
+        }
+        return entry.getStreamValue().getLastId();
+    }
+
+
+    // Consumer group operations
+
+    private static final String NO_STREAM_FOR_GROUP = "ERR The XGROUP subcommand requires the key to exist. "
+            + "Note that for CREATE you may want to use the MKSTREAM option to create an empty stream automatically.";
+    private static final String NO_GROUP = "NOGROUP No such key '%s' or consumer group '%s'";
+
+    public void xgroupCreate(String key, String group, String lastId, boolean mkStream)
+            throws IllegalStreamItemIdException {
+        StreamData stream = getStreamOrNull(key);
+        if (stream == null) {
+            if (!mkStream) {
+                throw new IllegalStateException(NO_STREAM_FOR_GROUP);
+            }
+            evictIfNeeded(key);
+            stream = getOrCreateStreamData(key).getStreamValue();
+        }
+        if (stream.createGroup(group, stream.getStreamIdForRead(lastId)) == null) {
+            throw new IllegalStateException("BUSYGROUP Consumer Group name already exists");
+        }
+    }
+
+    public boolean xgroupDestroy(String key, String group) {
+        StreamData stream = getStreamOrNull(key);
+        if (stream == null) {
+            throw new IllegalStateException(NO_STREAM_FOR_GROUP);
+        }
+        return stream.destroyGroup(group);
+    }
+
+    public boolean xgroupCreateConsumer(String key, String group, String consumer) {
+        return getGroup(key, group).createConsumer(consumer, clock.millis());
+    }
+
+    public long xgroupDelConsumer(String key, String group, String consumer) {
+        return getGroup(key, group).deleteConsumer(consumer);
+    }
+
+    public void xgroupSetId(String key, String group, String lastId) throws IllegalStreamItemIdException {
+        ConsumerGroup consumerGroup = getGroup(key, group);
+        consumerGroup.setLastDeliveredId(getStreamOrNull(key).getStreamIdForRead(lastId));
+    }
+
+    public List<List<StreamValue>> xreadgroup(String group, String consumer, List<String> keys,
+            List<String> startValues, int count, boolean noAck) throws IllegalStreamItemIdException {
+        long now = clock.millis();
+        // check every group exists before delivering anything
+        keys.forEach(key -> getGroup(key, group));
+        List<List<StreamValue>> results = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            ConsumerGroup consumerGroup = getGroup(keys.get(i), group);
+            Consumer groupConsumer = consumerGroup.getOrCreateConsumer(consumer, now);
+            StreamData stream = getStreamOrNull(keys.get(i));
+            results.add(stream.readGroup(consumerGroup, groupConsumer, startValues.get(i), count, noAck, now));
+        }
+        return results;
+    }
+
+    // Returns how many of ids were pending in the group
+    public long xack(String key, String group, List<StreamId> ids) {
+        StreamData stream = getStreamOrNull(key);
+        ConsumerGroup consumerGroup = stream == null ? null : stream.getGroup(group);
+        if (consumerGroup == null) {
+            return 0;
+        }
+        long acked = 0;
+        for (StreamId id : ids) {
+            if (consumerGroup.ack(id)) {
+                acked++;
+            }
+        }
+        return acked;
+    }
+
+    public ClaimResult xclaim(String key, String group, String consumer, long minIdleMillis,
+            List<StreamId> ids, ClaimOptions options) {
+        long now = clock.millis();
+        ConsumerGroup consumerGroup = getGroup(key, group);
+        return getStreamOrNull(key).claim(consumerGroup, consumerGroup.getOrCreateConsumer(consumer, now),
+                minIdleMillis, ids, options, now);
+    }
+
+    public ClaimResult xautoclaim(String key, String group, String consumer, long minIdleMillis,
+            StreamId start, int count, boolean justId) {
+        long now = clock.millis();
+        ConsumerGroup consumerGroup = getGroup(key, group);
+        return getStreamOrNull(key).autoClaim(consumerGroup, consumerGroup.getOrCreateConsumer(consumer, now),
+                minIdleMillis, start, count, justId, now);
+    }
+
+    // Returns the group, throwing NOGROUP if the stream or the group does not exist
+    public ConsumerGroup getGroup(String key, String group) {
+        StreamData stream = getStreamOrNull(key);
+        ConsumerGroup consumerGroup = stream == null ? null : stream.getGroup(group);
+        if (consumerGroup == null) {
+            throw new IllegalStateException(String.format(NO_GROUP, key, group));
+        }
+        return consumerGroup;
+    }
 
     // List operations
 
-    public long lpush(String key, String value) {
+    // Pushes all values with one eviction check and one LRU update; returns the new length
+    public long lpush(String key, List<byte[]> values) {
         evictIfNeeded(key);
         lru.logKeyAccess(key);
-        List<String> list = getOrCreateListData(key).getListValue();
-        list.addFirst(value);
+        QuickList list = getOrCreateListData(key).getListValue();
+        for (byte[] value : values) {
+            list.pushHead(value);
+        }
         return list.size();
     }
 
-    public long rpush(String key, String value) {
+    public long rpush(String key, List<byte[]> values) {
         evictIfNeeded(key);
         lru.logKeyAccess(key);
-        List<String> list = getOrCreateListData(key).getListValue();
-        list.addLast(value);
+        QuickList list = getOrCreateListData(key).getListValue();
+        for (byte[] value : values) {
+            list.pushTail(value);
+        }
         return list.size();
     }
 
-    public String lpop(String key) {
+    public byte[] lpop(String key) {
+        List<byte[]> popped = lpop(key, 1);
+        return popped == null ? null : popped.get(0);
+    }
+
+    public byte[] rpop(String key) {
+        List<byte[]> popped = rpop(key, 1);
+        return popped == null ? null : popped.get(0);
+    }
+
+    // Pops up to count elements from the head; returns null when the key does not exist
+    public List<byte[]> lpop(String key, long count) {
+        QuickList list = getListOrNull(key);
+        if (list == null) return null;
+        List<byte[]> popped = new ArrayList<>((int) Math.min(count, list.size()));
+        while (popped.size() < count && !list.isEmpty()) {
+            popped.add(list.popHead());
+        }
+        if (list.isEmpty()) delete(key);
+        return popped;
+    }
+
+    public List<byte[]> rpop(String key, long count) {
+        QuickList list = getListOrNull(key);
+        if (list == null) return null;
+        List<byte[]> popped = new ArrayList<>((int) Math.min(count, list.size()));
+        while (popped.size() < count && !list.isEmpty()) {
+            popped.add(list.popTail());
+        }
+        if (list.isEmpty()) delete(key);
+        return popped;
+    }
+
+    // Pops from one end of source and pushes onto one end of destination; null if source is missing
+    public byte[] lmove(String source, String destination, boolean fromLeft, boolean toLeft) {
+        QuickList sourceList = getListOrNull(source);
+        if (sourceList == null) return null;
+        DataEntry destinationEntry = entries.get(destination);
+        if (destinationEntry != null && destinationEntry.getType() != DataEntryType.LIST) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        byte[] value = fromLeft ? sourceList.popHead() : sourceList.popTail();
+        if (sourceList.isEmpty()) delete(source);
+        if (toLeft) {
+            lpush(destination, List.of(value));
+        } else {
+            rpush(destination, List.of(value));
+        }
+        return value;
+    }
+
+    public List<byte[]> lrange(String key, long start, long end) {
+        QuickList list = getListOrNull(key);
+        if (list == null) return List.of();
+        long size = list.size();
+        if (start < 0) start = size + start;
+        if (end < 0) end = size + end;
+        start = Math.max(0, start);
+        end = Math.min(size - 1, end);
+        return list.range(start, end);
+    }
+
+    public long llen(String key) {
+        QuickList list = getListOrNull(key);
+        return list == null ? 0 : list.size();
+    }
+
+    public byte[] lindex(String key, long index) {
+        QuickList list = getListOrNull(key);
+        if (list == null) return null;
+        if (index < 0) index = list.size() + index;
+        if (index < 0 || index >= list.size()) return null;
+        return list.get(index);
+    }
+
+    public void lset(String key, long index, byte[] value) {
+        QuickList list = getListOrNull(key);
+        if (list == null) {
+            throw new IllegalStateException("ERR no such key");
+        }
+        if (index < 0) index = list.size() + index;
+        if (index < 0 || index >= list.size()) {
+            throw new IllegalStateException("ERR index out of range");
+        }
+        list.set(index, value);
+    }
+
+    public void ltrim(String key, long start, long end) {
+        QuickList list = getListOrNull(key);
+        if (list == null) return;
+        long size = list.size();
+        if (start < 0) start = size + start;
+        if (end < 0) end = size + end;
+        start = Math.max(0, start);
+        end = Math.min(size - 1, end);
+        list.trim(start, end);
+        if (list.isEmpty()) delete(key);
+    }
+
+    // Returns the new length, -1 when the pivot is not found, or 0 when the key does not exist
+    public long linsert(String key, boolean before, byte[] pivot, byte[] value) {
+        QuickList list = getListOrNull(key);
+        if (list == null) return 0;
+        return list.insert(pivot, value, before);
+    }
+
+    // Bitmap operations
+
+    /**
+     * The bitmap at key for SETBIT to update in place. A plain string value is converted once,
+     * keeping its TTL; a missing or expired key becomes an empty bitmap.
+     */
+    public Bitmap bitmapGetOrCreate(String key) {
+        DataEntry existing = entries.get(key);
+        if (existing != null && existing.getBitmapValue() != null && !isExpired(existing)) {
+            lru.logKeyAccess(key);
+            return existing.getBitmapValue();
+        }
+        evictIfNeeded(key);
+        lru.logKeyAccess(key);
+        DataEntry[] replaced = new DataEntry[1];
+        DataEntry stored = entries.compute(key, (k, entry) -> {
+            if (entry == null || isExpired(entry)) {
+                replaced[0] = entry;
+                return new DataEntry(new Bitmap(), clock.millis(), null);
+            }
+            checkStringType(entry);
+            if (entry.getBitmapValue() != null) {
+                return entry;
+            }
+            replaced[0] = entry;
+            return new DataEntry(new Bitmap(entry.getValue()), entry.getStoredAt(), entry.getTtlMillis());
+        });
+        release(replaced[0]);
+        return stored.getBitmapValue();
+    }
+
+    // Bitmap to read from, or null for a missing key; a plain string value is copied, not converted
+    public Bitmap bitmapGet(String key) {
+        DataEntry entry = entries.get(key);
+        if (entry == null || isExpired(entry)) return null;
+        checkStringType(entry);
+        lru.logKeyAccess(key);
+        return entry.getBitmapValue() != null ? entry.getBitmapValue() : new Bitmap(entry.getValue());
+    }
+
+    // Stores a BITOP result, replacing any value at key; an empty result deletes the key
+    public void bitmapStore(String key, Bitmap bitmap) {
+        if (bitmap.length() == 0) {
+            delete(key);
+            return;
+        }
+        set(key, new DataEntry(bitmap, clock.millis(), null));
+    }
+
+    // Hash operations
+
+    public HashValue hashGetOrCreate(String key) {
+        evictIfNeeded(key);
+        lru.logKeyAccess(key);
+        DataEntry entry = entries.computeIfAbsent(key, k -> new DataEntry(
+                new HashValue(hashMaxListpackEntries, hashMaxListpackValue), clock.millis(), null));
+        if (entry.getType() != DataEntryType.HASH) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        return entry.getHashValue();
+    }
+
+    public HashValue hashGet(String key) {
         DataEntry entry = entries.get(key);
         if (entry == null) return null;
+        if (entry.getType() != DataEntryType.HASH) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
         lru.logKeyAccess(key);
-        LinkedList<String> list = entry.getListValue();
-        if (list.isEmpty()) return null;
-        String value = list.removeFirst();
-        if (list.isEmpty()) delete(key);
-        return value;
+        return entry.getHashValue();
+    }
+
+    // Removes the fields and the key once its last field is gone; returns the number removed
+    public long hdel(String key, List<byte[]> fields) {
+        HashValue hash = hashGet(key);
+        if (hash == null) return 0;
+        long removed = 0;
+        for (byte[] field : fields) {
+            if (hash.remove(field)) removed++;
+        }
+        if (hash.size() == 0) delete(key);
+        return removed;
+    }
+
+    // Set operations
+
+    public SetValue setValueGetOrCreate(String key) {
+        evictIfNeeded(key);
+        lru.logKeyAccess(key);
+        DataEntry entry = entries.computeIfAbsent(key, k -> new DataEntry(new SetValue(), clock.millis(), null));
+        if (entry.getType() != DataEntryType.SET) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        return entry.getSetValue();
     }
 
-    public String rpop(String key) {
+    public SetValue setValueGet(String key) {
         DataEntry entry = entries.get(key);
         if (entry == null) return null;
+        if (entry.getType() != DataEntryType.SET) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
         lru.logKeyAccess(key);
-        LinkedList<String> list = entry.getListValue();
-        if (list.isEmpty()) return null;
-        String value = list.removeLast();
-        if (list.isEmpty()) delete(key);
-        return value;
+        return entry.getSetValue();
+    }
+
+    // Removes the members and the key once its last member is gone; returns the number removed
+    public long srem(String key, List<byte[]> members) {
+        SetValue set = setValueGet(key);
+        if (set == null) return 0;
+        long removed = 0;
+        for (byte[] member : members) {
+            if (set.remove(member)) removed++;
+        }
+        if (set.size() == 0) delete(key);
+        return removed;
+    }
+
+    // Sorted set operations
+
+    public SortedSetValue zsetGetOrCreate(String key) {
+        evictIfNeeded(key);
+        lru.logKeyAccess(key);
+        DataEntry entry = entries.computeIfAbsent(key, k -> new DataEntry(new SortedSetValue(), clock.millis(), null));
+        if (entry.getType() != DataEntryType.ZSET) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        return entry.getZsetValue();
     }
 
-    public List<String> lrange(String key, int start, int end) {
+    public SortedSetValue zsetGet(String key) {
         DataEntry entry = entries.get(key);
-        if (entry == null) return List.of();
+        if (entry == null) return null;
+        if (entry.getType() != DataEntryType.ZSET) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
         lru.logKeyAccess(key);
-        List<String> list = entry.getListValue();
-        int size = list.size();
-        if (size == 0) return List.of();
-        if (start < 0) start = size + start;
-        if (end < 0) end = size + end;
-        start = Math.max(0, start);
-        end = Math.min(size - 1, end);
-        if (start > end) return List.of();
-        return new ArrayList<>(list.subList(start, end + 1));
+        return entry.getZsetValue();
+    }
+
+    // Stores a ZRANGESTORE result, replacing any value at key; an empty result deletes the key
+    public void zsetStore(String key, SortedSetValue zset) {
+        if (zset.size() == 0) {
+            delete(key);
+            return;
+        }
+        set(key, new DataEntry(zset, clock.millis(), null));
+    }
+
+    // Removes the members and the key once its last member is gone; returns the number removed
+    public long zrem(String key, List<byte[]> members) {
+        SortedSetValue zset = zsetGet(key);
+        if (zset == null) return 0;
+        long removed = 0;
+        for (byte[] member : members) {
+            if (zset.remove(member)) removed++;
+        }
+        if (zset.size() == 0) delete(key);
+        return removed;
+    }
+
+    // Removes up to count lowest-scored members, visiting them in order, and the key once empty
+    public void zpopmin(String key, long count, SortedSetValue.EntryVisitor visitor) {
+        SortedSetValue zset = zsetGet(key);
+        if (zset == null || count <= 0) return;
+        List<byte[]> popped = new ArrayList<>();
+        zset.forEachInRankRange(0, Math.min(count, zset.size()) - 1, false, (member, score) -> {
+            popped.add(member);
+            visitor.accept(member, score);
+        });
+        for (byte[] member : popped) {
+            zset.remove(member);
+        }
+        if (zset.size() == 0) delete(key);
     }
 
     // Bloom filter operations
 
     private static final String WRONG_TYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
 
-    public void bfReserve(String key, long capacity, double errorRate) {
+    public void bfReserve(String key, long capacity, double errorRate, int expansion, boolean nonScaling,
+            boolean blocked) {
         if (entries.containsKey(key)) {
             throw new IllegalStateException("ERR item exists");
         }
         evictIfNeeded(key);
         lru.logKeyAccess(key);
-        entries.put(key, new DataEntry(new BloomFilter(capacity, errorRate), clock.millis(), null));
+        ScalableBloomFilter bf = new ScalableBloomFilter(capacity, errorRate, expansion, nonScaling, blocked);
+        entries.put(key, new DataEntry(bf, clock.millis(), null));
     }
 
-    public BloomFilter bfGetOrCreate(String key, long capacity, double errorRate) {
+    public ScalableBloomFilter bfGetOrCreate(String key, long capacity, double errorRate) {
+        return bfGetOrCreate(key, capacity, errorRate, ScalableBloomFilter.DEFAULT_EXPANSION, false);
+    }
+
+    /**
+     * The Bloom filter at key, created with the given parameters if the key is missing. BF.ADD,
+     * BF.MADD and BF.INSERT take only a shared stripe under --parallel: the filter sets its bits
+     * atomically and the LRU is synchronized, so adds to a hot filter run concurrently, and two
+     * adds may race to create the filter, which computeIfAbsent settles.
+     */
+    public ScalableBloomFilter bfGetOrCreate(String key, long capacity, double errorRate, int expansion,
+            boolean nonScaling) {
         DataEntry existing = entries.get(key);
         if (existing != null) {
             if (existing.getType() != DataEntryType.BLOOM) {
@@ -184,12 +719,15 @@ public class DataStore {
         }
         evictIfNeeded(key);
         lru.logKeyAccess(key);
-        BloomFilter bf = new BloomFilter(capacity, errorRate);
-        entries.put(key, new DataEntry(bf, clock.millis(), null));
-        return bf;
+        DataEntry entry = entries.computeIfAbsent(key, k -> new DataEntry(
+                new ScalableBloomFilter(capacity, errorRate, expansion, nonScaling, false), clock.millis(), null));
+        if (entry.getType() != DataEntryType.BLOOM) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        return entry.getBloomValue();
     }
 
-    public BloomFilter bfGet(String key) {
+    public ScalableBloomFilter bfGet(String key) {
         DataEntry entry = entries.get(key);
         if (entry == null) return null;
         if (entry.getType() != DataEntryType.BLOOM) {
@@ -199,39 +737,245 @@ public class DataStore {
         return entry.getBloomValue();
     }
 
-    // TTL cleanup - scans and removes expired keys
-    public void cleanupExpiredKeys() {
-        for (String key : entries.keySet()) {
-            DataEntry entry = entries.get(key);
+    // Cuckoo filter operations
+
+    public void cfReserve(String key, long capacity, int maxIterations, int expansion) {
+        if (entries.containsKey(key)) {
+            throw new IllegalStateException("ERR item exists");
+        }
+        evictIfNeeded(key);
+        lru.logKeyAccess(key);
+        CuckooFilter cf = new CuckooFilter(capacity, maxIterations, expansion);
+        entries.put(key, new DataEntry(cf, clock.millis(), null));
+    }
+
+    public CuckooFilter cfGetOrCreate(String key, long capacity) {
+        DataEntry existing = entries.get(key);
+        if (existing != null) {
+            if (existing.getType() != DataEntryType.CUCKOO) {
+                throw new IllegalStateException(WRONG_TYPE);
+            }
+            lru.logKeyAccess(key);
+            return existing.getCuckooValue();
+        }
+        evictIfNeeded(key);
+        lru.logKeyAccess(key);
+        CuckooFilter cf = new CuckooFilter(capacity, CuckooFilter.DEFAULT_MAX_ITERATIONS,
+                CuckooFilter.DEFAULT_EXPANSION);
+        entries.put(key, new DataEntry(cf, clock.millis(), null));
+        return cf;
+    }
+
+    public CuckooFilter cfGet(String key) {
+        DataEntry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.getType() != DataEntryType.CUCKOO) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        lru.logKeyAccess(key);
+        return entry.getCuckooValue();
+    }
+
+    // Count-Min sketch and Top-K operations
+
+    public void cmsInit(String key, CountMinSketch sketch) {
+        if (entries.containsKey(key)) {
+            throw new IllegalStateException("ERR CMS: key already exists");
+        }
+        evictIfNeeded(key);
+        lru.logKeyAccess(key);
+        entries.put(key, new DataEntry(sketch, clock.millis(), null));
+    }
+
+    public CountMinSketch cmsGet(String key) {
+        DataEntry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.getType() != DataEntryType.CMS) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        lru.logKeyAccess(key);
+        return entry.getCmsValue();
+    }
+
+    public void topkReserve(String key, TopK topK) {
+        if (entries.containsKey(key)) {
+            throw new IllegalStateException("ERR TOPK: key already exists");
+        }
+        evictIfNeeded(key);
+        lru.logKeyAccess(key);
+        entries.put(key, new DataEntry(topK, clock.millis(), null));
+    }
+
+    public TopK topkGet(String key) {
+        DataEntry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.getType() != DataEntryType.TOPK) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        lru.logKeyAccess(key);
+        return entry.getTopKValue();
+    }
+
+    // HyperLogLog operations
+
+    public HyperLogLog pfGetOrCreate(String key) {
+        DataEntry existing = entries.get(key);
+        if (existing != null) {
+            if (existing.getType() != DataEntryType.HYPERLOGLOG) {
+                throw new IllegalStateException(WRONG_TYPE);
+            }
+            lru.logKeyAccess(key);
+            return existing.getHllValue();
+        }
+        evictIfNeeded(key);
+        lru.logKeyAccess(key);
+        HyperLogLog hll = new HyperLogLog();
+        entries.put(key, new DataEntry(hll, clock.millis(), null));
+        return hll;
+    }
+
+    public HyperLogLog pfGet(String key) {
+        DataEntry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.getType() != DataEntryType.HYPERLOGLOG) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        lru.logKeyAccess(key);
+        return entry.getHllValue();
+    }
+
+    // TTL cleanup - the keys that have expired, for the caller to remove with removeIfExpired
+    public List<String> getExpiredKeys() {
+        List<String> expired = new ArrayList<>();
+        entries.forEach((key, entry) -> {
+            if (isExpired(entry)) {
+                expired.add(key);
+            }
+        });
+        return expired;
+    }
+
+    // Removes the key if its entry is still expired, so a key set again meanwhile is kept
+    public void removeIfExpired(String key) {
+        DataEntry[] removed = new DataEntry[1];
+        entries.compute(key, (k, entry) -> {
             if (entry != null && isExpired(entry)) {
-                delete(key);
+                removed[0] = entry;
+                return null;
             }
+            return entry;
+        });
+        if (removed[0] != null) {
+            release(removed[0]);
+            lru.remove(key);
         }
     }
 
     // Internal helpers
 
-    Map<String, DataEntry> getEntries() {
-        return entries;
+    // Adds the entries read from an RDB file at startup
+    void load(Map<String, DataEntry> loaded) {
+        loaded.forEach(entries::put);
     }
 
     private void evictIfNeeded(String key) {
         if (maxKeys > 0 && !entries.containsKey(key) && lru.size() >= maxKeys) {
             String evictedKey = lru.evictLRUKey();
             if (evictedKey != null) {
-                entries.remove(evictedKey);
+                release(entries.remove(evictedKey));
                 log.info("LRU evicted key: {}", evictedKey);
             }
         }
     }
 
+    private static long addExact(long current, long delta) {
+        try {
+            return Math.addExact(current, delta);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException(OVERFLOW);
+        }
+    }
+
+    private static long addExact(CounterValue counter, long delta) {
+        try {
+            return counter.add(delta);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException(OVERFLOW);
+        }
+    }
+
+    private static void checkStringType(DataEntry entry) {
+        if (entry.getType() != DataEntryType.STRING) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+    }
+
+    private static Long parseLong(byte[] value) {
+        try {
+            return Long.parseLong(new String(value, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(byte[] value) {
+        try {
+            double parsed = Double.parseDouble(new String(value, StandardCharsets.US_ASCII));
+            return Double.isNaN(parsed) || Double.isInfinite(parsed) ? null : parsed;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private DataEntry moveOffHeap(DataEntry entry) {
+        if (offHeapArena == null || entry.getType() != DataEntryType.STRING
+                || entry.getOffHeapValue() != null || entry.isLongEncoded() || entry.getBitmapValue() != null) {
+            return entry;
+        }
+        return new DataEntry(offHeapArena.allocate(entry.getValue()), entry.getStoredAt(),
+                entry.getTtlMillis());
+    }
+
+    private void release(DataEntry entry) {
+        if (entry != null && entry.getOffHeapValue() != null) {
+            entry.getOffHeapValue().release();
+        }
+        if (entry != null && entry.getStreamValue() != null) {
+            entry.getStreamValue().close();
+        }
+    }
+
     private DataEntry getOrCreateStreamData(String key) {
         return entries.computeIfAbsent(key,
-                k -> new DataEntry(new StreamData(k), clock.millis(), null));
+                k -> new DataEntry(new StreamData(k, streamSegments), clock.millis(), null));
     }
 
     private DataEntry getOrCreateListData(String key) {
-        return entries.computeIfAbsent(key,
-                k -> new DataEntry(new LinkedList<String>(), clock.millis(), null));
+        DataEntry entry = entries.computeIfAbsent(key,
+                k -> new DataEntry(new QuickList(), clock.millis(), null));
+        if (entry.getType() != DataEntryType.LIST) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        return entry;
+    }
+
+    private StreamData getStreamOrNull(String key) {
+        DataEntry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.getType() != DataEntryType.STREAM) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        lru.logKeyAccess(key);
+        return entry.getStreamValue();
+    }
+
+    private QuickList getListOrNull(String key) {
+        DataEntry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.getType() != DataEntryType.LIST) {
+            throw new IllegalStateException(WRONG_TYPE);
+        }
+        lru.logKeyAccess(key);
+        return entry.getListValue();
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.sredi.commands.Command;
 import org.sredi.commands.CommandConstructor;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -32,7 +33,7 @@ public class EventLoop {
         if (parallel) {
             int threads = orchestrator.getOptions().getParallelThreads();
             this.parallelCommandExecutorService = Executors.newFixedThreadPool(threads);
-            this.stripedLock = new StripedLock();
+            this.stripedLock = orchestrator.getStripedLock();
             log.info("Parallel mode enabled with {} threads", threads);
         } else {
             this.parallelCommandExecutorService = null;
@@ -60,29 +61,20 @@ public class EventLoop {
             if (command != null) {
                 if (parallel) {
                     parallelCommandExecutorService.submit(() -> {
-                        String key = command.getKey();
+                        List<String> keys = orchestrator.getLockKeys(conn, command);
+                        boolean exclusive = command.isExclusiveKeyLock();
                         try {
-                            if (key != null) {
-                                if (command.getType().isWrite()) {
-                                    stripedLock.writeLock(key);
-                                } else {
-                                    stripedLock.readLock(key);
-                                }
-                            }
+                            stripedLock.lockAll(keys, exclusive);
                             orchestrator.executeCommand(conn, command);
                         } catch (Exception e) {
                             log.error("EventLoop Exception: {} \"{}\"",
                                     e.getClass().getSimpleName(), e.getMessage(), e);
                             conn.sendError(e.getMessage());
                         } finally {
-                            if (key != null) {
-                                if (command.getType().isWrite()) {
-                                    stripedLock.writeUnlock(key);
-                                } else {
-                                    stripedLock.readUnlock(key);
-                                }
-                            }
+                            stripedLock.unlockAll(keys, exclusive);
                         }
+                        // blocked clients are served holding their own keys' stripes
+                        orchestrator.serveReadyKeys();
                     });
                 } else {
                     try {
@@ -0,0 +1,152 @@
+package org.sredi.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Glob-style pattern as KEYS, SCAN and the *SCAN commands accept it: {@code *} matches any run of
+ * bytes, {@code ?} one byte, {@code [abc]}, {@code [a-z]} and {@code [^a]} one byte from (or not
+ * from) a set, and a backslash escapes the next character. The pattern is compiled once into one
+ * token per position, with each bracket set expanded into a 256-entry table, so matching a
+ * candidate never re-parses the pattern. {@code *} alone, and patterns without wildcards, skip
+ * the matcher entirely.
+ */
+public final class GlobPattern {
+
+    private static final int LITERAL = 0;
+    private static final int ANY_BYTE = 1;
+    private static final int ANY_RUN = 2;
+    private static final int BYTE_SET = 3;
+
+    private final int[] kinds;
+    private final byte[] literals;
+    private final boolean[][] sets;
+    private final boolean matchesAll;
+    private final byte[] exact; // non-null when the pattern has no wildcards
+
+    private GlobPattern(int[] kinds, byte[] literals, boolean[][] sets) {
+        this.kinds = kinds;
+        this.literals = literals;
+        this.sets = sets;
+        boolean allRuns = kinds.length > 0;
+        boolean allLiterals = true;
+        for (int kind : kinds) {
+            allRuns &= kind == ANY_RUN;
+            allLiterals &= kind == LITERAL;
+        }
+        this.matchesAll = allRuns;
+        this.exact = allLiterals ? literals : null;
+    }
+
+    public static GlobPattern compile(String pattern) {
+        return compile(pattern.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static GlobPattern compile(byte[] pattern) {
+        int[] kinds = new int[pattern.length];
+        byte[] literals = new byte[pattern.length];
+        boolean[][] sets = new boolean[pattern.length][];
+        int n = 0;
+        int i = 0;
+        while (i < pattern.length) {
+            byte c = pattern[i];
+            if (c == '*') {
+                // consecutive stars match the same as one
+                if (n == 0 || kinds[n - 1] != ANY_RUN) {
+                    kinds[n++] = ANY_RUN;
+                }
+                i++;
+            } else if (c == '?') {
+                kinds[n++] = ANY_BYTE;
+                i++;
+            } else if (c == '[') {
+                boolean[] set = new boolean[256];
+                i++;
+                boolean negated = i < pattern.length && pattern[i] == '^';
+                if (negated) i++;
+                while (i < pattern.length && pattern[i] != ']') {
+                    if (pattern[i] == '\\' && i + 1 < pattern.length) {
+                        i++;
+                        set[pattern[i] & 0xFF] = true;
+                        i++;
+                    } else if (i + 2 < pattern.length && pattern[i + 1] == '-' && pattern[i + 2] != ']') {
+                        int from = pattern[i] & 0xFF;
+                        int to = pattern[i + 2] & 0xFF;
+                        for (int b = Math.min(from, to); b <= Math.max(from, to); b++) {
+                            set[b] = true;
+                        }
+                        i += 3;
+                    } else {
+                        set[pattern[i] & 0xFF] = true;
+                        i++;
+                    }
+                }
+                i++; // closing bracket, if any
+                if (negated) {
+                    for (int b = 0; b < 256; b++) set[b] = !set[b];
+                }
+                kinds[n] = BYTE_SET;
+                sets[n++] = set;
+            } else {
+                if (c == '\\' && i + 1 < pattern.length) {
+                    i++;
+                    c = pattern[i];
+                }
+                kinds[n] = LITERAL;
+                literals[n++] = c;
+                i++;
+            }
+        }
+        return new GlobPattern(Arrays.copyOf(kinds, n), Arrays.copyOf(literals, n),
+                Arrays.copyOf(sets, n));
+    }
+
+    public boolean matchesAll() {
+        return matchesAll;
+    }
+
+    public boolean matches(String candidate) {
+        return matchesAll || matches(candidate.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Backtracks only to the most recent star, so matching is O(pattern * candidate) at worst
+    public boolean matches(byte[] candidate) {
+        if (matchesAll) {
+            return true;
+        }
+        if (exact != null) {
+            return Arrays.equals(exact, candidate);
+        }
+        int p = 0;
+        int c = 0;
+        int starP = -1;
+        int starC = 0;
+        while (c < candidate.length) {
+            if (p < kinds.length && kinds[p] == ANY_RUN) {
+                starP = p++;
+                starC = c;
+            } else if (p < kinds.length && matchesOne(p, candidate[c])) {
+                p++;
+                c++;
+            } else if (starP >= 0) {
+                p = starP + 1;
+                c = ++starC;
+            } else {
+                return false;
+            }
+        }
+        while (p < kinds.length && kinds[p] == ANY_RUN) {
+            p++;
+        }
+        return p == kinds.length;
+    }
+
+    private boolean matchesOne(int p, byte b) {
+        return switch (kinds[p]) {
+            case LITERAL -> literals[p] == b;
+            case ANY_BYTE -> true;
+            case BYTE_SET -> sets[p][b & 0xFF];
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,210 @@
+package org.sredi.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Hash value encoded like Redis' small hashes: fields and values alternate in one byte array
+ * (listpack style, each entry {@code <varint length><bytes>}), which costs a few bytes per field
+ * instead of an object per field, and lookups scan the array. Once the hash has more than
+ * maxListpackEntries fields, or a field or value longer than maxListpackValue bytes, it converts
+ * to a {@link BytesHashTable} for good.
+ * <p>
+ * HSET, HDEL and HINCRBY hold the key's write stripe while reads share it, so the
+ * byte array is never re-packed under a reader.
+ */
+public final class HashValue {
+
+    public static final int DEFAULT_MAX_LISTPACK_ENTRIES = 128;
+    public static final int DEFAULT_MAX_LISTPACK_VALUE = 64;
+    private static final int MIN_LISTPACK_CAPACITY = 32;
+
+    private final int maxListpackEntries;
+    private final int maxListpackValue;
+    private byte[] listpack; // null once converted to the table
+    private int used;
+    private int count;
+    private BytesHashTable table;
+
+    public HashValue() {
+        this(DEFAULT_MAX_LISTPACK_ENTRIES, DEFAULT_MAX_LISTPACK_VALUE);
+    }
+
+    public HashValue(int maxListpackEntries, int maxListpackValue) {
+        this.maxListpackEntries = maxListpackEntries;
+        this.maxListpackValue = maxListpackValue;
+        this.listpack = new byte[MIN_LISTPACK_CAPACITY];
+    }
+
+    public int size() {
+        return listpack != null ? count : table.size();
+    }
+
+    public boolean isListpack() {
+        return listpack != null;
+    }
+
+    public boolean containsField(byte[] field) {
+        return listpack != null ? find(field) >= 0 : table.containsKey(field);
+    }
+
+    public byte[] get(byte[] field) {
+        if (listpack == null) {
+            return table.get(field);
+        }
+        int offset = find(field);
+        return offset < 0 ? null : read(skip(offset));
+    }
+
+    // Returns true if the field is new, false if its value was replaced
+    public boolean put(byte[] field, byte[] value) {
+        if (listpack != null && (field.length > maxListpackValue || value.length > maxListpackValue)) {
+            convertToTable();
+        }
+        if (listpack == null) {
+            return table.put(field, value);
+        }
+        int offset = find(field);
+        if (offset >= 0) {
+            int valueOffset = skip(offset);
+            splice(valueOffset, skip(valueOffset) - valueOffset, value, null);
+            return false;
+        }
+        splice(used, 0, field, value);
+        if (++count > maxListpackEntries) {
+            convertToTable();
+        }
+        return true;
+    }
+
+    public boolean remove(byte[] field) {
+        if (listpack == null) {
+            return table.remove(field);
+        }
+        int offset = find(field);
+        if (offset < 0) {
+            return false;
+        }
+        splice(offset, skip(skip(offset)) - offset, null, null);
+        count--;
+        return true;
+    }
+
+    /**
+     * Adds delta to the integer value of the field, which starts at 0 if missing.
+     *
+     * @return the new value
+     * @throws IllegalStateException if the value is not an integer or the result would overflow
+     */
+    public long incrBy(byte[] field, long delta) {
+        byte[] current = get(field);
+        long value = 0;
+        if (current != null) {
+            try {
+                value = Long.parseLong(new String(current, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("ERR hash value is not an integer");
+            }
+        }
+        try {
+            value = Math.addExact(value, delta);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("ERR increment or decrement would overflow");
+        }
+        put(field, Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+        return value;
+    }
+
+    public void forEach(BiConsumer<byte[], byte[]> action) {
+        if (listpack == null) {
+            table.forEach(action);
+            return;
+        }
+        int offset = 0;
+        while (offset < used) {
+            int valueOffset = skip(offset);
+            action.accept(read(offset), read(valueOffset));
+            offset = skip(valueOffset);
+        }
+    }
+
+    /**
+     * One HSCAN step. A listpack is returned whole in one step, as Redis does; a table is walked
+     * with {@link BytesHashTable#scan}.
+     *
+     * @return the cursor to continue from, 0 once the scan is complete
+     */
+    public long scan(long cursor, int count, BiConsumer<byte[], byte[]> action) {
+        if (listpack == null) {
+            return table.scan(cursor, count, action);
+        }
+        forEach(action);
+        return 0;
+    }
+
+    // Offset of the field's entry, or -1; values are skipped so a value never matches as a field
+    private int find(byte[] field) {
+        int offset = 0;
+        while (offset < used) {
+            int length = QuickList.readVarint(listpack, offset);
+            int start = offset + QuickList.varintSize(length);
+            if (length == field.length && Arrays.equals(listpack, start, start + length, field, 0, length)) {
+                return offset;
+            }
+            offset = skip(start + length);
+        }
+        return -1;
+    }
+
+    // Offset just past the entry starting at offset
+    private int skip(int offset) {
+        int length = QuickList.readVarint(listpack, offset);
+        return offset + QuickList.varintSize(length) + length;
+    }
+
+    private byte[] read(int offset) {
+        int length = QuickList.readVarint(listpack, offset);
+        int start = offset + QuickList.varintSize(length);
+        return Arrays.copyOfRange(listpack, start, start + length);
+    }
+
+    // Replaces removed bytes at offset with the entries for first and second (either may be null)
+    private void splice(int offset, int removed, byte[] first, byte[] second) {
+        int added = entrySize(first) + entrySize(second);
+        int newUsed = used - removed + added;
+        if (newUsed > listpack.length) {
+            listpack = Arrays.copyOf(listpack, Math.max(newUsed, listpack.length * 2));
+        }
+        System.arraycopy(listpack, offset + removed, listpack, offset + added, used - offset - removed);
+        offset = write(offset, first);
+        write(offset, second);
+        used = newUsed;
+        if (used < listpack.length / 4 && listpack.length > MIN_LISTPACK_CAPACITY) {
+            listpack = Arrays.copyOf(listpack, Math.max(MIN_LISTPACK_CAPACITY, used * 2));
+        }
+    }
+
+    private int write(int offset, byte[] bytes) {
+        if (bytes == null) {
+            return offset;
+        }
+        QuickList.writeVarint(listpack, offset, bytes.length);
+        offset += QuickList.varintSize(bytes.length);
+        System.arraycopy(bytes, 0, listpack, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    private static int entrySize(byte[] bytes) {
+        return bytes == null ? 0 : QuickList.varintSize(bytes.length) + bytes.length;
+    }
+
+    private void convertToTable() {
+        BytesHashTable converted = new BytesHashTable();
+        forEach(converted::put);
+        table = converted;
+        listpack = null;
+        used = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,392 @@
+package org.sredi.storage;
+
+import java.util.Arrays;
+
+/**
+ * Cardinality estimate in the layout Redis uses: 16384 registers (standard error 0.81%) holding
+ * the longest run of trailing zeros, plus one, seen among the hashes that map to them.
+ * <p>
+ * Small sets start sparse: the register array is run-length encoded with Redis' opcodes (ZERO
+ * and XZERO for runs of empty registers, VAL for short runs of one value), so a new key takes two
+ * bytes and a few hundred distinct items take a few hundred bytes. The sketch is converted to
+ * dense registers (6 bits each, packed little-endian into 12 KB) once the encoding passes
+ * {@link #SPARSE_MAX_BYTES} or a register exceeds what VAL can hold. The cardinality is cached
+ * until the next change, and is estimated with Ertl's improved estimator as in Redis.
+ * <p>
+ * PFADD and PFMERGE hold the key's write stripe. Concurrent PFCOUNTs may each recompute and
+ * store the cached cardinality, which is harmless as they store the same value.
+ */
+public final class HyperLogLog {
+
+    static final int P = 14;
+    public static final int REGISTERS = 1 << P;
+    static final int REGISTER_BITS = 6;
+    static final int DENSE_BYTES = REGISTERS * REGISTER_BITS / 8;
+    static final int SPARSE_MAX_BYTES = 3000;
+    private static final int Q = 64 - P;
+    private static final int SPARSE_VAL_MAX_VALUE = 32;
+    private static final int SPARSE_VAL_MAX_LEN = 4;
+    private static final int SPARSE_ZERO_MAX_LEN = 64;
+    private static final int SPARSE_XZERO_MAX_LEN = 16384;
+    private static final double ALPHA_INF = 0.721347520444481703680;
+    private static final long MURMUR3_SEED = 0x5f61767a;
+    private static final ThreadLocal<long[]> HASH = ThreadLocal.withInitial(() -> new long[2]);
+
+    private byte[] sparse; // null once dense
+    private int sparseLength;
+    private byte[] dense;  // DENSE_BYTES plus one byte so that every register spans two bytes
+    private volatile long cachedCount = -1;
+
+    public HyperLogLog() {
+        this.sparse = new byte[8];
+        this.sparseLength = 0;
+        SparseWriter writer = new SparseWriter();
+        writer.run(0, REGISTERS);
+        writer.finish();
+    }
+
+    /**
+     * Adds an item.
+     *
+     * @return true if a register changed, so the estimate may have changed
+     */
+    public boolean add(byte[] item) {
+        long[] hash = HASH.get();
+        Murmur3.hash128(item, MURMUR3_SEED, hash);
+        long h = hash[0];
+        int index = (int) (h & (REGISTERS - 1));
+        // sentinel bit keeps the count at most Q + 1
+        int count = Long.numberOfTrailingZeros((h >>> P) | (1L << Q)) + 1;
+        boolean changed = sparse != null ? sparseSet(index, count) : denseSet(index, count);
+        if (changed) {
+            cachedCount = -1;
+        }
+        return changed;
+    }
+
+    public long count() {
+        long count = cachedCount;
+        if (count < 0) {
+            int[] histogram = new int[Q + 2];
+            if (sparse != null) {
+                sparseHistogram(histogram);
+            } else {
+                denseHistogram(dense, histogram);
+            }
+            count = estimate(histogram);
+            cachedCount = count;
+        }
+        return count;
+    }
+
+    /**
+     * Raises each of max's registers (one per byte) to this sketch's register where that is larger.
+     */
+    public void maxInto(byte[] max) {
+        if (sparse != null) {
+            int index = 0;
+            int i = 0;
+            while (i < sparseLength) {
+                int op = sparse[i] & 0xFF;
+                if ((op & 0xC0) == 0) {
+                    index += (op & 0x3F) + 1;
+                    i++;
+                } else if ((op & 0xC0) == 0x40) {
+                    index += (((op & 0x3F) << 8) | (sparse[i + 1] & 0xFF)) + 1;
+                    i += 2;
+                } else {
+                    int value = ((op >>> 2) & 0x1F) + 1;
+                    int end = index + (op & 0x3) + 1;
+                    for (; index < end; index++) {
+                        if (value > max[index]) max[index] = (byte) value;
+                    }
+                    i++;
+                }
+            }
+            return;
+        }
+        // three bytes hold four registers, so unpack them a group at a time
+        byte[] d = dense;
+        for (int group = 0, r = 0; group < DENSE_BYTES; group += 3, r += 4) {
+            int b0 = d[group] & 0xFF;
+            int b1 = d[group + 1] & 0xFF;
+            int b2 = d[group + 2] & 0xFF;
+            int r0 = b0 & 0x3F;
+            int r1 = ((b0 >>> 6) | (b1 << 2)) & 0x3F;
+            int r2 = ((b1 >>> 4) | (b2 << 4)) & 0x3F;
+            int r3 = b2 >>> 2;
+            if (r0 > max[r]) max[r] = (byte) r0;
+            if (r1 > max[r + 1]) max[r + 1] = (byte) r1;
+            if (r2 > max[r + 2]) max[r + 2] = (byte) r2;
+            if (r3 > max[r + 3]) max[r + 3] = (byte) r3;
+        }
+    }
+
+    // Replaces this sketch with dense registers taken from max (one register per byte)
+    public void setRegisters(byte[] max) {
+        byte[] d = new byte[DENSE_BYTES + 1];
+        for (int group = 0, r = 0; group < DENSE_BYTES; group += 3, r += 4) {
+            int bits = max[r] | (max[r + 1] << 6) | (max[r + 2] << 12) | (max[r + 3] << 18);
+            d[group] = (byte) bits;
+            d[group + 1] = (byte) (bits >>> 8);
+            d[group + 2] = (byte) (bits >>> 16);
+        }
+        dense = d;
+        sparse = null;
+        sparseLength = 0;
+        cachedCount = -1;
+    }
+
+    // Cardinality of the union of registers given one per byte, as PFCOUNT over several keys
+    public static long countRegisters(byte[] max) {
+        int[] histogram = new int[Q + 2];
+        for (byte register : max) {
+            histogram[register]++;
+        }
+        return estimate(histogram);
+    }
+
+    public boolean isSparse() {
+        return sparse != null;
+    }
+
+    public int getSizeInBytes() {
+        return sparse != null ? sparseLength : DENSE_BYTES;
+    }
+
+    // Dense encoding
+
+    private boolean denseSet(int index, int count) {
+        if (count <= denseGet(dense, index)) {
+            return false;
+        }
+        int bit = index * REGISTER_BITS;
+        int b = bit >>> 3;
+        int shift = bit & 7;
+        int word = (dense[b] & 0xFF) | ((dense[b + 1] & 0xFF) << 8);
+        word = (word & ~(0x3F << shift)) | (count << shift);
+        dense[b] = (byte) word;
+        dense[b + 1] = (byte) (word >>> 8);
+        return true;
+    }
+
+    private static int denseGet(byte[] d, int index) {
+        int bit = index * REGISTER_BITS;
+        int b = bit >>> 3;
+        return (((d[b] & 0xFF) | ((d[b + 1] & 0xFF) << 8)) >>> (bit & 7)) & 0x3F;
+    }
+
+    private static void denseHistogram(byte[] d, int[] histogram) {
+        for (int group = 0; group < DENSE_BYTES; group += 3) {
+            int bits = (d[group] & 0xFF) | ((d[group + 1] & 0xFF) << 8) | ((d[group + 2] & 0xFF) << 16);
+            histogram[bits & 0x3F]++;
+            histogram[(bits >>> 6) & 0x3F]++;
+            histogram[(bits >>> 12) & 0x3F]++;
+            histogram[bits >>> 18]++;
+        }
+    }
+
+    // Sparse encoding
+
+    private boolean sparseSet(int index, int count) {
+        // find the run holding index; nothing to do if its value is already at least count
+        int start = 0;
+        int i = 0;
+        while (i < sparseLength) {
+            int op = sparse[i] & 0xFF;
+            int length;
+            int value;
+            int size;
+            if ((op & 0xC0) == 0) {
+                length = (op & 0x3F) + 1;
+                value = 0;
+                size = 1;
+            } else if ((op & 0xC0) == 0x40) {
+                length = (((op & 0x3F) << 8) | (sparse[i + 1] & 0xFF)) + 1;
+                value = 0;
+                size = 2;
+            } else {
+                length = (op & 0x3) + 1;
+                value = ((op >>> 2) & 0x1F) + 1;
+                size = 1;
+            }
+            if (index < start + length) {
+                if (count <= value) {
+                    return false;
+                }
+                break;
+            }
+            start += length;
+            i += size;
+        }
+        if (count > SPARSE_VAL_MAX_VALUE) {
+            toDense();
+            return denseSet(index, count);
+        }
+        rewriteSparse(index, count);
+        if (sparseLength > SPARSE_MAX_BYTES) {
+            toDense();
+        }
+        return true;
+    }
+
+    // Re-encodes the runs with register index set to count, merging neighbours of equal value
+    private void rewriteSparse(int index, int count) {
+        byte[] old = sparse;
+        int oldLength = sparseLength;
+        sparse = new byte[Math.max(8, oldLength + 8)];
+        sparseLength = 0;
+        SparseWriter writer = new SparseWriter();
+        int start = 0;
+        int i = 0;
+        while (i < oldLength) {
+            int op = old[i] & 0xFF;
+            int length;
+            int value;
+            if ((op & 0xC0) == 0) {
+                length = (op & 0x3F) + 1;
+                value = 0;
+                i++;
+            } else if ((op & 0xC0) == 0x40) {
+                length = (((op & 0x3F) << 8) | (old[i + 1] & 0xFF)) + 1;
+                value = 0;
+                i += 2;
+            } else {
+                length = (op & 0x3) + 1;
+                value = ((op >>> 2) & 0x1F) + 1;
+                i++;
+            }
+            if (index >= start && index < start + length) {
+                writer.run(value, index - start);
+                writer.run(count, 1);
+                writer.run(value, start + length - index - 1);
+            } else {
+                writer.run(value, length);
+            }
+            start += length;
+        }
+        writer.finish();
+    }
+
+    private void sparseHistogram(int[] histogram) {
+        int i = 0;
+        while (i < sparseLength) {
+            int op = sparse[i] & 0xFF;
+            if ((op & 0xC0) == 0) {
+                histogram[0] += (op & 0x3F) + 1;
+                i++;
+            } else if ((op & 0xC0) == 0x40) {
+                histogram[0] += (((op & 0x3F) << 8) | (sparse[i + 1] & 0xFF)) + 1;
+                i += 2;
+            } else {
+                histogram[((op >>> 2) & 0x1F) + 1] += (op & 0x3) + 1;
+                i++;
+            }
+        }
+    }
+
+    private void toDense() {
+        byte[] max = new byte[REGISTERS];
+        maxInto(max);
+        setRegisters(max);
+    }
+
+    // Collects runs, merging consecutive runs of one value, and emits the shortest opcodes for them
+    private final class SparseWriter {
+        private int pendingValue = -1;
+        private int pendingLength;
+
+        void run(int value, int length) {
+            if (length == 0) {
+                return;
+            }
+            if (value == pendingValue) {
+                pendingLength += length;
+                return;
+            }
+            flush();
+            pendingValue = value;
+            pendingLength = length;
+        }
+
+        void finish() {
+            flush();
+        }
+
+        private void flush() {
+            int length = pendingLength;
+            if (pendingValue == 0) {
+                while (length > 0) {
+                    if (length > SPARSE_ZERO_MAX_LEN) {
+                        int run = Math.min(length, SPARSE_XZERO_MAX_LEN);
+                        emit(0x40 | ((run - 1) >>> 8));
+                        emit((run - 1) & 0xFF);
+                        length -= run;
+                    } else {
+                        emit(length - 1);
+                        length = 0;
+                    }
+                }
+            } else if (pendingValue > 0) {
+                while (length > 0) {
+                    int run = Math.min(length, SPARSE_VAL_MAX_LEN);
+                    emit(0x80 | ((pendingValue - 1) << 2) | (run - 1));
+                    length -= run;
+                }
+            }
+            pendingValue = -1;
+            pendingLength = 0;
+        }
+
+        private void emit(int b) {
+            if (sparseLength == sparse.length) {
+                sparse = Arrays.copyOf(sparse, sparse.length * 2);
+            }
+            sparse[sparseLength++] = (byte) b;
+        }
+    }
+
+    // Ertl, "New cardinality estimation algorithms for HyperLogLog sketches", as in Redis' hllCount
+    private static long estimate(int[] histogram) {
+        double m = REGISTERS;
+        double z = m * tau((m - histogram[Q + 1]) / m);
+        for (int j = Q; j >= 1; j--) {
+            z += histogram[j];
+            z *= 0.5;
+        }
+        z += m * sigma(histogram[0] / m);
+        return Math.round(ALPHA_INF * m * m / z);
+    }
+
+    private static double sigma(double x) {
+        if (x == 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double zPrime;
+        double y = 1;
+        double z = x;
+        do {
+            x *= x;
+            zPrime = z;
+            z += x * y;
+            y += y;
+        } while (zPrime != z);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0.0 || x == 1.0) {
+            return 0.0;
+        }
+        double zPrime;
+        double y = 1.0;
+        double z = 1 - x;
+        do {
+            x = Math.sqrt(x);
+            zPrime = z;
+            y *= 0.5;
+            z -= Math.pow(1 - x, 2) * y;
+        } while (zPrime != z);
+        return z / 3;
+    }
+}
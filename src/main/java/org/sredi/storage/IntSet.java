@@ -0,0 +1,131 @@
+package org.sredi.storage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Sorted set of longs packed like Redis' intset: every element uses the width of the widest one
+ * (2, 4 or 8 bytes), so a set of small ids costs two bytes per member. Lookups binary-search the
+ * array; adding a value that needs a wider encoding re-packs the whole array once.
+ * <p>
+ * Only reached through its {@link SetValue} and has no locking of its own.
+ */
+final class IntSet {
+
+    private static final VarHandle SHORTS = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private byte[] contents = new byte[0];
+    private int encoding = Short.BYTES;
+    private int length;
+
+    int size() {
+        return length;
+    }
+
+    int getEncoding() {
+        return encoding;
+    }
+
+    long get(int index) {
+        return get(contents, encoding, index);
+    }
+
+    boolean contains(long value) {
+        return encodingFor(value) <= encoding && search(value) >= 0;
+    }
+
+    boolean add(long value) {
+        int needed = encodingFor(value);
+        if (needed > encoding) {
+            upgradeAndAdd(value, needed);
+            return true;
+        }
+        int index = search(value);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        resize(length + 1);
+        System.arraycopy(contents, insertAt * encoding, contents, (insertAt + 1) * encoding,
+                (length - insertAt) * encoding);
+        set(insertAt, value);
+        length++;
+        return true;
+    }
+
+    boolean remove(long value) {
+        if (encodingFor(value) > encoding) {
+            return false;
+        }
+        int index = search(value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(contents, (index + 1) * encoding, contents, index * encoding,
+                (length - index - 1) * encoding);
+        length--;
+        contents = Arrays.copyOf(contents, length * encoding);
+        return true;
+    }
+
+    private int search(long value) {
+        int low = 0;
+        int high = length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long current = get(mid);
+            if (current < value) {
+                low = mid + 1;
+            } else if (current > value) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // A value too wide for the current encoding is smaller or larger than every element
+    private void upgradeAndAdd(long value, int newEncoding) {
+        byte[] old = contents;
+        int oldEncoding = encoding;
+        contents = new byte[(length + 1) * newEncoding];
+        encoding = newEncoding;
+        int offset = value < 0 ? 1 : 0;
+        for (int i = 0; i < length; i++) {
+            set(i + offset, get(old, oldEncoding, i));
+        }
+        set(value < 0 ? 0 : length, value);
+        length++;
+    }
+
+    private void resize(int newLength) {
+        contents = Arrays.copyOf(contents, newLength * encoding);
+    }
+
+    private void set(int index, long value) {
+        switch (encoding) {
+            case Short.BYTES -> SHORTS.set(contents, index * Short.BYTES, (short) value);
+            case Integer.BYTES -> INTS.set(contents, index * Integer.BYTES, (int) value);
+            default -> LONGS.set(contents, index * Long.BYTES, value);
+        }
+    }
+
+    private static long get(byte[] contents, int encoding, int index) {
+        return switch (encoding) {
+            case Short.BYTES -> (short) SHORTS.get(contents, index * Short.BYTES);
+            case Integer.BYTES -> (int) INTS.get(contents, index * Integer.BYTES);
+            default -> (long) LONGS.get(contents, index * Long.BYTES);
+        };
+    }
+
+    private static int encodingFor(long value) {
+        if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) return Short.BYTES;
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) return Integer.BYTES;
+        return Long.BYTES;
+    }
+}
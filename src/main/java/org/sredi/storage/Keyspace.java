@@ -0,0 +1,237 @@
+package org.sredi.storage;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The key-to-entry table. Like {@link BytesHashTable} it is a chained hash table the store owns,
+ * so SCAN can walk its buckets with Redis' reverse-binary cursor: every key present for a whole
+ * scan is returned at least once however often the table resizes in between; some may be
+ * returned twice.
+ * <p>
+ * Under --parallel commands on different keys run at once, so the table is split into segments
+ * picked by the top bits of the key's hash. Writes lock their segment; reads take no lock. A
+ * bucket's chain is never modified in place: a new key is linked in front of it, a removal copies
+ * the nodes ahead of the removed one, and a resize builds new chains before publishing the new
+ * table, so a reader always sees a consistent chain.
+ */
+final class Keyspace {
+
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    Keyspace() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    DataEntry get(String key) {
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    // Returns the previous entry, or null if the key was added
+    DataEntry put(String key, DataEntry value) {
+        int hash = hash(key);
+        return segmentFor(hash).compute(key, hash, (k, current) -> value, true);
+    }
+
+    // Returns the removed entry, or null if the key was missing
+    DataEntry remove(String key) {
+        int hash = hash(key);
+        return segmentFor(hash).compute(key, hash, (k, current) -> null, true);
+    }
+
+    /**
+     * Replaces the key's entry with the function's result, removing the key if it is null. The
+     * function runs under the segment's lock and must not touch the keyspace; if it throws, the
+     * keyspace is unchanged.
+     *
+     * @return the new entry
+     */
+    DataEntry compute(String key, BiFunction<String, DataEntry, DataEntry> remapping) {
+        int hash = hash(key);
+        return segmentFor(hash).compute(key, hash, remapping, false);
+    }
+
+    // The key's entry, created with the function first if the key is missing
+    DataEntry computeIfAbsent(String key, Function<String, DataEntry> mapping) {
+        DataEntry existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return compute(key, (k, current) -> current != null ? current : mapping.apply(k));
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    // Visits every key without copying the keyspace; keys added or removed meanwhile may be missed
+    void forEach(BiConsumer<String, DataEntry> action) {
+        for (Segment segment : segments) {
+            segment.forEach(action);
+        }
+    }
+
+    /**
+     * Visits whole buckets from cursor on until at least count keys were visited or the keyspace
+     * was covered. The cursor's low bits select the segment and the rest is the reverse-binary
+     * cursor within it; once a segment's cursor wraps around the scan moves to the next segment.
+     *
+     * @return the cursor to continue from, 0 once the scan is complete
+     */
+    long scan(long cursor, int count, BiConsumer<String, DataEntry> action) {
+        int segment = (int) (cursor & (SEGMENTS - 1));
+        long bucketCursor = cursor >>> SEGMENT_BITS;
+        int[] visited = new int[1];
+        BiConsumer<String, DataEntry> counting = (key, entry) -> {
+            action.accept(key, entry);
+            visited[0]++;
+        };
+        while (true) {
+            bucketCursor = segments[segment].scan(bucketCursor, count - visited[0], counting);
+            if (bucketCursor == 0 && ++segment == SEGMENTS) {
+                return 0;
+            }
+            if (visited[0] >= count) {
+                return (bucketCursor << SEGMENT_BITS) | segment;
+            }
+        }
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[hash >>> (32 - SEGMENT_BITS)];
+    }
+
+    // Murmur3's 32-bit finalizer over String.hashCode, so keys with similar names such as
+    // "user:1" and "user:2" still spread over both the segments and their buckets
+    private static int hash(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static final class Segment {
+
+        private static final int MIN_CAPACITY = 4;
+
+        private volatile AtomicReferenceArray<Node> table = new AtomicReferenceArray<>(MIN_CAPACITY);
+        private volatile int size;
+
+        DataEntry get(String key, int hash) {
+            AtomicReferenceArray<Node> current = table;
+            for (Node node = current.get(hash & (current.length() - 1)); node != null; node = node.next) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    return node.value;
+                }
+            }
+            return null;
+        }
+
+        // Returns the previous entry if returnPrevious is set, otherwise the new one
+        synchronized DataEntry compute(String key, int hash,
+                BiFunction<String, DataEntry, DataEntry> remapping, boolean returnPrevious) {
+            AtomicReferenceArray<Node> current = table;
+            int bucket = hash & (current.length() - 1);
+            Node head = current.get(bucket);
+            Node found = head;
+            while (found != null && !(found.hash == hash && found.key.equals(key))) {
+                found = found.next;
+            }
+            DataEntry previous = found == null ? null : found.value;
+            DataEntry next = remapping.apply(key, previous);
+            if (found != null && next != null) {
+                found.value = next;
+            } else if (found == null && next != null) {
+                current.set(bucket, new Node(key, hash, next, head));
+                size++;
+                if (size > current.length() - (current.length() >>> 2)) {
+                    resize(current.length() * 2);
+                }
+            } else if (found != null) {
+                Node rest = found.next;
+                for (Node node = head; node != found; node = node.next) {
+                    rest = new Node(node.key, node.hash, node.value, rest);
+                }
+                current.set(bucket, rest);
+                size--;
+                if (current.length() > MIN_CAPACITY && size < current.length() >>> 3) {
+                    resize(current.length() >>> 1);
+                }
+            }
+            return returnPrevious ? previous : next;
+        }
+
+        void forEach(BiConsumer<String, DataEntry> action) {
+            AtomicReferenceArray<Node> current = table;
+            for (int i = 0; i < current.length(); i++) {
+                for (Node node = current.get(i); node != null; node = node.next) {
+                    action.accept(node.key, node.value);
+                }
+            }
+        }
+
+        // BytesHashTable.scan over this segment's table; count may be zero or less to visit a
+        // single bucket
+        long scan(long cursor, int count, BiConsumer<String, DataEntry> action) {
+            AtomicReferenceArray<Node> current = table;
+            long mask = current.length() - 1;
+            int visited = 0;
+            do {
+                for (Node node = current.get((int) (cursor & mask)); node != null; node = node.next) {
+                    action.accept(node.key, node.value);
+                    visited++;
+                }
+                cursor |= ~mask;
+                cursor = Long.reverse(cursor);
+                cursor++;
+                cursor = Long.reverse(cursor);
+            } while (cursor != 0 && visited < count);
+            return cursor;
+        }
+
+        private void resize(int capacity) {
+            AtomicReferenceArray<Node> current = table;
+            AtomicReferenceArray<Node> resized = new AtomicReferenceArray<>(capacity);
+            for (int i = 0; i < current.length(); i++) {
+                for (Node node = current.get(i); node != null; node = node.next) {
+                    int bucket = node.hash & (capacity - 1);
+                    resized.set(bucket, new Node(node.key, node.hash, node.value, resized.get(bucket)));
+                }
+            }
+            table = resized;
+        }
+    }
+
+    private static final class Node {
+        final String key;
+        final int hash;
+        volatile DataEntry value;
+        final Node next;
+
+        Node(String key, int hash, DataEntry value, Node next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import java.util.Map;
 
 
 // Can also use LinkedHashMap from collections
+// Synchronized: under --parallel, commands on different keys, and commands sharing a key's read
+// stripe (INCR, BF.ADD), log accesses from several threads at once.
 public class LRU {
 
     static class Node {
@@ -25,7 +27,7 @@ public class LRU {
         map = new HashMap<>();
     }
 
-    public void logKeyAccess(String key) {
+    public synchronized void logKeyAccess(String key) {
         if (!map.containsKey(key)) {
             Node node = new Node();
             node.key = key;
@@ -38,7 +40,7 @@ public class LRU {
         }
     }
 
-    public String evictLRUKey() {
+    public synchronized String evictLRUKey() {
         if (head.next == tail) return null;
         Node lruNode = head.next;
         unlink(lruNode);
@@ -46,14 +48,14 @@ public class LRU {
         return lruNode.key;
     }
 
-    public void remove(String key) {
+    public synchronized void remove(String key) {
         Node node = map.get(key);
         if (node == null) return;
         unlink(node);
         map.remove(key);
     }
 
-    public int size() {
+    public synchronized int size() {
         return map.size();
     }
 
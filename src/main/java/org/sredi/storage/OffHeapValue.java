@@ -0,0 +1,124 @@
+package org.sredi.storage;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Heap-side handle for a string payload stored in an {@link OffHeapValueArena} slot.
+ * <p>
+ * Eviction and TTL cleanup can release a value while another thread is reading it. Each read
+ * therefore pins the value for the duration of its copy, and {@link #release()} only marks it:
+ * the slot goes back to the arena when the last pinned read finishes. A read that starts after
+ * the release gets null, as the key has since been replaced or removed.
+ */
+public final class OffHeapValue {
+
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    private final OffHeapValueArena owner;
+    private final MemorySegment segment;
+    private final int length;
+    private final int sizeClass;
+    private final Arena dedicatedArena;
+    // twice the number of pinned reads, plus 1 once released; FREED after the slot is returned
+    private final AtomicInteger state = new AtomicInteger();
+
+    private static final int RELEASED = 1;
+    private static final int FREED = -1;
+
+    OffHeapValue(OffHeapValueArena owner, MemorySegment segment, int length, int sizeClass,
+            Arena dedicatedArena) {
+        this.owner = owner;
+        this.segment = segment;
+        this.length = length;
+        this.sizeClass = sizeClass;
+        this.dedicatedArena = dedicatedArena;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    // The payload, or null if the value was released
+    public byte[] toByteArray() {
+        if (!pin()) {
+            return null;
+        }
+        try {
+            byte[] copy = new byte[length];
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, 0, copy, 0, length);
+            return copy;
+        } finally {
+            unpin();
+        }
+    }
+
+    // Encodes the payload as a RESP bulk string, copying straight from the segment into the reply;
+    // null if the value was released
+    public byte[] asBulkStringResponse() {
+        if (!pin()) {
+            return null;
+        }
+        try {
+            byte[] prefix = ("$" + length + "\r\n").getBytes(StandardCharsets.US_ASCII);
+            byte[] response = new byte[prefix.length + length + CRLF.length];
+            System.arraycopy(prefix, 0, response, 0, prefix.length);
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, 0, response, prefix.length, length);
+            System.arraycopy(CRLF, 0, response, prefix.length + length, CRLF.length);
+            return response;
+        } finally {
+            unpin();
+        }
+    }
+
+    // Returns the slot to the arena once no read is pinning it; safe to call more than once
+    void release() {
+        int current;
+        do {
+            current = state.get();
+            if ((current & RELEASED) != 0) {
+                return;
+            }
+        } while (!state.compareAndSet(current, current | RELEASED));
+        freeIfUnpinned();
+    }
+
+    private boolean pin() {
+        int current;
+        do {
+            current = state.get();
+            if ((current & RELEASED) != 0) {
+                return false;
+            }
+        } while (!state.compareAndSet(current, current + 2));
+        return true;
+    }
+
+    private void unpin() {
+        if (state.addAndGet(-2) == RELEASED) {
+            freeIfUnpinned();
+        }
+    }
+
+    // Exactly one of the releasing thread and the last reader wins this and frees the slot
+    private void freeIfUnpinned() {
+        if (state.compareAndSet(RELEASED, FREED)) {
+            owner.free(this);
+        }
+    }
+
+    MemorySegment getSegment() {
+        return segment;
+    }
+
+    int getSizeClass() {
+        return sizeClass;
+    }
+
+    Arena getDedicatedArena() {
+        return dedicatedArena;
+    }
+}
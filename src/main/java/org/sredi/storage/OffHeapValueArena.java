@@ -0,0 +1,116 @@
+package org.sredi.storage;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Slab allocator for string payloads stored outside the Java heap (--value-storage offheap).
+ * Each value is rounded up to a power-of-two size class. A size class carves fixed-size slots
+ * out of slabs allocated from one shared {@link Arena} and recycles freed slots via a free list.
+ * Values larger than the biggest size class get a dedicated segment that is released on free.
+ */
+public final class OffHeapValueArena implements AutoCloseable {
+
+    static final int MIN_CLASS_SHIFT = 4;   // 16 B
+    static final int MAX_CLASS_SHIFT = 20;  // 1 MiB
+    static final long SLAB_SIZE = 4L << 20; // 4 MiB
+
+    private final Arena arena = Arena.ofShared();
+    private final SizeClass[] sizeClasses = new SizeClass[MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1];
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    public OffHeapValueArena() {
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new SizeClass(MIN_CLASS_SHIFT + i);
+        }
+    }
+
+    // Copies the value into an off-heap slot and returns the handle that replaces it on the heap
+    public OffHeapValue allocate(byte[] value) {
+        int sizeClass = sizeClassFor(value.length);
+        MemorySegment slot;
+        Arena dedicated = null;
+        if (sizeClass < 0) {
+            dedicated = Arena.ofShared();
+            slot = dedicated.allocate(value.length, 8);
+            reservedBytes.addAndGet(value.length);
+        } else {
+            slot = sizeClasses[sizeClass].take();
+        }
+        MemorySegment.copy(value, 0, slot, ValueLayout.JAVA_BYTE, 0, value.length);
+        usedBytes.addAndGet(slot.byteSize());
+        return new OffHeapValue(this, slot, value.length, sizeClass, dedicated);
+    }
+
+    // Returns the slot to its size class free list, or closes the dedicated arena of a large value
+    void free(OffHeapValue value) {
+        MemorySegment slot = value.getSegment();
+        usedBytes.addAndGet(-slot.byteSize());
+        if (value.getSizeClass() < 0) {
+            reservedBytes.addAndGet(-slot.byteSize());
+            value.getDedicatedArena().close();
+        } else {
+            sizeClasses[value.getSizeClass()].giveBack(slot);
+        }
+    }
+
+    // Total bytes of slabs and dedicated segments currently held off-heap
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    // Bytes of slots currently handed out to live values
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    // Index into sizeClasses for a payload length, or -1 when it needs a dedicated segment
+    static int sizeClassFor(int length) {
+        if (length > (1 << MAX_CLASS_SHIFT)) {
+            return -1;
+        }
+        int shift = Math.max(MIN_CLASS_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(length, 1) - 1));
+        return shift - MIN_CLASS_SHIFT;
+    }
+
+    private final class SizeClass {
+        private final long slotSize;
+        private final ArrayDeque<MemorySegment> freeSlots = new ArrayDeque<>();
+        private MemorySegment slab;
+        private long slabOffset;
+
+        SizeClass(int shift) {
+            this.slotSize = 1L << shift;
+        }
+
+        synchronized MemorySegment take() {
+            MemorySegment free = freeSlots.pollLast();
+            if (free != null) {
+                return free;
+            }
+            if (slab == null || slabOffset + slotSize > slab.byteSize()) {
+                long size = Math.max(SLAB_SIZE, slotSize);
+                slab = arena.allocate(size, 8);
+                slabOffset = 0;
+                reservedBytes.addAndGet(size);
+            }
+            MemorySegment slot = slab.asSlice(slabOffset, slotSize);
+            slabOffset += slotSize;
+            return slot;
+        }
+
+        synchronized void giveBack(MemorySegment slot) {
+            freeSlots.addLast(slot);
+        }
+    }
+}
@@ -20,9 +20,15 @@ import org.sredi.resp.RespSimpleStringValue;
 import org.sredi.resp.RespValue;
 import org.sredi.resp.RespValueParser;
 import org.sredi.setup.SetupOptions;
+import org.sredi.streams.ClaimOptions;
+import org.sredi.streams.ClaimResult;
+import org.sredi.streams.ConsumerGroup;
 import org.sredi.streams.IllegalStreamItemIdException;
+import org.sredi.streams.StreamData;
 import org.sredi.streams.StreamId;
+import org.sredi.streams.StreamSegmentStore;
 import org.sredi.streams.StreamValue;
+import org.sredi.streams.TrimOptions;
 
 import java.io.IOException;
 import java.net.ServerSocket;
@@ -32,6 +38,7 @@ import java.nio.file.Path;
 import java.time.Clock;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.BiConsumer;
 
 /**
  * Core server orchestrator that manages client connections, command execution, and replication.
@@ -83,11 +90,20 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
     // In-memory data store with LRU and eviction
     @Getter
     private final DataStore dataStore;
+    // Off-heap slab allocator for string values; null unless --value-storage offheap
+    private final OffHeapValueArena offHeapArena;
+    private final StreamSegmentStore streamSegmentStore; // null unless streams spill to segments
 
     // Handles MULTI/EXEC transaction queuing per connection
     private final TransactionManager transactionManager;
     // Handles pub/sub channel subscriptions and message delivery
     private final PubSubManager pubSubManager;
+    private final BlockingManager blockingManager;
+    // Per-key stripes taken by --parallel command threads; null when commands run on one thread
+    private final StripedLock stripedLock;
+    private final ScheduledExecutorService blockingTimeoutExecutorService;
+    // Set while EXEC runs queued commands; blocking commands then behave like their non-blocking form
+    private final ThreadLocal<Boolean> executingTransaction = ThreadLocal.withInitial(() -> false);
     private ClientConnection currentConnection;
     private final Object connectionLock = new Object();
 
@@ -108,7 +124,10 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
         this.valueParser = new RespValueParser();
         this.connectionManager = new ConnectionManager(options.getMaxClients());
 
-        this.dataStore = new DataStore(clock, options.getMaxKeys());
+        this.offHeapArena = options.isOffHeapValueStorage() ? new OffHeapValueArena() : null;
+        this.streamSegmentStore = newStreamSegmentStore();
+        this.dataStore = new DataStore(clock, options.getMaxKeys(), offHeapArena, streamSegmentStore,
+                options.getHashMaxListpackEntries(), options.getHashMaxListpackValue());
 
         this.connectionsExecutorService = Executors.newFixedThreadPool(CONNECTION_THREAD_POOL_SIZE);
         this.commandsExecutorService = Executors.newCachedThreadPool();
@@ -119,7 +138,13 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
                 cmd -> cmd.execute(this)
         );
         this.pubSubManager = new PubSubManager(this::getCurrentConnection);
-        this.connectionManager.setOnConnectionClosed(pubSubManager::removeConnection);
+        this.blockingTimeoutExecutorService = Executors.newSingleThreadScheduledExecutor();
+        this.stripedLock = options.isParallel() ? new StripedLock() : null;
+        this.blockingManager = new BlockingManager(blockingTimeoutExecutorService, stripedLock);
+        this.connectionManager.setOnConnectionClosed(conn -> {
+            pubSubManager.removeConnection(conn);
+            blockingManager.removeConnection(conn);
+        });
 
         if (ReplicationConstants.REPLICA.equals(options.getRole())) {
             this.role = Role.FOLLOWER;
@@ -132,6 +157,18 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
         loadDatabaseFromFile();
     }
 
+    // Segment files for stream blocks past the hot ones; null unless --stream-hot-blocks is set
+    private StreamSegmentStore newStreamSegmentStore() {
+        if (options.getStreamHotBlocks() < 0) {
+            return null;
+        }
+        try {
+            return new StreamSegmentStore(Path.of(options.getDir()), options.getStreamHotBlocks());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open stream segment directory in " + options.getDir(), e);
+        }
+    }
+
     private LeaderSubsystem newLeaderSubsystem() {
         return new LeaderSubsystem(connectionManager, clock, options.getMaxReplBacklog());
     }
@@ -157,8 +194,10 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
         }
 
         try {
-            DatabaseReader reader = new DatabaseReader(dbPath.toFile(), dataStore.getEntries(), clock);
+            Map<String, DataEntry> loaded = new HashMap<>();
+            DatabaseReader reader = new DatabaseReader(dbPath.toFile(), loaded, clock);
             reader.readDatabase();
+            dataStore.load(loaded);
         } catch (IOException e) {
             throw new RuntimeException("Failed to load database file: " + dbPath, e);
         }
@@ -178,7 +217,7 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
 
         // Background cleanup of expired keys
         cleanupExecutorService.scheduleAtFixedRate(
-                dataStore::cleanupExpiredKeys, 10, 30, TimeUnit.SECONDS);
+                this::cleanupExpiredKeys, 10, 30, TimeUnit.SECONDS);
 
         if (leaderSubsystem != null) {
             leaderSubsystem.start();
@@ -246,6 +285,8 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
         connectionsExecutorService.shutdown();
         commandsExecutorService.shutdown();
         cleanupExecutorService.shutdown();
+        blockingTimeoutExecutorService.shutdown();
+        if (streamSegmentStore != null) streamSegmentStore.close();
     }
 
     // Promotes this node to the leader role. Tears down any active follower
@@ -300,27 +341,168 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
     public DataEntry get(String key) { return dataStore.get(key); }
     public DataEntry set(String key, DataEntry entry) { return dataStore.set(key, entry); }
     public void delete(String key) { dataStore.delete(key); }
-    public Collection<String> getKeys() { return dataStore.getKeys(); }
+    public List<String> getKeys(GlobPattern pattern) { return dataStore.getKeys(pattern); }
+    public long scan(long cursor, int count, BiConsumer<String, DataEntry> action) { return dataStore.scan(cursor, count, action); }
     public RespSimpleStringValue getType(String key) { return dataStore.getType(key); }
     public boolean isExpired(DataEntry entry) { return dataStore.isExpired(entry); }
     public long getCurrentTime() { return dataStore.getCurrentTime(); }
 
-    public StreamId xadd(String key, String itemId, RespValue[] itemMap)
-            throws IllegalStreamItemIdException { return dataStore.xadd(key, itemId, itemMap); }
-    public List<StreamValue> xrange(String key, String start, String end)
-            throws IllegalStreamItemIdException { return dataStore.xrange(key, start, end); }
-    public List<List<StreamValue>> xread(List<String> keys, List<String> startValues)
-            throws IllegalStreamItemIdException { return dataStore.xread(keys, startValues); }
+    public long incr(String key) { return dataStore.incr(key); }
+    public long incrBy(String key, long delta) { return dataStore.incrBy(key, delta); }
+    public String incrByFloat(String key, double delta) { return dataStore.incrByFloat(key, delta); }
+
+    public StreamId xadd(String key, String itemId, RespValue[] itemMap, TrimOptions trim)
+            throws IllegalStreamItemIdException {
+        StreamId id = dataStore.xadd(key, itemId, itemMap, trim);
+        blockingManager.signalKeyReady(key);
+        return id;
+    }
+    public long xtrim(String key, TrimOptions trim) { return dataStore.xtrim(key, trim); }
+    public TrimOptions xexactTrim(String key, TrimOptions applied) { return dataStore.xexactTrim(key, applied); }
+    public StreamData getStream(String key) { return dataStore.getStream(key); }
+    public List<List<StreamValue>> xread(List<String> keys, List<String> startValues, int count)
+            throws IllegalStreamItemIdException { return dataStore.xread(keys, startValues, count); }
+    public StreamId xlastId(String key) { return dataStore.xlastId(key); }
+
+    public void xgroupCreate(String key, String group, String lastId, boolean mkStream)
+            throws IllegalStreamItemIdException { dataStore.xgroupCreate(key, group, lastId, mkStream); }
+    public boolean xgroupDestroy(String key, String group) { return dataStore.xgroupDestroy(key, group); }
+    public boolean xgroupCreateConsumer(String key, String group, String consumer) { return dataStore.xgroupCreateConsumer(key, group, consumer); }
+    public long xgroupDelConsumer(String key, String group, String consumer) { return dataStore.xgroupDelConsumer(key, group, consumer); }
+    public void xgroupSetId(String key, String group, String lastId)
+            throws IllegalStreamItemIdException { dataStore.xgroupSetId(key, group, lastId); }
+    public List<List<StreamValue>> xreadgroup(String group, String consumer, List<String> keys,
+            List<String> startValues, int count, boolean noAck) throws IllegalStreamItemIdException {
+        return dataStore.xreadgroup(group, consumer, keys, startValues, count, noAck);
+    }
+    public long xack(String key, String group, List<StreamId> ids) { return dataStore.xack(key, group, ids); }
+    public ClaimResult xclaim(String key, String group, String consumer, long minIdleMillis,
+            List<StreamId> ids, ClaimOptions options) { return dataStore.xclaim(key, group, consumer, minIdleMillis, ids, options); }
+    public ClaimResult xautoclaim(String key, String group, String consumer, long minIdleMillis,
+            StreamId start, int count, boolean justId) { return dataStore.xautoclaim(key, group, consumer, minIdleMillis, start, count, justId); }
+    public ConsumerGroup getGroup(String key, String group) { return dataStore.getGroup(key, group); }
+
+    public long lpush(String key, List<byte[]> values) {
+        long size = dataStore.lpush(key, values);
+        blockingManager.signalKeyReady(key);
+        return size;
+    }
+
+    public long rpush(String key, List<byte[]> values) {
+        long size = dataStore.rpush(key, values);
+        blockingManager.signalKeyReady(key);
+        return size;
+    }
+
+    public byte[] lpop(String key) { return dataStore.lpop(key); }
+    public byte[] rpop(String key) { return dataStore.rpop(key); }
+    public List<byte[]> lpop(String key, long count) { return dataStore.lpop(key, count); }
+    public List<byte[]> rpop(String key, long count) { return dataStore.rpop(key, count); }
+    public List<byte[]> lrange(String key, long start, long end) { return dataStore.lrange(key, start, end); }
+    public long llen(String key) { return dataStore.llen(key); }
+    public byte[] lindex(String key, long index) { return dataStore.lindex(key, index); }
+    public void lset(String key, long index, byte[] value) { dataStore.lset(key, index, value); }
+    public void ltrim(String key, long start, long end) { dataStore.ltrim(key, start, end); }
+    public long linsert(String key, boolean before, byte[] pivot, byte[] value) { return dataStore.linsert(key, before, pivot, value); }
+
+    public byte[] lmove(String source, String destination, boolean fromLeft, boolean toLeft) {
+        byte[] moved = dataStore.lmove(source, destination, fromLeft, toLeft);
+        if (moved != null) {
+            blockingManager.signalKeyReady(destination);
+        }
+        return moved;
+    }
+
+    // Parks the current connection until attempt succeeds for one of keys or the timeout passes.
+    // Returns false, without blocking, when called from EXEC.
+    public boolean block(List<String> keys, long timeoutMillis, byte[] timeoutReply,
+            BlockingManager.Attempt attempt) {
+        return block(keys, keys, timeoutMillis, timeoutReply, attempt);
+    }
+
+    // As above, for an attempt that also writes keys outside keys (BLMOVE's destination); serving
+    // it under --parallel locks all of lockKeys
+    public boolean block(List<String> keys, List<String> lockKeys, long timeoutMillis,
+            byte[] timeoutReply, BlockingManager.Attempt attempt) {
+        ClientConnection conn = getBlockingConnection();
+        if (conn == null) {
+            return false;
+        }
+        blockingManager.block(conn, keys, lockKeys, timeoutMillis, timeoutReply, attempt);
+        return true;
+    }
 
-    public long lpush(String key, String value) { return dataStore.lpush(key, value); }
-    public long rpush(String key, String value) { return dataStore.rpush(key, value); }
-    public String lpop(String key) { return dataStore.lpop(key); }
-    public String rpop(String key) { return dataStore.rpop(key); }
-    public List<String> lrange(String key, int start, int end) { return dataStore.lrange(key, start, end); }
+    // Like block, but the attempt only reads, so every waiting reader is offered a ready key
+    public boolean blockReader(List<String> keys, long timeoutMillis, byte[] timeoutReply,
+            BlockingManager.Attempt attempt) {
+        ClientConnection conn = getBlockingConnection();
+        if (conn == null) {
+            return false;
+        }
+        blockingManager.blockReader(conn, keys, timeoutMillis, timeoutReply, attempt);
+        return true;
+    }
 
-    public void bfReserve(String key, long capacity, double errorRate) { dataStore.bfReserve(key, capacity, errorRate); }
-    public BloomFilter bfGetOrCreate(String key, long capacity, double errorRate) { return dataStore.bfGetOrCreate(key, capacity, errorRate); }
-    public BloomFilter bfGet(String key) { return dataStore.bfGet(key); }
+    private ClientConnection getBlockingConnection() {
+        if (executingTransaction.get()) {
+            return null;
+        }
+        ClientConnection conn = getCurrentConnection();
+        if (conn == null) {
+            throw new IllegalStateException("No active connection");
+        }
+        return conn;
+    }
+
+    // Sends a write performed outside the normal command flow (e.g. a served blocked pop) to followers
+    public void replicate(Command command) {
+        LeaderSubsystem ls = leaderSubsystem;
+        if (ls != null) {
+            try {
+                ls.replicate(command);
+            } catch (IOException e) {
+                log.error("Failed to replicate {}: {}", command, e.getMessage(), e);
+            }
+        }
+    }
+
+    public void bfReserve(String key, long capacity, double errorRate, int expansion, boolean nonScaling, boolean blocked) {
+        dataStore.bfReserve(key, capacity, errorRate, expansion, nonScaling, blocked);
+    }
+    public ScalableBloomFilter bfGetOrCreate(String key, long capacity, double errorRate) { return dataStore.bfGetOrCreate(key, capacity, errorRate); }
+    public ScalableBloomFilter bfGetOrCreate(String key, long capacity, double errorRate, int expansion, boolean nonScaling) {
+        return dataStore.bfGetOrCreate(key, capacity, errorRate, expansion, nonScaling);
+    }
+    public ScalableBloomFilter bfGet(String key) { return dataStore.bfGet(key); }
+
+    public void cfReserve(String key, long capacity, int maxIterations, int expansion) {
+        dataStore.cfReserve(key, capacity, maxIterations, expansion);
+    }
+    public CuckooFilter cfGetOrCreate(String key, long capacity) { return dataStore.cfGetOrCreate(key, capacity); }
+    public CuckooFilter cfGet(String key) { return dataStore.cfGet(key); }
+
+    public void cmsInit(String key, CountMinSketch sketch) { dataStore.cmsInit(key, sketch); }
+    public CountMinSketch cmsGet(String key) { return dataStore.cmsGet(key); }
+    public void topkReserve(String key, TopK topK) { dataStore.topkReserve(key, topK); }
+    public TopK topkGet(String key) { return dataStore.topkGet(key); }
+    public HyperLogLog pfGetOrCreate(String key) { return dataStore.pfGetOrCreate(key); }
+    public HyperLogLog pfGet(String key) { return dataStore.pfGet(key); }
+
+    public HashValue hashGetOrCreate(String key) { return dataStore.hashGetOrCreate(key); }
+    public HashValue hashGet(String key) { return dataStore.hashGet(key); }
+    public long hdel(String key, List<byte[]> fields) { return dataStore.hdel(key, fields); }
+    public SetValue setValueGetOrCreate(String key) { return dataStore.setValueGetOrCreate(key); }
+    public SetValue setValueGet(String key) { return dataStore.setValueGet(key); }
+    public long srem(String key, List<byte[]> members) { return dataStore.srem(key, members); }
+    public SortedSetValue zsetGetOrCreate(String key) { return dataStore.zsetGetOrCreate(key); }
+    public SortedSetValue zsetGet(String key) { return dataStore.zsetGet(key); }
+    public void zsetStore(String key, SortedSetValue zset) { dataStore.zsetStore(key, zset); }
+    public long zrem(String key, List<byte[]> members) { return dataStore.zrem(key, members); }
+    public void zpopmin(String key, long count, SortedSetValue.EntryVisitor visitor) { dataStore.zpopmin(key, count, visitor); }
+
+    public Bitmap bitmapGetOrCreate(String key) { return dataStore.bitmapGetOrCreate(key); }
+    public Bitmap bitmapGet(String key) { return dataStore.bitmapGet(key); }
+    public void bitmapStore(String key, Bitmap bitmap) { dataStore.bitmapStore(key, bitmap); }
 
     // Handles command execution, dispatching based on the current role.
     // Leader: runs the command, replies, and replicates writes to followers.
@@ -341,15 +523,24 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
             return;
         }
 
-        byte[] response = command.execute(this);
-        if (response != null) {
-            conn.sendResponse(response);
+        if (command.isStreamingReply()) {
+            conn.sendStreamingResponse(out -> command.writeReply(this, out));
+        } else {
+            byte[] response = command.execute(this);
+            if (response != null) {
+                conn.sendResponse(response);
+            }
         }
 
         LeaderSubsystem ls = leaderSubsystem;
         if (ls != null) {
             ls.replicate(command);
         }
+        // clients blocked on keys this command pushed to are served after it has been replicated;
+        // under --parallel the event loop serves them once the command's stripes are released
+        if (stripedLock == null) {
+            blockingManager.serveReadyKeys();
+        }
     }
 
     private void executeAsFollower(Command command, ClientConnection conn) throws IOException {
@@ -367,9 +558,16 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
             return;
         }
 
-        byte[] response = command.execute(this);
-        if (response != null && !fromLeader) {
-            conn.sendResponse(response);
+        if (command.isStreamingReply() && !fromLeader) {
+            conn.sendStreamingResponse(out -> command.writeReply(this, out));
+        } else {
+            byte[] response = command.execute(this);
+            if (response != null && !fromLeader) {
+                conn.sendResponse(response);
+            }
+        }
+        if (stripedLock == null) {
+            blockingManager.serveReadyKeys();
         }
     }
 
@@ -382,6 +580,33 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
         execute(command, conn);
     }
 
+    // Removes expired keys; under --parallel each one holding its stripe, so no command on the key
+    // is reading its off-heap value while it is freed
+    private void cleanupExpiredKeys() {
+        for (String key : dataStore.getExpiredKeys()) {
+            if (stripedLock == null) {
+                dataStore.removeIfExpired(key);
+                continue;
+            }
+            stripedLock.writeLock(key);
+            try {
+                dataStore.removeIfExpired(key);
+            } finally {
+                stripedLock.writeUnlock(key);
+            }
+        }
+    }
+
+    StripedLock getStripedLock() {
+        return stripedLock;
+    }
+
+    // Serves clients blocked on keys made ready by the command just run on this thread; under
+    // --parallel, called once that command's stripes are released
+    void serveReadyKeys() {
+        blockingManager.serveReadyKeys();
+    }
+
     // Dispatches command execution, using a separate thread for blocking commands
     void executeCommand(ClientConnection conn, Command command) throws IOException {
         log.debug("Received client command: {}", command);
@@ -531,7 +756,19 @@ public class Orchestrator implements ReplicationServiceInfoProvider, RoleSwitche
 
     // Executes all queued commands and returns their results
     public byte[][] executeTransaction() {
-        return transactionManager.executeTransaction();
+        executingTransaction.set(true);
+        try {
+            return transactionManager.executeTransaction();
+        } finally {
+            executingTransaction.set(false);
+        }
+    }
+
+    // Keys whose stripes --parallel execution locks for command; EXEC locks those of every command
+    // it is about to run
+    List<String> getLockKeys(ClientConnection conn, Command command) {
+        return command.getType() == Command.Type.EXEC
+                ? transactionManager.getLockKeys(conn) : command.getLockKeys();
     }
 
     // Discards all queued commands without executing them
@@ -0,0 +1,392 @@
+package org.sredi.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * List value encoded like Redis' quicklist: a doubly linked list of nodes, each packing its
+ * elements into one byte array (listpack style). An entry is laid out as
+ * {@code <varint length><bytes><backlen>}, where backlen is the size of the first two parts
+ * written so that it can be decoded from its last byte, which lets a node be walked from
+ * either end. Head and tail operations touch a single node; index access skips whole nodes
+ * by their element count and then walks inside one node from the nearer end.
+ * <p>
+ * List writes, including serving a blocked BLPOP, BRPOP or BLMOVE, hold the key's write stripe;
+ * the nodes take no locks, so LRANGE and other readers only ever share the stripe with each other.
+ */
+public class QuickList {
+
+    static final int NODE_SIZE_LIMIT = 8 * 1024; // packed bytes per node before a new node is started
+    private static final int MIN_NODE_CAPACITY = 64;
+
+    private Node head;
+    private Node tail;
+    private long size;
+    private int nodeCount;
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    public void pushHead(byte[] value) {
+        byte[] entry = encode(value);
+        if (head == null || (head.count > 0 && head.used + entry.length > NODE_SIZE_LIMIT)) {
+            linkBefore(new Node(), head);
+        }
+        head.insert(0, entry);
+        size++;
+    }
+
+    public void pushTail(byte[] value) {
+        byte[] entry = encode(value);
+        if (tail == null || (tail.count > 0 && tail.used + entry.length > NODE_SIZE_LIMIT)) {
+            linkAfter(new Node(), tail);
+        }
+        tail.insert(tail.used, entry);
+        size++;
+    }
+
+    public byte[] popHead() {
+        if (head == null) {
+            return null;
+        }
+        Node node = head;
+        byte[] value = node.read(0);
+        node.remove(0, node.entrySize(0), 1);
+        afterRemove(node);
+        return value;
+    }
+
+    public byte[] popTail() {
+        if (tail == null) {
+            return null;
+        }
+        Node node = tail;
+        int offset = node.offsetOf(node.count - 1);
+        byte[] value = node.read(offset);
+        node.remove(offset, node.used - offset, 1);
+        afterRemove(node);
+        return value;
+    }
+
+    // Index is zero-based and must be in [0, size)
+    public byte[] get(long index) {
+        Position position = locate(index);
+        return position.node().read(position.node().offsetOf(position.index()));
+    }
+
+    public void set(long index, byte[] value) {
+        Position position = locate(index);
+        Node node = position.node();
+        int offset = node.offsetOf(position.index());
+        node.remove(offset, node.entrySize(offset), 1);
+        node.insert(offset, encode(value));
+        splitIfNeeded(node);
+    }
+
+    // Returns elements start..end inclusive; both bounds must already be clamped to [0, size)
+    public List<byte[]> range(long start, long end) {
+        if (start > end) {
+            return List.of();
+        }
+        List<byte[]> result = new ArrayList<>((int) (end - start + 1));
+        Position position = locate(start);
+        Node node = position.node();
+        int offset = node.offsetOf(position.index());
+        for (long i = start; i <= end; i++) {
+            if (offset >= node.used) {
+                node = node.next;
+                offset = 0;
+            }
+            result.add(node.read(offset));
+            offset += node.entrySize(offset);
+        }
+        return result;
+    }
+
+    // Keeps elements start..end inclusive; an empty range (start > end) clears the list
+    public void trim(long start, long end) {
+        if (start > end || start >= size) {
+            clear();
+            return;
+        }
+        removeFromHead(start);
+        removeFromTail(size - (end - start + 1));
+    }
+
+    /**
+     * Inserts value before or after the first element equal to pivot.
+     *
+     * @return the new size, or -1 if the pivot was not found
+     */
+    public long insert(byte[] pivot, byte[] value, boolean before) {
+        for (Node node = head; node != null; node = node.next) {
+            int offset = 0;
+            for (int i = 0; i < node.count; i++) {
+                int entrySize = node.entrySize(offset);
+                if (node.matches(offset, pivot)) {
+                    node.insert(before ? offset : offset + entrySize, encode(value));
+                    size++;
+                    splitIfNeeded(node);
+                    return size;
+                }
+                offset += entrySize;
+            }
+        }
+        return -1;
+    }
+
+    public void clear() {
+        head = null;
+        tail = null;
+        size = 0;
+        nodeCount = 0;
+    }
+
+    // Finds the node holding index by skipping whole nodes from the nearer end of the list
+    private Position locate(long index) {
+        if (index < size / 2) {
+            Node node = head;
+            long skipped = 0;
+            while (index >= skipped + node.count) {
+                skipped += node.count;
+                node = node.next;
+            }
+            return new Position(node, (int) (index - skipped));
+        }
+        Node node = tail;
+        long skipped = size - node.count;
+        while (index < skipped) {
+            node = node.prev;
+            skipped -= node.count;
+        }
+        return new Position(node, (int) (index - skipped));
+    }
+
+    private void removeFromHead(long count) {
+        while (count > 0 && count >= head.count) {
+            count -= head.count;
+            size -= head.count;
+            unlink(head);
+        }
+        if (count > 0) {
+            int end = head.offsetOf((int) count);
+            head.remove(0, end, (int) count);
+            size -= count;
+        }
+    }
+
+    private void removeFromTail(long count) {
+        while (count > 0 && count >= tail.count) {
+            count -= tail.count;
+            size -= tail.count;
+            unlink(tail);
+        }
+        if (count > 0) {
+            int start = tail.offsetOf(tail.count - (int) count);
+            tail.remove(start, tail.used - start, (int) count);
+            size -= count;
+        }
+    }
+
+    private void afterRemove(Node node) {
+        size--;
+        if (node.count == 0) {
+            unlink(node);
+        }
+    }
+
+    // Splits an oversized node in two at its middle element
+    private void splitIfNeeded(Node node) {
+        if (node.used <= NODE_SIZE_LIMIT || node.count < 2) {
+            return;
+        }
+        int keep = node.count / 2;
+        int splitOffset = node.offsetOf(keep);
+        Node right = new Node();
+        right.insert(0, Arrays.copyOfRange(node.buf, splitOffset, node.used), node.count - keep);
+        node.remove(splitOffset, node.used - splitOffset, node.count - keep);
+        linkAfter(right, node);
+    }
+
+    private void linkBefore(Node node, Node successor) {
+        node.next = successor;
+        if (successor == null) {
+            head = tail = node;
+        } else {
+            node.prev = successor.prev;
+            successor.prev = node;
+            if (node.prev == null) {
+                head = node;
+            } else {
+                node.prev.next = node;
+            }
+        }
+        nodeCount++;
+    }
+
+    private void linkAfter(Node node, Node predecessor) {
+        node.prev = predecessor;
+        if (predecessor == null) {
+            head = tail = node;
+        } else {
+            node.next = predecessor.next;
+            predecessor.next = node;
+            if (node.next == null) {
+                tail = node;
+            } else {
+                node.next.prev = node;
+            }
+        }
+        nodeCount++;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        nodeCount--;
+    }
+
+    // Entry encoding
+
+    static byte[] encode(byte[] value) {
+        int header = varintSize(value.length);
+        int body = header + value.length;
+        byte[] entry = new byte[body + varintSize(body)];
+        writeVarint(entry, 0, value.length);
+        System.arraycopy(value, 0, entry, header, value.length);
+        writeBacklen(entry, entry.length, body);
+        return entry;
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    static void writeVarint(byte[] buf, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[offset] = (byte) value;
+    }
+
+    static int readVarint(byte[] buf, int offset) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf[offset++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    // Backlen ends at 'end' with its lowest 7 bits in the last byte, so it decodes right to left
+    private static void writeBacklen(byte[] buf, int end, int value) {
+        int size = varintSize(value);
+        for (int i = 0; i < size; i++) {
+            buf[end - 1 - i] = (byte) (((value >>> (7 * i)) & 0x7F) | (i < size - 1 ? 0x80 : 0));
+        }
+    }
+
+    private static int readBacklen(byte[] buf, int end) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf[--end];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private record Position(Node node, int index) {
+    }
+
+    private static final class Node {
+        Node prev;
+        Node next;
+        byte[] buf = new byte[MIN_NODE_CAPACITY];
+        int used;  // bytes of buf holding entries
+        int count; // entries packed in buf
+
+        byte[] read(int offset) {
+            int length = readVarint(buf, offset);
+            int start = offset + varintSize(length);
+            return Arrays.copyOfRange(buf, start, start + length);
+        }
+
+        boolean matches(int offset, byte[] value) {
+            int length = readVarint(buf, offset);
+            int start = offset + varintSize(length);
+            return Arrays.equals(buf, start, start + length, value, 0, value.length);
+        }
+
+        int entrySize(int offset) {
+            int length = readVarint(buf, offset);
+            int body = varintSize(length) + length;
+            return body + varintSize(body);
+        }
+
+        // Byte offset of the entry at index, walking from whichever end of the node is closer
+        int offsetOf(int index) {
+            if (index <= count / 2) {
+                int offset = 0;
+                for (int i = 0; i < index; i++) {
+                    offset += entrySize(offset);
+                }
+                return offset;
+            }
+            int end = used;
+            for (int i = count; i > index; i--) {
+                int body = readBacklen(buf, end);
+                end -= body + varintSize(body);
+            }
+            return end;
+        }
+
+        void insert(int offset, byte[] entry) {
+            insert(offset, entry, 1);
+        }
+
+        void insert(int offset, byte[] entries, int entryCount) {
+            if (used + entries.length > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, used + entries.length));
+            }
+            System.arraycopy(buf, offset, buf, offset + entries.length, used - offset);
+            System.arraycopy(entries, 0, buf, offset, entries.length);
+            used += entries.length;
+            count += entryCount;
+        }
+
+        void remove(int offset, int length, int entryCount) {
+            System.arraycopy(buf, offset + length, buf, offset, used - offset - length);
+            used -= length;
+            count -= entryCount;
+        }
+    }
+}
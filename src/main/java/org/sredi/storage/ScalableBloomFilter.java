@@ -0,0 +1,174 @@
+package org.sredi.storage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter that grows instead of degrading, like RedisBloom's scalable filters. It is a chain
+ * of {@link BloomFilter} layers. Once the newest layer holds as many items as it was sized for, a
+ * layer expansion times larger is added, with an error rate half that of the layer before. Old
+ * layers keep answering lookups, so the compound false positive rate stays below twice the first
+ * layer's rate however far the filter grows. A non-scaling filter has one layer and rejects adds
+ * once it is full. All layers hash the same way, so an item is hashed once per command.
+ * <p>
+ * Thread-safe like its layers: adds and lookups run without locks against a copy-on-write layer
+ * array, and only adding a layer synchronizes. Under concurrent adds a layer can take a few items
+ * beyond its capacity before the next one is added, and a non-scaling filter likewise.
+ */
+public final class ScalableBloomFilter {
+
+    public static final int DEFAULT_EXPANSION = 2;
+    static final double ERROR_TIGHTENING_RATIO = 0.5;
+
+    private static final int EXISTS = 0;
+    private static final int ADDED = 1;
+    private static final int FULL = 2;
+
+    private volatile BloomFilter[] filters;
+    private final int expansion;
+    private final boolean nonScaling;
+    private final LongAdder itemCount = new LongAdder();
+
+    public ScalableBloomFilter(long capacity, double errorRate, int expansion, boolean nonScaling,
+            boolean blocked) {
+        if (expansion < 1) {
+            throw new IllegalArgumentException("expansion should be greater or equal to 1");
+        }
+        this.expansion = expansion;
+        this.nonScaling = nonScaling;
+        this.filters = new BloomFilter[] {
+                new BloomFilter(capacity, errorRate, BloomFilter.HashVersion.MURMUR3, blocked) };
+    }
+
+    /**
+     * Adds the item unless some layer may already hold it.
+     *
+     * @return true if the item was added
+     * @throws IllegalStateException if the filter is non-scaling and full
+     */
+    public boolean add(byte[] item) {
+        if (item == null) throw new NullPointerException("item");
+        long[] hash = filters[0].hash(item);
+        int result = insert(hash[0], hash[1]);
+        if (result == FULL) {
+            throw new IllegalStateException("ERR non scaling filter is full");
+        }
+        return result == ADDED;
+    }
+
+    /**
+     * Adds items in order, hashing them all before probing any layer so that the probes of one
+     * command run back to back. Stops early if a non-scaling filter fills up.
+     *
+     * @param added set to whether each processed item was added
+     * @return the number of items processed; less than items.size() if the filter became full
+     */
+    public int addAll(List<byte[]> items, boolean[] added) {
+        long[] hashes = hashAll(items);
+        for (int i = 0; i < items.size(); i++) {
+            int result = insert(hashes[2 * i], hashes[2 * i + 1]);
+            if (result == FULL) {
+                return i;
+            }
+            added[i] = result == ADDED;
+        }
+        return items.size();
+    }
+
+    private int insert(long h1, long h2) {
+        BloomFilter[] layers = filters;
+        if (mightContain(layers, h1, h2)) {
+            return EXISTS;
+        }
+        BloomFilter last = layers[layers.length - 1];
+        if (last.getItemCount() >= last.getCapacity()) {
+            if (nonScaling) {
+                return FULL;
+            }
+            last = grow(last);
+        }
+        if (!last.add(h1, h2)) {
+            return EXISTS; // another thread added the same item meanwhile
+        }
+        itemCount.increment();
+        return ADDED;
+    }
+
+    public boolean[] mightContainAll(List<byte[]> items) {
+        long[] hashes = hashAll(items);
+        BloomFilter[] layers = filters;
+        boolean[] present = new boolean[items.size()];
+        for (int i = 0; i < present.length; i++) {
+            present[i] = mightContain(layers, hashes[2 * i], hashes[2 * i + 1]);
+        }
+        return present;
+    }
+
+    // Hash pairs of all items, laid out h1, h2, h1, h2, ...
+    private long[] hashAll(List<byte[]> items) {
+        BloomFilter first = filters[0];
+        long[] hashes = new long[2 * items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            long[] hash = first.hash(items.get(i));
+            hashes[2 * i] = hash[0];
+            hashes[2 * i + 1] = hash[1];
+        }
+        return hashes;
+    }
+
+    public boolean mightContain(byte[] item) {
+        if (item == null) throw new NullPointerException("item");
+        BloomFilter[] layers = filters;
+        long[] hash = layers[0].hash(item);
+        return mightContain(layers, hash[0], hash[1]);
+    }
+
+    // Newest layers hold the most items, so they are checked first
+    private static boolean mightContain(BloomFilter[] layers, long h1, long h2) {
+        for (int i = layers.length - 1; i >= 0; i--) {
+            if (layers[i].mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Appends a layer after full, unless a concurrent add already did
+    private synchronized BloomFilter grow(BloomFilter full) {
+        BloomFilter[] layers = filters;
+        BloomFilter last = layers[layers.length - 1];
+        if (last != full) {
+            return last;
+        }
+        long capacity = Math.min(last.getCapacity() * expansion, BloomFilter.MAX_CAPACITY);
+        BloomFilter next = new BloomFilter(capacity, last.getErrorRate() * ERROR_TIGHTENING_RATIO,
+                last.getHashVersion(), last.isBlocked());
+        BloomFilter[] grown = Arrays.copyOf(layers, layers.length + 1);
+        grown[layers.length] = next;
+        filters = grown;
+        return next;
+    }
+
+    // Items the filter can hold before it grows again: the sum of the layer capacities
+    public long getCapacity() {
+        long capacity = 0;
+        for (BloomFilter filter : filters) {
+            capacity += filter.getCapacity();
+        }
+        return capacity;
+    }
+
+    public long getSizeInBytes() {
+        long size = 0;
+        for (BloomFilter filter : filters) {
+            size += filter.getSizeInBytes();
+        }
+        return size;
+    }
+
+    public long getItemCount() { return itemCount.sum(); }
+    public int getExpansion() { return expansion; }
+    public boolean isNonScaling() { return nonScaling; }
+    public List<BloomFilter> getFilters() { return List.of(filters); }
+}
@@ -0,0 +1,187 @@
+package org.sredi.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Set value with Redis' two encodings: an {@link IntSet} while every member is an integer in
+ * canonical form (no sign, padding or leading zeros that would change it when re-printed) and
+ * there are at most {@link #MAX_INTSET_ENTRIES} of them, and a {@link BytesHashTable} otherwise.
+ * Conversion to the table is one-way.
+ * <p>
+ * SADD and SREM hold the key's write stripe; the set itself takes no locks, and a conversion to
+ * the table happens inside one such write.
+ */
+public final class SetValue {
+
+    public static final int MAX_INTSET_ENTRIES = 512;
+
+    private IntSet intSet = new IntSet(); // null once converted to the table
+    private BytesHashTable table;
+
+    public int size() {
+        return intSet != null ? intSet.size() : table.size();
+    }
+
+    public boolean isIntSet() {
+        return intSet != null;
+    }
+
+    public boolean add(byte[] member) {
+        if (intSet != null) {
+            Long value = parseCanonical(member);
+            if (value != null) {
+                if (!intSet.add(value)) {
+                    return false;
+                }
+                if (intSet.size() > MAX_INTSET_ENTRIES) {
+                    convertToTable();
+                }
+                return true;
+            }
+            convertToTable();
+        }
+        return table.put(member, null);
+    }
+
+    public boolean remove(byte[] member) {
+        if (intSet != null) {
+            Long value = parseCanonical(member);
+            return value != null && intSet.remove(value);
+        }
+        return table.remove(member);
+    }
+
+    public boolean contains(byte[] member) {
+        if (intSet != null) {
+            Long value = parseCanonical(member);
+            return value != null && intSet.contains(value);
+        }
+        return table.containsKey(member);
+    }
+
+    // Membership of an integer member, formatted only if this set is a table
+    public boolean containsInteger(long value) {
+        return intSet != null ? intSet.contains(value) : table.containsKey(format(value));
+    }
+
+    public void forEach(Consumer<byte[]> action) {
+        if (intSet != null) {
+            for (int i = 0; i < intSet.size(); i++) {
+                action.accept(format(intSet.get(i)));
+            }
+        } else {
+            table.forEach((member, unused) -> action.accept(member));
+        }
+    }
+
+    /**
+     * One SSCAN step. An intset is returned whole in one step, as Redis does.
+     *
+     * @return the cursor to continue from, 0 once the scan is complete
+     */
+    public long scan(long cursor, int count, Consumer<byte[]> action) {
+        if (intSet != null) {
+            forEach(action);
+            return 0;
+        }
+        return table.scan(cursor, count, (member, unused) -> action.accept(member));
+    }
+
+    /**
+     * Intersects the sets by walking the smallest one and probing the others, smallest first, so
+     * the cost follows the smallest set rather than the total size. When the smallest set is an
+     * intset its members are probed as numbers, which needs no formatting against other intsets.
+     *
+     * @param limit stop after this many members; 0 for no limit
+     * @param action receives each member of the intersection; may be null to only count
+     * @return the number of members found
+     */
+    public static int intersect(List<SetValue> sets, int limit, Consumer<byte[]> action) {
+        List<SetValue> bySize = new ArrayList<>(sets);
+        bySize.sort(Comparator.comparingInt(SetValue::size));
+        SetValue smallest = bySize.get(0);
+        List<SetValue> others = bySize.subList(1, bySize.size());
+        int[] found = new int[1];
+        if (smallest.intSet != null) {
+            IntSet members = smallest.intSet;
+            for (int i = 0; i < members.size() && (limit == 0 || found[0] < limit); i++) {
+                long member = members.get(i);
+                if (containsIntegerInAll(others, member)) {
+                    found[0]++;
+                    if (action != null) {
+                        action.accept(format(member));
+                    }
+                }
+            }
+            return found[0];
+        }
+        smallest.table.forEachWhile((member, unused) -> {
+            for (SetValue other : others) {
+                if (!other.contains(member)) {
+                    return true;
+                }
+            }
+            found[0]++;
+            if (action != null) {
+                action.accept(member);
+            }
+            return limit == 0 || found[0] < limit;
+        });
+        return found[0];
+    }
+
+    private static boolean containsIntegerInAll(List<SetValue> sets, long member) {
+        for (SetValue set : sets) {
+            if (!set.containsInteger(member)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static byte[] format(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // The member as a long if printing that long gives back exactly the same bytes
+    static Long parseCanonical(byte[] member) {
+        int length = member.length;
+        if (length == 0 || length > 20) {
+            return null;
+        }
+        int i = member[0] == '-' ? 1 : 0;
+        if (i == length || (member[i] == '0' && length > 1)) {
+            return null;
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = member[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            // accumulate negatively so Long.MIN_VALUE parses without overflow
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                return null;
+            }
+            value = value * 10 - digit;
+        }
+        if (member[0] != '-') {
+            if (value == Long.MIN_VALUE) {
+                return null;
+            }
+            value = -value;
+        }
+        return value;
+    }
+
+    private void convertToTable() {
+        BytesHashTable converted = new BytesHashTable();
+        forEach(member -> converted.put(member, null));
+        table = converted;
+        intSet = null;
+    }
+}
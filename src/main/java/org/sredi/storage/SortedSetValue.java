@@ -0,0 +1,345 @@
+package org.sredi.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Sorted set value with Redis' two encodings. Up to {@link #MAX_COMPACT_ENTRIES} members of at
+ * most {@link #MAX_COMPACT_MEMBER} bytes live in parallel arrays sorted by (score, member): a
+ * member lookup scans the arrays, a rank is an index and a score or lex range is two binary
+ * searches. Larger sets convert for good to a {@link ZSkipList} for order and ranks plus a
+ * {@link BytesHashTable} from member to score, so lookups, ranks and range bounds are O(log n).
+ * <p>
+ * Range queries work on ranks: {@link #rankRange} turns a score or lex range into the ranks of
+ * its first and last members, and {@link #forEachInRankRange} walks any rank interval, so REV
+ * and LIMIT are rank arithmetic rather than a walk past the skipped members.
+ * <p>
+ * ZADD, ZREM, ZPOPMIN and ZRANGESTORE hold the key's write stripe; switching to the skiplist
+ * encoding happens inside one of them, never under a reader.
+ */
+public final class SortedSetValue {
+
+    public static final int MAX_COMPACT_ENTRIES = 128;
+    public static final int MAX_COMPACT_MEMBER = 64;
+    private static final int MIN_COMPACT_CAPACITY = 8;
+
+    private byte[][] members = new byte[MIN_COMPACT_CAPACITY][]; // null once converted
+    private double[] scores = new double[MIN_COMPACT_CAPACITY];
+    private int size;
+    private ZSkipList skipList;
+    private BytesHashTable index; // member -> score as 8 big-endian bytes
+
+    public int size() {
+        return members != null ? size : skipList.length();
+    }
+
+    public boolean isCompact() {
+        return members != null;
+    }
+
+    public Double score(byte[] member) {
+        if (members == null) {
+            byte[] score = index.get(member);
+            return score == null ? null : decode(score);
+        }
+        int i = find(member);
+        return i < 0 ? null : scores[i];
+    }
+
+    // Returns true if the member was added, false if an existing member's score was set
+    public boolean put(byte[] member, double score) {
+        if (members != null && (member.length > MAX_COMPACT_MEMBER
+                || (size == MAX_COMPACT_ENTRIES && find(member) < 0))) {
+            convertToSkipList();
+        }
+        if (members == null) {
+            byte[] current = index.get(member);
+            if (current == null) {
+                skipList.insert(score, member);
+                index.put(member, encode(score));
+                return true;
+            }
+            double currentScore = decode(current);
+            if (currentScore != score) {
+                skipList.updateScore(currentScore, member, score);
+                index.put(member, encode(score));
+            }
+            return false;
+        }
+        int i = find(member);
+        if (i >= 0) {
+            if (scores[i] == score) {
+                return false;
+            }
+            removeAt(i);
+        }
+        insertCompact(member, score);
+        return i < 0;
+    }
+
+    public boolean remove(byte[] member) {
+        if (members == null) {
+            byte[] score = index.get(member);
+            if (score == null) {
+                return false;
+            }
+            skipList.delete(decode(score), member);
+            index.remove(member);
+            return true;
+        }
+        int i = find(member);
+        if (i < 0) {
+            return false;
+        }
+        removeAt(i);
+        return true;
+    }
+
+    // 0-based rank in ascending order, -1 if absent
+    public long rank(byte[] member) {
+        if (members == null) {
+            byte[] score = index.get(member);
+            return score == null ? -1 : skipList.rank(decode(score), member) - 1;
+        }
+        return find(member);
+    }
+
+    /**
+     * 0-based ranks of the first and last members inside the range, or null if none is.
+     */
+    public long[] rankRange(Range range) {
+        long first;
+        long last;
+        if (members == null) {
+            first = skipList.firstRank(range) - 1;
+            last = skipList.lastRank(range) - 1;
+        } else {
+            first = lowerBound(range, true);
+            last = lowerBound(range, false) - 1;
+        }
+        return first < 0 || last < first ? null : new long[] { first, last };
+    }
+
+    /**
+     * Visits the members with 0-based ranks start to end inclusive, from end down to start if
+     * reverse. The caller clamps the ranks to the set.
+     */
+    public void forEachInRankRange(long start, long end, boolean reverse, EntryVisitor visitor) {
+        if (members == null) {
+            ZSkipList.Node node = skipList.byRank((reverse ? end : start) + 1);
+            for (long n = end - start + 1; n > 0 && node != null; n--) {
+                ZSkipList.Node next = reverse ? node.backward : node.forward[0];
+                visitor.accept(node.member, node.score);
+                node = next;
+            }
+            return;
+        }
+        if (reverse) {
+            for (int i = (int) end; i >= start; i--) {
+                visitor.accept(members[i], scores[i]);
+            }
+        } else {
+            for (int i = (int) start; i <= end; i++) {
+                visitor.accept(members[i], scores[i]);
+            }
+        }
+    }
+
+    // ZRANGE by index: start and stop count from the end when negative, and ranks count from the
+    // highest score when reverse
+    public void rangeByIndex(long start, long stop, boolean reverse, EntryVisitor visitor) {
+        long n = size();
+        if (start < 0) start += n;
+        if (stop < 0) stop += n;
+        if (start < 0) start = 0;
+        if (stop >= n) stop = n - 1;
+        if (start > stop) {
+            return;
+        }
+        if (reverse) {
+            forEachInRankRange(n - 1 - stop, n - 1 - start, true, visitor);
+        } else {
+            forEachInRankRange(start, stop, false, visitor);
+        }
+    }
+
+    /**
+     * ZRANGE BYSCORE and BYLEX: the members inside the range, from the highest if reverse,
+     * skipping offset of them and visiting at most count (all if count is negative). The offset
+     * is applied to ranks, so skipped members are never walked.
+     */
+    public void rangeByRange(Range range, boolean reverse, long offset, long count, EntryVisitor visitor) {
+        long[] ranks = rankRange(range);
+        if (ranks == null || offset < 0) {
+            return;
+        }
+        long available = ranks[1] - ranks[0] + 1 - offset;
+        long n = count < 0 ? available : Math.min(count, available);
+        if (n <= 0) {
+            return;
+        }
+        if (reverse) {
+            long end = ranks[1] - offset;
+            forEachInRankRange(end - n + 1, end, true, visitor);
+        } else {
+            long start = ranks[0] + offset;
+            forEachInRankRange(start, start + n - 1, false, visitor);
+        }
+    }
+
+    public interface EntryVisitor {
+        void accept(byte[] member, double score);
+    }
+
+    // A contiguous stretch of the (score, member) order, given by its two ends
+    public interface Range {
+        // whether the entry is not before the start of the range
+        boolean aboveMin(double score, byte[] member);
+
+        // whether the entry is not past the end of the range
+        boolean belowMax(double score, byte[] member);
+    }
+
+    public record ScoreRange(double min, boolean minExclusive, double max, boolean maxExclusive)
+            implements Range {
+
+        @Override
+        public boolean aboveMin(double score, byte[] member) {
+            return minExclusive ? score > min : score >= min;
+        }
+
+        @Override
+        public boolean belowMax(double score, byte[] member) {
+            return maxExclusive ? score < max : score <= max;
+        }
+    }
+
+    /**
+     * Range over members for sets whose members all share one score, as ZRANGE BYLEX takes it.
+     * {@link #MINUS} and {@link #PLUS}, compared by identity, stand for the open ends.
+     */
+    public record LexRange(byte[] min, boolean minExclusive, byte[] max, boolean maxExclusive)
+            implements Range {
+
+        public static final byte[] MINUS = { '-' };
+        public static final byte[] PLUS = { '+' };
+
+        @Override
+        public boolean aboveMin(double score, byte[] member) {
+            if (min == MINUS) return true;
+            if (min == PLUS) return false;
+            int c = Arrays.compareUnsigned(member, min);
+            return minExclusive ? c > 0 : c >= 0;
+        }
+
+        @Override
+        public boolean belowMax(double score, byte[] member) {
+            if (max == PLUS) return true;
+            if (max == MINUS) return false;
+            int c = Arrays.compareUnsigned(member, max);
+            return maxExclusive ? c < 0 : c <= 0;
+        }
+    }
+
+    // Order of entries: by score, then by member bytes
+    static int compare(double score1, byte[] member1, double score2, byte[] member2) {
+        if (score1 < score2) return -1;
+        if (score1 > score2) return 1;
+        return Arrays.compareUnsigned(member1, member2);
+    }
+
+    // Scores as Redis prints them: integers without a fraction, "inf" and "-inf" for infinities
+    public static String formatScore(double score) {
+        if (Double.isInfinite(score)) {
+            return score > 0 ? "inf" : "-inf";
+        }
+        if (score == Math.rint(score) && Math.abs(score) < 1e17) {
+            return Long.toString((long) score);
+        }
+        String s = Double.toString(score);
+        int e = s.indexOf('E');
+        if (e < 0) {
+            return s;
+        }
+        String mantissa = s.substring(0, e);
+        if (mantissa.endsWith(".0")) {
+            mantissa = mantissa.substring(0, mantissa.length() - 2);
+        }
+        String exponent = s.substring(e + 1);
+        return mantissa + "e" + (exponent.startsWith("-") ? exponent : "+" + exponent);
+    }
+
+    private int find(byte[] member) {
+        for (int i = 0; i < size; i++) {
+            if (Arrays.equals(members[i], member)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // First index whose entry is above the range's min (or, if min is false, past its max)
+    private int lowerBound(Range range, boolean min) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            boolean inside = min ? range.aboveMin(scores[mid], members[mid])
+                    : !range.belowMax(scores[mid], members[mid]);
+            if (inside) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private void insertCompact(byte[] member, double score) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(scores[mid], members[mid], score, member) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (size == members.length) {
+            members = Arrays.copyOf(members, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        System.arraycopy(members, low, members, low + 1, size - low);
+        System.arraycopy(scores, low, scores, low + 1, size - low);
+        members[low] = member;
+        scores[low] = score;
+        size++;
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy(members, i + 1, members, i, size - i - 1);
+        System.arraycopy(scores, i + 1, scores, i, size - i - 1);
+        members[--size] = null;
+    }
+
+    private void convertToSkipList() {
+        skipList = new ZSkipList();
+        index = new BytesHashTable();
+        for (int i = 0; i < size; i++) {
+            skipList.insert(scores[i], members[i]);
+            index.put(members[i], encode(scores[i]));
+        }
+        members = null;
+        scores = null;
+        size = 0;
+    }
+
+    private static byte[] encode(double score) {
+        return ByteBuffer.allocate(Double.BYTES).putDouble(score).array();
+    }
+
+    private static double decode(byte[] score) {
+        return ByteBuffer.wrap(score).getDouble();
+    }
+}
@@ -1,5 +1,6 @@
 package org.sredi.storage;
 
+import java.util.List;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class StripedLock {
@@ -33,4 +34,48 @@ public class StripedLock {
     public void writeUnlock(String key) {
         locks[bucket(key)].writeLock().unlock();
     }
+
+    // Locks the stripes of all the keys, each once, in ascending stripe order. Every multi-key
+    // command acquires in this order, so two of them can never each hold a stripe the other is
+    // waiting for.
+    public void lockAll(List<String> keys, boolean exclusive) {
+        for (int bucket : buckets(keys)) {
+            if (exclusive) {
+                locks[bucket].writeLock().lock();
+            } else {
+                locks[bucket].readLock().lock();
+            }
+        }
+    }
+
+    public void unlockAll(List<String> keys, boolean exclusive) {
+        int[] buckets = buckets(keys);
+        for (int i = buckets.length - 1; i >= 0; i--) {
+            if (exclusive) {
+                locks[buckets[i]].writeLock().unlock();
+            } else {
+                locks[buckets[i]].readLock().unlock();
+            }
+        }
+    }
+
+    private int[] buckets(List<String> keys) {
+        boolean[] used = new boolean[NUM_STRIPES];
+        int count = 0;
+        for (String key : keys) {
+            int bucket = bucket(key);
+            if (!used[bucket]) {
+                used[bucket] = true;
+                count++;
+            }
+        }
+        int[] buckets = new int[count];
+        int n = 0;
+        for (int bucket = 0; bucket < NUM_STRIPES; bucket++) {
+            if (used[bucket]) {
+                buckets[n++] = bucket;
+            }
+        }
+        return buckets;
+    }
 }
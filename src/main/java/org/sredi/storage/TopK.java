@@ -0,0 +1,204 @@
+package org.sredi.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heavy hitters in constant memory with HeavyKeeper (Gong et al.), the algorithm behind
+ * RedisBloom's TOPK. depth rows of width (fingerprint, count) buckets live in two primitive arrays.
+ * An item's own bucket in each row counts up; a bucket held by another item decays by one with
+ * probability decay^count per increment and is taken over when it reaches zero, so small counts
+ * are evicted quickly while heavy hitters keep their buckets. The largest of an item's counts
+ * competes for a place in a k-entry min-heap, which is what TOPK.QUERY and TOPK.LIST report.
+ * Decay decisions use a per-sketch seeded generator, so replicas replaying the same commands keep
+ * the same top k.
+ * <p>
+ * TOPK.ADD holds the key's write stripe, which also keeps the decay generator to one thread; the
+ * sketch itself is unsynchronized.
+ */
+public final class TopK {
+
+    public static final int DEFAULT_WIDTH = 8;
+    public static final int DEFAULT_DEPTH = 7;
+    public static final double DEFAULT_DECAY = 0.9;
+    static final long MAX_BUCKETS = 1L << 26;
+    private static final int DECAY_TABLE_SIZE = 1024; // decay^count is 0 in practice beyond this
+    private static final long MURMUR3_SEED = 0;
+    private static final ThreadLocal<long[]> HASH = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final int k;
+    private final int width;
+    private final int depth;
+    private final double decay;
+    private final double[] decayTable;
+    private final int[] fingerprints;
+    private final long[] counts;
+
+    // min-heap on heapCounts; heapIndex maps an item to its heap slot
+    private final String[] heapItems;
+    private final long[] heapCounts;
+    private final Map<String, Integer> heapIndex = new HashMap<>();
+    private int heapSize;
+    private long random = 0x9E3779B97F4A7C15L;
+
+    public TopK(long k, long width, long depth, double decay) {
+        if (k < 1 || k > 100_000 || width < 1 || depth < 1 || width * depth > MAX_BUCKETS) {
+            throw new IllegalArgumentException("ERR TOPK: invalid k, width or depth");
+        }
+        if (decay <= 0 || decay > 1) {
+            throw new IllegalArgumentException("ERR TOPK: decay must be in (0, 1]");
+        }
+        this.k = (int) k;
+        this.width = (int) width;
+        this.depth = (int) depth;
+        this.decay = decay;
+        this.decayTable = new double[DECAY_TABLE_SIZE];
+        for (int i = 0; i < DECAY_TABLE_SIZE; i++) {
+            decayTable[i] = Math.pow(decay, i);
+        }
+        this.fingerprints = new int[this.width * this.depth];
+        this.counts = new long[this.width * this.depth];
+        this.heapItems = new String[this.k];
+        this.heapCounts = new long[this.k];
+    }
+
+    /**
+     * Counts the item increment times.
+     *
+     * @return the item pushed out of the top k to make room for this one, or null
+     */
+    public String add(String item, long increment) {
+        long[] hash = hash(item);
+        int fingerprint = (int) (hash[1] >>> 32);
+        long maxCount = 0;
+        for (int row = 0; row < depth; row++) {
+            int bucket = row * width + (int) Math.unsignedMultiplyHigh(hash[0] + row * hash[1], width);
+            if (counts[bucket] == 0) {
+                fingerprints[bucket] = fingerprint;
+                counts[bucket] = increment;
+            } else if (fingerprints[bucket] == fingerprint) {
+                counts[bucket] += increment;
+            } else {
+                for (long remaining = increment; remaining > 0; remaining--) {
+                    long current = counts[bucket];
+                    double p = current < DECAY_TABLE_SIZE ? decayTable[(int) current] : 0;
+                    if (nextDouble() < p && --counts[bucket] == 0) {
+                        fingerprints[bucket] = fingerprint;
+                        counts[bucket] = remaining;
+                        break;
+                    }
+                }
+            }
+            if (fingerprints[bucket] == fingerprint) {
+                maxCount = Math.max(maxCount, counts[bucket]);
+            }
+        }
+        return offer(item, maxCount);
+    }
+
+    public boolean contains(String item) {
+        return heapIndex.containsKey(item);
+    }
+
+    // Top k items with their counts, largest first
+    public List<Map.Entry<String, Long>> list() {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(heapSize);
+        for (int i = 0; i < heapSize; i++) {
+            entries.add(Map.entry(heapItems[i], heapCounts[i]));
+        }
+        entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        return entries;
+    }
+
+    public int getK() { return k; }
+    public int getWidth() { return width; }
+    public int getDepth() { return depth; }
+    public double getDecay() { return decay; }
+
+    private String offer(String item, long count) {
+        Integer slot = heapIndex.get(item);
+        if (slot != null) {
+            if (count > heapCounts[slot]) {
+                heapCounts[slot] = count;
+                siftDown(slot);
+            }
+            return null;
+        }
+        if (count == 0) {
+            return null;
+        }
+        if (heapSize < k) {
+            heapItems[heapSize] = item;
+            heapCounts[heapSize] = count;
+            heapIndex.put(item, heapSize);
+            siftUp(heapSize++);
+            return null;
+        }
+        if (count <= heapCounts[0]) {
+            return null;
+        }
+        String expelled = heapItems[0];
+        heapIndex.remove(expelled);
+        heapItems[0] = item;
+        heapCounts[0] = count;
+        heapIndex.put(item, 0);
+        siftDown(0);
+        return expelled;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapCounts[parent] <= heapCounts[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && heapCounts[left] < heapCounts[smallest]) smallest = left;
+            if (right < heapSize && heapCounts[right] < heapCounts[smallest]) smallest = right;
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String item = heapItems[a];
+        heapItems[a] = heapItems[b];
+        heapItems[b] = item;
+        long count = heapCounts[a];
+        heapCounts[a] = heapCounts[b];
+        heapCounts[b] = count;
+        heapIndex.put(heapItems[a], a);
+        heapIndex.put(heapItems[b], b);
+    }
+
+    // xorshift64 mapped to [0, 1)
+    private double nextDouble() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (random >>> 11) * 0x1.0p-53;
+    }
+
+    private static long[] hash(String item) {
+        long[] hash = HASH.get();
+        Murmur3.hash128(item.getBytes(UTF_8), MURMUR3_SEED, hash);
+        return hash;
+    }
+}
@@ -65,6 +65,19 @@ public class TransactionManager {
         return results;
     }
 
+    // Every key the connection's queued commands lock, or none without an active transaction
+    public List<String> getLockKeys(ClientConnection conn) {
+        List<Command> queue = transactionQueues.get(conn);
+        if (queue == null) {
+            return List.of();
+        }
+        List<String> keys = new ArrayList<>();
+        for (Command command : queue) {
+            keys.addAll(command.getLockKeys());
+        }
+        return keys;
+    }
+
     public void discardTransaction() {
         ClientConnection conn = requireCurrentConnection();
         transactionQueues.remove(conn);
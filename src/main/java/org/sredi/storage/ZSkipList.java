@@ -0,0 +1,210 @@
+package org.sredi.storage;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Redis' zset skiplist: nodes ordered by (score, member), each level link carrying its span (the
+ * number of level-0 steps it jumps), so a search that adds up spans finds a node's rank, and a
+ * search that stops at a rank finds the node, both in O(log n). Level 0 is doubly linked for
+ * walking ranges in either direction.
+ * <p>
+ * Only reached through the {@link SortedSetValue} that owns it, so it needs no locking beyond
+ * what guards that key.
+ */
+final class ZSkipList {
+
+    static final int MAX_LEVEL = 32;
+    private static final double P = 0.25;
+
+    static final class Node {
+        final byte[] member;
+        double score;
+        Node backward;
+        final Node[] forward;
+        final long[] span;
+
+        Node(int level, double score, byte[] member) {
+            this.member = member;
+            this.score = score;
+            this.forward = new Node[level];
+            this.span = new long[level];
+        }
+    }
+
+    private final Node header = new Node(MAX_LEVEL, 0, null);
+    private int length;
+    private int level = 1;
+
+    int length() {
+        return length;
+    }
+
+    Node insert(double score, byte[] member) {
+        Node[] update = new Node[MAX_LEVEL];
+        long[] rank = new long[MAX_LEVEL];
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.forward[i] != null && before(x.forward[i], score, member)) {
+                rank[i] += x.span[i];
+                x = x.forward[i];
+            }
+            update[i] = x;
+        }
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = header;
+                header.span[i] = length;
+            }
+            level = newLevel;
+        }
+        x = new Node(newLevel, score, member);
+        for (int i = 0; i < newLevel; i++) {
+            x.forward[i] = update[i].forward[i];
+            update[i].forward[i] = x;
+            x.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        x.backward = update[0] == header ? null : update[0];
+        if (x.forward[0] != null) {
+            x.forward[0].backward = x;
+        }
+        length++;
+        return x;
+    }
+
+    boolean delete(double score, byte[] member) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = findUpdates(score, member, update);
+        if (x == null) {
+            return false;
+        }
+        deleteNode(x, update);
+        return true;
+    }
+
+    // Changes the score of an existing member, relinking the node only if its position changes
+    void updateScore(double score, byte[] member, double newScore) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = findUpdates(score, member, update);
+        if ((x.backward == null || x.backward.score < newScore)
+                && (x.forward[0] == null || x.forward[0].score > newScore)) {
+            x.score = newScore;
+            return;
+        }
+        deleteNode(x, update);
+        insert(newScore, member);
+    }
+
+    // 1-based rank of the member, 0 if absent
+    long rank(double score, byte[] member) {
+        long rank = 0;
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && !before(score, member, x.forward[i])) {
+                rank += x.span[i];
+                x = x.forward[i];
+            }
+            if (x != header && x.score == score && Arrays.equals(x.member, member)) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    // Node at the 1-based rank, or null
+    Node byRank(long rank) {
+        long traversed = 0;
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.forward[i];
+            }
+            if (traversed == rank) {
+                return x == header ? null : x;
+            }
+        }
+        return null;
+    }
+
+    // 1-based rank of the first node inside the range, 0 if none is
+    long firstRank(SortedSetValue.Range range) {
+        long rank = 0;
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && !range.aboveMin(x.forward[i].score, x.forward[i].member)) {
+                rank += x.span[i];
+                x = x.forward[i];
+            }
+        }
+        x = x.forward[0];
+        return x != null && range.belowMax(x.score, x.member) ? rank + 1 : 0;
+    }
+
+    // 1-based rank of the last node inside the range, 0 if none is
+    long lastRank(SortedSetValue.Range range) {
+        long rank = 0;
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && range.belowMax(x.forward[i].score, x.forward[i].member)) {
+                rank += x.span[i];
+                x = x.forward[i];
+            }
+        }
+        return x != header && range.aboveMin(x.score, x.member) ? rank : 0;
+    }
+
+    private Node findUpdates(double score, byte[] member, Node[] update) {
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && before(x.forward[i], score, member)) {
+                x = x.forward[i];
+            }
+            update[i] = x;
+        }
+        x = x.forward[0];
+        return x != null && x.score == score && Arrays.equals(x.member, member) ? x : null;
+    }
+
+    private void deleteNode(Node x, Node[] update) {
+        for (int i = 0; i < level; i++) {
+            if (update[i].forward[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].forward[i] = x.forward[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        if (x.forward[0] != null) {
+            x.forward[0].backward = x.backward;
+        }
+        while (level > 1 && header.forward[level - 1] == null) {
+            level--;
+        }
+        length--;
+    }
+
+    private static boolean before(Node node, double score, byte[] member) {
+        return SortedSetValue.compare(node.score, node.member, score, member) < 0;
+    }
+
+    private static boolean before(double score, byte[] member, Node node) {
+        return SortedSetValue.compare(score, member, node.score, node.member) < 0;
+    }
+
+    private static int randomLevel() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int level = 1;
+        while (level < MAX_LEVEL && random.nextDouble() < P) {
+            level++;
+        }
+        return level;
+    }
+}
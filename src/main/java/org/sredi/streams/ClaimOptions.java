@@ -0,0 +1,16 @@
+package org.sredi.streams;
+
+/**
+ * Options of XCLAIM. idleMillis and timeMillis set the new delivery time (TIME wins), retryCount
+ * sets the delivery count instead of incrementing it, force creates missing pending entries, justId
+ * leaves the delivery count alone, and lastId moves the group's last-delivered ID forward.
+ */
+public record ClaimOptions(Long idleMillis, Long timeMillis, Integer retryCount, boolean force,
+        boolean justId, StreamId lastId) {
+
+    public static final ClaimOptions DEFAULT = new ClaimOptions(null, null, null, false, false, null);
+
+    public static ClaimOptions justId(boolean justId) {
+        return new ClaimOptions(null, null, null, false, justId, null);
+    }
+}
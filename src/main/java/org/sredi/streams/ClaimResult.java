@@ -0,0 +1,11 @@
+package org.sredi.streams;
+
+import java.util.List;
+
+import org.sredi.streams.PendingEntryList.PendingEntry;
+
+// Outcome of XCLAIM / XAUTOCLAIM: the claimed entries with their new pending state, pending IDs
+// dropped because their entries were deleted, and the cursor where XAUTOCLAIM should continue
+public record ClaimResult(List<StreamValue> claimed, List<PendingEntry> pendingEntries,
+        List<StreamId> deleted, StreamId nextStart) {
+}
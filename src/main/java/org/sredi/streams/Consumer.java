@@ -0,0 +1,23 @@
+package org.sredi.streams;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// A named reader in a consumer group, with its own index of the entries pending on it
+@Getter
+public class Consumer {
+    private final String name;
+    private final PendingEntryList pending = new PendingEntryList();
+    @Setter
+    private long seenTime;
+
+    public Consumer(String name, long seenTime) {
+        this.name = name;
+        this.seenTime = seenTime;
+    }
+
+    @Override
+    public String toString() {
+        return "Consumer[name=" + name + ", pending=" + pending.size() + "]";
+    }
+}
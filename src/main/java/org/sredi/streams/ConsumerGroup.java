@@ -0,0 +1,84 @@
+package org.sredi.streams;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.sredi.streams.PendingEntryList.PendingEntry;
+
+/**
+ * Consumer group state of a stream: the last ID delivered to the group and the pending entries
+ * list, indexed by ID for the whole group and again per consumer. Both indexes are updated
+ * together on every delivery, claim and acknowledgement.
+ */
+@Getter
+public class ConsumerGroup {
+    private final String name;
+    @Setter
+    private StreamId lastDeliveredId;
+    private final PendingEntryList pending = new PendingEntryList();
+    private final Map<String, Consumer> consumers = new LinkedHashMap<>();
+
+    public ConsumerGroup(String name, StreamId lastDeliveredId) {
+        this.name = name;
+        this.lastDeliveredId = lastDeliveredId;
+    }
+
+    public Consumer getConsumer(String consumerName) {
+        return consumers.get(consumerName);
+    }
+
+    public Collection<Consumer> getAllConsumers() {
+        return consumers.values();
+    }
+
+    public Consumer getOrCreateConsumer(String consumerName, long now) {
+        return consumers.computeIfAbsent(consumerName, n -> new Consumer(n, now));
+    }
+
+    // Returns false if the consumer already exists
+    public boolean createConsumer(String consumerName, long now) {
+        return consumers.putIfAbsent(consumerName, new Consumer(consumerName, now)) == null;
+    }
+
+    // Deletes the consumer and its pending entries; returns how many entries it had pending
+    public long deleteConsumer(String consumerName) {
+        Consumer consumer = consumers.remove(consumerName);
+        if (consumer == null) {
+            return 0;
+        }
+        long count = consumer.getPending().size();
+        for (PendingEntry entry : consumer.getPending().range(StreamId.MIN_ID, StreamId.MAX_ID, Integer.MAX_VALUE)) {
+            pending.remove(entry.id());
+        }
+        return count;
+    }
+
+    // Records (or re-records) id as pending on consumer
+    public void setPending(StreamId id, Consumer consumer, long deliveryTime, int deliveryCount) {
+        PendingEntry previous = pending.get(id);
+        if (previous != null && previous.owner() != consumer) {
+            previous.owner().getPending().remove(id);
+        }
+        pending.put(id, consumer, deliveryTime, deliveryCount);
+        consumer.getPending().put(id, consumer, deliveryTime, deliveryCount);
+    }
+
+    // Returns true if id was pending
+    public boolean ack(StreamId id) {
+        PendingEntry removed = pending.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        removed.owner().getPending().remove(id);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsumerGroup[name=" + name + ", lastDeliveredId=" + lastDeliveredId
+                + ", pending=" + pending.size() + ", consumers=" + consumers.size() + "]";
+    }
+}
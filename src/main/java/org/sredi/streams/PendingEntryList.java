@@ -0,0 +1,246 @@
+package org.sredi.streams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Pending entries list (PEL): delivered but unacknowledged stream entries sorted by ID. Entries are
+ * stored column-wise in chunks of primitive arrays (ID time and sequence, delivery time, delivery
+ * count, owner), about 28 bytes an entry rather than a tree node with boxed key and value objects.
+ * Lookups, inserts and removes binary search the chunk list and then one chunk, so they stay
+ * O(log n + chunk size) with millions of entries. New deliveries have increasing IDs and append to
+ * the last chunk.
+ * <p>
+ * Belongs to one consumer group and changes only under XREADGROUP, XACK, XCLAIM and XAUTOCLAIM,
+ * which hold the stream key's write stripe.
+ */
+public class PendingEntryList {
+
+    static final int CHUNK_CAPACITY = 256;
+    private static final int MIN_CHUNK_CAPACITY = 8;
+
+    public record PendingEntry(StreamId id, Consumer owner, long deliveryTime, int deliveryCount) {
+    }
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private long size;
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    int getChunkCount() {
+        return chunks.size();
+    }
+
+    // Adds the entry, or replaces owner, delivery time and count if the ID is already pending
+    public void put(StreamId id, Consumer owner, long deliveryTime, int deliveryCount) {
+        int c = findChunk(id);
+        if (c == chunks.size()) {
+            if (c == 0 || chunks.get(c - 1).size == CHUNK_CAPACITY) {
+                chunks.add(new Chunk());
+            }
+            c = chunks.size() - 1;
+        }
+        Chunk chunk = chunks.get(c);
+        int i = chunk.search(id);
+        if (i >= 0) {
+            chunk.owners[i] = owner;
+            chunk.deliveryTimes[i] = deliveryTime;
+            chunk.deliveryCounts[i] = deliveryCount;
+            return;
+        }
+        i = -i - 1;
+        if (chunk.size == CHUNK_CAPACITY) {
+            Chunk right = chunk.splitUpperHalf();
+            chunks.add(c + 1, right);
+            if (i > chunk.size) {
+                i -= chunk.size;
+                chunk = right;
+            }
+        }
+        chunk.insert(i, id, owner, deliveryTime, deliveryCount);
+        size++;
+    }
+
+    public PendingEntry get(StreamId id) {
+        int c = findChunk(id);
+        if (c == chunks.size()) {
+            return null;
+        }
+        Chunk chunk = chunks.get(c);
+        int i = chunk.search(id);
+        return i >= 0 ? chunk.entry(i) : null;
+    }
+
+    // Removes the ID, returning the removed entry or null if it was not pending
+    public PendingEntry remove(StreamId id) {
+        int c = findChunk(id);
+        if (c == chunks.size()) {
+            return null;
+        }
+        Chunk chunk = chunks.get(c);
+        int i = chunk.search(id);
+        if (i < 0) {
+            return null;
+        }
+        PendingEntry removed = chunk.entry(i);
+        chunk.remove(i);
+        if (chunk.size == 0) {
+            chunks.remove(c);
+        }
+        size--;
+        return removed;
+    }
+
+    // Returns up to count entries with start <= id <= end, in ID order
+    public List<PendingEntry> range(StreamId start, StreamId end, int count) {
+        return range(start, end, count, entry -> true);
+    }
+
+    // Like range(start, end, count), counting only the entries that pass filter
+    public List<PendingEntry> range(StreamId start, StreamId end, int count, Predicate<PendingEntry> filter) {
+        List<PendingEntry> result = new ArrayList<>();
+        for (int c = findChunk(start); c < chunks.size() && result.size() < count; c++) {
+            Chunk chunk = chunks.get(c);
+            int i = chunk.search(start);
+            for (i = i < 0 ? -i - 1 : i; i < chunk.size && result.size() < count; i++) {
+                if (chunk.compare(i, end) > 0) {
+                    return result;
+                }
+                PendingEntry entry = chunk.entry(i);
+                if (filter.test(entry)) {
+                    result.add(entry);
+                }
+            }
+        }
+        return result;
+    }
+
+    public StreamId first() {
+        return chunks.isEmpty() ? null : chunks.get(0).id(0);
+    }
+
+    public StreamId last() {
+        if (chunks.isEmpty()) {
+            return null;
+        }
+        Chunk chunk = chunks.get(chunks.size() - 1);
+        return chunk.id(chunk.size - 1);
+    }
+
+    // Index of the first chunk whose last ID is >= id, or chunks.size() if there is none
+    private int findChunk(StreamId id) {
+        int left = 0;
+        int right = chunks.size();
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            Chunk chunk = chunks.get(mid);
+            if (chunk.compare(chunk.size - 1, id) >= 0) {
+                right = mid;
+            } else {
+                left = mid + 1;
+            }
+        }
+        return left;
+    }
+
+    private static final class Chunk {
+        long[] times = new long[MIN_CHUNK_CAPACITY];
+        int[] counters = new int[MIN_CHUNK_CAPACITY];
+        long[] deliveryTimes = new long[MIN_CHUNK_CAPACITY];
+        int[] deliveryCounts = new int[MIN_CHUNK_CAPACITY];
+        Consumer[] owners = new Consumer[MIN_CHUNK_CAPACITY];
+        int size;
+
+        int compare(int i, StreamId id) {
+            int cmp = Long.compare(times[i], id.timeId());
+            return cmp != 0 ? cmp : Integer.compare(counters[i], id.counter());
+        }
+
+        // Index of id, or -(insertion point) - 1
+        int search(StreamId id) {
+            int left = 0;
+            int right = size - 1;
+            while (left <= right) {
+                int mid = (left + right) >>> 1;
+                int cmp = compare(mid, id);
+                if (cmp < 0) {
+                    left = mid + 1;
+                } else if (cmp > 0) {
+                    right = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -left - 1;
+        }
+
+        StreamId id(int i) {
+            return new StreamId(times[i], counters[i]);
+        }
+
+        PendingEntry entry(int i) {
+            return new PendingEntry(id(i), owners[i], deliveryTimes[i], deliveryCounts[i]);
+        }
+
+        void insert(int i, StreamId id, Consumer owner, long deliveryTime, int deliveryCount) {
+            if (size == times.length) {
+                grow(Math.min(size * 2, CHUNK_CAPACITY));
+            }
+            int moved = size - i;
+            System.arraycopy(times, i, times, i + 1, moved);
+            System.arraycopy(counters, i, counters, i + 1, moved);
+            System.arraycopy(deliveryTimes, i, deliveryTimes, i + 1, moved);
+            System.arraycopy(deliveryCounts, i, deliveryCounts, i + 1, moved);
+            System.arraycopy(owners, i, owners, i + 1, moved);
+            times[i] = id.timeId();
+            counters[i] = id.counter();
+            deliveryTimes[i] = deliveryTime;
+            deliveryCounts[i] = deliveryCount;
+            owners[i] = owner;
+            size++;
+        }
+
+        void remove(int i) {
+            int moved = size - i - 1;
+            System.arraycopy(times, i + 1, times, i, moved);
+            System.arraycopy(counters, i + 1, counters, i, moved);
+            System.arraycopy(deliveryTimes, i + 1, deliveryTimes, i, moved);
+            System.arraycopy(deliveryCounts, i + 1, deliveryCounts, i, moved);
+            System.arraycopy(owners, i + 1, owners, i, moved);
+            size--;
+            owners[size] = null;
+        }
+
+        Chunk splitUpperHalf() {
+            int keep = size / 2;
+            int moved = size - keep;
+            Chunk right = new Chunk();
+            right.grow(Math.max(MIN_CHUNK_CAPACITY, moved));
+            System.arraycopy(times, keep, right.times, 0, moved);
+            System.arraycopy(counters, keep, right.counters, 0, moved);
+            System.arraycopy(deliveryTimes, keep, right.deliveryTimes, 0, moved);
+            System.arraycopy(deliveryCounts, keep, right.deliveryCounts, 0, moved);
+            System.arraycopy(owners, keep, right.owners, 0, moved);
+            right.size = moved;
+            Arrays.fill(owners, keep, size, null);
+            size = keep;
+            return right;
+        }
+
+        private void grow(int capacity) {
+            times = Arrays.copyOf(times, capacity);
+            counters = Arrays.copyOf(counters, capacity);
+            deliveryTimes = Arrays.copyOf(deliveryTimes, capacity);
+            deliveryCounts = Arrays.copyOf(deliveryCounts, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package org.sredi.streams;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespValue;
+
+/**
+ * Append-only block of stream entries packed into one byte array, like a Redis stream listpack.
+ * The first entry is the block's master entry: every ID is stored as a delta against the master
+ * ID, and an entry whose field names equal the master's stores only its values. An entry is laid
+ * out as {@code <flags><varint ms delta><varint seq><varint field count>} followed by the field
+ * names (unless flagged as the master's) and the values, each as {@code <varint length><bytes>}.
+ * The sequence is a delta against the master's when the millisecond part matches it, otherwise
+ * it is stored as is. Entries are decoded sequentially, so range reads never look up single IDs.
+ * Trimming only ever removes the oldest entries, so it advances the offset of the first live entry
+ * instead of rewriting the block; the bytes are freed when the whole block is dropped.
+ * A block is sealed once full, its array trimmed to the bytes in use. A sealed block can be
+ * written to a stream segment file with only its live entries and read back as a read-only block.
+ * <p>
+ * XADD and XTRIM change a block only while holding the stream key's write stripe, and XRANGE and
+ * XREAD share that stripe, so a block never changes under a reader.
+ */
+class StreamBlock {
+
+    static final int MAX_BYTES = 4096;
+    static final int MAX_ENTRIES = 100;
+
+    private static final int FLAG_SAME_FIELDS = 1;
+
+    private final StreamId masterId;
+    private final byte[][] masterFields;
+    private byte[] buf = new byte[128];
+    private int start; // offset of the first live entry
+    private int used;
+    private int appended;
+    private int count; // live entries
+    private StreamId lastId;
+
+    StreamBlock(StreamId masterId, RespValue[] fieldValues) {
+        this.masterId = masterId;
+        this.masterFields = new byte[fieldValues.length / 2][];
+        for (int i = 0; i < masterFields.length; i++) {
+            masterFields[i] = bytes(fieldValues[2 * i]);
+        }
+        append(masterId, fieldValues);
+    }
+
+    // A sealed block read back from a segment file; it takes no further appends
+    private StreamBlock(StreamId masterId, byte[][] masterFields, byte[] buf, int count, StreamId lastId) {
+        this.masterId = masterId;
+        this.masterFields = masterFields;
+        this.buf = buf;
+        this.used = buf.length;
+        this.appended = MAX_ENTRIES;
+        this.count = count;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Writes the block as {@code <master id><last id><live count><master fields><entries>}, where
+     * an ID is its millisecond long and sequence int, and the master fields and the entry bytes are
+     * each length-prefixed. Entries trimmed from the head are not written.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(masterId.timeId());
+        out.writeInt(masterId.counter());
+        out.writeLong(lastId.timeId());
+        out.writeInt(lastId.counter());
+        out.writeInt(count);
+        out.writeInt(masterFields.length);
+        for (byte[] field : masterFields) {
+            out.writeInt(field.length);
+            out.write(field);
+        }
+        out.writeInt(used - start);
+        out.write(buf, start, used - start);
+    }
+
+    // Reads a block written by writeTo, copying its entries out of in
+    static StreamBlock readFrom(ByteBuffer in) {
+        StreamId masterId = new StreamId(in.getLong(), in.getInt());
+        StreamId lastId = new StreamId(in.getLong(), in.getInt());
+        int count = in.getInt();
+        byte[][] masterFields = new byte[in.getInt()][];
+        for (int i = 0; i < masterFields.length; i++) {
+            masterFields[i] = new byte[in.getInt()];
+            in.get(masterFields[i]);
+        }
+        byte[] entries = new byte[in.getInt()];
+        in.get(entries);
+        return new StreamBlock(masterId, masterFields, entries, count, lastId);
+    }
+
+    StreamId getFirstId() {
+        return masterId;
+    }
+
+    StreamId getLastId() {
+        return lastId;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int getByteSize() {
+        return used;
+    }
+
+    boolean isFull() {
+        return appended >= MAX_ENTRIES || used >= MAX_BYTES;
+    }
+
+    // ID of the oldest live entry; the block must not be empty
+    StreamId getFirstLiveId() {
+        return new Decoder().readId();
+    }
+
+    // Number of live entries with an ID below id
+    int countBefore(StreamId id) {
+        Decoder decoder = new Decoder();
+        int before = 0;
+        while (decoder.pos < used && decoder.readId().compareTo(id) < 0) {
+            decoder.skipValues();
+            before++;
+        }
+        return before;
+    }
+
+    // Drops the n oldest live entries
+    void dropHead(int n) {
+        Decoder decoder = new Decoder();
+        for (int i = 0; i < n; i++) {
+            decoder.readId();
+            decoder.skipValues();
+        }
+        start = decoder.pos;
+        count -= n;
+    }
+
+    // IDs must be appended in increasing order
+    void append(StreamId id, RespValue[] fieldValues) {
+        int fieldCount = fieldValues.length / 2;
+        boolean sameFields = fieldCount == masterFields.length;
+        for (int i = 0; sameFields && i < fieldCount; i++) {
+            sameFields = Arrays.equals(masterFields[i], bytes(fieldValues[2 * i]));
+        }
+        long msDelta = id.timeId() - masterId.timeId();
+        long seq = msDelta == 0 ? id.counter() - masterId.counter() : id.counter() & 0xFFFFFFFFL;
+
+        ensureCapacity(1 + 3 * 10);
+        buf[used++] = (byte) (sameFields ? FLAG_SAME_FIELDS : 0);
+        writeVarint(msDelta);
+        writeVarint(seq);
+        writeVarint(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            if (!sameFields) {
+                writeBytes(bytes(fieldValues[2 * i]));
+            }
+            writeBytes(bytes(fieldValues[2 * i + 1]));
+        }
+        appended++;
+        count++;
+        lastId = id;
+        if (isFull()) {
+            // sealed: the doubling headroom would otherwise stay allocated for the block's lifetime
+            buf = Arrays.copyOf(buf, used);
+        }
+    }
+
+    /**
+     * Decodes entries with ID >= from in order, passing each to visitor until it returns false.
+     *
+     * @return false if the visitor stopped the scan
+     */
+    boolean scan(StreamId from, Predicate<StreamValue> visitor) {
+        if (lastId.compareTo(from) < 0) {
+            return true;
+        }
+        Decoder decoder = new Decoder();
+        while (decoder.pos < used) {
+            StreamId id = decoder.readId();
+            if (id.compareTo(from) < 0) {
+                decoder.skipValues();
+            } else if (!visitor.test(new StreamValue(id, decoder.readValues()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Like scan, but visits the entries with ID <= from newest first. Entries only decode forwards,
+    // so the block's matching entries are buffered, which MAX_ENTRIES bounds
+    boolean scanReverse(StreamId from, Predicate<StreamValue> visitor) {
+        List<StreamValue> values = new ArrayList<>(count);
+        scan(StreamId.MIN_ID, value -> value.itemId().compareTo(from) <= 0 && values.add(value));
+        for (int i = values.size() - 1; i >= 0; i--) {
+            if (!visitor.test(values.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Field/value pairs of the entry with this ID, or null if the block does not hold it
+    RespValue[] get(StreamId id) {
+        if (id.compareTo(masterId) < 0 || id.compareTo(lastId) > 0) {
+            return null;
+        }
+        Decoder decoder = new Decoder();
+        while (decoder.pos < used) {
+            int cmp = decoder.readId().compareTo(id);
+            if (cmp == 0) {
+                return decoder.readValues();
+            }
+            if (cmp > 0) {
+                return null;
+            }
+            decoder.skipValues();
+        }
+        return null;
+    }
+
+    private static byte[] bytes(RespValue value) {
+        return value.asBulkString().getValue();
+    }
+
+    private void ensureCapacity(int extra) {
+        if (used + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, used + extra));
+        }
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf[used++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[used++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] value) {
+        ensureCapacity(5 + value.length);
+        writeVarint(value.length);
+        System.arraycopy(value, 0, buf, used, value.length);
+        used += value.length;
+    }
+
+    // Walks the entries from the start of the block
+    private final class Decoder {
+        int pos = start;
+        int flags;
+        int fieldCount;
+
+        StreamId readId() {
+            flags = buf[pos++];
+            long msDelta = readVarint();
+            long seq = readVarint();
+            fieldCount = (int) readVarint();
+            return msDelta == 0
+                    ? new StreamId(masterId.timeId(), masterId.counter() + (int) seq)
+                    : new StreamId(masterId.timeId() + msDelta, (int) seq);
+        }
+
+        RespValue[] readValues() {
+            boolean sameFields = (flags & FLAG_SAME_FIELDS) != 0;
+            RespValue[] values = new RespValue[fieldCount * 2];
+            for (int i = 0; i < fieldCount; i++) {
+                values[2 * i] = new RespBulkString(sameFields ? masterFields[i] : readBytes());
+                values[2 * i + 1] = new RespBulkString(readBytes());
+            }
+            return values;
+        }
+
+        void skipValues() {
+            int strings = (flags & FLAG_SAME_FIELDS) != 0 ? fieldCount : fieldCount * 2;
+            for (int i = 0; i < strings; i++) {
+                int length = (int) readVarint();
+                pos += length;
+            }
+        }
+
+        private byte[] readBytes() {
+            int length = (int) readVarint();
+            byte[] value = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return value;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -1,25 +1,46 @@
 package org.sredi.streams;
 
+import java.io.IOException;
 import java.time.Clock;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
 
 import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sredi.resp.RespValue;
+import org.sredi.streams.PendingEntryList.PendingEntry;
 
-// Storage for a single stream: ordered list of IDs + map of ID -> values
+// Storage for a single stream: append-only packed entry blocks (see StreamBlock) indexed by
+// their first ID, plus the stream's consumer groups. With a segment store the oldest blocks move
+// to memory-mapped segment files (see StreamSegment), which hold every entry older than the blocks
 public class StreamData {
-    public static final int MAX_READ_COUNT = 100;
+    private static final Logger log = LoggerFactory.getLogger(StreamData.class);
+    public static final int DEFAULT_READ_COUNT = 100; // XREAD without COUNT
 
     @Getter
     private final String streamKey;
-    private final OrderedArrayList<StreamId> streamIds = new OrderedArrayList<>();
-    private final Map<StreamId, RespValue[]> dataValues = new HashMap<>();
+    private final StreamSegmentStore segmentStore; // null keeps every block on the heap
+    private final NavigableMap<StreamId, StreamSegment> segments = new TreeMap<>();
+    private final NavigableMap<StreamId, StreamBlock> blocks = new TreeMap<>();
+    private StreamBlock tail;
+    private StreamId lastId; // null until the first entry is added
+    private long length;
+    private final Map<String, ConsumerGroup> groups = new LinkedHashMap<>();
 
     public StreamData(String streamKey) {
+        this(streamKey, null);
+    }
+
+    public StreamData(String streamKey, StreamSegmentStore segmentStore) {
         this.streamKey = streamKey;
+        this.segmentStore = segmentStore;
     }
 
     // Adds entry with given or auto-generated ID, returns the actual ID used
@@ -27,25 +48,29 @@ public class StreamData {
         StreamId streamId = parseOrGenerateId(itemId, clock);
         validateNewId(streamId);
 
-        streamIds.add(streamId);
-        dataValues.put(streamId, values);
+        if (tail == null || tail.isFull()) {
+            tail = new StreamBlock(streamId, values);
+            blocks.put(streamId, tail);
+            if (segmentStore != null) {
+                spillColdBlocks();
+            }
+        } else {
+            tail.append(streamId, values);
+        }
+        lastId = streamId;
+        length++;
         return streamId;
     }
 
     // Reads up to 'count' entries after startId
     public List<StreamValue> readNextValues(int count, StreamId startId) {
-        count = Math.min(count, MAX_READ_COUNT);
-        if (count == 0) return List.of();
-
-        int index = streamIds.findNext(startId);
-        if (index == streamIds.size()) return List.of();
+        if (count <= 0 || startId.equals(StreamId.MAX_ID)) return List.of();
 
         List<StreamValue> result = new ArrayList<>();
-        int end = Math.min(index + count, streamIds.size());
-        for (int i = index; i < end; i++) {
-            StreamId id = streamIds.get(i);
-            result.add(new StreamValue(id, dataValues.get(id)));
-        }
+        scan(startId.next(), value -> {
+            result.add(value);
+            return result.size() < count;
+        });
         return result;
     }
 
@@ -53,23 +78,393 @@ public class StreamData {
     public List<StreamValue> queryRange(String start, String end) throws IllegalStreamItemIdException {
         StreamId startId = parseRangeParam(start, true);
         StreamId endId = parseRangeParam(end, false);
-        return streamIds.range(startId, endId).stream()
-                .map(id -> new StreamValue(id, dataValues.get(id)))
-                .toList();
+        List<StreamValue> result = new ArrayList<>();
+        scan(startId, value -> {
+            if (value.itemId().compareTo(endId) > 0) {
+                return false;
+            }
+            result.add(value);
+            return true;
+        });
+        return result;
+    }
+
+    /**
+     * Visits the entries with an ID in [start, end] in ID order, or newest first when reverse,
+     * until visitor returns false. Only one block is decoded at a time, so the memory used does
+     * not grow with the size of the range.
+     */
+    public void visitRange(StreamId start, StreamId end, boolean reverse, Predicate<StreamValue> visitor) {
+        if (reverse) {
+            scanReverse(end, value -> value.itemId().compareTo(start) >= 0 && visitor.test(value));
+        } else {
+            scan(start, value -> value.itemId().compareTo(end) <= 0 && visitor.test(value));
+        }
+    }
+
+    // Number of entries with an ID in [start, end], from the block and segment sizes and without
+    // decoding values
+    public long countRange(StreamId start, StreamId end) {
+        if (start.compareTo(end) > 0) {
+            return 0;
+        }
+        long atMostEnd = end.equals(StreamId.MAX_ID) ? length : countBefore(end.next());
+        return atMostEnd - countBefore(start);
+    }
+
+    private long countBefore(StreamId id) {
+        long before = 0;
+        for (StreamSegment segment : segments.values()) {
+            if (segment.getLastId().compareTo(id) >= 0) {
+                return before + segment.countBefore(id);
+            }
+            before += segment.size();
+        }
+        for (StreamBlock block : blocks.values()) {
+            if (block.getLastId().compareTo(id) >= 0) {
+                return before + block.countBefore(id);
+            }
+            before += block.size();
+        }
+        return before;
+    }
+
+    /**
+     * Removes the oldest entries as the options ask. An approximate trim only drops whole blocks,
+     * stopping before it would remove more than the limit.
+     *
+     * @return the number of entries removed
+     */
+    public long trim(TrimOptions options) {
+        long removed = 0;
+        while (!segments.isEmpty()) {
+            StreamSegment head = segments.firstEntry().getValue();
+            long excess = options.byMinId() ? head.countBefore(options.minId()) : length - options.maxLen();
+            if (excess <= 0) {
+                return removed;
+            }
+            if (excess < head.size()) {
+                if (!options.approximate()) {
+                    head.dropHead(excess);
+                    removed += excess;
+                    length -= excess;
+                }
+                return removed;
+            }
+            if (options.approximate() && removed + head.size() > options.limit()) {
+                return removed;
+            }
+            segments.pollFirstEntry().getValue().delete();
+            removed += head.size();
+            length -= head.size();
+        }
+        while (!blocks.isEmpty()) {
+            StreamBlock head = blocks.firstEntry().getValue();
+            long excess = options.byMinId() ? head.countBefore(options.minId()) : length - options.maxLen();
+            if (excess <= 0) {
+                break;
+            }
+            if (excess >= head.size()) {
+                if (options.approximate() && removed + head.size() > options.limit()) {
+                    break;
+                }
+                blocks.pollFirstEntry();
+                if (head == tail) {
+                    tail = null;
+                }
+                removed += head.size();
+                length -= head.size();
+            } else {
+                if (!options.approximate()) {
+                    head.dropHead((int) excess);
+                    removed += excess;
+                    length -= excess;
+                }
+                break;
+            }
+        }
+        return removed;
+    }
+
+    // An exact trim that leaves this stream as it is now, for replicating an approximate trim,
+    // whose result depends on the block layout
+    public TrimOptions asExactTrim(TrimOptions applied) {
+        if (!applied.approximate()) {
+            return applied;
+        }
+        if (length == 0) {
+            return TrimOptions.maxLen(0, false, 0);
+        }
+        StreamId firstLiveId = segments.isEmpty()
+                ? blocks.firstEntry().getValue().getFirstLiveId()
+                : segments.firstEntry().getValue().getFirstLiveId();
+        return TrimOptions.minId(firstLiveId, false, 0);
+    }
+
+    // Deletes the stream's segment files once the stream is removed from the store
+    public void close() {
+        segments.values().forEach(StreamSegment::delete);
+        segments.clear();
+    }
+
+    // Writes the oldest sealed blocks to a segment once a segment's worth has built up past the hot
+    // ones; if the write fails they stay on the heap and the next new block retries
+    private void spillColdBlocks() {
+        int batch = segmentStore.getBlocksPerSegment();
+        if (blocks.size() - 1 < segmentStore.getHotBlocks() + batch) {
+            return;
+        }
+        List<StreamBlock> cold = new ArrayList<>(batch);
+        for (StreamBlock block : blocks.values()) {
+            if (cold.size() == batch) {
+                break;
+            }
+            cold.add(block);
+        }
+        try {
+            StreamSegment segment = segmentStore.write(cold);
+            segments.put(segment.getFirstId(), segment);
+            for (int i = 0; i < batch; i++) {
+                blocks.pollFirstEntry();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write segment for stream {}, keeping its blocks on the heap: {}",
+                    streamKey, e.getMessage());
+        }
+    }
+
+    // Decodes entries from the block holding 'from' onwards until visitor returns false
+    private void scan(StreamId from, Predicate<StreamValue> visitor) {
+        StreamId segmentFloor = segments.floorKey(from);
+        for (StreamSegment segment : (segmentFloor == null ? segments : segments.tailMap(segmentFloor, true)).values()) {
+            if (!segment.scan(from, visitor)) {
+                return;
+            }
+        }
+        StreamId floor = blocks.floorKey(from);
+        for (StreamBlock block : (floor == null ? blocks : blocks.tailMap(floor, true)).values()) {
+            if (!block.scan(from, visitor)) {
+                return;
+            }
+        }
+    }
+
+    // Like scan, from the newest entry at or below 'from' back to the oldest
+    private void scanReverse(StreamId from, Predicate<StreamValue> visitor) {
+        StreamId floor = blocks.floorKey(from);
+        if (floor != null) {
+            for (StreamBlock block : blocks.headMap(floor, true).descendingMap().values()) {
+                if (!block.scanReverse(from, visitor)) {
+                    return;
+                }
+            }
+        }
+        StreamId segmentFloor = segments.floorKey(from);
+        if (segmentFloor != null) {
+            for (StreamSegment segment : segments.headMap(segmentFloor, true).descendingMap().values()) {
+                if (!segment.scanReverse(from, visitor)) {
+                    return;
+                }
+            }
+        }
     }
 
     // Parses ID for XREAD: "$" means last ID, otherwise parse normally
     public StreamId getStreamIdForRead(String id) throws IllegalStreamItemIdException {
-        return "$".equals(id) ? streamIds.getLast() : StreamId.parse(id);
+        return "$".equals(id) ? getLastId() : StreamId.parse(id);
+    }
+
+    // Last ID added, or 0-0 for an empty stream
+    public StreamId getLastId() {
+        return lastId == null ? StreamId.MIN_ID : lastId;
     }
 
+    // Field/value pairs of the entry, or null if the stream does not hold it
     public RespValue[] getData(StreamId id) {
-        return dataValues.get(id);
+        Map.Entry<StreamId, StreamBlock> block = blocks.floorEntry(id);
+        if (block != null) {
+            return block.getValue().get(id);
+        }
+        Map.Entry<StreamId, StreamSegment> segment = segments.floorEntry(id);
+        return segment == null ? null : segment.getValue().get(id);
+    }
+
+    public long size() {
+        return length;
+    }
+
+    // Bytes of packed entry data held on the heap, excluding per-block and index overhead
+    public long getEncodedBytes() {
+        long bytes = 0;
+        for (StreamBlock block : blocks.values()) {
+            bytes += block.getByteSize();
+        }
+        return bytes;
+    }
+
+    // Bytes of segment files, which are mapped rather than held on the heap
+    public long getSegmentBytes() {
+        long bytes = 0;
+        for (StreamSegment segment : segments.values()) {
+            bytes += segment.getByteSize();
+        }
+        return bytes;
+    }
+
+    int getBlockCount() {
+        return blocks.size();
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    // --- Consumer groups ---
+
+    public ConsumerGroup getGroup(String groupName) {
+        return groups.get(groupName);
+    }
+
+    public Collection<ConsumerGroup> getGroups() {
+        return groups.values();
+    }
+
+    // Returns null if a group with this name already exists
+    public ConsumerGroup createGroup(String groupName, StreamId lastDeliveredId) {
+        if (groups.containsKey(groupName)) {
+            return null;
+        }
+        ConsumerGroup group = new ConsumerGroup(groupName, lastDeliveredId);
+        groups.put(groupName, group);
+        return group;
+    }
+
+    public boolean destroyGroup(String groupName) {
+        return groups.remove(groupName) != null;
+    }
+
+    /**
+     * Reads for a consumer of a group. With startId ">" it delivers up to count entries the group
+     * has not seen yet, moving the group's last-delivered ID and, unless noAck, adding them to the
+     * PEL. Otherwise it re-reads the consumer's own pending entries after startId, bumping their
+     * delivery count; a pending entry deleted from the stream comes back with null values.
+     */
+    public List<StreamValue> readGroup(ConsumerGroup group, Consumer consumer, String startId,
+            int count, boolean noAck, long now) throws IllegalStreamItemIdException {
+        consumer.setSeenTime(now);
+        if (">".equals(startId)) {
+            List<StreamValue> values = readNextValues(count, group.getLastDeliveredId());
+            for (StreamValue value : values) {
+                if (!noAck) {
+                    group.setPending(value.itemId(), consumer, now, 1);
+                }
+            }
+            if (!values.isEmpty()) {
+                group.setLastDeliveredId(values.get(values.size() - 1).itemId());
+            }
+            return values;
+        }
+        StreamId after = StreamId.parse(startId);
+        if (after.equals(StreamId.MAX_ID)) {
+            return List.of();
+        }
+        List<StreamValue> result = new ArrayList<>();
+        for (PendingEntry entry : consumer.getPending().range(after.next(), StreamId.MAX_ID, count)) {
+            group.setPending(entry.id(), consumer, now, entry.deliveryCount() + 1);
+            result.add(new StreamValue(entry.id(), getData(entry.id())));
+        }
+        return result;
+    }
+
+    // Changes ownership of pending entries idle for at least minIdleMillis (XCLAIM)
+    public ClaimResult claim(ConsumerGroup group, Consumer consumer, long minIdleMillis,
+            List<StreamId> ids, ClaimOptions options, long now) {
+        List<StreamValue> claimed = new ArrayList<>();
+        List<PendingEntry> claimedEntries = new ArrayList<>();
+        List<StreamId> deleted = new ArrayList<>();
+        if (options.lastId() != null && options.lastId().compareTo(group.getLastDeliveredId()) > 0) {
+            group.setLastDeliveredId(options.lastId());
+        }
+        for (StreamId id : ids) {
+            PendingEntry entry = group.getPending().get(id);
+            RespValue[] data = getData(id);
+            if (entry == null) {
+                if (!options.force() || data == null) {
+                    continue;
+                }
+                entry = new PendingEntry(id, consumer, now, 0);
+            } else if (data == null) {
+                group.ack(id);
+                deleted.add(id);
+                continue;
+            }
+            if (minIdleMillis > 0 && now - entry.deliveryTime() < minIdleMillis) {
+                continue;
+            }
+            claimedEntries.add(claimEntry(group, consumer, entry, options, now));
+            claimed.add(new StreamValue(id, data));
+        }
+        return new ClaimResult(claimed, claimedEntries, deleted, null);
+    }
+
+    // Scans the PEL from start, claiming up to count entries idle for at least minIdleMillis and
+    // dropping pending IDs whose entries were deleted (XAUTOCLAIM)
+    public ClaimResult autoClaim(ConsumerGroup group, Consumer consumer, long minIdleMillis,
+            StreamId start, int count, boolean justId, long now) {
+        List<StreamValue> claimed = new ArrayList<>();
+        List<PendingEntry> claimedEntries = new ArrayList<>();
+        List<StreamId> deleted = new ArrayList<>();
+        ClaimOptions options = ClaimOptions.justId(justId);
+        // like Redis, bound the work of one call to 10 scanned entries per requested claim
+        long scanLimit = (long) count * 10;
+        StreamId next = StreamId.MIN_ID;
+        List<PendingEntry> candidates = group.getPending().range(start, StreamId.MAX_ID,
+                (int) Math.min(scanLimit + 1, Integer.MAX_VALUE));
+        int scanned = 0;
+        for (PendingEntry entry : candidates) {
+            if (scanned == scanLimit || claimed.size() == count) {
+                next = entry.id();
+                break;
+            }
+            scanned++;
+            RespValue[] data = getData(entry.id());
+            if (data == null) {
+                group.ack(entry.id());
+                deleted.add(entry.id());
+                continue;
+            }
+            if (now - entry.deliveryTime() < minIdleMillis) {
+                continue;
+            }
+            claimedEntries.add(claimEntry(group, consumer, entry, options, now));
+            claimed.add(new StreamValue(entry.id(), data));
+        }
+        return new ClaimResult(claimed, claimedEntries, deleted, next);
+    }
+
+    private PendingEntry claimEntry(ConsumerGroup group, Consumer consumer, PendingEntry entry,
+            ClaimOptions options, long now) {
+        long deliveryTime = now;
+        if (options.timeMillis() != null) {
+            deliveryTime = options.timeMillis();
+        } else if (options.idleMillis() != null) {
+            deliveryTime = now - options.idleMillis();
+        }
+        int deliveryCount = entry.deliveryCount();
+        if (options.retryCount() != null) {
+            deliveryCount = options.retryCount();
+        } else if (!options.justId()) {
+            deliveryCount++;
+        }
+        group.setPending(entry.id(), consumer, deliveryTime, deliveryCount);
+        consumer.setSeenTime(now);
+        return new PendingEntry(entry.id(), consumer, deliveryTime, deliveryCount);
     }
 
     @Override
     public String toString() {
-        return "StreamData[key=" + streamKey + ", size=" + dataValues.size() + "]";
+        return "StreamData[key=" + streamKey + ", size=" + length + ", blocks=" + blocks.size()
+                + ", segments=" + segments.size() + ", groups=" + groups.size() + "]";
     }
 
     // --- Private helpers ---
@@ -91,8 +486,7 @@ public class StreamData {
 
     private StreamId generateAutoId(Clock clock) {
         long now = clock.millis();
-        int counter = (!streamIds.isEmpty() && streamIds.last().timeId() == now)
-                ? streamIds.last().counter() + 1 : 0;
+        int counter = (lastId != null && lastId.timeId() == now) ? lastId.counter() + 1 : 0;
         return new StreamId(now, counter);
     }
 
@@ -102,22 +496,23 @@ public class StreamData {
             return parseInt(counterStr, itemId);
         }
         // Auto-generate counter
-        if (streamIds.isEmpty() || streamIds.last().timeId() != timeId) {
+        if (lastId == null || lastId.timeId() != timeId) {
             return (timeId == 0L) ? 1 : 0;  // special case: 0-0 is invalid, so start at 0-1
         }
-        return streamIds.last().counter() + 1;
+        return lastId.counter() + 1;
     }
 
     private void validateNewId(StreamId id) throws IllegalStreamItemIdException {
         if (id.compareTo(StreamId.MIN_ID) <= 0) {
             throw new IllegalStreamItemIdException("ERR The ID specified in XADD must be greater than 0-0");
         }
-        if (!streamIds.isEmpty() && id.compareTo(streamIds.last()) <= 0) {
+        if (lastId != null && id.compareTo(lastId) <= 0) {
             throw new IllegalStreamItemIdException("ERR The ID specified in XADD is equal or smaller than the target stream top item");
         }
     }
 
-    private StreamId parseRangeParam(String param, boolean isStart) throws IllegalStreamItemIdException {
+    // Parses an XRANGE-style bound: "-", "+", a full ID or a millisecond time alone
+    public static StreamId parseRangeParam(String param, boolean isStart) throws IllegalStreamItemIdException {
         if ("-".equals(param)) return StreamId.MIN_ID;
         if ("+".equals(param)) return StreamId.MAX_ID;
 
@@ -130,7 +525,7 @@ public class StreamData {
         return StreamId.of(timeId, isStart ? 0 : Integer.MAX_VALUE);
     }
 
-    private long parseLong(String s, String context) throws IllegalStreamItemIdException {
+    private static long parseLong(String s, String context) throws IllegalStreamItemIdException {
         try {
             return Long.parseLong(s);
         } catch (NumberFormatException e) {
@@ -138,7 +533,7 @@ public class StreamData {
         }
     }
 
-    private int parseInt(String s, String context) throws IllegalStreamItemIdException {
+    private static int parseInt(String s, String context) throws IllegalStreamItemIdException {
         try {
             return Integer.parseInt(s);
         } catch (NumberFormatException e) {
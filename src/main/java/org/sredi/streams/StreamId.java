@@ -21,6 +21,11 @@ public record StreamId(long timeId, int counter) implements Comparable<StreamId>
         return getId();
     }
 
+    // Smallest ID greater than this one
+    public StreamId next() {
+        return counter == Integer.MAX_VALUE ? of(timeId + 1, 0) : of(timeId, counter + 1);
+    }
+
     public static StreamId of(long timeId, int counter) {
         return new StreamId(timeId, counter);
     }
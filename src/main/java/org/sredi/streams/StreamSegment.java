@@ -0,0 +1,175 @@
+package org.sredi.streams;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sredi.resp.RespValue;
+
+/**
+ * Sealed stream blocks written once to a segment file and memory-mapped read-only, so reads go
+ * through the page cache instead of the heap. The sparse index (the first ID, file offset and
+ * running entry count of each block) stays on the heap and is binary-searched to find the one
+ * block an ID can be in; that block is then copied out of the mapping and decoded like a heap
+ * block. Trimming inside a segment only moves its first live ID; the file is deleted once the
+ * whole segment is trimmed away.
+ * <p>
+ * The mapping is never written, so readers share it freely; moving the first live ID and deleting
+ * the file happen under the stream key's write stripe.
+ */
+final class StreamSegment {
+    private static final Logger log = LoggerFactory.getLogger(StreamSegment.class);
+
+    private final Path path;
+    private final MappedByteBuffer data;
+    private final StreamId[] firstIds;
+    private final int[] offsets; // offsets[i] is where block i starts, offsets[n] the file size
+    private final long[] entriesBefore; // entries in the blocks before i, entriesBefore[n] the total
+    private final StreamId lastId;
+    private StreamId firstLiveId;
+    private long dropped; // entries trimmed from the head
+
+    private StreamSegment(Path path, MappedByteBuffer data, StreamId[] firstIds, int[] offsets,
+            long[] entriesBefore, StreamId firstLiveId, StreamId lastId) {
+        this.path = path;
+        this.data = data;
+        this.firstIds = firstIds;
+        this.offsets = offsets;
+        this.entriesBefore = entriesBefore;
+        this.firstLiveId = firstLiveId;
+        this.lastId = lastId;
+    }
+
+    // Writes the blocks, oldest first, to a new file at path and maps it
+    static StreamSegment write(Path path, List<StreamBlock> blocks) throws IOException {
+        int n = blocks.size();
+        StreamId[] firstIds = new StreamId[n];
+        int[] offsets = new int[n + 1];
+        long[] entriesBefore = new long[n + 1];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < n; i++) {
+            StreamBlock block = blocks.get(i);
+            firstIds[i] = block.getFirstId();
+            offsets[i] = out.size();
+            entriesBefore[i + 1] = entriesBefore[i] + block.size();
+            block.writeTo(out);
+        }
+        offsets[n] = out.size();
+        Files.write(path, bytes.toByteArray(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, offsets[n]);
+        }
+        return new StreamSegment(path, data, firstIds, offsets, entriesBefore,
+                blocks.get(0).getFirstLiveId(), blocks.get(n - 1).getLastId());
+    }
+
+    StreamId getFirstId() {
+        return firstIds[0];
+    }
+
+    StreamId getFirstLiveId() {
+        return firstLiveId;
+    }
+
+    StreamId getLastId() {
+        return lastId;
+    }
+
+    long size() {
+        return entriesBefore[firstIds.length] - dropped;
+    }
+
+    long getByteSize() {
+        return offsets[firstIds.length];
+    }
+
+    // Same contract as StreamBlock.scan
+    boolean scan(StreamId from, Predicate<StreamValue> visitor) {
+        StreamId start = from.compareTo(firstLiveId) > 0 ? from : firstLiveId;
+        if (lastId.compareTo(start) < 0) {
+            return true;
+        }
+        for (int i = Math.max(0, floorIndex(start)); i < firstIds.length; i++) {
+            if (!readBlock(i).scan(start, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same contract as StreamBlock.scanReverse
+    boolean scanReverse(StreamId from, Predicate<StreamValue> visitor) {
+        // entries below the first live ID were trimmed, and so is everything older
+        Predicate<StreamValue> live = value -> value.itemId().compareTo(firstLiveId) >= 0 && visitor.test(value);
+        for (int i = floorIndex(from); i >= 0; i--) {
+            if (!readBlock(i).scanReverse(from, live)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    RespValue[] get(StreamId id) {
+        int i = floorIndex(id);
+        if (i < 0 || id.compareTo(firstLiveId) < 0) {
+            return null;
+        }
+        return readBlock(i).get(id);
+    }
+
+    // Number of live entries with an ID below id
+    long countBefore(StreamId id) {
+        int i = floorIndex(id);
+        if (i < 0 || id.compareTo(firstLiveId) <= 0) {
+            return 0;
+        }
+        return entriesBefore[i] + readBlock(i).countBefore(id) - dropped;
+    }
+
+    // Drops the n oldest live entries; n must be less than size()
+    void dropHead(long n) {
+        long target = dropped + n;
+        int i = Arrays.binarySearch(entriesBefore, target);
+        // an exact hit is the first entry of block i; otherwise target falls inside block i
+        i = i >= 0 ? i : -i - 2;
+        StreamBlock block = readBlock(i);
+        block.dropHead((int) (target - entriesBefore[i]));
+        firstLiveId = block.getFirstLiveId();
+        dropped = target;
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete stream segment {}: {}", path, e.getMessage());
+        }
+    }
+
+    // Index of the last block whose first ID is <= id, or -1 if id precedes every block
+    private int floorIndex(StreamId id) {
+        int i = Arrays.binarySearch(firstIds, id);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    private StreamBlock readBlock(int i) {
+        return StreamBlock.readFrom(data.slice(offsets[i], offsets[i + 1] - offsets[i]));
+    }
+
+    @Override
+    public String toString() {
+        return "StreamSegment[path=" + path + ", blocks=" + firstIds.length + ", size=" + size() + "]";
+    }
+}
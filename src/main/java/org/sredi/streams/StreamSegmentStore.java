@@ -0,0 +1,71 @@
+package org.sredi.streams;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Getter;
+
+/**
+ * Where streams move their older blocks when tiering is on (--stream-hot-blocks). Each stream
+ * keeps its tail and the hot blocks before it on the heap; once blocksPerSegment more sealed blocks
+ * have built up, the oldest of them are written together to one segment file under
+ * {@code <dir>/stream-segments}. Segments only spill memory and do not survive a restart.
+ * <p>
+ * Each store writes into a directory of its own, created fresh under {@code stream-segments}, so
+ * nodes sharing a --dir never touch each other's mapped files; {@link #close} removes that
+ * directory and nothing else. A process that dies without closing leaves its directory behind.
+ * Segments are written on the thread of the XADD that seals the block, which pays for writing
+ * blocksPerSegment blocks once every that many blocks.
+ */
+public class StreamSegmentStore {
+    private static final Logger log = LoggerFactory.getLogger(StreamSegmentStore.class);
+
+    public static final String DIRECTORY = "stream-segments";
+    static final int DEFAULT_BLOCKS_PER_SEGMENT = 256; // about 1 MB of 4 KB blocks
+    private static final String SUFFIX = ".seg";
+
+    @Getter
+    private final Path directory;
+    @Getter
+    private final int hotBlocks;
+    @Getter
+    private final int blocksPerSegment;
+    private final AtomicLong nextSegmentId = new AtomicLong();
+
+    public StreamSegmentStore(Path dir, int hotBlocks) throws IOException {
+        this(dir, hotBlocks, DEFAULT_BLOCKS_PER_SEGMENT);
+    }
+
+    StreamSegmentStore(Path dir, int hotBlocks, int blocksPerSegment) throws IOException {
+        Path parent = Files.createDirectories(dir.resolve(DIRECTORY));
+        this.directory = Files.createTempDirectory(parent, ProcessHandle.current().pid() + "-");
+        this.hotBlocks = hotBlocks;
+        this.blocksPerSegment = blocksPerSegment;
+    }
+
+    // Segment names are sequence numbers because stream keys may not be valid file names
+    StreamSegment write(List<StreamBlock> blocks) throws IOException {
+        return StreamSegment.write(directory.resolve(nextSegmentId.incrementAndGet() + SUFFIX), blocks);
+    }
+
+    // Deletes this store's segment files and directory; segments must no longer be read
+    public void close() {
+        try {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                for (Path path : files) {
+                    Files.deleteIfExists(path);
+                }
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("Failed to remove stream segment directory {}: {}", directory, e.getMessage());
+        }
+    }
+}
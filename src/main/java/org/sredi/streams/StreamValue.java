@@ -4,16 +4,18 @@ import java.util.Arrays;
 
 import org.sredi.resp.RespArrayValue;
 import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespConstants;
 import org.sredi.resp.RespValue;
 
 // Single stream entry: ID + field/value pairs
 public record StreamValue(StreamId itemId, RespValue[] values) {
 
-    // Converts to RESP format: [id, [field1, value1, ...]]
+    // Converts to RESP format: [id, [field1, value1, ...]], with a null in place of the
+    // field list for an entry that was deleted while pending in a consumer group
     public RespArrayValue asRespArrayValue() {
         return new RespArrayValue(new RespValue[] {
                 new RespBulkString(itemId.getId().getBytes()),
-                new RespArrayValue(values)
+                values == null ? RespConstants.NULL_VALUE : new RespArrayValue(values)
         });
     }
 
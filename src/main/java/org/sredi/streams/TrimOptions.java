@@ -0,0 +1,19 @@
+package org.sredi.streams;
+
+/**
+ * Trimming clause of XADD and XTRIM. MAXLEN keeps at most maxLen entries; MINID drops the entries
+ * with an ID below minId. An approximate trim (~) drops only whole blocks, and at most limit
+ * entries, so trimming on the append path stays O(1) amortized.
+ */
+public record TrimOptions(boolean byMinId, long maxLen, StreamId minId, boolean approximate, long limit) {
+
+    public static final long DEFAULT_APPROXIMATE_LIMIT = 100L * StreamBlock.MAX_ENTRIES;
+
+    public static TrimOptions maxLen(long maxLen, boolean approximate, long limit) {
+        return new TrimOptions(false, maxLen, null, approximate, limit);
+    }
+
+    public static TrimOptions minId(StreamId minId, boolean approximate, long limit) {
+        return new TrimOptions(true, 0, minId, approximate, limit);
+    }
+}
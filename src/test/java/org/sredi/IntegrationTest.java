@@ -8,6 +8,9 @@ import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +20,7 @@ import org.sredi.io.BufferedInputLineReader;
 import org.sredi.resp.RespValue;
 import org.sredi.resp.RespValueParser;
 import org.sredi.setup.SetupOptions;
+import org.sredi.storage.DataEntry;
 import org.sredi.storage.Orchestrator;
 
 class IntegrationTest {
@@ -79,6 +83,436 @@ class IntegrationTest {
         assertEquals(":1\r\n", result2);
     }
 
+    @Test
+    void incrByDecrByOnStoredNumber() throws IOException {
+        execute("*3\r\n$3\r\nSET\r\n$7\r\ncounter\r\n$2\r\n10\r\n");
+
+        assertEquals(":15\r\n", execute("*3\r\n$6\r\nINCRBY\r\n$7\r\ncounter\r\n$1\r\n5\r\n"));
+        assertEquals(":14\r\n", execute("*2\r\n$4\r\nDECR\r\n$7\r\ncounter\r\n"));
+        assertEquals(":-6\r\n", execute("*3\r\n$6\r\nDECRBY\r\n$7\r\ncounter\r\n$2\r\n20\r\n"));
+
+        // GET sees the long-encoded value as a plain string
+        assertEquals("$2\r\n-6\r\n", execute("*2\r\n$3\r\nGET\r\n$7\r\ncounter\r\n"));
+    }
+
+    @Test
+    void incrByFloatOnStoredNumber() throws IOException {
+        execute("*3\r\n$3\r\nSET\r\n$7\r\ncounter\r\n$4\r\n10.5\r\n");
+
+        assertEquals("$4\r\n10.6\r\n",
+                execute("*3\r\n$11\r\nINCRBYFLOAT\r\n$7\r\ncounter\r\n$3\r\n0.1\r\n"));
+        assertEquals("$4\r\n5000\r\n",
+                execute("*3\r\n$11\r\nINCRBYFLOAT\r\n$7\r\ncounter\r\n$7\r\n4989.40\r\n"));
+    }
+
+    @Test
+    void incrByOnMissingKeyAppliesDelta() throws IOException {
+        assertEquals(":5\r\n", execute("*3\r\n$6\r\nINCRBY\r\n$1\r\na\r\n$1\r\n5\r\n"));
+        assertEquals(":-1\r\n", execute("*2\r\n$4\r\nDECR\r\n$1\r\nb\r\n"));
+        assertEquals("$3\r\n2.5\r\n", execute("*3\r\n$11\r\nINCRBYFLOAT\r\n$1\r\nc\r\n$3\r\n2.5\r\n"));
+    }
+
+    @Test
+    void incrRejectsNonNumericValue() throws IOException {
+        execute("*3\r\n$3\r\nSET\r\n$1\r\nk\r\n$3\r\nabc\r\n");
+
+        assertEquals("-ERR value is not an integer or out of range\r\n", execute("*2\r\n$4\r\nINCR\r\n$1\r\nk\r\n"));
+        assertEquals("-ERR value is not an integer or out of range\r\n",
+                execute("*3\r\n$6\r\nINCRBY\r\n$1\r\nk\r\n$1\r\n5\r\n"));
+        assertEquals("-ERR value is not a valid float\r\n",
+                execute("*3\r\n$11\r\nINCRBYFLOAT\r\n$1\r\nk\r\n$1\r\n1\r\n"));
+        assertEquals("$3\r\nabc\r\n", execute("*2\r\n$3\r\nGET\r\n$1\r\nk\r\n"));
+    }
+
+    @Test
+    void incrReportsOverflow() throws IOException {
+        execute("*3\r\n$3\r\nSET\r\n$7\r\ncounter\r\n$19\r\n9223372036854775807\r\n");
+
+        String result = execute("*2\r\n$4\r\nINCR\r\n$7\r\ncounter\r\n");
+        assertTrue(result.startsWith("-ERR increment or decrement would overflow"));
+    }
+
+    @Test
+    void listIndexSetTrimAndInsert() throws IOException {
+        execute("*5\r\n$5\r\nRPUSH\r\n$4\r\nlist\r\n$1\r\na\r\n$1\r\nb\r\n$1\r\nc\r\n");
+
+        assertEquals(":3\r\n", execute("*2\r\n$4\r\nLLEN\r\n$4\r\nlist\r\n"));
+        assertEquals("$1\r\nc\r\n", execute("*3\r\n$6\r\nLINDEX\r\n$4\r\nlist\r\n$2\r\n-1\r\n"));
+        assertEquals("+OK\r\n", execute("*4\r\n$4\r\nLSET\r\n$4\r\nlist\r\n$1\r\n1\r\n$1\r\nB\r\n"));
+        assertEquals(":4\r\n",
+                execute("*5\r\n$7\r\nLINSERT\r\n$4\r\nlist\r\n$6\r\nBEFORE\r\n$1\r\nc\r\n$1\r\nx\r\n"));
+        assertEquals("+OK\r\n", execute("*4\r\n$5\r\nLTRIM\r\n$4\r\nlist\r\n$1\r\n1\r\n$2\r\n-1\r\n"));
+
+        assertEquals("*3\r\n$1\r\nB\r\n$1\r\nx\r\n$1\r\nc\r\n",
+                execute("*4\r\n$6\r\nLRANGE\r\n$4\r\nlist\r\n$1\r\n0\r\n$2\r\n-1\r\n"));
+    }
+
+    @Test
+    void variadicPushAndCountedPop() throws IOException {
+        assertEquals(":3\r\n",
+                execute("*5\r\n$5\r\nLPUSH\r\n$5\r\nqueue\r\n$1\r\na\r\n$1\r\nb\r\n$1\r\nc\r\n"));
+        assertEquals(":5\r\n",
+                execute("*4\r\n$5\r\nRPUSH\r\n$5\r\nqueue\r\n$1\r\nd\r\n$1\r\ne\r\n"));
+
+        assertEquals("*2\r\n$1\r\nc\r\n$1\r\nb\r\n", execute("*3\r\n$4\r\nLPOP\r\n$5\r\nqueue\r\n$1\r\n2\r\n"));
+        assertEquals("*3\r\n$1\r\ne\r\n$1\r\nd\r\n$1\r\na\r\n",
+                execute("*3\r\n$4\r\nRPOP\r\n$5\r\nqueue\r\n$2\r\n10\r\n"));
+
+        // the emptied list is removed
+        assertEquals("*-1\r\n", execute("*3\r\n$4\r\nLPOP\r\n$5\r\nqueue\r\n$1\r\n1\r\n"));
+    }
+
+    @Test
+    void lmoveAndImmediateBlockingPop() throws IOException {
+        execute("*5\r\n$5\r\nRPUSH\r\n$3\r\nsrc\r\n$1\r\na\r\n$1\r\nb\r\n$1\r\nc\r\n");
+
+        assertEquals("$1\r\nc\r\n",
+                execute("*5\r\n$5\r\nLMOVE\r\n$3\r\nsrc\r\n$3\r\ndst\r\n$5\r\nRIGHT\r\n$4\r\nLEFT\r\n"));
+        assertEquals("*2\r\n$3\r\ndst\r\n$1\r\nc\r\n",
+                execute("*4\r\n$5\r\nBLPOP\r\n$5\r\nempty\r\n$3\r\ndst\r\n$1\r\n0\r\n"));
+        assertEquals("*2\r\n$3\r\nsrc\r\n$1\r\nb\r\n",
+                execute("*3\r\n$5\r\nBRPOP\r\n$3\r\nsrc\r\n$3\r\n0.5\r\n"));
+        assertEquals("$1\r\na\r\n",
+                execute("*6\r\n$6\r\nBLMOVE\r\n$3\r\nsrc\r\n$3\r\ndst\r\n$4\r\nLEFT\r\n$4\r\nLEFT\r\n$1\r\n1\r\n"));
+        assertEquals("$-1\r\n",
+                execute("*5\r\n$5\r\nLMOVE\r\n$3\r\nsrc\r\n$3\r\ndst\r\n$4\r\nLEFT\r\n$4\r\nLEFT\r\n"));
+    }
+
+    @Test
+    void xreadHonorsCountAndSkipsEmptyStreams() throws IOException {
+        execute("*5\r\n$4\r\nXADD\r\n$1\r\ns\r\n$3\r\n1-1\r\n$1\r\nf\r\n$1\r\na\r\n");
+        execute("*5\r\n$4\r\nXADD\r\n$1\r\ns\r\n$3\r\n1-2\r\n$1\r\nf\r\n$1\r\nb\r\n");
+
+        // XREAD COUNT 1 STREAMS s empty 0 0
+        String result = execute("*8\r\n$5\r\nXREAD\r\n$5\r\nCOUNT\r\n$1\r\n1\r\n$7\r\nSTREAMS\r\n"
+                + "$1\r\ns\r\n$5\r\nempty\r\n$1\r\n0\r\n$1\r\n0\r\n");
+        assertEquals("*1\r\n*2\r\n+s\r\n*1\r\n*2\r\n$3\r\n1-1\r\n*2\r\n$1\r\nf\r\n$1\r\na\r\n", result);
+
+        // "$" on a stream with nothing newer (or no entries at all) reads nothing
+        assertEquals("*-1\r\n", execute("*4\r\n$5\r\nXREAD\r\n$7\r\nSTREAMS\r\n$1\r\ns\r\n$1\r\n$\r\n"));
+        assertEquals("*-1\r\n", execute("*4\r\n$5\r\nXREAD\r\n$7\r\nSTREAMS\r\n$3\r\nnew\r\n$1\r\n$\r\n"));
+    }
+
+    @Test
+    void consumerGroupDeliversAcksAndClaims() throws IOException {
+        execute("*5\r\n$4\r\nXADD\r\n$1\r\ns\r\n$3\r\n1-1\r\n$1\r\nf\r\n$1\r\na\r\n");
+        execute("*5\r\n$4\r\nXADD\r\n$1\r\ns\r\n$3\r\n1-2\r\n$1\r\nf\r\n$1\r\nb\r\n");
+        assertEquals("+OK\r\n", execute("*5\r\n$6\r\nXGROUP\r\n$6\r\nCREATE\r\n$1\r\ns\r\n$1\r\ng\r\n$1\r\n0\r\n"));
+        assertTrue(execute("*5\r\n$6\r\nXGROUP\r\n$6\r\nCREATE\r\n$1\r\ns\r\n$1\r\ng\r\n$1\r\n$\r\n").startsWith("-BUSYGROUP"));
+
+        // new entries go to the first reader, then nothing is left for the second
+        assertEquals("*1\r\n*2\r\n+s\r\n*2\r\n*2\r\n$3\r\n1-1\r\n*2\r\n$1\r\nf\r\n$1\r\na\r\n"
+                + "*2\r\n$3\r\n1-2\r\n*2\r\n$1\r\nf\r\n$1\r\nb\r\n",
+                execute("*7\r\n$10\r\nXREADGROUP\r\n$5\r\nGROUP\r\n$1\r\ng\r\n$5\r\nalice\r\n$7\r\nSTREAMS\r\n$1\r\ns\r\n$1\r\n>\r\n"));
+        assertEquals("*-1\r\n", execute("*7\r\n$10\r\nXREADGROUP\r\n$5\r\nGROUP\r\n$1\r\ng\r\n$3\r\nbob\r\n$7\r\nSTREAMS\r\n$1\r\ns\r\n$1\r\n>\r\n"));
+
+        assertEquals("*4\r\n:2\r\n$3\r\n1-1\r\n$3\r\n1-2\r\n*1\r\n*2\r\n$5\r\nalice\r\n$1\r\n2\r\n",
+                execute("*3\r\n$8\r\nXPENDING\r\n$1\r\ns\r\n$1\r\ng\r\n"));
+        assertEquals(":1\r\n", execute("*5\r\n$4\r\nXACK\r\n$1\r\ns\r\n$1\r\ng\r\n$3\r\n1-1\r\n$3\r\n9-9\r\n"));
+
+        // the clock is fixed, so only a zero min-idle-time claims
+        assertEquals("*1\r\n$3\r\n1-2\r\n", execute("*7\r\n$6\r\nXCLAIM\r\n$1\r\ns\r\n$1\r\ng\r\n$3\r\nbob\r\n$1\r\n0\r\n$3\r\n1-2\r\n$6\r\nJUSTID\r\n"));
+        assertEquals("*1\r\n*4\r\n$3\r\n1-2\r\n$3\r\nbob\r\n:0\r\n:1\r\n", execute("*7\r\n$8\r\nXPENDING\r\n$1\r\ns\r\n$1\r\ng\r\n$1\r\n-\r\n$1\r\n+\r\n$2\r\n10\r\n$3\r\nbob\r\n"));
+        assertTrue(execute("*7\r\n$10\r\nXREADGROUP\r\n$5\r\nGROUP\r\n$7\r\nmissing\r\n$3\r\nbob\r\n$7\r\nSTREAMS\r\n$1\r\ns\r\n$1\r\n>\r\n").startsWith("-NOGROUP"));
+    }
+
+    @Test
+    void xaddMaxLenAndXtrimCapTheStream() throws IOException {
+        for (int i = 1; i <= 5; i++) {
+            execute("*7\r\n$4\r\nXADD\r\n$1\r\ns\r\n$6\r\nMAXLEN\r\n$1\r\n3\r\n$3\r\n" + i
+                    + "-0\r\n$1\r\nf\r\n$1\r\nv\r\n");
+        }
+        assertEquals("*3\r\n*2\r\n$3\r\n3-0\r\n*2\r\n$1\r\nf\r\n$1\r\nv\r\n"
+                + "*2\r\n$3\r\n4-0\r\n*2\r\n$1\r\nf\r\n$1\r\nv\r\n"
+                + "*2\r\n$3\r\n5-0\r\n*2\r\n$1\r\nf\r\n$1\r\nv\r\n",
+                execute("*4\r\n$6\r\nXRANGE\r\n$1\r\ns\r\n$1\r\n-\r\n$1\r\n+\r\n"));
+
+        assertEquals(":1\r\n", execute("*5\r\n$5\r\nXTRIM\r\n$1\r\ns\r\n$5\r\nMINID\r\n$1\r\n=\r\n$3\r\n4-0\r\n"));
+        // ~ never splits a block, so a short stream is left alone
+        assertEquals(":0\r\n", execute("*5\r\n$5\r\nXTRIM\r\n$1\r\ns\r\n$6\r\nMAXLEN\r\n$1\r\n~\r\n$1\r\n1\r\n"));
+        assertThrows(IllegalArgumentException.class, () -> execute(
+                "*6\r\n$5\r\nXTRIM\r\n$1\r\ns\r\n$6\r\nMAXLEN\r\n$1\r\n0\r\n$5\r\nLIMIT\r\n$1\r\n5\r\n"));
+    }
+
+    @Test
+    void xrangeCountAndXrevrange() throws IOException {
+        for (int i = 1; i <= 3; i++) {
+            execute("*5\r\n$4\r\nXADD\r\n$1\r\ns\r\n$3\r\n" + i + "-0\r\n$1\r\nf\r\n$1\r\nv\r\n");
+        }
+        assertEquals("*1\r\n*2\r\n$3\r\n2-0\r\n*2\r\n$1\r\nf\r\n$1\r\nv\r\n",
+                execute("*6\r\n$6\r\nXRANGE\r\n$1\r\ns\r\n$1\r\n2\r\n$1\r\n+\r\n$5\r\nCOUNT\r\n$1\r\n1\r\n"));
+        assertEquals("*2\r\n*2\r\n$3\r\n2-0\r\n*2\r\n$1\r\nf\r\n$1\r\nv\r\n"
+                + "*2\r\n$3\r\n1-0\r\n*2\r\n$1\r\nf\r\n$1\r\nv\r\n",
+                execute("*4\r\n$9\r\nXREVRANGE\r\n$1\r\ns\r\n$1\r\n2\r\n$1\r\n-\r\n"));
+        assertEquals("*0\r\n", execute("*4\r\n$6\r\nXRANGE\r\n$7\r\nmissing\r\n$1\r\n-\r\n$1\r\n+\r\n"));
+    }
+
+    @Test
+    void blockedBloomFilterAnswersMembership() throws IOException {
+        assertEquals("+OK\r\n", execute("*5\r\n$10\r\nBF.RESERVE\r\n$2\r\nbf\r\n$4\r\n0.01\r\n$4\r\n1000\r\n$7\r\nBLOCKED\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$6\r\nBF.ADD\r\n$2\r\nbf\r\n$5\r\napple\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$9\r\nBF.EXISTS\r\n$2\r\nbf\r\n$5\r\napple\r\n"));
+        assertEquals(":0\r\n", execute("*3\r\n$9\r\nBF.EXISTS\r\n$2\r\nbf\r\n$4\r\npear\r\n"));
+    }
+
+    @Test
+    void nonScalingBloomFilterFillsUpAndReportsInfo() throws IOException {
+        assertEquals("+OK\r\n", execute("*5\r\n$10\r\nBF.RESERVE\r\n$2\r\nbf\r\n$4\r\n0.01\r\n$1\r\n2\r\n$10\r\nNONSCALING\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$6\r\nBF.ADD\r\n$2\r\nbf\r\n$1\r\na\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$6\r\nBF.ADD\r\n$2\r\nbf\r\n$1\r\nb\r\n"));
+        assertEquals("-ERR non scaling filter is full\r\n", execute("*3\r\n$6\r\nBF.ADD\r\n$2\r\nbf\r\n$1\r\nc\r\n"));
+        assertEquals("*1\r\n:2\r\n", execute("*3\r\n$7\r\nBF.INFO\r\n$2\r\nbf\r\n$5\r\nITEMS\r\n"));
+        assertEquals("*1\r\n$-1\r\n", execute("*3\r\n$7\r\nBF.INFO\r\n$2\r\nbf\r\n$9\r\nEXPANSION\r\n"));
+        assertEquals("-ERR not found\r\n", execute("*2\r\n$7\r\nBF.INFO\r\n$7\r\nmissing\r\n"));
+        assertThrows(IllegalArgumentException.class, () -> execute(
+                "*7\r\n$10\r\nBF.RESERVE\r\n$3\r\nbf2\r\n$4\r\n0.01\r\n$1\r\n2\r\n$10\r\nNONSCALING\r\n$9\r\nEXPANSION\r\n$1\r\n4\r\n"));
+    }
+
+    @Test
+    void scalingBloomFilterAddsLayers() throws IOException {
+        assertEquals("+OK\r\n", execute("*6\r\n$10\r\nBF.RESERVE\r\n$2\r\nbf\r\n$4\r\n0.01\r\n$1\r\n2\r\n$9\r\nEXPANSION\r\n$1\r\n4\r\n"));
+        for (String item : List.of("a", "b", "c")) {
+            assertEquals(":1\r\n", execute("*3\r\n$6\r\nBF.ADD\r\n$2\r\nbf\r\n$1\r\n" + item + "\r\n"));
+        }
+        assertEquals("*1\r\n:2\r\n", execute("*3\r\n$7\r\nBF.INFO\r\n$2\r\nbf\r\n$7\r\nFILTERS\r\n"));
+        assertEquals("*1\r\n:10\r\n", execute("*3\r\n$7\r\nBF.INFO\r\n$2\r\nbf\r\n$8\r\nCAPACITY\r\n"));
+        assertTrue(execute("*2\r\n$7\r\nBF.INFO\r\n$2\r\nbf\r\n").startsWith("*10\r\n$8\r\nCapacity\r\n:10\r\n"));
+    }
+
+    @Test
+    void bloomBatchCommands() throws IOException {
+        assertEquals("*3\r\n:1\r\n:1\r\n:0\r\n",
+                execute("*5\r\n$7\r\nBF.MADD\r\n$2\r\nbf\r\n$1\r\na\r\n$1\r\nb\r\n$1\r\na\r\n"));
+        assertEquals("*3\r\n:1\r\n:0\r\n:1\r\n",
+                execute("*5\r\n$10\r\nBF.MEXISTS\r\n$2\r\nbf\r\n$1\r\na\r\n$1\r\nz\r\n$1\r\nb\r\n"));
+        assertEquals("*2\r\n:0\r\n:0\r\n",
+                execute("*4\r\n$10\r\nBF.MEXISTS\r\n$7\r\nmissing\r\n$1\r\na\r\n$1\r\nb\r\n"));
+
+        assertEquals("-ERR not found\r\n",
+                execute("*5\r\n$9\r\nBF.INSERT\r\n$3\r\nbf2\r\n$8\r\nNOCREATE\r\n$5\r\nITEMS\r\n$1\r\na\r\n"));
+        assertEquals("*3\r\n:1\r\n:1\r\n-ERR non scaling filter is full\r\n",
+                execute("*9\r\n$9\r\nBF.INSERT\r\n$3\r\nbf2\r\n$8\r\nCAPACITY\r\n$1\r\n2\r\n$10\r\nNONSCALING\r\n"
+                        + "$5\r\nITEMS\r\n$1\r\na\r\n$1\r\nb\r\n$1\r\nc\r\n"));
+        assertEquals("*1\r\n:2\r\n", execute("*3\r\n$7\r\nBF.INFO\r\n$3\r\nbf2\r\n$8\r\nCAPACITY\r\n"));
+        assertThrows(IllegalArgumentException.class, () -> execute(
+                "*7\r\n$9\r\nBF.INSERT\r\n$3\r\nbf3\r\n$8\r\nCAPACITY\r\n$1\r\n2\r\n$8\r\nNOCREATE\r\n$5\r\nITEMS\r\n$1\r\na\r\n"));
+    }
+
+    @Test
+    void cuckooFilterAddsCountsAndDeletes() throws IOException {
+        assertEquals("+OK\r\n", execute("*5\r\n$10\r\nCF.RESERVE\r\n$2\r\ncf\r\n$4\r\n1000\r\n$9\r\nEXPANSION\r\n$1\r\n2\r\n"));
+        assertEquals("-ERR item exists\r\n", execute("*3\r\n$10\r\nCF.RESERVE\r\n$2\r\ncf\r\n$4\r\n1000\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$6\r\nCF.ADD\r\n$2\r\ncf\r\n$5\r\napple\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$6\r\nCF.ADD\r\n$2\r\ncf\r\n$5\r\napple\r\n"));
+        assertEquals(":2\r\n", execute("*3\r\n$8\r\nCF.COUNT\r\n$2\r\ncf\r\n$5\r\napple\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$6\r\nCF.DEL\r\n$2\r\ncf\r\n$5\r\napple\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$9\r\nCF.EXISTS\r\n$2\r\ncf\r\n$5\r\napple\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$6\r\nCF.DEL\r\n$2\r\ncf\r\n$5\r\napple\r\n"));
+        assertEquals(":0\r\n", execute("*3\r\n$9\r\nCF.EXISTS\r\n$2\r\ncf\r\n$5\r\napple\r\n"));
+        assertEquals(":0\r\n", execute("*3\r\n$6\r\nCF.DEL\r\n$2\r\ncf\r\n$5\r\napple\r\n"));
+        assertEquals("-ERR not found\r\n", execute("*3\r\n$6\r\nCF.DEL\r\n$7\r\nmissing\r\n$1\r\na\r\n"));
+        assertEquals("+cuckoo\r\n", execute("*2\r\n$4\r\nTYPE\r\n$2\r\ncf\r\n"));
+        assertTrue(execute("*3\r\n$6\r\nBF.ADD\r\n$2\r\ncf\r\n$1\r\na\r\n").startsWith("-WRONGTYPE"));
+    }
+
+    @Test
+    void countMinSketchCommands() throws IOException {
+        assertEquals("+OK\r\n", execute("*4\r\n$13\r\nCMS.INITBYDIM\r\n$1\r\na\r\n$3\r\n100\r\n$1\r\n5\r\n"));
+        assertEquals("+OK\r\n", execute("*4\r\n$14\r\nCMS.INITBYPROB\r\n$1\r\nb\r\n$4\r\n0.02\r\n$4\r\n0.01\r\n"));
+        assertEquals("-ERR CMS: key already exists\r\n",
+                execute("*4\r\n$13\r\nCMS.INITBYDIM\r\n$1\r\na\r\n$3\r\n100\r\n$1\r\n5\r\n"));
+        assertEquals("*2\r\n:3\r\n:1\r\n",
+                execute("*6\r\n$10\r\nCMS.INCRBY\r\n$1\r\na\r\n$1\r\nx\r\n$1\r\n3\r\n$1\r\ny\r\n$1\r\n1\r\n"));
+        assertEquals("*2\r\n:3\r\n:0\r\n", execute("*4\r\n$9\r\nCMS.QUERY\r\n$1\r\na\r\n$1\r\nx\r\n$1\r\nz\r\n"));
+        assertEquals("-ERR CMS: width/depth is not equal\r\n",
+                execute("*4\r\n$9\r\nCMS.MERGE\r\n$1\r\nb\r\n$1\r\n1\r\n$1\r\na\r\n"));
+        assertEquals("+OK\r\n", execute("*4\r\n$13\r\nCMS.INITBYDIM\r\n$1\r\nc\r\n$3\r\n100\r\n$1\r\n5\r\n"));
+        assertEquals("+OK\r\n", execute("*6\r\n$9\r\nCMS.MERGE\r\n$1\r\nc\r\n$1\r\n1\r\n$1\r\na\r\n$7\r\nWEIGHTS\r\n$1\r\n2\r\n"));
+        assertEquals("*1\r\n:6\r\n", execute("*3\r\n$9\r\nCMS.QUERY\r\n$1\r\nc\r\n$1\r\nx\r\n"));
+        assertEquals("-ERR CMS: key does not exist\r\n", execute("*3\r\n$9\r\nCMS.QUERY\r\n$1\r\nm\r\n$1\r\nx\r\n"));
+    }
+
+    @Test
+    void topKCommands() throws IOException {
+        assertEquals("+OK\r\n", execute("*6\r\n$12\r\nTOPK.RESERVE\r\n$1\r\nt\r\n$1\r\n2\r\n$2\r\n50\r\n$1\r\n3\r\n$3\r\n0.9\r\n"));
+        assertEquals("*4\r\n$-1\r\n$-1\r\n$-1\r\n$-1\r\n",
+                execute("*6\r\n$8\r\nTOPK.ADD\r\n$1\r\nt\r\n$1\r\na\r\n$1\r\na\r\n$1\r\na\r\n$1\r\nb\r\n"));
+        assertEquals("*3\r\n$-1\r\n$1\r\nb\r\n$-1\r\n",
+                execute("*5\r\n$8\r\nTOPK.ADD\r\n$1\r\nt\r\n$1\r\nc\r\n$1\r\nc\r\n$1\r\nc\r\n"));
+        assertEquals("*3\r\n:1\r\n:0\r\n:1\r\n",
+                execute("*5\r\n$10\r\nTOPK.QUERY\r\n$1\r\nt\r\n$1\r\na\r\n$1\r\nb\r\n$1\r\nc\r\n"));
+        String list = execute("*3\r\n$9\r\nTOPK.LIST\r\n$1\r\nt\r\n$9\r\nWITHCOUNT\r\n");
+        assertTrue(list.equals("*4\r\n$1\r\na\r\n:3\r\n$1\r\nc\r\n:3\r\n")
+                || list.equals("*4\r\n$1\r\nc\r\n:3\r\n$1\r\na\r\n:3\r\n"), list);
+        assertEquals("+topk\r\n", execute("*2\r\n$4\r\nTYPE\r\n$1\r\nt\r\n"));
+    }
+
+    @Test
+    void hyperLogLogCommands() throws IOException {
+        assertEquals(":1\r\n", execute("*5\r\n$5\r\nPFADD\r\n$1\r\nh\r\n$1\r\na\r\n$1\r\nb\r\n$1\r\nc\r\n"));
+        assertEquals(":0\r\n", execute("*3\r\n$5\r\nPFADD\r\n$1\r\nh\r\n$1\r\na\r\n"));
+        assertEquals(":3\r\n", execute("*2\r\n$7\r\nPFCOUNT\r\n$1\r\nh\r\n"));
+        assertEquals(":1\r\n", execute("*4\r\n$5\r\nPFADD\r\n$1\r\ng\r\n$1\r\nc\r\n$1\r\nd\r\n"));
+        assertEquals(":4\r\n", execute("*3\r\n$7\r\nPFCOUNT\r\n$1\r\nh\r\n$1\r\ng\r\n"));
+        assertEquals("+OK\r\n", execute("*4\r\n$7\r\nPFMERGE\r\n$1\r\nm\r\n$1\r\nh\r\n$1\r\ng\r\n"));
+        assertEquals(":4\r\n", execute("*2\r\n$7\r\nPFCOUNT\r\n$1\r\nm\r\n"));
+        assertEquals(":1\r\n", execute("*2\r\n$5\r\nPFADD\r\n$1\r\ne\r\n"));
+        assertEquals(":0\r\n", execute("*2\r\n$5\r\nPFADD\r\n$1\r\ne\r\n"));
+        assertEquals(":0\r\n", execute("*2\r\n$7\r\nPFCOUNT\r\n$7\r\nmissing\r\n"));
+        assertEquals("+hyperloglog\r\n", execute("*2\r\n$4\r\nTYPE\r\n$1\r\nh\r\n"));
+        execute("*3\r\n$3\r\nSET\r\n$1\r\ns\r\n$1\r\nv\r\n");
+        assertTrue(execute("*3\r\n$5\r\nPFADD\r\n$1\r\ns\r\n$1\r\nx\r\n").startsWith("-WRONGTYPE"));
+        assertTrue(execute("*3\r\n$7\r\nPFMERGE\r\n$1\r\nz\r\n$1\r\ns\r\n").startsWith("-WRONGTYPE"));
+        assertEquals("+none\r\n", execute("*2\r\n$4\r\nTYPE\r\n$1\r\nz\r\n"));
+    }
+
+    @Test
+    void bitmapCommands() throws IOException {
+        assertEquals(":0\r\n", execute("*4\r\n$6\r\nSETBIT\r\n$1\r\nb\r\n$1\r\n7\r\n$1\r\n1\r\n"));
+        assertEquals(":1\r\n", execute("*4\r\n$6\r\nSETBIT\r\n$1\r\nb\r\n$1\r\n7\r\n$1\r\n1\r\n"));
+        assertEquals(":0\r\n", execute("*4\r\n$6\r\nSETBIT\r\n$1\r\nb\r\n$2\r\n17\r\n$1\r\n1\r\n"));
+        assertEquals("$3\r\n\u0001\u0000@\r\n", execute("*2\r\n$3\r\nGET\r\n$1\r\nb\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$6\r\nGETBIT\r\n$1\r\nb\r\n$2\r\n17\r\n"));
+        assertEquals(":0\r\n", execute("*3\r\n$6\r\nGETBIT\r\n$1\r\nb\r\n$3\r\n999\r\n"));
+        assertEquals(":2\r\n", execute("*2\r\n$8\r\nBITCOUNT\r\n$1\r\nb\r\n"));
+        assertEquals(":1\r\n", execute("*4\r\n$8\r\nBITCOUNT\r\n$1\r\nb\r\n$2\r\n-1\r\n$2\r\n-1\r\n"));
+        assertEquals(":1\r\n", execute("*5\r\n$8\r\nBITCOUNT\r\n$1\r\nb\r\n$1\r\n0\r\n$1\r\n7\r\n$3\r\nBIT\r\n"));
+        assertEquals(":7\r\n", execute("*3\r\n$6\r\nBITPOS\r\n$1\r\nb\r\n$1\r\n1\r\n"));
+        assertEquals(":17\r\n", execute("*4\r\n$6\r\nBITPOS\r\n$1\r\nb\r\n$1\r\n1\r\n$1\r\n1\r\n"));
+        assertEquals(":0\r\n", execute("*3\r\n$6\r\nBITPOS\r\n$1\r\nb\r\n$1\r\n0\r\n"));
+
+        assertEquals(":0\r\n", execute("*4\r\n$6\r\nSETBIT\r\n$1\r\nz\r\n$2\r\n15\r\n$1\r\n0\r\n"));
+        assertEquals(":2\r\n", execute("*4\r\n$5\r\nBITOP\r\n$3\r\nNOT\r\n$1\r\ns\r\n$1\r\nz\r\n"));
+        assertEquals(":16\r\n", execute("*3\r\n$6\r\nBITPOS\r\n$1\r\ns\r\n$1\r\n0\r\n"));
+        assertEquals(":-1\r\n", execute("*5\r\n$6\r\nBITPOS\r\n$1\r\ns\r\n$1\r\n0\r\n$1\r\n0\r\n$2\r\n-1\r\n"));
+        assertEquals(":3\r\n", execute("*5\r\n$5\r\nBITOP\r\n$3\r\nAND\r\n$1\r\nd\r\n$1\r\nb\r\n$1\r\ns\r\n"));
+        assertEquals(":1\r\n", execute("*2\r\n$8\r\nBITCOUNT\r\n$1\r\nd\r\n"));
+        assertEquals(":0\r\n", execute("*4\r\n$5\r\nBITOP\r\n$3\r\nNOT\r\n$1\r\nd\r\n$7\r\nmissing\r\n"));
+        assertEquals("+none\r\n", execute("*2\r\n$4\r\nTYPE\r\n$1\r\nd\r\n"));
+        assertEquals("+string\r\n", execute("*2\r\n$4\r\nTYPE\r\n$1\r\nb\r\n"));
+
+        execute("*3\r\n$5\r\nRPUSH\r\n$1\r\nl\r\n$1\r\nx\r\n");
+        assertTrue(execute("*4\r\n$6\r\nSETBIT\r\n$1\r\nl\r\n$1\r\n0\r\n$1\r\n1\r\n").startsWith("-WRONGTYPE"));
+    }
+
+    @Test
+    void hashCommands() throws IOException {
+        assertEquals(":2\r\n", execute("*6\r\n$4\r\nHSET\r\n$1\r\nh\r\n$4\r\nname\r\n$3\r\nada\r\n$4\r\nlang\r\n$2\r\nen\r\n"));
+        assertEquals(":0\r\n", execute("*4\r\n$4\r\nHSET\r\n$1\r\nh\r\n$4\r\nlang\r\n$2\r\nfr\r\n"));
+        assertEquals("$2\r\nfr\r\n", execute("*3\r\n$4\r\nHGET\r\n$1\r\nh\r\n$4\r\nlang\r\n"));
+        assertEquals("$-1\r\n", execute("*3\r\n$4\r\nHGET\r\n$1\r\nh\r\n$3\r\nage\r\n"));
+        assertEquals("*2\r\n$3\r\nada\r\n$-1\r\n", execute("*4\r\n$5\r\nHMGET\r\n$1\r\nh\r\n$4\r\nname\r\n$3\r\nage\r\n"));
+        assertEquals(":37\r\n", execute("*4\r\n$7\r\nHINCRBY\r\n$1\r\nh\r\n$3\r\nage\r\n$2\r\n37\r\n"));
+        assertEquals("-ERR hash value is not an integer\r\n", execute("*4\r\n$7\r\nHINCRBY\r\n$1\r\nh\r\n$4\r\nname\r\n$1\r\n1\r\n"));
+        assertEquals(":3\r\n", execute("*2\r\n$4\r\nHLEN\r\n$1\r\nh\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$7\r\nHEXISTS\r\n$1\r\nh\r\n$3\r\nage\r\n"));
+        assertEquals("*6\r\n$4\r\nname\r\n$3\r\nada\r\n$4\r\nlang\r\n$2\r\nfr\r\n$3\r\nage\r\n$2\r\n37\r\n",
+                execute("*2\r\n$7\r\nHGETALL\r\n$1\r\nh\r\n"));
+        assertEquals("*2\r\n$1\r\n0\r\n*2\r\n$4\r\nname\r\n$4\r\nlang\r\n",
+                execute("*6\r\n$5\r\nHSCAN\r\n$1\r\nh\r\n$1\r\n0\r\n$5\r\nMATCH\r\n$3\r\n*n*\r\n$8\r\nNOVALUES\r\n"));
+        assertEquals("+hash\r\n", execute("*2\r\n$4\r\nTYPE\r\n$1\r\nh\r\n"));
+        assertEquals(":2\r\n", execute("*5\r\n$4\r\nHDEL\r\n$1\r\nh\r\n$4\r\nname\r\n$4\r\nlang\r\n$4\r\nnope\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$4\r\nHDEL\r\n$1\r\nh\r\n$3\r\nage\r\n"));
+        assertEquals("+none\r\n", execute("*2\r\n$4\r\nTYPE\r\n$1\r\nh\r\n"));
+        assertEquals("*0\r\n", execute("*2\r\n$7\r\nHGETALL\r\n$1\r\nh\r\n"));
+
+        execute("*3\r\n$3\r\nSET\r\n$1\r\ns\r\n$1\r\nv\r\n");
+        assertTrue(execute("*4\r\n$4\r\nHSET\r\n$1\r\ns\r\n$1\r\nf\r\n$1\r\nv\r\n").startsWith("-WRONGTYPE"));
+    }
+
+    @Test
+    void setCommands() throws IOException {
+        assertEquals(":3\r\n", execute("*5\r\n$4\r\nSADD\r\n$4\r\nnums\r\n$1\r\n3\r\n$1\r\n1\r\n$1\r\n2\r\n"));
+        assertEquals(":1\r\n", execute("*4\r\n$4\r\nSADD\r\n$4\r\nnums\r\n$2\r\n10\r\n$1\r\n3\r\n"));
+        assertEquals("*4\r\n$1\r\n1\r\n$1\r\n2\r\n$1\r\n3\r\n$2\r\n10\r\n", execute("*2\r\n$8\r\nSMEMBERS\r\n$4\r\nnums\r\n"));
+        assertEquals(":1\r\n", execute("*3\r\n$9\r\nSISMEMBER\r\n$4\r\nnums\r\n$2\r\n10\r\n"));
+        assertEquals(":0\r\n", execute("*3\r\n$9\r\nSISMEMBER\r\n$4\r\nnums\r\n$3\r\n010\r\n"));
+        assertEquals("*3\r\n:1\r\n:0\r\n:1\r\n", execute("*5\r\n$10\r\nSMISMEMBER\r\n$4\r\nnums\r\n$1\r\n1\r\n$1\r\nx\r\n$1\r\n2\r\n"));
+        assertEquals(":3\r\n", execute("*5\r\n$4\r\nSADD\r\n$4\r\ntags\r\n$1\r\n2\r\n$1\r\nx\r\n$1\r\n3\r\n"));
+        assertEquals(":4\r\n", execute("*2\r\n$5\r\nSCARD\r\n$4\r\nnums\r\n"));
+        assertEquals("+set\r\n", execute("*2\r\n$4\r\nTYPE\r\n$4\r\ntags\r\n"));
+        execute("*4\r\n$4\r\nSADD\r\n$5\r\nnums2\r\n$2\r\n20\r\n$1\r\n2\r\n");
+        assertEquals("*1\r\n$1\r\n2\r\n", execute("*4\r\n$6\r\nSINTER\r\n$4\r\ntags\r\n$4\r\nnums\r\n$5\r\nnums2\r\n"));
+        assertEquals("*0\r\n", execute("*3\r\n$6\r\nSINTER\r\n$4\r\nnums\r\n$7\r\nmissing\r\n"));
+        assertEquals(":2\r\n", execute("*4\r\n$10\r\nSINTERCARD\r\n$1\r\n2\r\n$4\r\nnums\r\n$4\r\ntags\r\n"));
+        assertEquals(":1\r\n", execute("*6\r\n$10\r\nSINTERCARD\r\n$1\r\n2\r\n$4\r\nnums\r\n$4\r\ntags\r\n$5\r\nLIMIT\r\n$1\r\n1\r\n"));
+        assertThrows(IllegalArgumentException.class, () -> execute("*3\r\n$10\r\nSINTERCARD\r\n$1\r\n0\r\n$4\r\nnums\r\n"));
+        assertEquals("*2\r\n$1\r\n1\r\n$2\r\n10\r\n", execute("*4\r\n$5\r\nSDIFF\r\n$4\r\nnums\r\n$4\r\ntags\r\n$7\r\nmissing\r\n"));
+        assertEquals("*5\r\n$1\r\n1\r\n$1\r\n2\r\n$1\r\n3\r\n$2\r\n10\r\n$2\r\n20\r\n", execute("*4\r\n$6\r\nSUNION\r\n$4\r\nnums\r\n$7\r\nmissing\r\n$5\r\nnums2\r\n"));
+        assertTrue(execute("*3\r\n$6\r\nSUNION\r\n$4\r\ntags\r\n$4\r\nnums\r\n").startsWith("*5\r\n"));
+        assertEquals("*2\r\n$1\r\n0\r\n*2\r\n$1\r\n1\r\n$2\r\n10\r\n", execute("*5\r\n$5\r\nSSCAN\r\n$4\r\nnums\r\n$1\r\n0\r\n$5\r\nMATCH\r\n$2\r\n1*\r\n"));
+        assertEquals(":1\r\n", execute("*4\r\n$4\r\nSREM\r\n$4\r\ntags\r\n$1\r\nx\r\n$4\r\nnope\r\n"));
+        assertEquals(":2\r\n", execute("*4\r\n$4\r\nSREM\r\n$4\r\ntags\r\n$1\r\n2\r\n$1\r\n3\r\n"));
+        assertEquals("+none\r\n", execute("*2\r\n$4\r\nTYPE\r\n$4\r\ntags\r\n"));
+
+        execute("*3\r\n$3\r\nSET\r\n$1\r\ns\r\n$1\r\nv\r\n");
+        assertTrue(execute("*3\r\n$4\r\nSADD\r\n$1\r\ns\r\n$1\r\nm\r\n").startsWith("-WRONGTYPE"));
+        assertTrue(execute("*3\r\n$6\r\nSINTER\r\n$4\r\nnums\r\n$1\r\ns\r\n").startsWith("-WRONGTYPE"));
+    }
+
+    @Test
+    void sortedSetCommands() throws IOException {
+        assertEquals(":3\r\n", execute("*8\r\n$4\r\nZADD\r\n$2\r\nlb\r\n$2\r\n10\r\n$3\r\nada\r\n$2\r\n20\r\n$3\r\nbob\r\n$2\r\n15\r\n$2\r\ncy\r\n"));
+        assertEquals(":0\r\n", execute("*5\r\n$4\r\nZADD\r\n$2\r\nlb\r\n$2\r\nNX\r\n$2\r\n99\r\n$3\r\nada\r\n"));
+        assertEquals(":1\r\n", execute("*8\r\n$4\r\nZADD\r\n$2\r\nlb\r\n$2\r\nXX\r\n$2\r\nCH\r\n$2\r\n12\r\n$3\r\nada\r\n$1\r\n5\r\n$6\r\nnobody\r\n"));
+        assertEquals(":0\r\n", execute("*6\r\n$4\r\nZADD\r\n$2\r\nlb\r\n$2\r\nGT\r\n$2\r\nCH\r\n$1\r\n1\r\n$3\r\nbob\r\n"));
+        assertEquals("$2\r\n25\r\n", execute("*5\r\n$4\r\nZADD\r\n$2\r\nlb\r\n$4\r\nINCR\r\n$1\r\n5\r\n$3\r\nbob\r\n"));
+        assertEquals("$-1\r\n", execute("*6\r\n$4\r\nZADD\r\n$2\r\nlb\r\n$2\r\nLT\r\n$4\r\nINCR\r\n$1\r\n1\r\n$3\r\nbob\r\n"));
+        assertThrows(IllegalArgumentException.class, () -> execute("*6\r\n$4\r\nZADD\r\n$2\r\nlb\r\n$2\r\nNX\r\n$2\r\nXX\r\n$1\r\n1\r\n$1\r\na\r\n"));
+        assertEquals("*3\r\n$3\r\nada\r\n$2\r\ncy\r\n$3\r\nbob\r\n", execute("*4\r\n$6\r\nZRANGE\r\n$2\r\nlb\r\n$1\r\n0\r\n$2\r\n-1\r\n"));
+        assertEquals("*4\r\n$3\r\nbob\r\n$2\r\n25\r\n$2\r\ncy\r\n$2\r\n15\r\n", execute("*6\r\n$6\r\nZRANGE\r\n$2\r\nlb\r\n$1\r\n0\r\n$1\r\n1\r\n$3\r\nREV\r\n$10\r\nWITHSCORES\r\n"));
+        assertEquals("*2\r\n$2\r\ncy\r\n$3\r\nbob\r\n", execute("*5\r\n$6\r\nZRANGE\r\n$2\r\nlb\r\n$3\r\n(12\r\n$4\r\n+inf\r\n$7\r\nBYSCORE\r\n"));
+        assertEquals("*1\r\n$2\r\ncy\r\n", execute("*9\r\n$6\r\nZRANGE\r\n$2\r\nlb\r\n$4\r\n+inf\r\n$4\r\n-inf\r\n$7\r\nBYSCORE\r\n$3\r\nREV\r\n$5\r\nLIMIT\r\n$1\r\n1\r\n$1\r\n1\r\n"));
+        assertEquals(":2\r\n", execute("*3\r\n$5\r\nZRANK\r\n$2\r\nlb\r\n$3\r\nbob\r\n"));
+        assertEquals("*2\r\n:0\r\n$2\r\n12\r\n", execute("*4\r\n$5\r\nZRANK\r\n$2\r\nlb\r\n$3\r\nada\r\n$9\r\nWITHSCORE\r\n"));
+        assertEquals("$-1\r\n", execute("*3\r\n$5\r\nZRANK\r\n$2\r\nlb\r\n$6\r\nnobody\r\n"));
+        assertEquals("+zset\r\n", execute("*2\r\n$4\r\nTYPE\r\n$2\r\nlb\r\n"));
+        assertEquals(":2\r\n", execute("*6\r\n$11\r\nZRANGESTORE\r\n$3\r\ntop\r\n$2\r\nlb\r\n$1\r\n0\r\n$1\r\n1\r\n$3\r\nREV\r\n"));
+        assertEquals("*2\r\n$2\r\ncy\r\n$3\r\nbob\r\n", execute("*4\r\n$6\r\nZRANGE\r\n$3\r\ntop\r\n$1\r\n0\r\n$2\r\n-1\r\n"));
+        assertEquals(":4\r\n", execute("*10\r\n$4\r\nZADD\r\n$5\r\nnames\r\n$1\r\n0\r\n$1\r\na\r\n$1\r\n0\r\n$1\r\nb\r\n$1\r\n0\r\n$1\r\nc\r\n$1\r\n0\r\n$1\r\nd\r\n"));
+        assertEquals("*2\r\n$1\r\nb\r\n$1\r\nc\r\n", execute("*5\r\n$6\r\nZRANGE\r\n$5\r\nnames\r\n$2\r\n[b\r\n$2\r\n(d\r\n$5\r\nBYLEX\r\n"));
+        assertEquals("*3\r\n$1\r\nd\r\n$1\r\nc\r\n$1\r\nb\r\n", execute("*6\r\n$6\r\nZRANGE\r\n$5\r\nnames\r\n$1\r\n+\r\n$2\r\n(a\r\n$5\r\nBYLEX\r\n$3\r\nREV\r\n"));
+        assertEquals("*4\r\n$1\r\na\r\n$1\r\n0\r\n$1\r\nb\r\n$1\r\n0\r\n", execute("*3\r\n$7\r\nZPOPMIN\r\n$5\r\nnames\r\n$1\r\n2\r\n"));
+        assertEquals(":1\r\n", execute("*4\r\n$4\r\nZREM\r\n$5\r\nnames\r\n$1\r\nc\r\n$3\r\nzzz\r\n"));
+        assertEquals("*2\r\n$1\r\nd\r\n$1\r\n0\r\n", execute("*2\r\n$7\r\nZPOPMIN\r\n$5\r\nnames\r\n"));
+        assertEquals("+none\r\n", execute("*2\r\n$4\r\nTYPE\r\n$5\r\nnames\r\n"));
+        assertEquals(":0\r\n", execute("*6\r\n$11\r\nZRANGESTORE\r\n$3\r\ntop\r\n$2\r\nlb\r\n$3\r\n100\r\n$3\r\n200\r\n$7\r\nBYSCORE\r\n"));
+        assertEquals("+none\r\n", execute("*2\r\n$4\r\nTYPE\r\n$3\r\ntop\r\n"));
+
+        execute("*3\r\n$3\r\nSET\r\n$1\r\ns\r\n$1\r\nv\r\n");
+        assertTrue(execute("*4\r\n$4\r\nZADD\r\n$1\r\ns\r\n$1\r\n1\r\n$1\r\nm\r\n").startsWith("-WRONGTYPE"));
+    }
+
+    @Test
+    void hashScanWalksLargeHashes() throws IOException {
+        StringBuilder hset = new StringBuilder("*402\r\n$4\r\nHSET\r\n$3\r\nbig\r\n");
+        for (int i = 0; i < 200; i++) {
+            String field = String.format("f%03d", i);
+            hset.append("$4\r\n").append(field).append("\r\n$1\r\nv\r\n");
+        }
+        assertEquals(":200\r\n", execute(hset.toString()));
+        Set<String> seen = new HashSet<>();
+        String cursor = "0";
+        do {
+            String reply = execute("*5\r\n$5\r\nHSCAN\r\n$3\r\nbig\r\n$" + cursor.length() + "\r\n" + cursor
+                    + "\r\n$5\r\nCOUNT\r\n$2\r\n20\r\n");
+            String[] lines = reply.split("\r\n");
+            cursor = lines[2];
+            for (int i = 5; i < lines.length; i += 4) {
+                seen.add(lines[i]);
+            }
+        } while (!cursor.equals("0"));
+        assertEquals(200, seen.size());
+    }
+
+    @Test
+    void listCommandsRejectWrongType() throws IOException {
+        execute("*3\r\n$3\r\nSET\r\n$3\r\nstr\r\n$1\r\nv\r\n");
+
+        assertTrue(execute("*3\r\n$5\r\nLPUSH\r\n$3\r\nstr\r\n$1\r\na\r\n").startsWith("-WRONGTYPE"));
+        assertTrue(execute("*2\r\n$4\r\nLLEN\r\n$3\r\nstr\r\n").startsWith("-WRONGTYPE"));
+    }
+
     @Test
     void keysReturnsAllKeys() throws IOException {
         // Set some keys
@@ -94,6 +528,57 @@ class IntegrationTest {
         assertTrue(result.contains("key2"));
     }
 
+    @Test
+    void keysHonorsPattern() throws IOException {
+        execute("*3\r\n$3\r\nSET\r\n$6\r\nuser:1\r\n$1\r\na\r\n");
+        execute("*3\r\n$3\r\nSET\r\n$6\r\nuser:2\r\n$1\r\nb\r\n");
+        execute("*3\r\n$3\r\nSET\r\n$5\r\nother\r\n$1\r\nc\r\n");
+
+        String result = execute("*2\r\n$4\r\nKEYS\r\n$6\r\nuser:*\r\n");
+        assertTrue(result.startsWith("*2\r\n"));
+        assertTrue(result.contains("user:1"));
+        assertTrue(result.contains("user:2"));
+        assertEquals("*1\r\n$5\r\nother\r\n", execute("*2\r\n$4\r\nKEYS\r\n$5\r\noth??\r\n"));
+        assertEquals("*0\r\n", execute("*2\r\n$4\r\nKEYS\r\n$4\r\nnope\r\n"));
+    }
+
+    @Test
+    void keysSkipsExpiredKeys() throws IOException {
+        execute("*3\r\n$3\r\nSET\r\n$4\r\nlive\r\n$1\r\na\r\n");
+        // stored long enough ago that its 10ms TTL has passed on the fixed clock
+        orchestrator.set("gone", new DataEntry("b".getBytes(StandardCharsets.UTF_8), 0L, 10L));
+
+        assertEquals("*1\r\n$4\r\nlive\r\n", execute("*2\r\n$4\r\nKEYS\r\n$1\r\n*\r\n"));
+    }
+
+    @Test
+    void scanWalksKeyspace() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            String key = String.format("k%03d", i);
+            execute("*3\r\n$3\r\nSET\r\n$4\r\n" + key + "\r\n$1\r\nv\r\n");
+        }
+        execute("*3\r\n$5\r\nLPUSH\r\n$4\r\nlist\r\n$1\r\na\r\n");
+        Set<String> seen = new HashSet<>();
+        String cursor = "0";
+        do {
+            String reply = execute("*4\r\n$4\r\nSCAN\r\n$" + cursor.length() + "\r\n" + cursor
+                    + "\r\n$5\r\nCOUNT\r\n$2\r\n15\r\n");
+            String[] lines = reply.split("\r\n");
+            cursor = lines[2];
+            for (int i = 5; i < lines.length; i += 2) {
+                assertTrue(seen.add(lines[i]));
+            }
+        } while (!cursor.equals("0"));
+        assertEquals(101, seen.size());
+
+        assertEquals("*2\r\n$1\r\n0\r\n*1\r\n$4\r\nlist\r\n",
+                execute("*6\r\n$4\r\nSCAN\r\n$1\r\n0\r\n$5\r\nCOUNT\r\n$4\r\n1000\r\n$4\r\nTYPE\r\n$4\r\nlist\r\n"));
+        assertEquals("*2\r\n$1\r\n0\r\n*1\r\n$4\r\nk042\r\n",
+                execute("*6\r\n$4\r\nSCAN\r\n$1\r\n0\r\n$5\r\nMATCH\r\n$6\r\nk04[2]\r\n$5\r\nCOUNT\r\n$4\r\n1000\r\n"));
+        assertThrows(IllegalArgumentException.class,
+                () -> execute("*4\r\n$4\r\nSCAN\r\n$1\r\n0\r\n$4\r\nTYPE\r\n$4\r\nnope\r\n"));
+    }
+
     @Test
     void typeReturnsStringForStringKey() throws IOException {
         execute("*3\r\n$3\r\nSET\r\n$5\r\nmykey\r\n$5\r\nvalue\r\n");
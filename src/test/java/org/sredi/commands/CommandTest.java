@@ -4,7 +4,6 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.util.List;
-import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -147,11 +146,7 @@ class CommandTest {
         @Test
         void incrExistingNumericKey() {
             // Setup: key exists with value "10"
-            when(mockOrchestrator.containsKey("counter")).thenReturn(true);
-            when(mockOrchestrator.get("counter")).thenReturn(
-                new DataEntry("10".getBytes(), 0L, null)
-            );
-            when(mockOrchestrator.getCurrentTime()).thenReturn(1000L);
+            when(mockOrchestrator.incr("counter")).thenReturn(11L);
 
             // Execute
             IncrCommand cmd = new IncrCommand();
@@ -168,9 +163,8 @@ class CommandTest {
 
         @Test
         void incrNonExistentKey() {
-            // Setup: key doesn't exist
-            when(mockOrchestrator.containsKey("newcounter")).thenReturn(false);
-            when(mockOrchestrator.getCurrentTime()).thenReturn(1000L);
+            // Setup: key doesn't exist, the store creates it with value 0
+            when(mockOrchestrator.incr("newcounter")).thenReturn(0L);
 
             // Execute
             IncrCommand cmd = new IncrCommand();
@@ -183,7 +177,36 @@ class CommandTest {
             // Verify: should return 0 (creates key with value 0)
             String response = new String(result);
             assertTrue(response.contains("0"));
-            verify(mockOrchestrator).set(eq("newcounter"), any(DataEntry.class));
+            verify(mockOrchestrator).incr("newcounter");
+        }
+
+        @Test
+        void decrByNegatesDelta() {
+            when(mockOrchestrator.incrBy("counter", -5)).thenReturn(5L);
+
+            DecrByCommand cmd = new DecrByCommand();
+            cmd.setArgs(new org.sredi.resp.RespValue[] {
+                bulkString("DECRBY"),
+                bulkString("counter"),
+                bulkString("5")
+            });
+
+            assertEquals(":5\r\n", new String(cmd.execute(mockOrchestrator)));
+        }
+
+        @Test
+        void incrByReturnsErrorForWrongType() {
+            when(mockOrchestrator.incrBy("list", 2)).thenThrow(new IllegalStateException(
+                    "WRONGTYPE Operation against a key holding the wrong kind of value"));
+
+            IncrByCommand cmd = new IncrByCommand();
+            cmd.setArgs(new org.sredi.resp.RespValue[] {
+                bulkString("INCRBY"),
+                bulkString("list"),
+                bulkString("2")
+            });
+
+            assertTrue(new String(cmd.execute(mockOrchestrator)).startsWith("-WRONGTYPE"));
         }
     }
 
@@ -193,7 +216,7 @@ class CommandTest {
         @Test
         void keysReturnsAllKeys() {
             // Setup: orchestrator has 3 keys
-            when(mockOrchestrator.getKeys()).thenReturn(Set.of("key1", "key2", "key3"));
+            when(mockOrchestrator.getKeys(any())).thenReturn(List.of("key1", "key2", "key3"));
 
             // Execute
             KeysCommand cmd = new KeysCommand("*");
@@ -209,7 +232,7 @@ class CommandTest {
         @Test
         void keysReturnsEmptyArray() {
             // Setup: orchestrator has no keys
-            when(mockOrchestrator.getKeys()).thenReturn(Set.of());
+            when(mockOrchestrator.getKeys(any())).thenReturn(List.of());
 
             // Execute
             KeysCommand cmd = new KeysCommand("*");
@@ -259,7 +282,7 @@ class CommandTest {
 
         @Test
         void lpushReturnsListSize() {
-            when(mockOrchestrator.lpush("mylist", "hello")).thenReturn(1L);
+            when(mockOrchestrator.lpush(eq("mylist"), anyList())).thenReturn(1L);
 
             LPushCommand cmd = new LPushCommand();
             cmd.setArgs(new RespValue[] { bulkString("LPUSH"), bulkString("mylist"), bulkString("hello") });
@@ -270,7 +293,7 @@ class CommandTest {
 
         @Test
         void rpushReturnsListSize() {
-            when(mockOrchestrator.rpush("mylist", "world")).thenReturn(2L);
+            when(mockOrchestrator.rpush(eq("mylist"), anyList())).thenReturn(2L);
 
             RPushCommand cmd = new RPushCommand();
             cmd.setArgs(new RespValue[] { bulkString("RPUSH"), bulkString("mylist"), bulkString("world") });
@@ -281,7 +304,7 @@ class CommandTest {
 
         @Test
         void lpopReturnsValue() {
-            when(mockOrchestrator.lpop("mylist")).thenReturn("hello");
+            when(mockOrchestrator.lpop("mylist")).thenReturn("hello".getBytes());
 
             LPopCommand cmd = new LPopCommand();
             cmd.setArgs(new RespValue[] { bulkString("LPOP"), bulkString("mylist") });
@@ -304,7 +327,7 @@ class CommandTest {
 
         @Test
         void rpopReturnsValue() {
-            when(mockOrchestrator.rpop("mylist")).thenReturn("world");
+            when(mockOrchestrator.rpop("mylist")).thenReturn("world".getBytes());
 
             RPopCommand cmd = new RPopCommand();
             cmd.setArgs(new RespValue[] { bulkString("RPOP"), bulkString("mylist") });
@@ -327,7 +350,8 @@ class CommandTest {
 
         @Test
         void lrangeReturnsElements() {
-            when(mockOrchestrator.lrange("mylist", 0, -1)).thenReturn(List.of("a", "b", "c"));
+            when(mockOrchestrator.lrange("mylist", 0, -1)).thenReturn(
+                    List.of("a".getBytes(), "b".getBytes(), "c".getBytes()));
 
             LRangeCommand cmd = new LRangeCommand();
             cmd.setArgs(new RespValue[] {
@@ -354,6 +378,83 @@ class CommandTest {
 
             assertEquals("*0\r\n", new String(result));
         }
+
+        @Test
+        void lpopWithCountReturnsArray() {
+            when(mockOrchestrator.lpop("mylist", 2L)).thenReturn(List.of("a".getBytes(), "b".getBytes()));
+
+            LPopCommand cmd = new LPopCommand();
+            cmd.setArgs(new RespValue[] { bulkString("LPOP"), bulkString("mylist"), bulkString("2") });
+            byte[] result = cmd.execute(mockOrchestrator);
+
+            assertEquals("*2\r\n$1\r\na\r\n$1\r\nb\r\n", new String(result));
+        }
+
+        @Test
+        void rpopWithCountReturnsNullArrayForMissingKey() {
+            when(mockOrchestrator.rpop("nokey", 3L)).thenReturn(null);
+
+            RPopCommand cmd = new RPopCommand();
+            cmd.setArgs(new RespValue[] { bulkString("RPOP"), bulkString("nokey"), bulkString("3") });
+            byte[] result = cmd.execute(mockOrchestrator);
+
+            assertArrayEquals(RespConstants.NULL_ARRAY, result);
+        }
+
+        @Test
+        void lindexReturnsNullOutOfRange() {
+            when(mockOrchestrator.lindex("mylist", 5)).thenReturn(null);
+
+            LIndexCommand cmd = new LIndexCommand();
+            cmd.setArgs(new RespValue[] { bulkString("LINDEX"), bulkString("mylist"), bulkString("5") });
+            byte[] result = cmd.execute(mockOrchestrator);
+
+            assertArrayEquals(RespConstants.NULL, result);
+        }
+
+        @Test
+        void lsetReturnsErrorForMissingKey() {
+            doThrow(new IllegalStateException("ERR no such key"))
+                    .when(mockOrchestrator).lset(eq("nokey"), eq(0L), aryEq("x".getBytes()));
+
+            LSetCommand cmd = new LSetCommand();
+            cmd.setArgs(new RespValue[] {
+                bulkString("LSET"), bulkString("nokey"), bulkString("0"), bulkString("x")
+            });
+            byte[] result = cmd.execute(mockOrchestrator);
+
+            assertEquals("-ERR no such key\r\n", new String(result));
+        }
+
+        @Test
+        void linsertRejectsBadPosition() {
+            LInsertCommand cmd = new LInsertCommand();
+            assertThrows(IllegalArgumentException.class, () -> cmd.setArgs(new RespValue[] {
+                bulkString("LINSERT"), bulkString("mylist"), bulkString("AROUND"),
+                bulkString("a"), bulkString("b")
+            }));
+        }
     }
-}
 
+    @Nested
+    class LockKeyTests {
+
+        @Test
+        void multiKeyCommandsLockEveryKey() {
+            DelCommand del = new DelCommand();
+            del.setArgs(new RespValue[] { bulkString("DEL"), bulkString("a"), bulkString("b") });
+            assertEquals(List.of("a", "b"), del.getLockKeys());
+
+            BLPopCommand blpop = new BLPopCommand();
+            blpop.setArgs(new RespValue[] { bulkString("BLPOP"), bulkString("a"), bulkString("b"), bulkString("0") });
+            assertEquals(List.of("a", "b"), blpop.getLockKeys());
+
+            BLMoveCommand blmove = new BLMoveCommand();
+            blmove.setArgs(new RespValue[] {
+                bulkString("BLMOVE"), bulkString("src"), bulkString("dst"), bulkString("LEFT"),
+                bulkString("RIGHT"), bulkString("0")
+            });
+            assertEquals(List.of("src", "dst"), blmove.getLockKeys());
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.sredi.resp.RespType;
 import org.sredi.resp.RespValue;
 import org.sredi.storage.Orchestrator;
 import org.sredi.streams.IllegalStreamItemIdException;
+import org.sredi.streams.StreamData;
 import org.sredi.streams.StreamId;
 import org.sredi.streams.StreamValue;
 
@@ -36,7 +37,7 @@ class StreamCommandTest {
         void xaddReturnsStreamId() throws IllegalStreamItemIdException {
             // Arrange
             StreamId expectedId = new StreamId(1000L, 0);
-            when(mockOrchestrator.xadd(eq("mystream"), eq("1000-0"), any(RespValue[].class)))
+            when(mockOrchestrator.xadd(eq("mystream"), eq("1000-0"), any(RespValue[].class), isNull()))
                 .thenReturn(expectedId);
 
             // Act
@@ -53,13 +54,13 @@ class StreamCommandTest {
             // Assert - result should be bulk string "1000-0"
             String resultStr = new String(result);
             assertTrue(resultStr.contains("1000-0"));
-            verify(mockOrchestrator).xadd(eq("mystream"), eq("1000-0"), any(RespValue[].class));
+            verify(mockOrchestrator).xadd(eq("mystream"), eq("1000-0"), any(RespValue[].class), isNull());
         }
 
         @Test
         void xaddWithInvalidIdReturnsError() throws IllegalStreamItemIdException {
             // Arrange
-            when(mockOrchestrator.xadd(eq("mystream"), eq("invalid"), any(RespValue[].class)))
+            when(mockOrchestrator.xadd(eq("mystream"), eq("invalid"), any(RespValue[].class), isNull()))
                 .thenThrow(new IllegalStreamItemIdException("ERR: bad id format"));
 
             // Act
@@ -85,15 +86,10 @@ class StreamCommandTest {
         @Test
         void xrangeReturnsEntries() throws IllegalStreamItemIdException {
             // Arrange
-            StreamId id1 = new StreamId(1000L, 0);
-            StreamId id2 = new StreamId(1001L, 0);
-            RespValue[] values1 = { bulkString("field1"), bulkString("value1") };
-            RespValue[] values2 = { bulkString("field2"), bulkString("value2") };
-            List<StreamValue> entries = List.of(
-                new StreamValue(id1, values1),
-                new StreamValue(id2, values2)
-            );
-            when(mockOrchestrator.xrange("mystream", "-", "+")).thenReturn(entries);
+            StreamData stream = new StreamData("mystream");
+            stream.add("1000-0", null, new RespValue[] { bulkString("field1"), bulkString("value1") });
+            stream.add("1001-0", null, new RespValue[] { bulkString("field2"), bulkString("value2") });
+            when(mockOrchestrator.getStream("mystream")).thenReturn(stream);
 
             // Act
             XrangeCommand cmd = new XrangeCommand();
@@ -107,14 +103,16 @@ class StreamCommandTest {
 
             // Assert - result should be array
             String resultStr = new String(result);
-            assertTrue(resultStr.startsWith("*")); // Array response
-            verify(mockOrchestrator).xrange("mystream", "-", "+");
+            assertTrue(resultStr.startsWith("*2\r\n")); // Array response
+            verify(mockOrchestrator).getStream("mystream");
         }
 
         @Test
         void xrangeReturnsEmptyForNoMatches() throws IllegalStreamItemIdException {
             // Arrange
-            when(mockOrchestrator.xrange("mystream", "9999", "9999")).thenReturn(List.of());
+            StreamData stream = new StreamData("mystream");
+            stream.add("1000-0", null, new RespValue[] { bulkString("field1"), bulkString("value1") });
+            when(mockOrchestrator.getStream("mystream")).thenReturn(stream);
 
             // Act
             XrangeCommand cmd = new XrangeCommand();
@@ -130,6 +128,32 @@ class StreamCommandTest {
             String resultStr = new String(result);
             assertEquals("*0\r\n", resultStr);
         }
+
+        @Test
+        void xrevrangeHonorsCountNewestFirst() throws IllegalStreamItemIdException {
+            // Arrange
+            StreamData stream = new StreamData("mystream");
+            for (int i = 1; i <= 3; i++) {
+                stream.add(i + "-0", null, new RespValue[] { bulkString("f"), bulkString("v" + i) });
+            }
+            when(mockOrchestrator.getStream("mystream")).thenReturn(stream);
+
+            // Act
+            XrangeCommand cmd = new XrevrangeCommand();
+            cmd.setArgs(new RespValue[] {
+                bulkString("XREVRANGE"),
+                bulkString("mystream"),
+                bulkString("+"),
+                bulkString("-"),
+                bulkString("COUNT"),
+                bulkString("2")
+            });
+            byte[] result = cmd.execute(mockOrchestrator);
+
+            // Assert - the two newest entries
+            assertEquals("*2\r\n*2\r\n$3\r\n3-0\r\n*2\r\n$1\r\nf\r\n$2\r\nv3\r\n"
+                    + "*2\r\n$3\r\n2-0\r\n*2\r\n$1\r\nf\r\n$2\r\nv2\r\n", new String(result));
+        }
     }
 
     @Nested
@@ -143,7 +167,8 @@ class StreamCommandTest {
             List<List<StreamValue>> result = List.of(
                 List.of(new StreamValue(id, values))
             );
-            when(mockOrchestrator.xread(List.of("mystream"), List.of("0"))).thenReturn(result);
+            when(mockOrchestrator.xread(List.of("mystream"), List.of("0"), StreamData.DEFAULT_READ_COUNT))
+                .thenReturn(result);
 
             // Act
             XreadCommand cmd = new XreadCommand();
@@ -158,7 +183,42 @@ class StreamCommandTest {
             // Assert
             String resultStr = new String(cmdResult);
             assertTrue(resultStr.startsWith("*")); // Array response
-            verify(mockOrchestrator).xread(List.of("mystream"), List.of("0"));
+            verify(mockOrchestrator).xread(List.of("mystream"), List.of("0"), StreamData.DEFAULT_READ_COUNT);
+        }
+
+        @Test
+        void xreadWithCountAndNoEntriesReturnsNullArray() throws IllegalStreamItemIdException {
+            // Arrange
+            when(mockOrchestrator.xread(List.of("mystream"), List.of("5-0"), 10))
+                .thenReturn(List.of(List.of()));
+
+            // Act
+            XreadCommand cmd = new XreadCommand();
+            cmd.setArgs(new RespValue[] {
+                bulkString("XREAD"),
+                bulkString("COUNT"),
+                bulkString("10"),
+                bulkString("STREAMS"),
+                bulkString("mystream"),
+                bulkString("5-0")
+            });
+            byte[] cmdResult = cmd.execute(mockOrchestrator);
+
+            // Assert
+            assertEquals("*-1\r\n", new String(cmdResult));
+        }
+
+        @Test
+        void xreadRejectsNegativeBlock() {
+            XreadCommand cmd = new XreadCommand();
+            assertThrows(IllegalArgumentException.class, () -> cmd.setArgs(new RespValue[] {
+                bulkString("XREAD"),
+                bulkString("BLOCK"),
+                bulkString("-1"),
+                bulkString("STREAMS"),
+                bulkString("mystream"),
+                bulkString("0")
+            }));
         }
     }
 }
@@ -0,0 +1,96 @@
+package org.sredi.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BitmapTest {
+
+    @Test
+    void setBitGrowsAndUsesRedisBitOrder() {
+        Bitmap bitmap = new Bitmap();
+        assertEquals(0, bitmap.setBit(7, 1));
+        assertEquals(1, bitmap.setBit(7, 1));
+        assertEquals(1, bitmap.length());
+        assertArrayEquals(new byte[] { 0x01 }, bitmap.toByteArray());
+
+        bitmap.setBit(0, 1);
+        bitmap.setBit(100, 1);
+        assertEquals(13, bitmap.length());
+        byte[] bytes = bitmap.toByteArray();
+        assertEquals((byte) 0x81, bytes[0]);
+        assertEquals((byte) 0x08, bytes[12]);
+        assertEquals(1, bitmap.getBit(100));
+        assertEquals(0, bitmap.getBit(101));
+        assertEquals(0, bitmap.getBit(10_000));
+
+        assertEquals(1, bitmap.setBit(100, 0));
+        assertEquals(0, bitmap.getBit(100));
+        assertEquals(13, bitmap.length());
+    }
+
+    @Test
+    void roundTripsBytes() {
+        byte[] bytes = new byte[21];
+        new Random(1).nextBytes(bytes);
+        assertArrayEquals(bytes, new Bitmap(bytes).toByteArray());
+        assertArrayEquals(new byte[0], new Bitmap(new byte[0]).toByteArray());
+    }
+
+    @Test
+    void bitCountAndBitPosMatchABitSet() {
+        Random random = new Random(2);
+        Bitmap bitmap = new Bitmap();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 2_000; i++) {
+            int offset = random.nextInt(10_000);
+            bitmap.setBit(offset, 1);
+            expected.set(offset);
+        }
+        for (int i = 0; i < 200; i++) {
+            int start = random.nextInt(10_000);
+            int end = start + random.nextInt(10_000 - start);
+            assertEquals(expected.get(start, end + 1).cardinality(), bitmap.bitCount(start, end));
+            int nextSet = expected.nextSetBit(start);
+            assertEquals(nextSet >= 0 && nextSet <= end ? nextSet : -1, bitmap.bitPos(1, start, end));
+            int nextClear = expected.nextClearBit(start);
+            assertEquals(nextClear <= end ? nextClear : -1, bitmap.bitPos(0, start, end));
+        }
+    }
+
+    @Test
+    void bitopPadsShorterSources() {
+        Bitmap a = new Bitmap(new byte[] { (byte) 0xF0, 0x0F, (byte) 0xFF });
+        Bitmap b = new Bitmap(new byte[] { (byte) 0xFF });
+
+        assertArrayEquals(new byte[] { (byte) 0xF0, 0, 0 },
+                Bitmap.bitop(Bitmap.Op.AND, new Bitmap[] { a, b }).toByteArray());
+        assertArrayEquals(new byte[] { (byte) 0xFF, 0x0F, (byte) 0xFF },
+                Bitmap.bitop(Bitmap.Op.OR, new Bitmap[] { a, b }).toByteArray());
+        assertArrayEquals(new byte[] { 0x0F, 0x0F, (byte) 0xFF },
+                Bitmap.bitop(Bitmap.Op.XOR, new Bitmap[] { a, b }).toByteArray());
+        assertArrayEquals(new byte[] { 0, 0, 0 },
+                Bitmap.bitop(Bitmap.Op.AND, new Bitmap[] { a, null }).toByteArray());
+
+        Bitmap not = Bitmap.bitop(Bitmap.Op.NOT, new Bitmap[] { a });
+        assertArrayEquals(new byte[] { 0x0F, (byte) 0xF0, 0 }, not.toByteArray());
+        // bytes past the length stay zero, so counting the result sees only its own bits
+        assertEquals(8, not.bitCount(0, 23));
+    }
+
+    @Test
+    void largeBitmapsCountWholeWords() {
+        byte[] bytes = new byte[4 << 20];
+        new Random(3).nextBytes(bytes);
+        Bitmap a = new Bitmap(bytes);
+        long expected = BitSet.valueOf(bytes).cardinality();
+        assertEquals(expected, a.bitCount(0, bytes.length * 8L - 1));
+
+        Bitmap inverse = Bitmap.bitop(Bitmap.Op.NOT, new Bitmap[] { a });
+        assertEquals(0, Bitmap.bitop(Bitmap.Op.AND, new Bitmap[] { a, inverse }).bitCount(0, bytes.length * 8L - 1));
+        assertEquals(bytes.length * 8L, Bitmap.bitop(Bitmap.Op.OR, new Bitmap[] { a, inverse }).bitCount(0, bytes.length * 8L - 1));
+    }
+}
@@ -0,0 +1,142 @@
+package org.sredi.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.sredi.replication.ClientConnection;
+
+class BlockingManagerTest {
+
+    private ScheduledExecutorService timer;
+    private BlockingManager manager;
+    private Deque<String> list;
+    private ClientConnection connA;
+    private ClientConnection connB;
+
+    @BeforeEach
+    void setUp() {
+        timer = Executors.newSingleThreadScheduledExecutor();
+        manager = new BlockingManager(timer);
+        list = new ArrayDeque<>();
+        connA = mock(ClientConnection.class);
+        connB = mock(ClientConnection.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.shutdownNow();
+    }
+
+    private BlockingManager.Attempt popFromList() {
+        return key -> list.isEmpty() ? null : list.pollFirst().getBytes(UTF_8);
+    }
+
+    @Test
+    void servesWaitersInArrivalOrder() throws IOException {
+        manager.block(connA, List.of("q"), 0, "timeout".getBytes(UTF_8), popFromList());
+        manager.block(connB, List.of("q"), 0, "timeout".getBytes(UTF_8), popFromList());
+        assertEquals(2, manager.getBlockedCount());
+        verify(connA).setBlocked(true);
+
+        list.add("first");
+        manager.signalKeyReady("q");
+        manager.serveReadyKeys();
+
+        // the reply is written before the connection may be polled again
+        InOrder order = inOrder(connA);
+        order.verify(connA).sendResponse("first".getBytes(UTF_8));
+        order.verify(connA).setBlocked(false);
+        verify(connB, never()).sendResponse(any());
+        assertEquals(1, manager.getBlockedCount());
+
+        list.add("second");
+        manager.signalKeyReady("q");
+        manager.serveReadyKeys();
+
+        verify(connB).sendResponse("second".getBytes(UTF_8));
+        assertEquals(0, manager.getBlockedCount());
+    }
+
+    @Test
+    void readyKeyWithNothingToServeLeavesWaiterBlocked() throws IOException {
+        manager.block(connA, List.of("q"), 0, "timeout".getBytes(UTF_8), popFromList());
+
+        manager.signalKeyReady("q");
+        manager.serveReadyKeys();
+
+        verify(connA, never()).sendResponse(any());
+        assertEquals(1, manager.getBlockedCount());
+    }
+
+    @Test
+    void timeoutSendsTimeoutReply() throws Exception {
+        manager.block(connA, List.of("q"), 20, "timeout".getBytes(UTF_8), popFromList());
+
+        verify(connA, timeout(2000)).sendResponse("timeout".getBytes(UTF_8));
+        assertEquals(0, manager.getBlockedCount());
+    }
+
+    @Test
+    void removeConnectionDropsWaiter() throws IOException {
+        manager.block(connA, List.of("a", "b"), 0, "timeout".getBytes(UTF_8), popFromList());
+        manager.removeConnection(connA);
+        assertEquals(0, manager.getBlockedCount());
+
+        list.add("x");
+        manager.signalKeyReady("b");
+        manager.serveReadyKeys();
+        verify(connA, never()).sendResponse(any());
+    }
+
+    @Test
+    void readersAreAllServedFromOneReadyKey() throws IOException {
+        BlockingManager.Attempt peek = key -> list.isEmpty() ? null : list.peekFirst().getBytes(UTF_8);
+        manager.blockReader(connA, List.of("s"), 0, "timeout".getBytes(UTF_8), peek);
+        manager.blockReader(connB, List.of("s"), 0, "timeout".getBytes(UTF_8), peek);
+
+        list.add("entry");
+        manager.signalKeyReady("s");
+        manager.serveReadyKeys();
+
+        verify(connA).sendResponse("entry".getBytes(UTF_8));
+        verify(connB).sendResponse("entry".getBytes(UTF_8));
+        assertEquals(0, manager.getBlockedCount());
+    }
+
+    @Test
+    void servingWaitsForTheStripesOfEveryLockKey() throws Exception {
+        StripedLock stripedLock = new StripedLock();
+        BlockingManager lockingManager = new BlockingManager(timer, stripedLock);
+        lockingManager.block(connA, List.of("q"), List.of("q", "dest"), 0, "timeout".getBytes(UTF_8),
+                popFromList());
+        list.add("moved");
+
+        stripedLock.writeLock("dest");
+        Thread server = new Thread(() -> {
+            lockingManager.signalKeyReady("q");
+            lockingManager.serveReadyKeys();
+        });
+        server.start();
+        server.join(200);
+        assertTrue(server.isAlive());
+        verify(connA, never()).sendResponse(any());
+
+        stripedLock.writeUnlock("dest");
+        server.join(2000);
+        verify(connA).sendResponse("moved".getBytes(UTF_8));
+        assertEquals(0, lockingManager.getBlockedCount());
+    }
+}
@@ -3,9 +3,12 @@ package org.sredi.storage;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.jupiter.api.Test;
 
@@ -110,4 +113,88 @@ class BloomFilterTest {
         assertTrue(observed < 0.03,
                 "False positive rate too high: " + observed + " (target " + p + ")");
     }
+
+    @Test
+    void newFiltersHashWithMurmur3() {
+        assertEquals(BloomFilter.HashVersion.MURMUR3, new BloomFilter(100, 0.01).getHashVersion());
+    }
+
+    @Test
+    void legacyMd5FilterKeepsItsScheme() {
+        BloomFilter legacy = new BloomFilter(1000, 0.01, BloomFilter.HashVersion.MD5);
+        BloomFilter current = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            legacy.add(("item-" + i).getBytes(UTF_8));
+            current.add(("item-" + i).getBytes(UTF_8));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(legacy.mightContain(("item-" + i).getBytes(UTF_8)));
+            assertTrue(current.mightContain(("item-" + i).getBytes(UTF_8)));
+        }
+        assertEquals(BloomFilter.HashVersion.MD5, legacy.getHashVersion());
+    }
+
+    @Test
+    void blockedFilterRoundsUpToWholeBlocks() {
+        BloomFilter bf = new BloomFilter(1000, 0.01, BloomFilter.HashVersion.MURMUR3, true);
+        assertTrue(bf.isBlocked());
+        assertFalse(new BloomFilter(1000, 0.01).isBlocked());
+        assertEquals(7, bf.getK());
+        for (int i = 0; i < 1000; i++) {
+            bf.add(("item-" + i).getBytes(UTF_8));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(bf.mightContain(("item-" + i).getBytes(UTF_8)));
+        }
+    }
+
+    @Test
+    void blockedFalsePositiveRateStaysNearTarget() {
+        BloomFilter bf = new BloomFilter(10_000, 0.01, BloomFilter.HashVersion.MURMUR3, true);
+        for (int i = 0; i < 10_000; i++) {
+            bf.add(("in-" + i).getBytes(UTF_8));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bf.mightContain(("out-" + i).getBytes(UTF_8))) {
+                falsePositives++;
+            }
+        }
+        double observed = falsePositives / 100_000.0;
+        assertTrue(observed < 0.02, "False positive rate too high: " + observed);
+    }
+
+    @Test
+    void concurrentAddsLoseNoBits() throws InterruptedException {
+        for (boolean blocked : new boolean[] { false, true }) {
+            BloomFilter bf = new BloomFilter(80_000, 0.01, BloomFilter.HashVersion.MURMUR3, blocked);
+            int threads = 8;
+            int perThread = 10_000;
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        bf.add(("item-" + (offset + i)).getBytes(UTF_8));
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            for (int i = 0; i < threads * perThread; i++) {
+                assertTrue(bf.mightContain(("item-" + i).getBytes(UTF_8)), "lost item-" + i);
+            }
+            assertTrue(bf.getItemCount() <= threads * perThread);
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package org.sredi.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.sredi.storage.TestBytes.bytes;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CountMinSketchTest {
+
+    @Test
+    void dimensionsFromErrorAndProbability() {
+        CountMinSketch sketch = CountMinSketch.forErrorRate(0.001, 0.01);
+        assertEquals(2000, sketch.getWidth());
+        assertEquals(7, sketch.getDepth());
+        assertThrows(IllegalArgumentException.class, () -> CountMinSketch.forErrorRate(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 5));
+    }
+
+    @Test
+    void neverUndercountsAndStaysWithinErrorBound() {
+        CountMinSketch sketch = CountMinSketch.forErrorRate(0.001, 0.01);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            // skewed: a few hot keys and a long tail
+            String item = "key-" + (random.nextInt(10) < 5 ? random.nextInt(10) : random.nextInt(10_000));
+            sketch.incrBy(bytes(item), 1);
+            exact.merge(item, 1L, Long::sum);
+        }
+        assertEquals(100_000, sketch.getCount());
+        int overBound = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = sketch.query(bytes(entry.getKey()));
+            assertTrue(estimate >= entry.getValue());
+            if (estimate - entry.getValue() > 0.001 * sketch.getCount()) {
+                overBound++;
+            }
+        }
+        assertTrue(overBound <= 0.01 * exact.size(), "over bound: " + overBound);
+    }
+
+    @Test
+    void mergeAddsWeightedCounters() {
+        CountMinSketch a = new CountMinSketch(100, 5);
+        CountMinSketch b = new CountMinSketch(100, 5);
+        a.incrBy(bytes("x"), 3);
+        b.incrBy(bytes("x"), 4);
+        b.incrBy(bytes("y"), 1);
+
+        CountMinSketch dest = new CountMinSketch(100, 5);
+        dest.merge(new CountMinSketch[] { a, b }, new long[] { 1, 2 });
+        assertEquals(11, dest.query(bytes("x")));
+        assertEquals(2, dest.query(bytes("y")));
+        assertEquals(13, dest.getCount());
+
+        a.merge(new CountMinSketch[] { a, a }, new long[] { 1, 1 });
+        assertEquals(6, a.query(bytes("x")));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> dest.merge(new CountMinSketch[] { new CountMinSketch(50, 5) }, new long[] { 1 }));
+        assertEquals("ERR CMS: width/depth is not equal", e.getMessage());
+    }
+}
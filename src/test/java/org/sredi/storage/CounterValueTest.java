@@ -0,0 +1,66 @@
+package org.sredi.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class CounterValueTest {
+
+    @Test
+    void addReturnsExactValue() {
+        CounterValue counter = new CounterValue(10);
+        assertEquals(11, counter.add(1));
+        assertEquals(6, counter.add(-5));
+        assertEquals(6, counter.get());
+    }
+
+    @Test
+    void addDetectsOverflow() {
+        CounterValue counter = new CounterValue(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> counter.add(1));
+        assertEquals(Long.MAX_VALUE, counter.get());
+    }
+
+    @Test
+    void concurrentAddsReturnDistinctValues() throws InterruptedException {
+        CounterValue counter = new CounterValue(0);
+        int threads = 8;
+        int perThread = 100_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<Set<Long>> replies = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Set<Long> seen = new HashSet<>();
+            replies.add(seen);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    seen.add(counter.add(1));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals((long) threads * perThread, counter.get());
+        Set<Long> all = new HashSet<>();
+        for (Set<Long> seen : replies) {
+            all.addAll(seen);
+        }
+        // every increment produced its own value, so no two callers got the same reply
+        assertEquals(threads * perThread, all.size());
+    }
+}
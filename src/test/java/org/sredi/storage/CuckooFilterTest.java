@@ -0,0 +1,107 @@
+package org.sredi.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.sredi.storage.TestBytes.bytes;
+
+import org.junit.jupiter.api.Test;
+
+class CuckooFilterTest {
+
+    @Test
+    void addExistsAndDelete() {
+        CuckooFilter cf = new CuckooFilter(1000, CuckooFilter.DEFAULT_MAX_ITERATIONS, 1);
+        cf.add(bytes("a"));
+        cf.add(bytes("a"));
+        cf.add(bytes("b"));
+        assertTrue(cf.mightContain(bytes("a")));
+        assertEquals(2, cf.count(bytes("a")));
+        assertEquals(3, cf.getItemCount());
+
+        assertTrue(cf.delete(bytes("a")));
+        assertTrue(cf.mightContain(bytes("a")));
+        assertTrue(cf.delete(bytes("a")));
+        assertFalse(cf.mightContain(bytes("a")));
+        assertFalse(cf.delete(bytes("a")));
+        assertTrue(cf.mightContain(bytes("b")));
+        assertEquals(1, cf.getItemCount());
+        assertEquals(2, cf.getDeleteCount());
+    }
+
+    @Test
+    void holdsReservedCapacityWithoutFalseNegatives() {
+        int n = 100_000;
+        CuckooFilter cf = new CuckooFilter(n, CuckooFilter.DEFAULT_MAX_ITERATIONS, 0);
+        for (int i = 0; i < n; i++) {
+            cf.add(bytes("item-" + i));
+        }
+        assertEquals(1, cf.getFilterCount());
+        for (int i = 0; i < n; i++) {
+            assertTrue(cf.mightContain(bytes("item-" + i)), "false negative for item-" + i);
+        }
+        for (int i = 0; i < n; i += 2) {
+            assertTrue(cf.delete(bytes("item-" + i)));
+        }
+        for (int i = 1; i < n; i += 2) {
+            assertTrue(cf.mightContain(bytes("item-" + i)), "false negative for item-" + i);
+        }
+    }
+
+    @Test
+    void failedInsertLeavesFilterIntactWithoutExpansion() {
+        CuckooFilter cf = new CuckooFilter(40, 50, 0);
+        int added = 0;
+        while (true) {
+            try {
+                cf.add(bytes("item-" + added));
+                added++;
+            } catch (IllegalStateException e) {
+                assertEquals("ERR Filter is full", e.getMessage());
+                break;
+            }
+        }
+        assertTrue(added >= 40, "added " + added);
+        for (int i = 0; i < added; i++) {
+            assertTrue(cf.mightContain(bytes("item-" + i)), "false negative for item-" + i);
+        }
+        assertEquals(added, cf.getItemCount());
+    }
+
+    @Test
+    void expandsIntoNewLayers() {
+        CuckooFilter cf = new CuckooFilter(100, CuckooFilter.DEFAULT_MAX_ITERATIONS, 2);
+        for (int i = 0; i < 1000; i++) {
+            cf.add(bytes("item-" + i));
+        }
+        assertTrue(cf.getFilterCount() > 1);
+        assertEquals(100, cf.getLayers().get(0).capacity);
+        assertEquals(200, cf.getLayers().get(1).capacity);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(cf.mightContain(bytes("item-" + i)), "false negative for item-" + i);
+        }
+    }
+
+    @Test
+    void smallerThanBloomFilterAtEqualFalsePositiveRate() {
+        int n = 100_000;
+        CuckooFilter cf = new CuckooFilter(n, CuckooFilter.DEFAULT_MAX_ITERATIONS, 0);
+        for (int i = 0; i < n; i++) {
+            cf.add(bytes("in-" + i));
+        }
+        int falsePositives = 0;
+        int probes = 1_000_000;
+        for (int i = 0; i < probes; i++) {
+            if (cf.mightContain(bytes("out-" + i))) {
+                falsePositives++;
+            }
+        }
+        double rate = falsePositives / (double) probes;
+        // expected 8 / 65535 * 0.95 load, with room for sampling noise
+        assertTrue(rate < 1.5 * 8.0 / 65536, "fp rate " + rate);
+
+        // a Bloom filter sized for the cuckoo filter's worst-case rate
+        BloomFilter bf = new BloomFilter(n, 8.0 / 65536);
+        double cuckooBitsPerItem = cf.getSizeInBytes() * 8.0 / n;
+        double bloomBitsPerItem = bf.getSizeInBytes() * 8.0 / n;
+        assertTrue(cuckooBitsPerItem < bloomBitsPerItem, cuckooBitsPerItem + " vs " + bloomBitsPerItem);
+    }
+}
@@ -0,0 +1,41 @@
+package org.sredi.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class GlobPatternTest {
+
+    @Test
+    void wildcards() {
+        GlobPattern pattern = GlobPattern.compile("user:*:name");
+        assertTrue(pattern.matches("user:42:name"));
+        assertTrue(pattern.matches("user::name"));
+        assertFalse(pattern.matches("user:42:email"));
+        assertTrue(GlobPattern.compile("h?llo").matches("hello"));
+        assertFalse(GlobPattern.compile("h?llo").matches("hllo"));
+        assertTrue(GlobPattern.compile("*a*b*").matches("xxaxxbxx"));
+        assertFalse(GlobPattern.compile("*a*b").matches("xxaxxbxx"));
+    }
+
+    @Test
+    void byteSetsAndEscapes() {
+        assertTrue(GlobPattern.compile("h[ae]llo").matches("hallo"));
+        assertFalse(GlobPattern.compile("h[ae]llo").matches("hillo"));
+        assertTrue(GlobPattern.compile("h[^e]llo").matches("hallo"));
+        assertFalse(GlobPattern.compile("h[^e]llo").matches("hello"));
+        assertTrue(GlobPattern.compile("key[0-9]").matches("key7"));
+        assertFalse(GlobPattern.compile("key[0-9]").matches("keyx"));
+        assertTrue(GlobPattern.compile("a\\*b").matches("a*b"));
+        assertFalse(GlobPattern.compile("a\\*b").matches("axb"));
+    }
+
+    @Test
+    void shortcuts() {
+        assertTrue(GlobPattern.compile("*").matchesAll());
+        assertTrue(GlobPattern.compile("**").matchesAll());
+        assertFalse(GlobPattern.compile("a*").matchesAll());
+        assertTrue(GlobPattern.compile("exact").matches("exact"));
+        assertFalse(GlobPattern.compile("exact").matches("exactly"));
+    }
+}
@@ -0,0 +1,112 @@
+package org.sredi.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.sredi.storage.TestBytes.bytes;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class HashValueTest {
+
+    private static Map<String, String> contents(HashValue hash) {
+        Map<String, String> map = new HashMap<>();
+        hash.forEach((field, value) -> map.put(new String(field, UTF_8), new String(value, UTF_8)));
+        return map;
+    }
+
+    @Test
+    void listpackPutGetReplaceAndRemove() {
+        HashValue hash = new HashValue();
+        assertTrue(hash.put(bytes("name"), bytes("ada")));
+        assertTrue(hash.put(bytes("lang"), bytes("en")));
+        assertFalse(hash.put(bytes("name"), bytes("grace hopper")));
+        assertTrue(hash.isListpack());
+        assertEquals(2, hash.size());
+        assertArrayEquals(bytes("grace hopper"), hash.get(bytes("name")));
+        assertArrayEquals(bytes("en"), hash.get(bytes("lang")));
+        assertNull(hash.get(bytes("missing")));
+        // a value is never found as a field
+        assertFalse(hash.containsField(bytes("en")));
+
+        assertTrue(hash.remove(bytes("name")));
+        assertFalse(hash.remove(bytes("name")));
+        assertEquals(Map.of("lang", "en"), contents(hash));
+    }
+
+    @Test
+    void convertsPastEntryLimitKeepingContents() {
+        HashValue hash = new HashValue(4, 64);
+        for (int i = 0; i < 4; i++) {
+            hash.put(bytes("f" + i), bytes("v" + i));
+        }
+        assertTrue(hash.isListpack());
+        hash.put(bytes("f4"), bytes("v4"));
+        assertFalse(hash.isListpack());
+        assertEquals(5, hash.size());
+        for (int i = 0; i < 5; i++) {
+            assertArrayEquals(bytes("v" + i), hash.get(bytes("f" + i)));
+        }
+    }
+
+    @Test
+    void convertsForLongValues() {
+        HashValue hash = new HashValue(128, 8);
+        hash.put(bytes("short"), bytes("ok"));
+        assertTrue(hash.isListpack());
+        hash.put(bytes("long"), bytes("more than eight bytes"));
+        assertFalse(hash.isListpack());
+        assertEquals(Map.of("short", "ok", "long", "more than eight bytes"), contents(hash));
+    }
+
+    @Test
+    void incrByParsesAndChecksOverflow() {
+        HashValue hash = new HashValue();
+        assertEquals(5, hash.incrBy(bytes("n"), 5));
+        assertEquals(2, hash.incrBy(bytes("n"), -3));
+        hash.put(bytes("s"), bytes("abc"));
+        assertThrows(IllegalStateException.class, () -> hash.incrBy(bytes("s"), 1));
+        hash.put(bytes("max"), bytes(String.valueOf(Long.MAX_VALUE)));
+        assertThrows(IllegalStateException.class, () -> hash.incrBy(bytes("max"), 1));
+    }
+
+    @Test
+    void scanCoversEveryFieldAcrossResizes() {
+        HashValue hash = new HashValue(0, 64);
+        for (int i = 0; i < 1000; i++) {
+            hash.put(bytes("f" + i), bytes("v"));
+        }
+        Set<String> seen = new HashSet<>();
+        long cursor = 0;
+        int steps = 0;
+        do {
+            cursor = hash.scan(cursor, 10, (field, value) -> seen.add(new String(field, UTF_8)));
+            steps++;
+            // grow the table mid-scan, then shrink it back below where it started
+            if (steps == 20) {
+                for (int i = 1000; i < 5000; i++) hash.put(bytes("f" + i), bytes("v"));
+            }
+            if (steps == 60) {
+                for (int i = 1000; i < 5000; i++) hash.remove(bytes("f" + i));
+                for (int i = 500; i < 1000; i++) hash.remove(bytes("f" + i));
+            }
+        } while (cursor != 0);
+        for (int i = 0; i < 500; i++) {
+            assertTrue(seen.contains("f" + i), "missed f" + i);
+        }
+    }
+
+    @Test
+    void listpackScanReturnsEverythingAtOnce() {
+        HashValue hash = new HashValue();
+        hash.put(bytes("a"), bytes("1"));
+        hash.put(bytes("b"), bytes("2"));
+        Map<String, String> seen = new HashMap<>();
+        assertEquals(0, hash.scan(0, 1, (f, v) -> seen.put(new String(f, UTF_8), new String(v, UTF_8))));
+        assertEquals(Map.of("a", "1", "b", "2"), seen);
+    }
+}
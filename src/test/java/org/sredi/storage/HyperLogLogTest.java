@@ -0,0 +1,88 @@
+package org.sredi.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.sredi.storage.TestBytes.bytes;
+
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+    private static HyperLogLog withItems(String prefix, int n) {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < n; i++) {
+            hll.add(bytes(prefix + i));
+        }
+        return hll;
+    }
+
+    @Test
+    void startsSparseInAFewBytes() {
+        HyperLogLog hll = new HyperLogLog();
+        assertTrue(hll.isSparse());
+        assertEquals(2, hll.getSizeInBytes());
+        assertEquals(0, hll.count());
+
+        assertTrue(hll.add(bytes("a")));
+        assertFalse(hll.add(bytes("a")));
+        assertEquals(1, hll.count());
+        assertTrue(hll.getSizeInBytes() <= 6);
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExactAndSparse() {
+        HyperLogLog hll = withItems("item-", 100);
+        assertTrue(hll.isSparse());
+        assertTrue(hll.getSizeInBytes() < 400, "sparse size " + hll.getSizeInBytes());
+        assertEquals(100, hll.count(), 2);
+    }
+
+    @Test
+    void becomesDenseAndStaysWithinStandardError() {
+        HyperLogLog hll = withItems("item-", 100_000);
+        assertFalse(hll.isSparse());
+        assertEquals(HyperLogLog.DENSE_BYTES, hll.getSizeInBytes());
+        // standard error is 0.81%, so 3% is well beyond three sigma
+        assertEquals(100_000, hll.count(), 3_000);
+    }
+
+    @Test
+    void sparseAndDenseEncodingsAgree() {
+        HyperLogLog sparse = withItems("item-", 500);
+        assertTrue(sparse.isSparse());
+        byte[] registers = new byte[HyperLogLog.REGISTERS];
+        sparse.maxInto(registers);
+        HyperLogLog dense = new HyperLogLog();
+        dense.setRegisters(registers);
+        assertFalse(dense.isSparse());
+        assertEquals(sparse.count(), dense.count());
+
+        byte[] roundTrip = new byte[HyperLogLog.REGISTERS];
+        dense.maxInto(roundTrip);
+        assertArrayEquals(registers, roundTrip);
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog a = withItems("item-", 30_000);
+        HyperLogLog b = new HyperLogLog();
+        for (int i = 20_000; i < 50_000; i++) {
+            b.add(bytes("item-" + i));
+        }
+        byte[] registers = new byte[HyperLogLog.REGISTERS];
+        a.maxInto(registers);
+        b.maxInto(registers);
+        assertEquals(50_000, HyperLogLog.countRegisters(registers), 1_500);
+
+        HyperLogLog union = withItems("item-", 50_000);
+        assertEquals(union.count(), HyperLogLog.countRegisters(registers));
+    }
+
+    @Test
+    void cachedCountIsRefreshedAfterChanges() {
+        HyperLogLog hll = withItems("item-", 10);
+        long before = hll.count();
+        assertEquals(before, hll.count());
+        hll.add(bytes("another"));
+        assertTrue(hll.count() > before);
+    }
+}
@@ -0,0 +1,122 @@
+package org.sredi.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class KeyspaceTest {
+
+    private static DataEntry entry() {
+        return new DataEntry("v".getBytes(), 0, null);
+    }
+
+    private static Keyspace keyspaceOf(int n) {
+        Keyspace keyspace = new Keyspace();
+        for (int i = 0; i < n; i++) {
+            keyspace.put("key:" + i, entry());
+        }
+        return keyspace;
+    }
+
+    private static Set<String> keysOf(Keyspace keyspace) {
+        Set<String> keys = new HashSet<>();
+        keyspace.forEach((key, entry) -> keys.add(key));
+        return keys;
+    }
+
+    private static List<String> scanAll(Keyspace keyspace, int count) {
+        List<String> keys = new ArrayList<>();
+        long cursor = 0;
+        do {
+            cursor = keyspace.scan(cursor, count, (key, entry) -> keys.add(key));
+        } while (cursor != 0);
+        return keys;
+    }
+
+    @Test
+    void scanReturnsEveryKeyOnce() {
+        Keyspace keyspace = keyspaceOf(1000);
+        List<String> keys = scanAll(keyspace, 10);
+        assertEquals(1000, keys.size());
+        assertEquals(keysOf(keyspace), new HashSet<>(keys));
+    }
+
+    @Test
+    void scanOfEmptyKeyspaceCompletesAtOnce() {
+        List<String> keys = new ArrayList<>();
+        assertEquals(0, new Keyspace().scan(0, 10, (key, entry) -> keys.add(key)));
+        assertTrue(keys.isEmpty());
+    }
+
+    @Test
+    void stepsVisitAtLeastCountKeys() {
+        Keyspace keyspace = keyspaceOf(100);
+        List<String> keys = new ArrayList<>();
+        long cursor = keyspace.scan(0, 30, (key, entry) -> keys.add(key));
+        assertNotEquals(0, cursor);
+        assertTrue(keys.size() >= 30 && keys.size() < 100, "visited " + keys.size());
+    }
+
+    @Test
+    void keysPresentThroughoutAreReturnedWhileKeyspaceChanges() {
+        Keyspace keyspace = keyspaceOf(500);
+        Set<String> stable = keysOf(keyspace);
+        List<String> seen = new ArrayList<>();
+        long cursor = 0;
+        int step = 0;
+        do {
+            cursor = keyspace.scan(cursor, 20, (key, entry) -> seen.add(key));
+            // grow past several table resizes, then shrink back, touching only keys outside the
+            // stable set
+            if (step < 10) {
+                for (int i = 0; i < 200; i++) {
+                    keyspace.put("added:" + step + ":" + i, entry());
+                }
+            } else if (step < 20) {
+                for (int i = 0; i < 200; i++) {
+                    keyspace.remove("added:" + (step - 10) + ":" + i);
+                }
+            }
+            step++;
+        } while (cursor != 0);
+        Set<String> returned = new HashSet<>(seen);
+        assertTrue(returned.containsAll(stable));
+    }
+
+    @Test
+    void writesReturnTheirEntries() {
+        Keyspace keyspace = keyspaceOf(10);
+        DataEntry replacement = entry();
+        assertNotNull(keyspace.put("key:0", replacement));
+        assertSame(replacement, keyspace.get("key:0"));
+        assertNull(keyspace.put("new", entry()));
+        assertNotNull(keyspace.remove("key:3"));
+        assertNull(keyspace.remove("key:3"));
+        assertNull(keyspace.compute("key:5", (k, v) -> null));
+        DataEntry created = keyspace.computeIfAbsent("other", k -> entry());
+        assertSame(created, keyspace.computeIfAbsent("other", k -> entry()));
+        assertThrows(IllegalStateException.class, () -> keyspace.compute("key:1", (k, v) -> {
+            throw new IllegalStateException();
+        }));
+        assertTrue(keyspace.containsKey("key:1"));
+
+        assertEquals(10, keyspace.size());
+        assertEquals(keysOf(keyspace), new HashSet<>(scanAll(keyspace, 3)));
+    }
+
+    @Test
+    void shrinksBackAfterRemovals() {
+        Keyspace keyspace = keyspaceOf(1000);
+        for (int i = 0; i < 1000; i++) {
+            keyspace.remove("key:" + i);
+        }
+        assertEquals(0, keyspace.size());
+        assertTrue(scanAll(keyspace, 3).isEmpty());
+        assertNull(keyspace.get("key:1"));
+    }
+}
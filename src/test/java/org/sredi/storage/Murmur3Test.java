@@ -0,0 +1,24 @@
+package org.sredi.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class Murmur3Test {
+
+    private static long[] hash(String s) {
+        long[] out = new long[2];
+        Murmur3.hash128(s.getBytes(UTF_8), 0, out);
+        return out;
+    }
+
+    @Test
+    void matchesReferenceVectors() {
+        assertArrayEquals(new long[] { 0, 0 }, hash(""));
+        assertArrayEquals(new long[] { 0xcbd8a7b341bd9b02L, 0x5b1e906a48ae1d19L }, hash("hello"));
+        // 43 bytes: two full blocks and an 11 byte tail
+        assertArrayEquals(new long[] { 0xe34bbc7bbc071b6cL, 0x7a433ca9c49a9347L },
+                hash("The quick brown fox jumps over the lazy dog"));
+    }
+}
@@ -0,0 +1,94 @@
+package org.sredi.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OffHeapValueArenaTest {
+
+    private OffHeapValueArena arena;
+
+    @BeforeEach
+    void setUp() {
+        arena = new OffHeapValueArena();
+    }
+
+    @AfterEach
+    void tearDown() {
+        arena.close();
+    }
+
+    @Test
+    void sizeClassesArePowersOfTwo() {
+        assertEquals(0, OffHeapValueArena.sizeClassFor(0));
+        assertEquals(0, OffHeapValueArena.sizeClassFor(16));
+        assertEquals(1, OffHeapValueArena.sizeClassFor(17));
+        assertEquals(16, OffHeapValueArena.sizeClassFor(1 << 20));
+        assertEquals(-1, OffHeapValueArena.sizeClassFor((1 << 20) + 1));
+    }
+
+    @Test
+    void roundTripsValue() {
+        OffHeapValue value = arena.allocate("hello".getBytes(UTF_8));
+        assertEquals(5, value.length());
+        assertArrayEquals("hello".getBytes(UTF_8), value.toByteArray());
+        assertEquals("$5\r\nhello\r\n", new String(value.asBulkStringResponse(), UTF_8));
+    }
+
+    @Test
+    void freedSlotIsReused() {
+        OffHeapValue first = arena.allocate(new byte[100]);
+        long address = first.getSegment().address();
+        first.release();
+        assertEquals(0, arena.getUsedBytes());
+
+        OffHeapValue second = arena.allocate(new byte[120]);
+        assertEquals(address, second.getSegment().address());
+    }
+
+    @Test
+    void releasedValueReadsAsNull() {
+        OffHeapValue value = arena.allocate("hello".getBytes(UTF_8));
+        value.release();
+        value.release();
+        assertNull(value.toByteArray());
+        assertNull(value.asBulkStringResponse());
+        assertEquals(0, arena.getUsedBytes());
+    }
+
+    @Test
+    void largeValueGetsDedicatedSegment() {
+        byte[] payload = new byte[(1 << 20) + 10];
+        payload[payload.length - 1] = 7;
+        OffHeapValue value = arena.allocate(payload);
+        assertArrayEquals(payload, value.toByteArray());
+
+        long reserved = arena.getReservedBytes();
+        value.release();
+        assertEquals(reserved - payload.length, arena.getReservedBytes());
+    }
+
+    @Test
+    void dataStoreReleasesOnOverwriteAndDelete() {
+        Clock clock = Clock.fixed(Instant.ofEpochMilli(1000L), ZoneId.of("UTC"));
+        DataStore store = new DataStore(clock, -1, arena);
+
+        store.set("k", new DataEntry("v1".getBytes(UTF_8), 0L, null));
+        assertNotNull(store.get("k").getOffHeapValue());
+        long used = arena.getUsedBytes();
+
+        store.set("k", new DataEntry("v2".getBytes(UTF_8), 0L, null));
+        assertEquals(used, arena.getUsedBytes());
+        assertArrayEquals("v2".getBytes(UTF_8), store.get("k").getValue());
+
+        store.delete("k");
+        assertEquals(0, arena.getUsedBytes());
+    }
+}
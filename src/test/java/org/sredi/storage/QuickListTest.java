@@ -0,0 +1,129 @@
+package org.sredi.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.sredi.storage.TestBytes.bytes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class QuickListTest {
+
+    private static List<String> strings(List<byte[]> values) {
+        List<String> result = new ArrayList<>();
+        values.forEach(v -> result.add(new String(v, UTF_8)));
+        return result;
+    }
+
+    @Test
+    void pushAndPopFromBothEnds() {
+        QuickList list = new QuickList();
+        list.pushTail(bytes("b"));
+        list.pushHead(bytes("a"));
+        list.pushTail(bytes("c"));
+
+        assertEquals(3, list.size());
+        assertEquals("a", new String(list.popHead(), UTF_8));
+        assertEquals("c", new String(list.popTail(), UTF_8));
+        assertEquals("b", new String(list.popTail(), UTF_8));
+        assertTrue(list.isEmpty());
+        assertNull(list.popHead());
+        assertEquals(0, list.getNodeCount());
+    }
+
+    @Test
+    void spillsIntoNewNodesAndIndexesAcrossThem() {
+        QuickList list = new QuickList();
+        for (int i = 0; i < 5000; i++) {
+            list.pushTail(bytes("item-" + i));
+        }
+        assertTrue(list.getNodeCount() > 1);
+        assertEquals("item-0", new String(list.get(0), UTF_8));
+        assertEquals("item-2500", new String(list.get(2500), UTF_8));
+        assertEquals("item-4999", new String(list.get(4999), UTF_8));
+        assertEquals(List.of("item-1999", "item-2000", "item-2001"), strings(list.range(1999, 2001)));
+    }
+
+    @Test
+    void setInsertAndTrim() {
+        QuickList list = new QuickList();
+        for (String s : List.of("a", "b", "c", "d", "e")) {
+            list.pushTail(bytes(s));
+        }
+        list.set(1, bytes("B"));
+        assertEquals(6, list.insert(bytes("c"), bytes("x"), true));
+        assertEquals(7, list.insert(bytes("e"), bytes("y"), false));
+        assertEquals(-1, list.insert(bytes("missing"), bytes("z"), true));
+        assertEquals(List.of("a", "B", "x", "c", "d", "e", "y"), strings(list.range(0, 6)));
+
+        list.trim(1, 4);
+        assertEquals(List.of("B", "x", "c", "d"), strings(list.range(0, list.size() - 1)));
+
+        list.trim(3, 1);
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    void largeValuesRoundTrip() {
+        QuickList list = new QuickList();
+        byte[] big = new byte[QuickList.NODE_SIZE_LIMIT * 2];
+        big[big.length - 1] = 42;
+        list.pushTail(bytes("small"));
+        list.pushTail(big);
+        list.pushHead(big);
+        assertArrayEquals(big, list.get(0));
+        assertArrayEquals(big, list.popTail());
+        assertEquals("small", new String(list.popTail(), UTF_8));
+    }
+
+    @Test
+    void matchesArrayListUnderRandomOperations() {
+        Random random = new Random(7);
+        QuickList list = new QuickList();
+        List<String> model = new ArrayList<>();
+        for (int op = 0; op < 20000; op++) {
+            String value = "v" + random.nextInt(1000) + "x".repeat(random.nextInt(300));
+            switch (random.nextInt(7)) {
+                case 0 -> { list.pushHead(bytes(value)); model.add(0, value); }
+                case 1 -> { list.pushTail(bytes(value)); model.add(value); }
+                case 2 -> {
+                    byte[] popped = list.popHead();
+                    assertEquals(model.isEmpty() ? null : model.remove(0),
+                            popped == null ? null : new String(popped, UTF_8));
+                }
+                case 3 -> {
+                    byte[] popped = list.popTail();
+                    assertEquals(model.isEmpty() ? null : model.remove(model.size() - 1),
+                            popped == null ? null : new String(popped, UTF_8));
+                }
+                case 4 -> {
+                    if (!model.isEmpty()) {
+                        int index = random.nextInt(model.size());
+                        list.set(index, bytes(value));
+                        model.set(index, value);
+                    }
+                }
+                case 5 -> {
+                    if (!model.isEmpty()) {
+                        String pivot = model.get(random.nextInt(model.size()));
+                        int index = model.indexOf(pivot);
+                        boolean before = random.nextBoolean();
+                        list.insert(bytes(pivot), bytes(value), before);
+                        model.add(before ? index : index + 1, value);
+                    }
+                }
+                default -> {
+                    if (!model.isEmpty()) {
+                        int index = random.nextInt(model.size());
+                        assertEquals(model.get(index), new String(list.get(index), UTF_8));
+                    }
+                }
+            }
+            assertEquals(model.size(), list.size());
+        }
+        assertEquals(model, strings(list.range(0, list.size() - 1)));
+    }
+}
@@ -0,0 +1,143 @@
+package org.sredi.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.sredi.storage.TestBytes.bytes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void growsByExpansionWithTighterErrorRate() {
+        ScalableBloomFilter bf = new ScalableBloomFilter(100, 0.01, 2, false, false);
+        for (int i = 0; i < 1000; i++) {
+            bf.add(bytes("item-" + i));
+        }
+        assertEquals(4, bf.getFilters().size()); // 100 + 200 + 400 + 800
+        assertEquals(1500, bf.getCapacity());
+        BloomFilter last = bf.getFilters().get(3);
+        assertEquals(800, last.getCapacity());
+        assertEquals(0.00125, last.getErrorRate(), 1e-12);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(bf.mightContain(bytes("item-" + i)), "false negative for item-" + i);
+        }
+    }
+
+    @Test
+    void compoundFalsePositiveRateStaysBounded() {
+        ScalableBloomFilter bf = new ScalableBloomFilter(1000, 0.01, 2, false, false);
+        int n = 50_000;
+        for (int i = 0; i < n; i++) {
+            bf.add(bytes("in-" + i));
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (bf.mightContain(bytes("out-" + i))) {
+                falsePositives++;
+            }
+        }
+        // layer rates sum to at most 2 * 0.01
+        assertTrue(falsePositives / (double) probes < 0.02, "fp rate " + falsePositives / (double) probes);
+    }
+
+    @Test
+    void duplicatesAreNotCounted() {
+        ScalableBloomFilter bf = new ScalableBloomFilter(10, 0.01, 2, false, false);
+        assertTrue(bf.add(bytes("a")));
+        assertFalse(bf.add(bytes("a")));
+        assertEquals(1, bf.getItemCount());
+    }
+
+    @Test
+    void nonScalingFilterRejectsAddsWhenFull() {
+        ScalableBloomFilter bf = new ScalableBloomFilter(10, 0.01, 2, true, false);
+        int added = 0;
+        for (int i = 0; added < 10; i++) {
+            if (bf.add(bytes("item-" + i))) {
+                added++;
+            }
+        }
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> bf.add(bytes("one-more-unseen-item")));
+        assertEquals("ERR non scaling filter is full", e.getMessage());
+        assertEquals(1, bf.getFilters().size());
+    }
+
+    @Test
+    void addAllMatchesSingleAdds() {
+        ScalableBloomFilter batch = new ScalableBloomFilter(50, 0.01, 2, false, false);
+        ScalableBloomFilter single = new ScalableBloomFilter(50, 0.01, 2, false, false);
+        List<byte[]> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            items.add(bytes("item-" + (i % 400)));
+        }
+        boolean[] added = new boolean[items.size()];
+        assertEquals(items.size(), batch.addAll(items, added));
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(single.add(items.get(i)), added[i], "item " + i);
+        }
+        assertEquals(single.getItemCount(), batch.getItemCount());
+        assertEquals(single.getFilters().size(), batch.getFilters().size());
+        boolean[] present = batch.mightContainAll(items);
+        for (boolean p : present) {
+            assertTrue(p);
+        }
+    }
+
+    @Test
+    void addAllStopsWhenNonScalingFilterFills() {
+        ScalableBloomFilter bf = new ScalableBloomFilter(2, 0.01, 2, true, false);
+        boolean[] added = new boolean[3];
+        assertEquals(2, bf.addAll(List.of(bytes("a"), bytes("b"), bytes("c")), added));
+        assertTrue(added[0]);
+        assertTrue(added[1]);
+    }
+
+    @Test
+    void concurrentAddsGrowOneLayerAtATime() throws InterruptedException {
+        ScalableBloomFilter bf = new ScalableBloomFilter(1000, 0.01, 2, false, false);
+        int threads = 8;
+        int perThread = 5_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    bf.add(bytes("item-" + (offset + i)));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        for (int i = 0; i < threads * perThread; i++) {
+            assertTrue(bf.mightContain(bytes("item-" + i)), "lost item-" + i);
+        }
+        // 40k items fill 1k + 2k + ... + 32k; a race may not add an extra layer
+        assertEquals(6, bf.getFilters().size());
+        List<BloomFilter> layers = bf.getFilters();
+        for (int i = 1; i < layers.size(); i++) {
+            assertEquals(layers.get(i - 1).getCapacity() * 2, layers.get(i).getCapacity());
+        }
+    }
+
+    @Test
+    void rejectsExpansionBelowOne() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ScalableBloomFilter(10, 0.01, 0, false, false));
+    }
+}
@@ -0,0 +1,138 @@
+package org.sredi.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.sredi.storage.TestBytes.bytes;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class SetValueTest {
+
+    private static List<String> members(SetValue set) {
+        List<String> members = new ArrayList<>();
+        set.forEach(member -> members.add(new String(member, UTF_8)));
+        return members;
+    }
+
+    private static SetValue setOf(String... members) {
+        SetValue set = new SetValue();
+        for (String member : members) {
+            set.add(bytes(member));
+        }
+        return set;
+    }
+
+    @Test
+    void intSetKeepsMembersSortedAndUpgradesWidth() {
+        IntSet ints = new IntSet();
+        assertTrue(ints.add(5));
+        assertTrue(ints.add(-3));
+        assertFalse(ints.add(5));
+        assertEquals(Short.BYTES, ints.getEncoding());
+        assertTrue(ints.add(100_000));
+        assertEquals(Integer.BYTES, ints.getEncoding());
+        assertTrue(ints.add(Long.MIN_VALUE));
+        assertEquals(Long.BYTES, ints.getEncoding());
+        assertEquals(4, ints.size());
+        assertEquals(Long.MIN_VALUE, ints.get(0));
+        assertEquals(-3, ints.get(1));
+        assertEquals(5, ints.get(2));
+        assertEquals(100_000, ints.get(3));
+        assertTrue(ints.contains(-3));
+        assertFalse(ints.contains(4));
+
+        assertTrue(ints.remove(5));
+        assertFalse(ints.remove(5));
+        assertEquals(3, ints.size());
+        assertEquals(100_000, ints.get(2));
+    }
+
+    @Test
+    void integerMembersStayInIntSet() {
+        SetValue set = setOf("3", "-1", "20", "3");
+        assertTrue(set.isIntSet());
+        assertEquals(3, set.size());
+        assertEquals(List.of("-1", "3", "20"), members(set));
+        assertTrue(set.contains(bytes("20")));
+        // non-canonical spellings are different members
+        assertFalse(set.contains(bytes("020")));
+        assertFalse(set.contains(bytes("+3")));
+        assertTrue(set.remove(bytes("-1")));
+        assertFalse(set.remove(bytes("x")));
+        assertEquals(List.of("3", "20"), members(set));
+    }
+
+    @Test
+    void parsesOnlyCanonicalIntegers() {
+        assertEquals(Long.valueOf(0), SetValue.parseCanonical(bytes("0")));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), SetValue.parseCanonical(bytes("9223372036854775807")));
+        assertEquals(Long.valueOf(Long.MIN_VALUE), SetValue.parseCanonical(bytes("-9223372036854775808")));
+        assertNull(SetValue.parseCanonical(bytes("9223372036854775808")));
+        assertNull(SetValue.parseCanonical(bytes("-0")));
+        assertNull(SetValue.parseCanonical(bytes("01")));
+        assertNull(SetValue.parseCanonical(bytes("-")));
+        assertNull(SetValue.parseCanonical(bytes("")));
+        assertNull(SetValue.parseCanonical(bytes("1a")));
+    }
+
+    @Test
+    void convertsToTableForStringsAndLargeSets() {
+        SetValue set = setOf("1", "2");
+        set.add(bytes("apple"));
+        assertFalse(set.isIntSet());
+        assertEquals(Set.of("1", "2", "apple"), new HashSet<>(members(set)));
+        assertTrue(set.contains(bytes("1")));
+        assertTrue(set.containsInteger(2));
+
+        SetValue large = new SetValue();
+        for (int i = 0; i < SetValue.MAX_INTSET_ENTRIES; i++) {
+            large.add(bytes(Integer.toString(i)));
+        }
+        assertTrue(large.isIntSet());
+        large.add(bytes("-1"));
+        assertFalse(large.isIntSet());
+        assertEquals(SetValue.MAX_INTSET_ENTRIES + 1, large.size());
+        assertTrue(large.contains(bytes("511")));
+    }
+
+    @Test
+    void intersectWalksSmallestSetAndHonorsLimit() {
+        SetValue small = setOf("2", "4", "6");
+        SetValue mixed = setOf("1", "2", "3", "4", "6", "x");
+        SetValue ints = setOf("2", "4", "5", "6", "7");
+        List<String> found = new ArrayList<>();
+        assertEquals(3, SetValue.intersect(List.of(mixed, ints, small), 0,
+                member -> found.add(new String(member, UTF_8))));
+        assertEquals(List.of("2", "4", "6"), found);
+        assertEquals(2, SetValue.intersect(List.of(mixed, ints, small), 2, null));
+
+        SetValue words = setOf("a", "b", "c");
+        assertEquals(2, SetValue.intersect(List.of(words, setOf("b", "c", "d")), 0, null));
+        assertEquals(1, SetValue.intersect(List.of(words, setOf("b", "c", "d")), 1, null));
+        assertEquals(0, SetValue.intersect(List.of(words, small), 0, null));
+    }
+
+    @Test
+    void scanReturnsIntSetWholeAndWalksTable() {
+        SetValue ints = setOf("1", "2", "3");
+        List<String> seen = new ArrayList<>();
+        assertEquals(0, ints.scan(0, 1, member -> seen.add(new String(member, UTF_8))));
+        assertEquals(List.of("1", "2", "3"), seen);
+
+        SetValue words = new SetValue();
+        for (int i = 0; i < 100; i++) {
+            words.add(bytes("m" + i));
+        }
+        Set<String> scanned = new HashSet<>();
+        long cursor = 0;
+        do {
+            cursor = words.scan(cursor, 10, member -> scanned.add(new String(member, UTF_8)));
+        } while (cursor != 0);
+        assertEquals(100, scanned.size());
+    }
+}
@@ -0,0 +1,139 @@
+package org.sredi.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.sredi.storage.TestBytes.bytes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SortedSetValueTest {
+
+    private static List<String> members(SortedSetValue zset) {
+        List<String> members = new ArrayList<>();
+        zset.rangeByIndex(0, -1, false, (member, score) -> members.add(new String(member, UTF_8)));
+        return members;
+    }
+
+    private static List<String> byScore(SortedSetValue zset, double min, double max, boolean rev,
+            long offset, long count) {
+        List<String> members = new ArrayList<>();
+        zset.rangeByRange(new SortedSetValue.ScoreRange(min, false, max, false), rev, offset, count,
+                (member, score) -> members.add(new String(member, UTF_8)));
+        return members;
+    }
+
+    @Test
+    void ordersByScoreThenMember() {
+        SortedSetValue zset = new SortedSetValue();
+        assertTrue(zset.put(bytes("b"), 2));
+        assertTrue(zset.put(bytes("a"), 2));
+        assertTrue(zset.put(bytes("c"), 1));
+        assertFalse(zset.put(bytes("c"), 3));
+        assertTrue(zset.isCompact());
+        assertEquals(List.of("a", "b", "c"), members(zset));
+        assertEquals(Double.valueOf(3), zset.score(bytes("c")));
+        assertNull(zset.score(bytes("d")));
+        assertEquals(2, zset.rank(bytes("c")));
+        assertEquals(-1, zset.rank(bytes("d")));
+        assertTrue(zset.remove(bytes("a")));
+        assertFalse(zset.remove(bytes("a")));
+        assertEquals(List.of("b", "c"), members(zset));
+    }
+
+    @Test
+    void rangesByIndexScoreAndLex() {
+        SortedSetValue zset = new SortedSetValue();
+        for (int i = 0; i < 10; i++) {
+            zset.put(bytes("m" + i), i);
+        }
+        List<String> reversed = new ArrayList<>();
+        zset.rangeByIndex(0, 2, true, (member, score) -> reversed.add(new String(member, UTF_8)));
+        zset.rangeByIndex(-3, -1, true, (member, score) -> reversed.add(new String(member, UTF_8)));
+        assertEquals(List.of("m9", "m8", "m7", "m2", "m1", "m0"), reversed);
+        assertEquals(List.of("m3", "m4"), byScore(zset, 2, 6, false, 1, 2));
+        assertEquals(List.of("m5", "m4", "m3", "m2"), byScore(zset, 2, 6, true, 1, -1));
+        assertEquals(List.of(), byScore(zset, 2, 6, false, 5, 1));
+        assertEquals(List.of(), byScore(zset, 20, 30, false, 0, -1));
+
+        SortedSetValue lex = new SortedSetValue();
+        for (String member : new String[] { "a", "b", "c", "d" }) {
+            lex.put(bytes(member), 0);
+        }
+        List<String> found = new ArrayList<>();
+        lex.rangeByRange(new SortedSetValue.LexRange(bytes("b"), true, SortedSetValue.LexRange.PLUS, false),
+                false, 0, -1, (member, score) -> found.add(new String(member, UTF_8)));
+        assertEquals(List.of("c", "d"), found);
+    }
+
+    @Test
+    void convertsToSkipListForLongMembersAndLargeSets() {
+        SortedSetValue zset = new SortedSetValue();
+        zset.put(bytes("short"), 1);
+        zset.put(bytes("x".repeat(SortedSetValue.MAX_COMPACT_MEMBER + 1)), 2);
+        assertFalse(zset.isCompact());
+        assertEquals(2, zset.size());
+        assertEquals(1, zset.rank(bytes("x".repeat(SortedSetValue.MAX_COMPACT_MEMBER + 1))));
+
+        SortedSetValue large = new SortedSetValue();
+        for (int i = 0; i < SortedSetValue.MAX_COMPACT_ENTRIES; i++) {
+            large.put(bytes("m" + i), i);
+        }
+        assertTrue(large.isCompact());
+        // updating an existing member does not convert
+        large.put(bytes("m0"), -1);
+        assertTrue(large.isCompact());
+        large.put(bytes("extra"), 0.5);
+        assertFalse(large.isCompact());
+        assertEquals(SortedSetValue.MAX_COMPACT_ENTRIES + 1, large.size());
+        assertEquals(1, large.rank(bytes("extra")));
+    }
+
+    // Random puts, score updates and removes against a simple model, on both encodings
+    @Test
+    void skipListMatchesModel() {
+        Random random = new Random(7);
+        SortedSetValue zset = new SortedSetValue();
+        Map<String, Double> model = new HashMap<>();
+        for (int op = 0; op < 20_000; op++) {
+            String member = "m" + random.nextInt(600);
+            if (random.nextInt(4) == 0) {
+                assertEquals(model.remove(member) != null, zset.remove(bytes(member)));
+            } else {
+                double score = random.nextInt(200);
+                assertEquals(!model.containsKey(member), zset.put(bytes(member), score));
+                model.put(member, score);
+            }
+        }
+        assertFalse(zset.isCompact());
+        List<String> expected = new ArrayList<>(model.keySet());
+        expected.sort((a, b) -> SortedSetValue.compare(model.get(a), bytes(a), model.get(b), bytes(b)));
+        assertEquals(expected, members(zset));
+        for (int i = 0; i < expected.size(); i += 37) {
+            assertEquals(i, zset.rank(bytes(expected.get(i))));
+        }
+        List<String> expectedRange = new ArrayList<>();
+        for (String member : expected) {
+            double score = model.get(member);
+            if (score >= 50 && score <= 60) {
+                expectedRange.add(member);
+            }
+        }
+        assertEquals(expectedRange.subList(3, 8), byScore(zset, 50, 60, false, 3, 5));
+    }
+
+    @Test
+    void formatsScoresLikeRedis() {
+        assertEquals("1", SortedSetValue.formatScore(1.0));
+        assertEquals("-2.5", SortedSetValue.formatScore(-2.5));
+        assertEquals("inf", SortedSetValue.formatScore(Double.POSITIVE_INFINITY));
+        assertEquals("-inf", SortedSetValue.formatScore(Double.NEGATIVE_INFINITY));
+        assertEquals("1e+20", SortedSetValue.formatScore(1e20));
+        assertEquals("1.5e-7", SortedSetValue.formatScore(1.5e-7));
+    }
+}
@@ -0,0 +1,58 @@
+package org.sredi.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class StripedLockTest {
+
+    // Two keys on different stripes
+    private static List<String> keysOnTwoStripes() {
+        String first = "a";
+        for (int i = 0; ; i++) {
+            String second = "b" + i;
+            if (Math.abs(second.hashCode() % 16) != Math.abs(first.hashCode() % 16)) {
+                return List.of(first, second);
+            }
+        }
+    }
+
+    @Test
+    void opposingKeyOrdersDoNotDeadlock() throws InterruptedException {
+        StripedLock lock = new StripedLock();
+        List<String> forward = keysOnTwoStripes();
+        List<String> backward = List.of(forward.get(1), forward.get(0));
+        int rounds = 10_000;
+        CountDownLatch done = new CountDownLatch(2);
+        List<Thread> threads = new ArrayList<>();
+        for (List<String> keys : List.of(forward, backward)) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    lock.lockAll(keys, true);
+                    lock.unlockAll(keys, true);
+                }
+                done.countDown();
+            });
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+        threads.forEach(Thread::start);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void keysSharingAStripeLockItOnce() {
+        StripedLock lock = new StripedLock();
+        List<String> keys = List.of("k", "k");
+        lock.lockAll(keys, true);
+        lock.unlockAll(keys, true);
+        // would block if the stripe were still held
+        lock.writeLock("k");
+        lock.writeUnlock("k");
+    }
+}
@@ -0,0 +1,14 @@
+package org.sredi.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Shared by the storage tests, whose values and members are byte arrays
+final class TestBytes {
+
+    private TestBytes() {
+    }
+
+    static byte[] bytes(String s) {
+        return s.getBytes(UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package org.sredi.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TopKTest {
+
+    @Test
+    void findsHeavyHittersInSkewedStream() {
+        TopK topK = new TopK(5, 1000, 5, 0.9);
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            // hot-0..hot-4 take half of the traffic, spread over 50k cold keys otherwise
+            String item = random.nextBoolean() ? "hot-" + random.nextInt(5) : "cold-" + random.nextInt(50_000);
+            topK.add(item, 1);
+        }
+        List<String> top = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : topK.list()) {
+            top.add(entry.getKey());
+            assertTrue(entry.getValue() > 15_000, entry.toString());
+        }
+        assertEquals(5, top.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(top.contains("hot-" + i), top.toString());
+            assertTrue(topK.contains("hot-" + i));
+        }
+        assertFalse(topK.contains("cold-1"));
+    }
+
+    @Test
+    void listIsSortedAndReportsExpelledItems() {
+        TopK topK = new TopK(2, 50, 3, 0.9);
+        assertNull(topK.add("a", 5));
+        assertNull(topK.add("b", 3));
+        assertEquals("b", topK.add("c", 10));
+        List<Map.Entry<String, Long>> list = topK.list();
+        assertEquals("c", list.get(0).getKey());
+        assertEquals(10, list.get(0).getValue().longValue());
+        assertEquals("a", list.get(1).getKey());
+        assertNull(topK.add("a", 1));
+        assertEquals(6, topK.list().get(1).getValue().longValue());
+    }
+
+    @Test
+    void identicalStreamsGiveIdenticalResults() {
+        TopK first = new TopK(10, 20, 3, 0.9);
+        TopK second = new TopK(10, 20, 3, 0.9);
+        Random random = new Random(5);
+        for (int i = 0; i < 20_000; i++) {
+            String item = "k" + random.nextInt(500);
+            assertEquals(first.add(item, 1), second.add(item, 1));
+        }
+        assertEquals(first.list(), second.list());
+    }
+}
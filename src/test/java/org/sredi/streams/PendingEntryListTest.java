@@ -0,0 +1,78 @@
+package org.sredi.streams;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.sredi.streams.PendingEntryList.PendingEntry;
+
+class PendingEntryListTest {
+
+    private final Consumer alice = new Consumer("alice", 0L);
+    private final Consumer bob = new Consumer("bob", 0L);
+
+    @Test
+    void putGetRemoveAndReplace() {
+        PendingEntryList pel = new PendingEntryList();
+        pel.put(StreamId.of(1, 0), alice, 100L, 1);
+        pel.put(StreamId.of(2, 0), bob, 200L, 1);
+
+        pel.put(StreamId.of(1, 0), bob, 300L, 2);
+        assertEquals(2, pel.size());
+        assertEquals(new PendingEntry(StreamId.of(1, 0), bob, 300L, 2), pel.get(StreamId.of(1, 0)));
+
+        assertNotNull(pel.remove(StreamId.of(1, 0)));
+        assertNull(pel.remove(StreamId.of(1, 0)));
+        assertNull(pel.get(StreamId.of(3, 0)));
+        assertEquals(StreamId.of(2, 0), pel.first());
+        assertEquals(StreamId.of(2, 0), pel.last());
+    }
+
+    @Test
+    void appendsSpillIntoNewChunksAndRangeSpansThem() {
+        PendingEntryList pel = new PendingEntryList();
+        for (int i = 1; i <= 1000; i++) {
+            pel.put(StreamId.of(i, 0), alice, i, 1);
+        }
+        assertTrue(pel.getChunkCount() > 1);
+
+        List<PendingEntry> range = pel.range(StreamId.of(250, 0), StreamId.of(260, 0), 5);
+        assertEquals(5, range.size());
+        assertEquals(StreamId.of(250, 0), range.get(0).id());
+
+        List<PendingEntry> idle = pel.range(StreamId.MIN_ID, StreamId.MAX_ID, 3, e -> e.deliveryTime() > 998);
+        assertEquals(List.of(StreamId.of(999, 0), StreamId.of(1000, 0)),
+                idle.stream().map(PendingEntry::id).toList());
+    }
+
+    @Test
+    void matchesTreeMapUnderRandomOperations() {
+        Random random = new Random(11);
+        PendingEntryList pel = new PendingEntryList();
+        TreeMap<StreamId, PendingEntry> model = new TreeMap<>();
+        for (int op = 0; op < 50000; op++) {
+            StreamId id = StreamId.of(random.nextInt(5000), random.nextInt(3));
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    Consumer owner = random.nextBoolean() ? alice : bob;
+                    pel.put(id, owner, op, op % 7);
+                    model.put(id, new PendingEntry(id, owner, op, op % 7));
+                }
+                case 2 -> assertEquals(model.remove(id), pel.remove(id));
+                default -> assertEquals(model.get(id), pel.get(id));
+            }
+            assertEquals(model.size(), pel.size());
+        }
+        List<PendingEntry> expected = new ArrayList<>(model.values());
+        assertEquals(expected, pel.range(StreamId.MIN_ID, StreamId.MAX_ID, Integer.MAX_VALUE));
+
+        Map.Entry<StreamId, PendingEntry> first = model.firstEntry();
+        assertEquals(first.getKey(), pel.first());
+        assertEquals(model.lastKey(), pel.last());
+    }
+}
@@ -0,0 +1,219 @@
+package org.sredi.streams;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sredi.resp.RespBulkString;
+import org.sredi.resp.RespValue;
+
+class StreamDataTest {
+
+    private final Clock clock = Clock.fixed(Instant.ofEpochMilli(1000L), ZoneId.of("UTC"));
+
+    @TempDir
+    Path dir;
+
+    private static RespValue[] fields(String... pairs) {
+        RespValue[] values = new RespValue[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            values[i] = new RespBulkString(pairs[i].getBytes());
+        }
+        return values;
+    }
+
+    @Test
+    void entriesRoundTripWithSharedAndDistinctFields() throws IllegalStreamItemIdException {
+        StreamData stream = new StreamData("s");
+        stream.add("5-1", clock, fields("temp", "20", "unit", "C"));
+        stream.add("5-2", clock, fields("temp", "21", "unit", "C"));
+        stream.add("9-0", clock, fields("other", "x"));
+
+        assertArrayEquals(fields("temp", "21", "unit", "C"), stream.getData(StreamId.of(5, 2)));
+        assertArrayEquals(fields("other", "x"), stream.getData(StreamId.of(9, 0)));
+        assertNull(stream.getData(StreamId.of(5, 3)));
+        assertEquals(List.of(StreamId.of(5, 2), StreamId.of(9, 0)),
+                stream.queryRange("5-2", "+").stream().map(StreamValue::itemId).toList());
+    }
+
+    @Test
+    void readsSpanBlocksInOrder() throws IllegalStreamItemIdException {
+        StreamData stream = new StreamData("s");
+        List<StreamId> ids = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            ids.add(stream.add(i + "-*", clock, fields("seq", Integer.toString(i))));
+        }
+        assertTrue(stream.getBlockCount() > 1);
+        assertEquals(1000, stream.size());
+        assertEquals(StreamId.of(1000, 0), stream.getLastId());
+
+        List<StreamValue> next = stream.readNextValues(3, StreamId.of(100, 0));
+        assertEquals(ids.subList(100, 103), next.stream().map(StreamValue::itemId).toList());
+        assertArrayEquals(fields("seq", "101"), next.get(0).values());
+
+        List<StreamValue> range = stream.queryRange("-", "+");
+        assertEquals(ids, range.stream().map(StreamValue::itemId).toList());
+        assertEquals(List.of(), stream.readNextValues(10, StreamId.of(1000, 0)));
+    }
+
+    @Test
+    void packedEntriesAreSmallerThanTheirRawFields() throws IllegalStreamItemIdException {
+        StreamData stream = new StreamData("s");
+        long rawBytes = 0;
+        for (int i = 0; i < 500; i++) {
+            RespValue[] values = fields("sensor", "s" + (i % 4), "reading", Integer.toString(i));
+            for (RespValue value : values) {
+                rawBytes += value.asBulkString().getValue().length;
+            }
+            stream.add("*", Clock.fixed(Instant.ofEpochMilli(1000L + i), ZoneId.of("UTC")), values);
+        }
+        // field names are stored once per block and IDs as small deltas
+        assertTrue(stream.getEncodedBytes() < rawBytes, stream.getEncodedBytes() + " >= " + rawBytes);
+    }
+
+    @Test
+    void exactMaxLenTrimsInsideTheHeadBlock() throws IllegalStreamItemIdException {
+        StreamData stream = new StreamData("s");
+        for (int i = 1; i <= 250; i++) {
+            stream.add(i + "-0", clock, fields("seq", Integer.toString(i)));
+        }
+        assertEquals(240, stream.trim(TrimOptions.maxLen(10, false, Long.MAX_VALUE)));
+        assertEquals(10, stream.size());
+        assertEquals(StreamId.of(241, 0), stream.queryRange("-", "+").get(0).itemId());
+        assertNull(stream.getData(StreamId.of(240, 0)));
+        assertArrayEquals(fields("seq", "241"), stream.getData(StreamId.of(241, 0)));
+
+        stream.add("*", Clock.fixed(Instant.ofEpochMilli(300L), ZoneId.of("UTC")), fields("seq", "x"));
+        assertEquals(11, stream.size());
+    }
+
+    @Test
+    void approximateTrimDropsWholeBlocksOnly() throws IllegalStreamItemIdException {
+        StreamData stream = new StreamData("s");
+        for (int i = 1; i <= 250; i++) {
+            stream.add(i + "-0", clock, fields("seq", Integer.toString(i)));
+        }
+        int blocks = stream.getBlockCount();
+        TrimOptions approximate = TrimOptions.maxLen(10, true, TrimOptions.DEFAULT_APPROXIMATE_LIMIT);
+        long removed = stream.trim(approximate);
+
+        assertEquals(0, removed % StreamBlock.MAX_ENTRIES);
+        assertTrue(stream.size() >= 10 && stream.size() < 10 + StreamBlock.MAX_ENTRIES);
+        assertEquals(blocks - removed / StreamBlock.MAX_ENTRIES, stream.getBlockCount());
+
+        TrimOptions exact = stream.asExactTrim(approximate);
+        assertEquals(TrimOptions.minId(stream.queryRange("-", "+").get(0).itemId(), false, 0), exact);
+        assertEquals(0, stream.trim(exact));
+    }
+
+    @Test
+    void minIdTrimDropsOlderEntries() throws IllegalStreamItemIdException {
+        StreamData stream = new StreamData("s");
+        for (int i = 1; i <= 150; i++) {
+            stream.add(i + "-0", clock, fields("seq", Integer.toString(i)));
+        }
+        assertEquals(119, stream.trim(TrimOptions.minId(StreamId.of(120, 0), false, Long.MAX_VALUE)));
+        assertEquals(StreamId.of(120, 0), stream.queryRange("-", "+").get(0).itemId());
+        assertEquals(0, stream.trim(TrimOptions.minId(StreamId.of(1, 0), false, Long.MAX_VALUE)));
+
+        assertEquals(31, stream.trim(TrimOptions.maxLen(0, false, Long.MAX_VALUE)));
+        assertEquals(0, stream.size());
+        assertEquals(StreamId.of(150, 0), stream.getLastId());
+    }
+
+    @Test
+    void coldBlocksSpillToSegmentsAndReadBack() throws IllegalStreamItemIdException, IOException {
+        StreamData stream = new StreamData("s", new StreamSegmentStore(dir, 2, 3));
+        List<StreamId> ids = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            ids.add(stream.add(i + "-*", clock, fields("seq", Integer.toString(i))));
+        }
+        // ten blocks: the tail and at least two hot blocks stay on the heap
+        assertEquals(2, stream.getSegmentCount());
+        assertEquals(4, stream.getBlockCount());
+        assertEquals(1000, stream.size());
+        assertTrue(stream.getSegmentBytes() > 0);
+
+        assertEquals(ids, stream.queryRange("-", "+").stream().map(StreamValue::itemId).toList());
+        assertEquals(ids.subList(249, 252),
+                stream.readNextValues(3, StreamId.of(249, 0)).stream().map(StreamValue::itemId).toList());
+        assertArrayEquals(fields("seq", "450"), stream.getData(StreamId.of(450, 0)));
+        assertArrayEquals(fields("seq", "950"), stream.getData(StreamId.of(950, 0)));
+    }
+
+    @Test
+    void trimmingDeletesWholeSegments() throws IllegalStreamItemIdException, IOException {
+        StreamSegmentStore store = new StreamSegmentStore(dir, 2, 3);
+        StreamData stream = new StreamData("s", store);
+        for (int i = 1; i <= 1000; i++) {
+            stream.add(i + "-0", clock, fields("seq", Integer.toString(i)));
+        }
+        Path segmentDir = store.getDirectory();
+        assertEquals(2, Files.list(segmentDir).count());
+
+        // exact trims inside the first segment move its first live ID
+        assertEquals(150, stream.trim(TrimOptions.maxLen(850, false, Long.MAX_VALUE)));
+        assertEquals(StreamId.of(151, 0), stream.queryRange("-", "+").get(0).itemId());
+        assertNull(stream.getData(StreamId.of(150, 0)));
+        assertEquals(49, stream.trim(TrimOptions.minId(StreamId.of(200, 0), false, Long.MAX_VALUE)));
+
+        // ~ only removes whole segments
+        assertEquals(101, stream.trim(TrimOptions.minId(StreamId.of(350, 0), true, Long.MAX_VALUE)));
+        assertEquals(1, Files.list(segmentDir).count());
+        assertEquals(TrimOptions.minId(StreamId.of(301, 0), false, 0),
+                stream.asExactTrim(TrimOptions.minId(StreamId.of(350, 0), true, Long.MAX_VALUE)));
+
+        stream.close();
+        assertEquals(0, Files.list(segmentDir).count());
+    }
+
+    @Test
+    void rangesCountAndVisitBothWaysAcrossSegmentsAndBlocks() throws IllegalStreamItemIdException, IOException {
+        StreamData stream = new StreamData("s", new StreamSegmentStore(dir, 2, 3));
+        for (int i = 1; i <= 1000; i++) {
+            stream.add(i + "-0", clock, fields("seq", Integer.toString(i)));
+        }
+        stream.trim(TrimOptions.maxLen(950, false, Long.MAX_VALUE));
+
+        assertEquals(950, stream.countRange(StreamId.MIN_ID, StreamId.MAX_ID));
+        assertEquals(101, stream.countRange(StreamId.of(250, 0), StreamId.of(350, 0)));
+        assertEquals(0, stream.countRange(StreamId.of(350, 0), StreamId.of(250, 0)));
+
+        List<StreamId> reversed = new ArrayList<>();
+        stream.visitRange(StreamId.MIN_ID, StreamId.of(620, 0), true, value -> reversed.add(value.itemId()));
+        assertEquals(570, reversed.size());
+        assertEquals(StreamId.of(620, 0), reversed.get(0));
+        assertEquals(StreamId.of(51, 0), reversed.get(reversed.size() - 1));
+
+        List<StreamId> forward = new ArrayList<>();
+        stream.visitRange(StreamId.of(295, 0), StreamId.MAX_ID, false, value -> forward.add(value.itemId()) && forward.size() < 10);
+        assertEquals(StreamId.of(304, 0), forward.get(9));
+    }
+
+    @Test
+    void storesSharingADirectoryKeepSeparateFiles() throws IllegalStreamItemIdException, IOException {
+        StreamSegmentStore first = new StreamSegmentStore(dir, 2, 3);
+        StreamSegmentStore second = new StreamSegmentStore(dir, 2, 3);
+        assertNotEquals(first.getDirectory(), second.getDirectory());
+
+        StreamData stream = new StreamData("s", first);
+        for (int i = 1; i <= 1000; i++) {
+            stream.add(i + "-0", clock, fields("seq", Integer.toString(i)));
+        }
+        second.close();
+        assertEquals(2, Files.list(first.getDirectory()).count());
+        assertArrayEquals(fields("seq", "1"), stream.getData(StreamId.of(1, 0)));
+
+        first.close();
+        assertFalse(Files.exists(first.getDirectory()));
+    }
+}